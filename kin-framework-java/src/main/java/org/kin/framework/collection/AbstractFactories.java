@@ -13,8 +13,8 @@ import java.util.*;
  * @date 2021/12/25
  */
 public abstract class AbstractFactories<F extends Factory> {
-    /** key -> 工厂创建的实例类型, value -> 工厂实例 */
-    private volatile Map<Class<?>, F> factories = Collections.emptyMap();
+    /** 已注册的工厂及其解析缓存, 注册新工厂时整体替换 */
+    private volatile Registry<F> registry = new Registry<>(Collections.emptyMap());
     /** 工厂接口 */
     private final Class<F> factoryType;
 
@@ -26,12 +26,26 @@ public abstract class AbstractFactories<F extends Factory> {
     }
 
     /**
-     * 根据类型获取工厂
+     * 根据类型获取工厂, 解析结果(包括找不到)按类型缓存, 故warm up后仅需一次map查找
      */
     public final F getFactory(Class<?> type) {
         if (Objects.isNull(type)) {
             throw new IllegalArgumentException("type is null!");
         }
+        //同一个registry内解析和缓存, 防止注册新工厂时缓存了旧结果
+        Optional<F> ret = registry.resolved.get(type);
+        if (!ret.isPresent()) {
+            throw new IllegalArgumentException(String.format("can't not find factory for type '%s'", type.getCanonicalName()));
+        }
+        return ret.get();
+    }
+
+    /**
+     * 遍历{@code type}所有父类和实现接口, 寻找匹配的工厂
+     *
+     * @return 找不到则返回null
+     */
+    private static <F> F resolve(Map<Class<?>, F> factories, Class<?> type) {
         // 这里之所以要遍历该类所有父类和实现接口, 因为在处理动态类型(Object)时, 有可能实例是一些不在访问范围内(private)的Collection或Map实现,
         // 比如java.util.Arrays$ArrayList, 可以正常write, 但我们无法反序列成java.util.Arrays$ArrayList,
         // 不过, 我们可以序列化成java.util.ArrayList, 只要内容一致即可
@@ -51,7 +65,7 @@ public abstract class AbstractFactories<F extends Factory> {
                 }
             }
         }
-        throw new IllegalArgumentException(String.format("can't not find factory for type '%s'", type.getCanonicalName()));
+        return null;
     }
 
     /**
@@ -79,8 +93,31 @@ public abstract class AbstractFactories<F extends Factory> {
         if (CollectionUtils.isEmpty(newFactories)) {
             return;
         }
-        Map<Class<?>, F> factories = new HashMap<>(this.factories);
+        Map<Class<?>, F> factories = new HashMap<>(this.registry.factories);
         factories.putAll(newFactories);
-        this.factories = factories;
+        //解析缓存随之失效
+        this.registry = new Registry<>(factories);
+    }
+
+    /**
+     * 已注册的工厂及其解析缓存
+     */
+    private static final class Registry<F> {
+        /** key -> 工厂创建的实例类型, value -> 工厂实例 */
+        private final Map<Class<?>, F> factories;
+        /**
+         * 需要解析的类型 -> 解析到的工厂, empty表示找不到
+         * 基于{@link ClassValue}, 缓存随类型卸载而回收, 不会阻止其classloader被回收
+         */
+        private final ClassValue<Optional<F>> resolved = new ClassValue<Optional<F>>() {
+            @Override
+            protected Optional<F> computeValue(Class<?> type) {
+                return Optional.ofNullable(resolve(factories, type));
+            }
+        };
+
+        private Registry(Map<Class<?>, F> factories) {
+            this.factories = factories;
+        }
     }
 }
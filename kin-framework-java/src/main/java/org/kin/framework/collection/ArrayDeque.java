@@ -1,20 +1,32 @@
 package org.kin.framework.collection;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.*;
 
 /**
- * Extend array list to add peek/poll first/last element.
+ * A double-ended list backed by a power-of-two ring buffer, with peek/poll first/last element.
  * <p>
- * 基于{@link ArrayList}实现的双向数组
+ * 基于容量为2的n次方的环形数组实现的双向队列, 继承{@link AbstractList}, 支持随机访问
+ * head和tail的add/poll, 以及{@link #get(int)}, {@link #set(int, Object)}均为O(1)
+ * 中间位置的add/remove则移动较短的一侧
+ * <p>
+ * 序列化格式为size以及从head到tail按顺序的elements, 与旧版本(基于{@link ArrayList})的序列化格式不兼容
  * <p>
  * Forked from <a href="https://github.com/sofastack/sofa-jraft">SOFAJRaft</a>.
  *
  * @author huangjianqin
  * @date 2021/11/5
  */
-public class ArrayDeque<E> extends ArrayList<E> {
-    private static final long serialVersionUID = -7562494378488599756L;
+public class ArrayDeque<E> extends AbstractList<E> implements RandomAccess, Serializable {
+    private static final long serialVersionUID = 4176482311927535640L;
+    /** 默认容量 */
+    private static final int DEFAULT_CAPACITY = 16;
+    /** 最大容量 */
+    private static final int MAX_CAPACITY = 1 << 30;
 
     /**
      * Get the first element of list.
@@ -52,40 +64,286 @@ public class ArrayDeque<E> extends ArrayList<E> {
         return list.remove(list.size() - 1);
     }
 
+    /** 环形数组, 长度为2的n次方 */
+    private transient Object[] elements;
+    /** head element在{@link #elements}的位置 */
+    private transient int head;
+    /** 当前大小 */
+    private transient int size;
+
+    public ArrayDeque() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ArrayDeque(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("illegal capacity: " + initialCapacity);
+        }
+        elements = new Object[tableSizeFor(initialCapacity)];
+    }
+
+    public ArrayDeque(Collection<? extends E> c) {
+        this(c.size());
+        addAll(c);
+    }
+
+    /**
+     * 返回大于等于{@code capacity}的2的n次方
+     */
+    private static int tableSizeFor(int capacity) {
+        if (capacity <= DEFAULT_CAPACITY) {
+            return DEFAULT_CAPACITY;
+        }
+        if (capacity >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * 逻辑index转换为{@link #elements}的位置
+     */
+    private int physicalIndex(int index) {
+        return (head + index) & (elements.length - 1);
+    }
+
+    /**
+     * 检查index范围, [0, size)
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    /**
+     * 确保至少能容纳{@code minCapacity}个element, 扩容时head重新对齐到0
+     */
+    private void ensureCapacity(int minCapacity) {
+        int oldCapacity = elements.length;
+        if (minCapacity <= oldCapacity) {
+            return;
+        }
+        if (oldCapacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("deque too big");
+        }
+        Object[] newElements = new Object[tableSizeFor(Math.max(minCapacity, oldCapacity << 1))];
+        copyTo(newElements);
+        elements = newElements;
+        head = 0;
+    }
+
+    /**
+     * 按逻辑顺序复制全部element到{@code dest}
+     */
+    private void copyTo(Object[] dest) {
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, dest, 0, firstPart);
+        System.arraycopy(elements, 0, dest, firstPart, size - firstPart);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int physicalIndex) {
+        return (E) elements[physicalIndex];
+    }
+
+    /**
+     * add element to head
+     */
+    public void addFirst(E e) {
+        ensureCapacity(size + 1);
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = e;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * add element to tail
+     */
+    public void addLast(E e) {
+        ensureCapacity(size + 1);
+        elements[physicalIndex(size)] = e;
+        size++;
+        modCount++;
+    }
+
     /**
      * Get the first element of list.
      * <p>
      * 取head element
+     *
+     * @throws IndexOutOfBoundsException deque为空
      */
     public E peekFirst() {
-        return peekFirst(this);
+        return get(0);
     }
 
     /**
      * Get the last element of list.
      * <p>
      * 取tail element
+     *
+     * @throws IndexOutOfBoundsException deque为空
      */
     public E peekLast() {
-        return peekLast(this);
+        return get(size - 1);
     }
 
     /**
      * Remove the first element from list and return it.
      * <p>
      * 移除head element
+     *
+     * @throws IndexOutOfBoundsException deque为空
      */
     public E pollFirst() {
-        return pollFirst(this);
+        checkIndex(0);
+        E e = elementAt(head);
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        modCount++;
+        return e;
     }
 
     /**
      * Remove the last element from list and return it.
      * <p>
      * 移除tail element
+     *
+     * @throws IndexOutOfBoundsException deque为空
      */
     public E pollLast() {
-        return pollLast(this);
+        checkIndex(size - 1);
+        int tail = physicalIndex(size - 1);
+        E e = elementAt(tail);
+        elements[tail] = null;
+        size--;
+        modCount++;
+        return e;
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index);
+        return elementAt(physicalIndex(index));
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkIndex(index);
+        int i = physicalIndex(index);
+        E old = elementAt(i);
+        elements[i] = element;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+        if (index == 0) {
+            addFirst(element);
+            return;
+        }
+        if (index == size) {
+            addLast(element);
+            return;
+        }
+
+        ensureCapacity(size + 1);
+        int mask = elements.length - 1;
+        if (index < (size >> 1)) {
+            //前半部分左移一位
+            head = (head - 1) & mask;
+            for (int i = 0; i < index; i++) {
+                elements[(head + i) & mask] = elements[(head + i + 1) & mask];
+            }
+        } else {
+            //后半部分右移一位
+            for (int i = size; i > index; i--) {
+                elements[(head + i) & mask] = elements[(head + i - 1) & mask];
+            }
+        }
+        elements[physicalIndex(index)] = element;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        checkIndex(index);
+        if (index == 0) {
+            return pollFirst();
+        }
+        if (index == size - 1) {
+            return pollLast();
+        }
+
+        int mask = elements.length - 1;
+        E e = elementAt(physicalIndex(index));
+        if (index < (size >> 1)) {
+            //前半部分右移一位
+            for (int i = index; i > 0; i--) {
+                elements[(head + i) & mask] = elements[(head + i - 1) & mask];
+            }
+            elements[head] = null;
+            head = (head + 1) & mask;
+        } else {
+            //后半部分左移一位
+            for (int i = index; i < size - 1; i++) {
+                elements[(head + i) & mask] = elements[(head + i + 1) & mask];
+            }
+            elements[physicalIndex(size - 1)] = null;
+        }
+        size--;
+        modCount++;
+        return e;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        //先复制, 避免c为当前deque或者其视图时, 边遍历边写入
+        Object[] src = c.toArray();
+        int num = src.length;
+        if (num == 0) {
+            return false;
+        }
+        ensureCapacity(size + num);
+        int tail = physicalIndex(size);
+        int firstPart = Math.min(num, elements.length - tail);
+        System.arraycopy(src, 0, elements, tail, firstPart);
+        System.arraycopy(src, firstPart, elements, 0, num - firstPart);
+        size += num;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            elements[physicalIndex(i)] = null;
+        }
+        head = size = 0;
+        modCount++;
     }
 
     /**
@@ -99,6 +357,7 @@ public class ArrayDeque<E> extends ArrayList<E> {
      * (If {@code toIndex==fromIndex}, this operation has no effect.)
      * <p>
      * 移除[fromIndex, toIndex)的elements, 这里verride, 是因为不想使用subList
+     * 移动较短的一侧, 从head或者tail开始移除时, 仅需清空被移除的位置
      *
      * @throws IndexOutOfBoundsException if {@code fromIndex} or
      *                                   {@code toIndex} is out of range
@@ -109,6 +368,67 @@ public class ArrayDeque<E> extends ArrayList<E> {
      */
     @Override
     public void removeRange(int fromIndex, int toIndex) {
-        super.removeRange(fromIndex, toIndex);
+        if (fromIndex < 0 || toIndex > size || toIndex < fromIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + size);
+        }
+        int removed = toIndex - fromIndex;
+        if (removed == 0) {
+            return;
+        }
+
+        int mask = elements.length - 1;
+        int tailNum = size - toIndex;
+        if (fromIndex <= tailNum) {
+            //前面的element右移
+            for (int i = fromIndex - 1; i >= 0; i--) {
+                elements[(head + i + removed) & mask] = elements[(head + i) & mask];
+            }
+            for (int i = 0; i < removed; i++) {
+                elements[(head + i) & mask] = null;
+            }
+            head = (head + removed) & mask;
+        } else {
+            //后面的element左移
+            for (int i = toIndex; i < size; i++) {
+                elements[(head + i - removed) & mask] = elements[(head + i) & mask];
+            }
+            for (int i = size - removed; i < size; i++) {
+                elements[(head + i) & mask] = null;
+            }
+        }
+        size -= removed;
+        modCount++;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] ret = new Object[size];
+        copyTo(ret);
+        return ret;
+    }
+
+    /**
+     * 写入size和按顺序的elements, 不写入空闲位置
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeObject(elements[physicalIndex(i)]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int size = in.readInt();
+        if (size < 0) {
+            throw new InvalidObjectException("illegal size: " + size);
+        }
+        elements = new Object[tableSizeFor(size)];
+        for (int i = 0; i < size; i++) {
+            elements[i] = in.readObject();
+        }
+        this.head = 0;
+        this.size = size;
     }
-}
\ No newline at end of file
+}
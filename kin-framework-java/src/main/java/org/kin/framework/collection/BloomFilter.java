@@ -0,0 +1,288 @@
+package org.kin.framework.collection;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.Closeable;
+import org.kin.framework.io.Input;
+import org.kin.framework.io.Output;
+import org.kin.framework.utils.MurmurHash3;
+
+/**
+ * 线程安全的bloom filter, 可用于负查询缓存, 即快速判断key一定不存在
+ * 基于{@link MurmurHash3#hash128(byte[])}的两个64位hash值, 以h1 + i * h2模拟k个hash函数
+ * 位数组按long分段, 每个long独立CAS, 并发put之间仅在命中同一long时竞争
+ * <p>
+ * 支持堆外存储, 此时需调用{@link #close()}释放内存
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class BloomFilter implements Closeable {
+    /** 序列化格式版本 */
+    static final byte VERSION = 1;
+    /** 序列化类型标识, 防止误将其他类型的数据读取为当前类型 */
+    static final byte TYPE_BLOOM_FILTER = 'B';
+    static final byte TYPE_COUNTING_BLOOM_FILTER = 'C';
+    static final byte TYPE_COUNT_MIN_SKETCH = 'S';
+
+    /** 位数组 */
+    private final ConcurrentLongArray bits;
+    /** 位数, 64的倍数 */
+    private final long bitSize;
+    /** hash函数数量 */
+    private final int numHashFunctions;
+
+    private BloomFilter(ConcurrentLongArray bits, int numHashFunctions) {
+        this.bits = bits;
+        this.bitSize = (long) bits.length() << 6;
+        this.numHashFunctions = numHashFunctions;
+    }
+
+    /**
+     * 创建堆内bloom filter
+     *
+     * @param expectedInsertions 预计插入元素数量
+     * @param fpp                期望误判率, (0, 1)
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        return create(expectedInsertions, fpp, false);
+    }
+
+    /**
+     * 创建bloom filter
+     *
+     * @param expectedInsertions 预计插入元素数量
+     * @param fpp                期望误判率, (0, 1)
+     * @param offHeap            是否使用堆外内存
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp, boolean offHeap) {
+        Preconditions.checkArgument(expectedInsertions > 0, "expectedInsertions must be greater than 0");
+        Preconditions.checkArgument(fpp > 0.0 && fpp < 1.0, "fpp must be in (0, 1)");
+        long numBits = optimalNumOfBits(expectedInsertions, fpp);
+        int numHashFunctions = optimalNumOfHashFunctions(expectedInsertions, numBits);
+        return new BloomFilter(ConcurrentLongArray.create(longs(numBits), offHeap), numHashFunctions);
+    }
+
+    /**
+     * 从{@code input}读取{@link #writeTo(Output)}写入的堆内bloom filter
+     */
+    public static BloomFilter readFrom(Input input) {
+        return readFrom(input, false);
+    }
+
+    /**
+     * 从{@code input}读取{@link #writeTo(Output)}写入的bloom filter
+     *
+     * @param offHeap 是否使用堆外内存
+     */
+    public static BloomFilter readFrom(Input input, boolean offHeap) {
+        readHeader(input, TYPE_BLOOM_FILTER);
+        int numHashFunctions = input.readVarInt32();
+        if (numHashFunctions <= 0) {
+            throw new IllegalStateException("encountered a malformed numHashFunctions: " + numHashFunctions);
+        }
+        return new BloomFilter(ConcurrentLongArray.readFrom(input, offHeap), numHashFunctions);
+    }
+
+    /**
+     * 最优位数, m = -n * ln(p) / (ln2)^2
+     */
+    static long optimalNumOfBits(long n, double p) {
+        return (long) (-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+    }
+
+    /**
+     * 最优hash函数数量, k = m / n * ln2
+     */
+    static int optimalNumOfHashFunctions(long n, long m) {
+        return Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+
+    /**
+     * 存储{@code numBits}位所需long数量
+     */
+    static int longs(long numBits) {
+        long longs = Math.max(1, (numBits + 63) >>> 6);
+        Preconditions.checkArgument(longs <= Integer.MAX_VALUE, "bloom filter too big, bits: " + numBits);
+        return (int) longs;
+    }
+
+    /**
+     * 写入序列化类型标识和格式版本
+     */
+    static void writeHeader(Output output, byte type) {
+        output.writeByte(type);
+        output.writeByte(VERSION);
+    }
+
+    /**
+     * 读取并检查序列化类型标识和格式版本
+     */
+    static void readHeader(Input input, byte type) {
+        byte actualType = input.readByte();
+        if (actualType != type) {
+            throw new IllegalStateException(String.format("unexpected type: '%c', expect: '%c'", (char) actualType, (char) type));
+        }
+        byte version = input.readByte();
+        if (version != VERSION) {
+            throw new IllegalStateException("unsupported version: " + version);
+        }
+    }
+
+    /**
+     * long转换为8字节后的{@link MurmurHash3#hash128(byte[])}
+     */
+    static long[] hash128(long value) {
+        byte[] bytes = new byte[8];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (value >>> (i << 3));
+        }
+        return MurmurHash3.hash128(bytes);
+    }
+
+    /**
+     * 写入元素
+     *
+     * @return 是否有位发生变化, false则表示该元素可能已写入
+     */
+    public boolean put(byte[] item) {
+        return put(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 写入元素
+     *
+     * @return 是否有位发生变化, false则表示该元素可能已写入
+     */
+    public boolean put(String item) {
+        return put(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 写入元素
+     *
+     * @return 是否有位发生变化, false则表示该元素可能已写入
+     */
+    public boolean put(long item) {
+        return put(hash128(item));
+    }
+
+    private boolean put(long[] hash) {
+        boolean changed = false;
+        long combinedHash = hash[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            long index = (combinedHash & Long.MAX_VALUE) % bitSize;
+            changed |= bits.or((int) (index >>> 6), 1L << index);
+            combinedHash += hash[1];
+        }
+        return changed;
+    }
+
+    /**
+     * 元素是否可能存在, false则一定不存在
+     */
+    public boolean mightContain(byte[] item) {
+        return mightContain(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 元素是否可能存在, false则一定不存在
+     */
+    public boolean mightContain(String item) {
+        return mightContain(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 元素是否可能存在, false则一定不存在
+     */
+    public boolean mightContain(long item) {
+        return mightContain(hash128(item));
+    }
+
+    private boolean mightContain(long[] hash) {
+        long combinedHash = hash[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            long index = (combinedHash & Long.MAX_VALUE) % bitSize;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+            combinedHash += hash[1];
+        }
+        return true;
+    }
+
+    /**
+     * 是否可以与{@code that}合并, 即位数和hash函数数量相同
+     */
+    public boolean isCompatible(BloomFilter that) {
+        return this != that && bitSize == that.bitSize && numHashFunctions == that.numHashFunctions;
+    }
+
+    /**
+     * 合并{@code that}的所有元素, 即按位或
+     */
+    public void merge(BloomFilter that) {
+        Preconditions.checkNotNull(that, "that bloom filter must be not null");
+        Preconditions.checkArgument(isCompatible(that), "bloom filters are not compatible");
+        for (int i = 0; i < bits.length(); i++) {
+            bits.or(i, that.bits.get(i));
+        }
+    }
+
+    /**
+     * 已置位的位数, 遍历位数组统计
+     */
+    public long bitCount() {
+        long bitCount = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            bitCount += Long.bitCount(bits.get(i));
+        }
+        return bitCount;
+    }
+
+    /**
+     * 根据已置位的位数估算已写入的不同元素数量, n = -m / k * ln(1 - x / m)
+     */
+    public long approximateElementCount() {
+        double fractionOfBitsSet = (double) bitCount() / bitSize;
+        return Math.round(-Math.log1p(-fractionOfBitsSet) * bitSize / numHashFunctions);
+    }
+
+    /**
+     * 根据当前已置位的位数计算的误判率
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount() / bitSize, numHashFunctions);
+    }
+
+    /**
+     * 写入类型标识, 版本, hash函数数量和位数组
+     * 并发put时, 写入的内容并非某一时刻的快照, 但不会丢失写入前已完成的put
+     */
+    public void writeTo(Output output) {
+        writeHeader(output, TYPE_BLOOM_FILTER);
+        output.writeVarInt32(numHashFunctions);
+        bits.writeTo(output);
+    }
+
+    @Override
+    public void close() {
+        bits.close();
+    }
+
+    //getter
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    @Override
+    public String toString() {
+        return "BloomFilter{" +
+                "bitSize=" + bitSize +
+                ", numHashFunctions=" + numHashFunctions +
+                '}';
+    }
+}
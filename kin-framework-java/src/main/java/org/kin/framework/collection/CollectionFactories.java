@@ -54,6 +54,9 @@ public class CollectionFactories extends AbstractFactories<CollectionFactory<?>>
         factories.put(ConcurrentLinkedDeque.class, ConcurrentLinkedDeque::new);
         factories.put(PriorityBlockingQueue.class, PriorityBlockingQueue::new);
         factories.put(java.util.PriorityQueue.class, PriorityQueue::new);
+        if (FastutilFactories.PRESENT) {
+            FastutilFactories.registerCollectionFactories(factories);
+        }
 
         //通过spi加载
         for (CollectionFactory<?> factory : ExtensionLoader.getExtensions(CollectionFactory.class)) {
@@ -64,6 +67,25 @@ public class CollectionFactories extends AbstractFactories<CollectionFactory<?>>
         register(factories);
     }
 
+    /**
+     * 根据集合类型和元素类型获取工厂
+     * 集合类型为{@link Collection}, {@link List}或{@link Set}接口, 且元素类型为原始类型int, long或double时, 优先使用fastutil原始类型集合, 以减少装箱开销
+     * 注意: fastutil原始类型集合不支持null元素, add(null)会抛{@link NullPointerException}
+     * 需要存储null时, {@code elementType}传入包装类型(比如{@link Integer}), 则使用jdk集合
+     *
+     * @param type        集合类型
+     * @param elementType 元素类型
+     */
+    public CollectionFactory<?> getFactory(Class<?> type, Class<?> elementType) {
+        if (FastutilFactories.PRESENT && Objects.nonNull(elementType)) {
+            CollectionFactory<?> factory = FastutilFactories.collectionFactory(type, elementType);
+            if (Objects.nonNull(factory)) {
+                return factory;
+            }
+        }
+        return getFactory(type);
+    }
+
     @Override
     public synchronized void register(Class<?> type, CollectionFactory<?> factory) {
         if (!Collection.class.isAssignableFrom(type)) {
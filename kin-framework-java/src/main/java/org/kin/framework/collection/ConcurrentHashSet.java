@@ -3,24 +3,49 @@ package org.kin.framework.collection;
 import org.springframework.lang.NonNull;
 
 import java.util.AbstractSet;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.Set;
 import java.util.Spliterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
+ * 基于{@link ConcurrentHashMap#newKeySet()}的线程安全set, entry不再额外存储value
+ * 大批量{@link #addAll(Collection)}和{@link #removeAll(Collection)}使用{@link ForkJoinPool#commonPool()}并行处理
+ *
  * @author huangjianqin
  * @date 2017/10/28
  */
 public class ConcurrentHashSet<E> extends AbstractSet<E> {
-    private final ConcurrentHashMap<E, Boolean> items = new ConcurrentHashMap<>();
+    /** 批量操作元素数量达到该值才并行处理 */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+    /** 并行处理时, 每个task处理的最大元素数量 */
+    private static final int TASK_BATCH_SIZE = 1 << 12;
+
+    private final Set<E> items;
+
+    public ConcurrentHashSet() {
+        items = ConcurrentHashMap.newKeySet();
+    }
+
+    public ConcurrentHashSet(int initialCapacity) {
+        items = ConcurrentHashMap.newKeySet(initialCapacity);
+    }
+
+    public ConcurrentHashSet(Collection<? extends E> c) {
+        this(Math.max(c.size(), 16));
+        addAll(c);
+    }
 
     @Override
     @NonNull
     public Iterator<E> iterator() {
-        return items.keySet().iterator();
+        return items.iterator();
     }
 
     @Override
@@ -28,27 +53,31 @@ public class ConcurrentHashSet<E> extends AbstractSet<E> {
         return items.size();
     }
 
+    @Override
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
     @Override
     public boolean contains(Object o) {
-        return items.containsKey(o);
+        return items.contains(o);
     }
 
     @Override
     @NonNull
     public Object[] toArray() {
-        return items.keySet().toArray();
+        return items.toArray();
     }
 
     @Override
     @NonNull
     public <T> T[] toArray(T[] a) {
-        return items.keySet().toArray(a);
+        return items.toArray(a);
     }
 
     @Override
     public boolean add(E e) {
-        Boolean origin = items.put(e, Boolean.TRUE);
-        return origin == null || origin;
+        return items.add(e);
     }
 
     @Override
@@ -56,6 +85,46 @@ public class ConcurrentHashSet<E> extends AbstractSet<E> {
         return items.remove(o);
     }
 
+    /**
+     * 批量添加, 元素数量达到{@link #PARALLEL_THRESHOLD}则并行添加
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (!isParallel(c)) {
+            return items.addAll(c);
+        }
+        Object[] elements = c.toArray();
+        return ForkJoinPool.commonPool().invoke(new BulkTask(elements, 0, elements.length, true));
+    }
+
+    /**
+     * 批量移除, 元素数量达到{@link #PARALLEL_THRESHOLD}则并行移除
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (!isParallel(c)) {
+            boolean modified = false;
+            for (Object o : c) {
+                modified |= items.remove(o);
+            }
+            return modified;
+        }
+        Object[] elements = c.toArray();
+        return ForkJoinPool.commonPool().invoke(new BulkTask(elements, 0, elements.length, false));
+    }
+
+    /**
+     * 批量操作是否并行处理
+     */
+    private static boolean isParallel(Collection<?> c) {
+        return c.size() >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return items.retainAll(c);
+    }
+
     @Override
     public void clear() {
         items.clear();
@@ -63,32 +132,32 @@ public class ConcurrentHashSet<E> extends AbstractSet<E> {
 
     @Override
     public String toString() {
-        return items.keySet().toString();
+        return items.toString();
     }
 
     @Override
     public Spliterator<E> spliterator() {
-        return items.keySet().spliterator();
+        return items.spliterator();
     }
 
     @Override
     public boolean removeIf(Predicate<? super E> filter) {
-        return items.keySet().removeIf(filter);
+        return items.removeIf(filter);
     }
 
     @Override
     public Stream<E> stream() {
-        return items.keySet().stream();
+        return items.stream();
     }
 
     @Override
     public Stream<E> parallelStream() {
-        return items.keySet().parallelStream();
+        return items.parallelStream();
     }
 
     @Override
     public void forEach(Consumer<? super E> action) {
-        items.keySet().forEach(action);
+        items.forEach(action);
     }
 
     /**
@@ -97,8 +166,50 @@ public class ConcurrentHashSet<E> extends AbstractSet<E> {
     @Override
     public ConcurrentHashSet<E> clone() throws CloneNotSupportedException {
         super.clone();
-        ConcurrentHashSet<E> cloned = new ConcurrentHashSet<>();
-        cloned.addAll(items.keySet());
-        return cloned;
+        return new ConcurrentHashSet<>(items);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 并行批量添加或移除[from, to)的元素, 返回set是否发生变化
+     */
+    private final class BulkTask extends RecursiveTask<Boolean> {
+        private static final long serialVersionUID = 8420717512493407432L;
+
+        private final Object[] elements;
+        private final int from;
+        private final int to;
+        /** true则添加, 否则移除 */
+        private final boolean add;
+
+        BulkTask(Object[] elements, int from, int to, boolean add) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.add = add;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected Boolean compute() {
+            if (to - from <= TASK_BATCH_SIZE) {
+                boolean modified = false;
+                for (int i = from; i < to; i++) {
+                    if (add) {
+                        modified |= items.add((E) elements[i]);
+                    } else {
+                        modified |= items.remove(elements[i]);
+                    }
+                }
+                return modified;
+            }
+
+            int mid = (from + to) >>> 1;
+            BulkTask left = new BulkTask(elements, from, mid, add);
+            left.fork();
+            boolean modified = new BulkTask(elements, mid, to, add).compute();
+            return left.join() | modified;
+        }
     }
 }
@@ -0,0 +1,418 @@
+package org.kin.framework.collection;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.utils.Maths;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+
+/**
+ * 线程安全的int set, 不装箱, 与{@link ConcurrentLongHashSet}实现一致
+ * 按hash高位分为多个section, 每个section是一个独立加锁的线性探测开放寻址table
+ * 读操作先乐观读, 校验失败后才加读锁; 写操作仅锁对应section
+ * 移除时通过后移元素填补空位, 不需要tombstone, 故频繁增删不会导致探测链变长
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class ConcurrentIntHashSet {
+    /** 默认预计元素数量 */
+    private static final int DEFAULT_EXPECTED_ITEMS = 256;
+    /** 默认并发级别, 即section数量 */
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    /** 填充因子 */
+    private static final float FILL_FACTOR = 0.66f;
+    /** section table最小容量 */
+    private static final int MIN_SECTION_CAPACITY = 16;
+    /** section table最大容量 */
+    private static final int MAX_SECTION_CAPACITY = 1 << 30;
+    /** 空slot, 该值本身通过{@link Section#containsEmpty}单独标识 */
+    private static final int EMPTY = 0;
+
+    /** sections, 长度为2的n次方 */
+    private final Section[] sections;
+
+    public ConcurrentIntHashSet() {
+        this(DEFAULT_EXPECTED_ITEMS);
+    }
+
+    public ConcurrentIntHashSet(int expectedItems) {
+        this(expectedItems, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentIntHashSet(int expectedItems, int concurrencyLevel) {
+        Preconditions.checkArgument(expectedItems > 0, "expectedItems must be greater than 0");
+        Preconditions.checkArgument(concurrencyLevel > 0, "concurrencyLevel must be greater than 0");
+        int numSections = Maths.round2Power2(Math.min(concurrencyLevel, expectedItems));
+        int perSectionCapacity = sectionCapacity((int) Math.ceil((double) expectedItems / numSections / FILL_FACTOR));
+        sections = new Section[numSections];
+        for (int i = 0; i < numSections; i++) {
+            sections[i] = new Section(perSectionCapacity);
+        }
+    }
+
+    /**
+     * section table容量, 2的n次方
+     */
+    private static int sectionCapacity(int capacity) {
+        return Maths.round2Power2(Math.min(Math.max(capacity, MIN_SECTION_CAPACITY), MAX_SECTION_CAPACITY));
+    }
+
+    /**
+     * murmur3 fmix64, 低位用于定位slot, 高32位用于定位section
+     */
+    private static long hash(int key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 根据hash值定位section
+     */
+    private Section section(long hash) {
+        return sections[(int) (hash >>> 32) & (sections.length - 1)];
+    }
+
+    /**
+     * @return 是否添加成功, false则表示已存在
+     */
+    public boolean add(int item) {
+        long hash = hash(item);
+        return section(hash).add(item, hash);
+    }
+
+    /**
+     * @return 是否移除成功, false则表示不存在
+     */
+    public boolean remove(int item) {
+        long hash = hash(item);
+        return section(hash).remove(item, hash);
+    }
+
+    public boolean contains(int item) {
+        long hash = hash(item);
+        return section(hash).contains(item, hash);
+    }
+
+    /**
+     * 批量添加
+     *
+     * @return set是否发生变化
+     */
+    public boolean addAll(int... items) {
+        boolean modified = false;
+        for (int item : items) {
+            modified |= add(item);
+        }
+        return modified;
+    }
+
+    /**
+     * 批量移除
+     *
+     * @return set是否发生变化
+     */
+    public boolean removeAll(int... items) {
+        boolean modified = false;
+        for (int item : items) {
+            modified |= remove(item);
+        }
+        return modified;
+    }
+
+    /**
+     * 元素数量, 并发修改时仅为近似值
+     */
+    public int size() {
+        int size = 0;
+        for (Section section : sections) {
+            size += section.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (Section section : sections) {
+            if (section.size > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 所有section table的容量总和
+     */
+    public long capacity() {
+        long capacity = 0;
+        for (Section section : sections) {
+            capacity += section.table.length;
+        }
+        return capacity;
+    }
+
+    /**
+     * 移除所有元素, 并将section table恢复至初始容量
+     */
+    public void clear() {
+        for (Section section : sections) {
+            section.clear();
+        }
+    }
+
+    /**
+     * 遍历元素, 逐个section复制后再遍历, 故{@code action}中可以修改该set
+     * 并发修改时, 仅保证每个section内元素的一致性
+     */
+    public void forEach(IntConsumer action) {
+        Preconditions.checkNotNull(action, "action must be not null");
+        for (Section section : sections) {
+            section.forEach(action);
+        }
+    }
+
+    /**
+     * 所有元素
+     */
+    public int[] toArray() {
+        int[] items = new int[size()];
+        int[] index = {0};
+        forEach(item -> {
+            if (index[0] >= items.length) {
+                return;
+            }
+            items[index[0]++] = item;
+        });
+        return index[0] == items.length ? items : Arrays.copyOf(items, index[0]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        forEach(item -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(item);
+        });
+        return sb.append(']').toString();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 线性探测开放寻址table, 继承{@link StampedLock}, 减少一个对象引用
+     */
+    private static final class Section extends StampedLock {
+        private static final long serialVersionUID = 2814093561845730194L;
+
+        /** 初始容量 */
+        private final int initCapacity;
+        /** slot数组, 扩容或缩容时整体替换 */
+        private volatile int[] table;
+        /** 元素数量, 仅在持有写锁时修改 */
+        private volatile int size;
+        /** 是否包含{@link #EMPTY} */
+        private volatile boolean containsEmpty;
+        /** {@link #table}已使用的slot数量 */
+        private int used;
+        /** 扩容阈值 */
+        private int resizeThreshold;
+
+        Section(int capacity) {
+            this.initCapacity = capacity;
+            this.table = new int[capacity];
+            this.resizeThreshold = (int) (capacity * FILL_FACTOR);
+        }
+
+        boolean contains(int item, long hash) {
+            if (item == EMPTY) {
+                return containsEmpty;
+            }
+            long stamp = tryOptimisticRead();
+            boolean found = find(table, item, hash);
+            if (validate(stamp)) {
+                return found;
+            }
+
+            stamp = readLock();
+            try {
+                return find(table, item, hash);
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        /**
+         * 乐观读时{@code table}可能正在被修改, 故最多探测{@code table.length}次
+         */
+        private static boolean find(int[] table, int item, long hash) {
+            int mask = table.length - 1;
+            int bucket = (int) hash & mask;
+            for (int i = 0; i <= mask; i++) {
+                int cur = table[bucket];
+                if (cur == item) {
+                    return true;
+                }
+                if (cur == EMPTY) {
+                    return false;
+                }
+                bucket = (bucket + 1) & mask;
+            }
+            return false;
+        }
+
+        boolean add(int item, long hash) {
+            long stamp = writeLock();
+            try {
+                if (item == EMPTY) {
+                    if (containsEmpty) {
+                        return false;
+                    }
+                    containsEmpty = true;
+                    size++;
+                    return true;
+                }
+
+                int[] table = this.table;
+                int mask = table.length - 1;
+                int bucket = (int) hash & mask;
+                for (; ; ) {
+                    int cur = table[bucket];
+                    if (cur == item) {
+                        return false;
+                    }
+                    if (cur == EMPTY) {
+                        table[bucket] = item;
+                        size++;
+                        if (++used > resizeThreshold) {
+                            rehash(table.length << 1);
+                        }
+                        return true;
+                    }
+                    bucket = (bucket + 1) & mask;
+                }
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(int item, long hash) {
+            long stamp = writeLock();
+            try {
+                if (item == EMPTY) {
+                    if (!containsEmpty) {
+                        return false;
+                    }
+                    containsEmpty = false;
+                    size--;
+                    return true;
+                }
+
+                int[] table = this.table;
+                int mask = table.length - 1;
+                int bucket = (int) hash & mask;
+                for (; ; ) {
+                    int cur = table[bucket];
+                    if (cur == EMPTY) {
+                        return false;
+                    }
+                    if (cur == item) {
+                        break;
+                    }
+                    bucket = (bucket + 1) & mask;
+                }
+
+                //后移元素填补空位, 只有理想位置不在(hole, next]内的元素才能前移
+                int hole = bucket;
+                int next = (hole + 1) & mask;
+                for (; ; ) {
+                    int cur = table[next];
+                    if (cur == EMPTY) {
+                        break;
+                    }
+                    int ideal = (int) hash(cur) & mask;
+                    if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                        table[hole] = cur;
+                        hole = next;
+                    }
+                    next = (next + 1) & mask;
+                }
+                table[hole] = EMPTY;
+                size--;
+                used--;
+
+                //元素过少则缩容
+                if (table.length > initCapacity && used < (resizeThreshold >>> 2)) {
+                    rehash(table.length >>> 1);
+                }
+                return true;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * 重建table, 仅在持有写锁时调用
+         */
+        private void rehash(int newCapacity) {
+            if (newCapacity <= 0 || newCapacity > MAX_SECTION_CAPACITY) {
+                throw new IllegalStateException("section too big");
+            }
+            int[] newTable = new int[newCapacity];
+            int mask = newCapacity - 1;
+            for (int item : table) {
+                if (item == EMPTY) {
+                    continue;
+                }
+                int bucket = (int) hash(item) & mask;
+                while (newTable[bucket] != EMPTY) {
+                    bucket = (bucket + 1) & mask;
+                }
+                newTable[bucket] = item;
+            }
+            table = newTable;
+            resizeThreshold = (int) (newCapacity * FILL_FACTOR);
+        }
+
+        void clear() {
+            long stamp = writeLock();
+            try {
+                table = new int[initCapacity];
+                resizeThreshold = (int) (initCapacity * FILL_FACTOR);
+                containsEmpty = false;
+                used = 0;
+                size = 0;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        void forEach(IntConsumer action) {
+            int[] copy;
+            boolean containsEmpty;
+            long stamp = readLock();
+            try {
+                copy = table.clone();
+                containsEmpty = this.containsEmpty;
+            } finally {
+                unlockRead(stamp);
+            }
+
+            if (containsEmpty) {
+                action.accept(EMPTY);
+            }
+            for (int item : copy) {
+                if (item != EMPTY) {
+                    action.accept(item);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.kin.framework.collection;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.Closeable;
+import org.kin.framework.io.Input;
+import org.kin.framework.io.Output;
+import org.kin.framework.utils.UnsafeUtil;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的定长long数组, 每个long独立CAS, 不同位置的修改互不竞争
+ * 用于{@link BloomFilter}, {@link CountingBloomFilter}和{@link CountMinSketch}存储位或计数
+ * 支持堆内({@link AtomicLongArray})和堆外({@link UnsafeUtil#allocateMemory(long)})两种存储
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+abstract class ConcurrentLongArray implements Closeable {
+    /**
+     * 创建长度为{@code length}的数组, 初始值为0
+     *
+     * @param offHeap 是否使用堆外内存, 需调用{@link #close()}释放
+     */
+    static ConcurrentLongArray create(int length, boolean offHeap) {
+        Preconditions.checkArgument(length > 0, "length must be greater than 0");
+        if (offHeap) {
+            if (!UnsafeUtil.hasUnsafe()) {
+                throw new UnsupportedOperationException("sun.misc.Unsafe is unavailable");
+            }
+            return new OffHeap(length);
+        }
+        return new Heap(length);
+    }
+
+    /**
+     * 从{@code input}读取{@link #writeTo(Output)}写入的数组
+     */
+    static ConcurrentLongArray readFrom(Input input, boolean offHeap) {
+        int length = input.readVarInt32();
+        if (length <= 0) {
+            throw new IllegalStateException("encountered a malformed array length: " + length);
+        }
+        ConcurrentLongArray array = create(length, offHeap);
+        for (int i = 0; i < length; i++) {
+            array.set(i, input.readLong());
+        }
+        return array;
+    }
+
+    /**
+     * 数组长度
+     */
+    abstract int length();
+
+    abstract long get(int index);
+
+    abstract void set(int index, long value);
+
+    abstract boolean compareAndSet(int index, long expect, long update);
+
+    /**
+     * {@code index}位置与{@code mask}按位或
+     *
+     * @return 是否有位发生变化
+     */
+    boolean or(int index, long mask) {
+        for (; ; ) {
+            long value = get(index);
+            long update = value | mask;
+            if (value == update) {
+                return false;
+            }
+            if (compareAndSet(index, value, update)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * {@code index}位置加上{@code delta}
+     *
+     * @return 修改后的值
+     */
+    long addAndGet(int index, long delta) {
+        for (; ; ) {
+            long value = get(index);
+            long update = value + delta;
+            if (compareAndSet(index, value, update)) {
+                return update;
+            }
+        }
+    }
+
+    /**
+     * 写入数组长度和全部元素, 并发修改时, 写入的并非某一时刻的快照
+     */
+    void writeTo(Output output) {
+        int length = length();
+        output.writeVarInt32(length);
+        for (int i = 0; i < length; i++) {
+            output.writeLong(get(i));
+        }
+    }
+
+    /**
+     * 占用字节数
+     */
+    long bytes() {
+        return (long) length() << 3;
+    }
+
+    @Override
+    public void close() {
+        //default do nothing
+    }
+
+    //------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 基于{@link AtomicLongArray}的实现
+     */
+    private static final class Heap extends ConcurrentLongArray {
+        private final AtomicLongArray array;
+
+        Heap(int length) {
+            this.array = new AtomicLongArray(length);
+        }
+
+        @Override
+        int length() {
+            return array.length();
+        }
+
+        @Override
+        long get(int index) {
+            return array.get(index);
+        }
+
+        @Override
+        void set(int index, long value) {
+            array.set(index, value);
+        }
+
+        @Override
+        boolean compareAndSet(int index, long expect, long update) {
+            return array.compareAndSet(index, expect, update);
+        }
+
+        @Override
+        long addAndGet(int index, long delta) {
+            return array.addAndGet(index, delta);
+        }
+    }
+
+    /**
+     * 基于堆外内存的实现, {@link #close()}后访问会抛{@link IllegalStateException}
+     * 但与{@link #close()}并发的访问仍可能访问已释放的内存, 故调用者需保证{@link #close()}前已停止访问
+     */
+    private static final class OffHeap extends ConcurrentLongArray {
+        private final int length;
+        /** 内存地址 */
+        private volatile long address;
+
+        OffHeap(int length) {
+            this.length = length;
+            long bytes = (long) length << 3;
+            long address = UnsafeUtil.allocateMemory(bytes);
+            UnsafeUtil.setMemory(address, bytes, (byte) 0);
+            this.address = address;
+        }
+
+        /**
+         * 元素内存地址
+         */
+        private long address(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+            }
+            long address = this.address;
+            if (address == 0) {
+                throw new IllegalStateException("off-heap array is closed");
+            }
+            return address + ((long) index << 3);
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        long get(int index) {
+            return UnsafeUtil.getLongVolatile(address(index));
+        }
+
+        @Override
+        void set(int index, long value) {
+            UnsafeUtil.putLongVolatile(address(index), value);
+        }
+
+        @Override
+        boolean compareAndSet(int index, long expect, long update) {
+            return UnsafeUtil.compareAndSwapLong(address(index), expect, update);
+        }
+
+        @Override
+        public synchronized void close() {
+            long address = this.address;
+            if (address != 0) {
+                this.address = 0;
+                UnsafeUtil.freeMemory(address);
+            }
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package org.kin.framework.collection;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.pool.AbstractPooledObject;
+import org.kin.framework.pool.ObjectPool;
+import org.kin.framework.pool.Recyclable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并发版本的{@link SegmentList}, 适用于日志类场景: 单线程append, 多线程按index读, 从head或tail截断
+ * <p>
+ * 1. element index为绝对index, 从{@code firstIndex}开始递增, 截断不影响剩余element的index
+ * 2. 写操作({@link #add(Object)}, {@link #truncatePrefix(long)}, {@link #truncateSuffix(long)}等)需由使用者保证同一时刻只有一个线程执行, 无锁
+ * 3. 读操作({@link #get(long)})可多线程并发执行, wait-free, 基于已发布的segment数组直接定位
+ * 4. 截断移除的{@link Segment}基于epoch延迟回收, 确保没有读线程仍在访问才回收到{@link ObjectPool}, 读线程不会读到已复用的{@link Segment}
+ * <p>
+ * 与截断并发的读可能返回null, 即读到截断后的状态
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class ConcurrentSegmentList<T> {
+    /** 用于计算index是落在哪个{@link Segment} */
+    private static final int SEGMENT_SHIFT = 7;
+    /** {@link Segment}最大容量 */
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    /** segment数组初始长度 */
+    private static final int INITIAL_TABLE_SIZE = 16;
+
+    /** 已发布的segment数组, 读线程通过其定位element */
+    private volatile Table<T> table;
+    /** 第一个element的index */
+    private volatile long firstIndex;
+    /** 最后一个element的index + 1 */
+    private volatile long endIndex;
+    /** 标识{@link Segment}对象是否复用, 不复用则交由gc回收, 读操作无需维护epoch */
+    private final boolean recycleSegment;
+
+    /** 当前epoch, 仅写线程修改 */
+    private volatile long epoch;
+    /** 按epoch奇偶统计的正在读的线程数 */
+    private final AtomicLong[] readers = {new AtomicLong(), new AtomicLong()};
+    /** 当前epoch截断移除的{@link Segment}, 写线程独占 */
+    private List<Segment<T>> retired = new ArrayList<>();
+    /** 上一epoch截断移除的{@link Segment}, 该epoch的读线程全部退出后即可回收, 写线程独占 */
+    private List<Segment<T>> retiring = new ArrayList<>();
+    /** {@link #retiring}对应的epoch奇偶 */
+    private int retiringParity;
+
+    /** 第一个存活{@link Segment}在{@link Table#segments}的位置, 写线程独占 */
+    private int headSlot;
+    /** 最后一个存活{@link Segment}在{@link Table#segments}的位置 + 1, 写线程独占 */
+    private int tailSlot;
+
+    public ConcurrentSegmentList() {
+        this(false);
+    }
+
+    /**
+     * @param recycleSegment true to enable recycling segment
+     */
+    public ConcurrentSegmentList(boolean recycleSegment) {
+        this(0, recycleSegment);
+    }
+
+    /**
+     * @param firstIndex     第一个element的index
+     * @param recycleSegment true to enable recycling segment
+     */
+    public ConcurrentSegmentList(long firstIndex, boolean recycleSegment) {
+        Preconditions.checkArgument(firstIndex >= 0, "firstIndex must be greater than or equal to 0");
+        this.recycleSegment = recycleSegment;
+        this.firstIndex = firstIndex;
+        this.endIndex = firstIndex;
+        this.table = new Table<>(newSegments(INITIAL_TABLE_SIZE), firstIndex);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Segment<T>[] newSegments(int size) {
+        return (Segment<T>[]) new Segment[size];
+    }
+
+    //------------------------------------------------------------------------------------------------------------------------读
+
+    /**
+     * 取指定index的element, 线程安全, wait-free
+     *
+     * @return element, index不在[firstIndex, lastIndex]范围或者已被截断, 则返回null
+     */
+    public T get(long index) {
+        int parity = enter();
+        try {
+            //先读endIndex, 保证读到的table至少包含[firstIndex, endIndex)的segment
+            long endIndex = this.endIndex;
+            if (index >= endIndex || index < firstIndex) {
+                return null;
+            }
+            Table<T> table = this.table;
+            long offset = index - table.baseIndex;
+            if (offset < 0) {
+                return null;
+            }
+            Segment<T>[] segments = table.segments;
+            long slot = offset >>> SEGMENT_SHIFT;
+            if (slot >= segments.length) {
+                return null;
+            }
+            Segment<T> segment = segments[(int) slot];
+            return Objects.isNull(segment) ? null : segment.get((int) (offset & SEGMENT_MASK));
+        } finally {
+            exit(parity);
+        }
+    }
+
+    /**
+     * 取head element
+     */
+    public T peekFirst() {
+        return get(firstIndex);
+    }
+
+    /**
+     * 取tail element
+     */
+    public T peekLast() {
+        return get(endIndex - 1);
+    }
+
+    /**
+     * 读线程进入当前epoch
+     * 计数+1后需再次校验epoch, 否则epoch在两者之间切换, 读线程会登记到上一epoch, 写线程可能回收其正在访问的{@link Segment}
+     *
+     * @return epoch奇偶, 不复用{@link Segment}则返回-1
+     */
+    private int enter() {
+        if (!recycleSegment) {
+            return -1;
+        }
+        for (; ; ) {
+            int parity = (int) (epoch & 1);
+            readers[parity].incrementAndGet();
+            if ((int) (epoch & 1) == parity) {
+                return parity;
+            }
+            readers[parity].decrementAndGet();
+        }
+    }
+
+    /**
+     * 读线程退出epoch
+     */
+    private void exit(int parity) {
+        if (parity >= 0) {
+            readers[parity].decrementAndGet();
+        }
+    }
+
+    /**
+     * 第一个element的index
+     */
+    public long getFirstIndex() {
+        return firstIndex;
+    }
+
+    /**
+     * 最后一个element的index, list为空时, 等于{@code firstIndex - 1}
+     */
+    public long getLastIndex() {
+        return endIndex - 1;
+    }
+
+    /**
+     * list size
+     */
+    public long size() {
+        long endIndex = this.endIndex;
+        return Math.max(0, endIndex - firstIndex);
+    }
+
+    /**
+     * list是否empty
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------------写
+
+    /**
+     * add element, 仅允许单线程调用
+     *
+     * @return element的index
+     */
+    public long add(T e) {
+        long index = endIndex;
+        append(index, e);
+        endIndex = index + 1;
+        return index;
+    }
+
+    /**
+     * 添加{@code collection}全部elements, 仅允许单线程调用
+     * 全部写入后才对读线程可见
+     */
+    public void addAll(Collection<T> collection) {
+        long index = endIndex;
+        for (T e : collection) {
+            append(index++, e);
+        }
+        endIndex = index;
+    }
+
+    /**
+     * 写入指定index的element, 未发布
+     */
+    private void append(long index, T e) {
+        Table<T> table = this.table;
+        long offset = index - table.baseIndex;
+        int slot = (int) (offset >>> SEGMENT_SHIFT);
+        if (slot >= tailSlot) {
+            //需要新的segment
+            if (slot >= table.segments.length) {
+                table = grow();
+                offset = index - table.baseIndex;
+                slot = (int) (offset >>> SEGMENT_SHIFT);
+            }
+            //在endIndex发布前写入, 读线程读到新的endIndex时必然能看到该segment
+            table.segments[slot] = Segment.newInstance(recycleSegment);
+            tailSlot = slot + 1;
+            tryReclaim();
+        }
+        table.segments[slot].elements[(int) (offset & SEGMENT_MASK)] = e;
+    }
+
+    /**
+     * segment数组已满, 将存活的segment复制到新的数组并发布
+     * 读线程可能仍在使用旧数组, 故不能原地移动
+     */
+    private Table<T> grow() {
+        Table<T> old = this.table;
+        int live = tailSlot - headSlot;
+        int size = INITIAL_TABLE_SIZE;
+        while (size < (live + 1) << 1) {
+            size <<= 1;
+        }
+        Segment<T>[] segments = newSegments(size);
+        System.arraycopy(old.segments, headSlot, segments, 0, live);
+        Table<T> table = new Table<>(segments, old.baseIndex + ((long) headSlot << SEGMENT_SHIFT));
+        headSlot = 0;
+        tailSlot = live;
+        this.table = table;
+        return table;
+    }
+
+    /**
+     * 移除index小于{@code firstIndexKept}的elements, 仅允许单线程调用
+     * {@code firstIndexKept}大于{@link #getLastIndex()}时, list清空, 下一个element的index为{@code firstIndexKept}
+     */
+    public void truncatePrefix(long firstIndexKept) {
+        long firstIndex = this.firstIndex;
+        if (firstIndexKept <= firstIndex) {
+            return;
+        }
+        if (firstIndexKept >= endIndex) {
+            reset(firstIndexKept);
+            return;
+        }
+
+        this.firstIndex = firstIndexKept;
+        Table<T> table = this.table;
+        long offset = firstIndexKept - table.baseIndex;
+        int slot = (int) (offset >>> SEGMENT_SHIFT);
+        //移除整个segment
+        while (headSlot < slot) {
+            retire(table.segments[headSlot]);
+            table.segments[headSlot++] = null;
+        }
+        //head segment已截断的element
+        Segment<T> head = table.segments[slot];
+        int from = (int) (Math.max(firstIndex - table.baseIndex, (long) slot << SEGMENT_SHIFT) & SEGMENT_MASK);
+        Arrays.fill(head.elements, from, (int) (offset & SEGMENT_MASK), null);
+        //重新发布, 保证读线程进入新epoch后能看到上述修改
+        this.table = table;
+        tryReclaim();
+    }
+
+    /**
+     * 移除index大于{@code lastIndexKept}的elements, 仅允许单线程调用
+     * {@code lastIndexKept}小于{@link #getFirstIndex()}时, list清空, 下一个element的index为{@link #getFirstIndex()}
+     */
+    public void truncateSuffix(long lastIndexKept) {
+        long endIndex = this.endIndex;
+        long newEndIndex = Math.max(lastIndexKept + 1, firstIndex);
+        if (newEndIndex >= endIndex) {
+            return;
+        }
+
+        this.endIndex = newEndIndex;
+        Table<T> table = this.table;
+        long offset = newEndIndex - table.baseIndex;
+        //newEndIndex所在segment及之前的segment保留
+        int keptSlot = (int) ((offset + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        //移除整个segment
+        while (tailSlot > keptSlot) {
+            retire(table.segments[--tailSlot]);
+            table.segments[tailSlot] = null;
+        }
+        //tail segment已截断的element
+        int inSeg = (int) (offset & SEGMENT_MASK);
+        if (inSeg > 0) {
+            Segment<T> tail = table.segments[tailSlot - 1];
+            long tailStart = (long) (tailSlot - 1) << SEGMENT_SHIFT;
+            int to = (int) Math.min(SEGMENT_SIZE, endIndex - table.baseIndex - tailStart);
+            Arrays.fill(tail.elements, inSeg, to, null);
+        }
+        this.table = table;
+        tryReclaim();
+    }
+
+    /**
+     * clear list, 仅允许单线程调用
+     * 下一个element的index不变
+     */
+    public void clear() {
+        reset(endIndex);
+    }
+
+    /**
+     * 移除所有elements, 下一个element的index为{@code nextIndex}
+     */
+    private void reset(long nextIndex) {
+        Table<T> old = this.table;
+        //先修改firstIndex, 读线程先读endIndex再读firstIndex, 看到的[firstIndex, endIndex)必然为空或者是旧数据
+        this.firstIndex = nextIndex;
+        this.endIndex = nextIndex;
+        this.table = new Table<>(newSegments(INITIAL_TABLE_SIZE), nextIndex);
+        for (int i = headSlot; i < tailSlot; i++) {
+            retire(old.segments[i]);
+        }
+        headSlot = tailSlot = 0;
+        tryReclaim();
+    }
+
+    /**
+     * 标记{@code segment}已移除, 待没有读线程访问时再回收
+     */
+    private void retire(Segment<T> segment) {
+        if (recycleSegment) {
+            retired.add(segment);
+        }
+    }
+
+    /**
+     * 尝试回收已移除的{@link Segment}
+     * 写线程每次修改并发布{@link #table}后, 切换epoch, 之后进入的读线程只能看到新的{@link #table},
+     * 故上一epoch的读线程全部退出后, 上一epoch移除的{@link Segment}即可回收
+     */
+    private void tryReclaim() {
+        if (!retiring.isEmpty()) {
+            if (readers[retiringParity].get() != 0) {
+                return;
+            }
+            recycle(retiring);
+        }
+        if (retired.isEmpty()) {
+            return;
+        }
+
+        //切换epoch
+        long epoch = this.epoch;
+        this.epoch = epoch + 1;
+        retiringParity = (int) (epoch & 1);
+        List<Segment<T>> tmp = retiring;
+        retiring = retired;
+        retired = tmp;
+        if (readers[retiringParity].get() == 0) {
+            recycle(retiring);
+        }
+    }
+
+    /**
+     * 回收{@code segments}并清空
+     */
+    private static <T> void recycle(List<Segment<T>> segments) {
+        for (Segment<T> segment : segments) {
+            Recyclable.recycle(segment);
+        }
+        segments.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentSegmentList{" +
+                "firstIndex=" + firstIndex +
+                ", endIndex=" + endIndex +
+                ", recycleSegment=" + recycleSegment +
+                ", epoch=" + epoch +
+                '}';
+    }
+
+    //------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 已发布的segment数组, segments[i]存储[baseIndex + i * {@link #SEGMENT_SIZE}, baseIndex + (i + 1) * {@link #SEGMENT_SIZE})的elements
+     * 写线程仅会在数组尾部添加或者置空已移除的segment, 不会移动segment
+     */
+    private static final class Table<T> {
+        /** segment数组 */
+        final Segment<T>[] segments;
+        /** segments[0]第一个element对应的index */
+        final long baseIndex;
+
+        Table(Segment<T>[] segments, long baseIndex) {
+            this.segments = segments;
+            this.baseIndex = baseIndex;
+        }
+    }
+
+    /**
+     * A recyclable segment
+     */
+    private static final class Segment<T> extends AbstractPooledObject {
+        /** 每个线程可复用128的{@link Segment}实例 */
+        private static final ObjectPool<Segment<?>> SEGMENT_OBJECT_POOL = ObjectPool.newPool(16_384 / SEGMENT_SIZE, Segment::new);
+
+        /**
+         * 构建{@link Segment}实例
+         *
+         * @param recycleSegment 是否取复用{@link Segment}实例
+         * @return {@link Segment}实例
+         */
+        @SuppressWarnings("unchecked")
+        static <T> Segment<T> newInstance(boolean recycleSegment) {
+            if (recycleSegment) {
+                return (Segment<T>) SEGMENT_OBJECT_POOL.get();
+            } else {
+                return new Segment<>();
+            }
+        }
+
+        /** 该分段存储的数据 */
+        final Object[] elements = new Object[SEGMENT_SIZE];
+
+        Segment() {
+            this(ObjectPool.NOOP_HANDLE);
+        }
+
+        Segment(ObjectPool.Handle handle) {
+            super(handle);
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int index) {
+            return (T) elements[index];
+        }
+
+        @Override
+        protected void beforeRecycle() {
+            Arrays.fill(elements, null);
+        }
+    }
+}
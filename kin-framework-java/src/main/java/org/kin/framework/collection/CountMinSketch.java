@@ -0,0 +1,243 @@
+package org.kin.framework.collection;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.Closeable;
+import org.kin.framework.io.Input;
+import org.kin.framework.io.Output;
+import org.kin.framework.utils.MurmurHash3;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程安全的count-min sketch, 以固定内存估算元素出现次数, 可用于热点key探测
+ * depth行width列的long计数, 每行以h1 + i * h2选取一列, 取各行计数的最小值作为估算值
+ * 估算值不会低估, 以{@code 1 - delta}的概率, 高估不超过{@code epsilon * totalCount}
+ * <p>
+ * 与{@link FrequencySketch}相比, 计数不饱和, 也不会衰减, 需要衰减时可定期重建
+ * 支持堆外存储, 此时需调用{@link #close()}释放内存
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class CountMinSketch implements Closeable {
+    /** 计数数组, 按行存储 */
+    private final ConcurrentLongArray table;
+    /** 行数, 即hash函数数量 */
+    private final int depth;
+    /** 列数 */
+    private final int width;
+    /** 累计次数 */
+    private final LongAdder totalCount = new LongAdder();
+
+    private CountMinSketch(ConcurrentLongArray table, int depth, int width) {
+        this.table = table;
+        this.depth = depth;
+        this.width = width;
+    }
+
+    /**
+     * 创建堆内count-min sketch
+     *
+     * @param epsilon    相对误差, (0, 1)
+     * @param confidence 置信度, (0, 1)
+     */
+    public static CountMinSketch create(double epsilon, double confidence) {
+        return create(epsilon, confidence, false);
+    }
+
+    /**
+     * 创建count-min sketch, width = ceil(e / epsilon), depth = ceil(ln(1 / (1 - confidence)))
+     *
+     * @param epsilon    相对误差, (0, 1)
+     * @param confidence 置信度, (0, 1)
+     * @param offHeap    是否使用堆外内存
+     */
+    public static CountMinSketch create(double epsilon, double confidence, boolean offHeap) {
+        Preconditions.checkArgument(epsilon > 0.0 && epsilon < 1.0, "epsilon must be in (0, 1)");
+        Preconditions.checkArgument(confidence > 0.0 && confidence < 1.0, "confidence must be in (0, 1)");
+        int width = (int) Math.ceil(Math.E / epsilon);
+        int depth = Math.max(1, (int) Math.ceil(-Math.log(1 - confidence)));
+        return create(depth, width, offHeap);
+    }
+
+    /**
+     * 创建{@code depth}行{@code width}列的count-min sketch
+     *
+     * @param offHeap 是否使用堆外内存
+     */
+    public static CountMinSketch create(int depth, int width, boolean offHeap) {
+        Preconditions.checkArgument(depth > 0, "depth must be greater than 0");
+        Preconditions.checkArgument(width > 0, "width must be greater than 0");
+        long length = (long) depth * width;
+        Preconditions.checkArgument(length <= Integer.MAX_VALUE, "count-min sketch too big, depth: " + depth + ", width: " + width);
+        return new CountMinSketch(ConcurrentLongArray.create((int) length, offHeap), depth, width);
+    }
+
+    /**
+     * 从{@code input}读取{@link #writeTo(Output)}写入的堆内count-min sketch
+     */
+    public static CountMinSketch readFrom(Input input) {
+        return readFrom(input, false);
+    }
+
+    /**
+     * 从{@code input}读取{@link #writeTo(Output)}写入的count-min sketch
+     *
+     * @param offHeap 是否使用堆外内存
+     */
+    public static CountMinSketch readFrom(Input input, boolean offHeap) {
+        BloomFilter.readHeader(input, BloomFilter.TYPE_COUNT_MIN_SKETCH);
+        int depth = input.readVarInt32();
+        int width = input.readVarInt32();
+        long totalCount = input.readLong();
+        ConcurrentLongArray table = ConcurrentLongArray.readFrom(input, offHeap);
+        if (depth <= 0 || width <= 0 || (long) depth * width != table.length()) {
+            table.close();
+            throw new IllegalStateException("encountered a malformed count-min sketch, depth: " + depth + ", width: " + width);
+        }
+        CountMinSketch sketch = new CountMinSketch(table, depth, width);
+        sketch.totalCount.add(totalCount);
+        return sketch;
+    }
+
+    /**
+     * 元素出现次数加{@code count}
+     *
+     * @return 修改后该元素出现次数的估算值
+     */
+    public long add(byte[] item, long count) {
+        return add(MurmurHash3.hash128(item), count);
+    }
+
+    /**
+     * 元素出现次数加{@code count}
+     *
+     * @return 修改后该元素出现次数的估算值
+     */
+    public long add(String item, long count) {
+        return add(MurmurHash3.hash128(item), count);
+    }
+
+    /**
+     * 元素出现次数加{@code count}
+     *
+     * @return 修改后该元素出现次数的估算值
+     */
+    public long add(long item, long count) {
+        return add(BloomFilter.hash128(item), count);
+    }
+
+    private long add(long[] hash, long count) {
+        Preconditions.checkArgument(count >= 0, "count must be greater than or equal to 0");
+        long min = Long.MAX_VALUE;
+        long combinedHash = hash[0];
+        for (int i = 0; i < depth; i++) {
+            min = Math.min(min, table.addAndGet(index(i, combinedHash), count));
+            combinedHash += hash[1];
+        }
+        totalCount.add(count);
+        return min;
+    }
+
+    /**
+     * 元素出现次数的估算值
+     */
+    public long estimateCount(byte[] item) {
+        return estimateCount(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 元素出现次数的估算值
+     */
+    public long estimateCount(String item) {
+        return estimateCount(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 元素出现次数的估算值
+     */
+    public long estimateCount(long item) {
+        return estimateCount(BloomFilter.hash128(item));
+    }
+
+    private long estimateCount(long[] hash) {
+        long min = Long.MAX_VALUE;
+        long combinedHash = hash[0];
+        for (int i = 0; i < depth; i++) {
+            min = Math.min(min, table.get(index(i, combinedHash)));
+            combinedHash += hash[1];
+        }
+        return min;
+    }
+
+    /**
+     * 第{@code row}行对应的计数位置
+     */
+    private int index(int row, long combinedHash) {
+        return row * width + (int) ((combinedHash & Long.MAX_VALUE) % width);
+    }
+
+    /**
+     * 是否可以与{@code that}合并, 即行数和列数相同
+     */
+    public boolean isCompatible(CountMinSketch that) {
+        return this != that && depth == that.depth && width == that.width;
+    }
+
+    /**
+     * 合并{@code that}的计数, 即对应计数相加
+     */
+    public void merge(CountMinSketch that) {
+        Preconditions.checkNotNull(that, "that count-min sketch must be not null");
+        Preconditions.checkArgument(isCompatible(that), "count-min sketches are not compatible");
+        for (int i = 0; i < table.length(); i++) {
+            long count = that.table.get(i);
+            if (count != 0) {
+                table.addAndGet(i, count);
+            }
+        }
+        totalCount.add(that.totalCount.sum());
+    }
+
+    /**
+     * 累计次数
+     */
+    public long totalCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * 写入类型标识, 版本, 行数, 列数, 累计次数和计数数组
+     * 并发修改时, 写入的内容并非某一时刻的快照
+     */
+    public void writeTo(Output output) {
+        BloomFilter.writeHeader(output, BloomFilter.TYPE_COUNT_MIN_SKETCH);
+        output.writeVarInt32(depth);
+        output.writeVarInt32(width);
+        output.writeLong(totalCount.sum());
+        table.writeTo(output);
+    }
+
+    @Override
+    public void close() {
+        table.close();
+    }
+
+    //getter
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public String toString() {
+        return "CountMinSketch{" +
+                "depth=" + depth +
+                ", width=" + width +
+                ", totalCount=" + totalCount.sum() +
+                '}';
+    }
+}
@@ -0,0 +1,327 @@
+package org.kin.framework.collection;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.Closeable;
+import org.kin.framework.io.Input;
+import org.kin.framework.io.Output;
+import org.kin.framework.utils.MurmurHash3;
+
+/**
+ * 线程安全的counting bloom filter, 与{@link BloomFilter}相比, 每位替换为4bit计数, 从而支持移除元素
+ * 每个long存储16个计数, 每个计数独立CAS更新
+ * 计数达到{@link #MAX_COUNT}后饱和, 不再增减, 以免移除导致误判为不存在
+ * <p>
+ * 支持堆外存储, 此时需调用{@link #close()}释放内存
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class CountingBloomFilter implements Closeable {
+    /** 每个计数的最大值 */
+    private static final int MAX_COUNT = 15;
+
+    /** 计数数组 */
+    private final ConcurrentLongArray counters;
+    /** 计数数量, 16的倍数 */
+    private final long counterSize;
+    /** hash函数数量 */
+    private final int numHashFunctions;
+
+    private CountingBloomFilter(ConcurrentLongArray counters, int numHashFunctions) {
+        this.counters = counters;
+        this.counterSize = (long) counters.length() << 4;
+        this.numHashFunctions = numHashFunctions;
+    }
+
+    /**
+     * 创建堆内counting bloom filter
+     *
+     * @param expectedInsertions 预计插入元素数量
+     * @param fpp                期望误判率, (0, 1)
+     */
+    public static CountingBloomFilter create(long expectedInsertions, double fpp) {
+        return create(expectedInsertions, fpp, false);
+    }
+
+    /**
+     * 创建counting bloom filter
+     *
+     * @param expectedInsertions 预计插入元素数量
+     * @param fpp                期望误判率, (0, 1)
+     * @param offHeap            是否使用堆外内存
+     */
+    public static CountingBloomFilter create(long expectedInsertions, double fpp, boolean offHeap) {
+        Preconditions.checkArgument(expectedInsertions > 0, "expectedInsertions must be greater than 0");
+        Preconditions.checkArgument(fpp > 0.0 && fpp < 1.0, "fpp must be in (0, 1)");
+        long numCounters = BloomFilter.optimalNumOfBits(expectedInsertions, fpp);
+        int numHashFunctions = BloomFilter.optimalNumOfHashFunctions(expectedInsertions, numCounters);
+        //每个long存储16个计数
+        return new CountingBloomFilter(ConcurrentLongArray.create(BloomFilter.longs(numCounters << 2), offHeap), numHashFunctions);
+    }
+
+    /**
+     * 从{@code input}读取{@link #writeTo(Output)}写入的堆内counting bloom filter
+     */
+    public static CountingBloomFilter readFrom(Input input) {
+        return readFrom(input, false);
+    }
+
+    /**
+     * 从{@code input}读取{@link #writeTo(Output)}写入的counting bloom filter
+     *
+     * @param offHeap 是否使用堆外内存
+     */
+    public static CountingBloomFilter readFrom(Input input, boolean offHeap) {
+        BloomFilter.readHeader(input, BloomFilter.TYPE_COUNTING_BLOOM_FILTER);
+        int numHashFunctions = input.readVarInt32();
+        if (numHashFunctions <= 0) {
+            throw new IllegalStateException("encountered a malformed numHashFunctions: " + numHashFunctions);
+        }
+        return new CountingBloomFilter(ConcurrentLongArray.readFrom(input, offHeap), numHashFunctions);
+    }
+
+    /**
+     * 写入元素
+     */
+    public void put(byte[] item) {
+        put(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 写入元素
+     */
+    public void put(String item) {
+        put(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 写入元素
+     */
+    public void put(long item) {
+        put(BloomFilter.hash128(item));
+    }
+
+    private void put(long[] hash) {
+        long combinedHash = hash[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            increment((combinedHash & Long.MAX_VALUE) % counterSize);
+            combinedHash += hash[1];
+        }
+    }
+
+    /**
+     * 移除元素, 仅移除通过put写入的元素, 否则可能导致其他元素误判为不存在
+     *
+     * @return 元素是否可能存在, false则无需移除
+     */
+    public boolean remove(byte[] item) {
+        return remove(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 移除元素, 仅移除通过put写入的元素, 否则可能导致其他元素误判为不存在
+     *
+     * @return 元素是否可能存在, false则无需移除
+     */
+    public boolean remove(String item) {
+        return remove(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 移除元素, 仅移除通过put写入的元素, 否则可能导致其他元素误判为不存在
+     *
+     * @return 元素是否可能存在, false则无需移除
+     */
+    public boolean remove(long item) {
+        return remove(BloomFilter.hash128(item));
+    }
+
+    private boolean remove(long[] hash) {
+        if (count(hash) == 0) {
+            return false;
+        }
+        long combinedHash = hash[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            decrement((combinedHash & Long.MAX_VALUE) % counterSize);
+            combinedHash += hash[1];
+        }
+        return true;
+    }
+
+    /**
+     * 元素是否可能存在, false则一定不存在
+     */
+    public boolean mightContain(byte[] item) {
+        return count(MurmurHash3.hash128(item)) > 0;
+    }
+
+    /**
+     * 元素是否可能存在, false则一定不存在
+     */
+    public boolean mightContain(String item) {
+        return count(MurmurHash3.hash128(item)) > 0;
+    }
+
+    /**
+     * 元素是否可能存在, false则一定不存在
+     */
+    public boolean mightContain(long item) {
+        return count(BloomFilter.hash128(item)) > 0;
+    }
+
+    /**
+     * 元素写入次数的估算值, 即对应计数的最小值, 不会低估, 最大值为{@link #MAX_COUNT}
+     */
+    public int count(byte[] item) {
+        return count(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 元素写入次数的估算值, 即对应计数的最小值, 不会低估, 最大值为{@link #MAX_COUNT}
+     */
+    public int count(String item) {
+        return count(MurmurHash3.hash128(item));
+    }
+
+    /**
+     * 元素写入次数的估算值, 即对应计数的最小值, 不会低估, 最大值为{@link #MAX_COUNT}
+     */
+    public int count(long item) {
+        return count(BloomFilter.hash128(item));
+    }
+
+    private int count(long[] hash) {
+        int min = MAX_COUNT;
+        long combinedHash = hash[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            long index = (combinedHash & Long.MAX_VALUE) % counterSize;
+            min = Math.min(min, counterAt(counters.get((int) (index >>> 4)), index));
+            if (min == 0) {
+                return 0;
+            }
+            combinedHash += hash[1];
+        }
+        return min;
+    }
+
+    /**
+     * 取{@code word}中第{@code index}个计数
+     */
+    private static int counterAt(long word, long index) {
+        return (int) ((word >>> offset(index)) & 0xfL);
+    }
+
+    /**
+     * 计数在long中的偏移位数
+     */
+    private static int offset(long index) {
+        return ((int) index & 15) << 2;
+    }
+
+    /**
+     * 计数加1, 已饱和则不变
+     */
+    private void increment(long index) {
+        int wordIndex = (int) (index >>> 4);
+        int offset = offset(index);
+        for (; ; ) {
+            long word = counters.get(wordIndex);
+            if (((word >>> offset) & 0xfL) == MAX_COUNT) {
+                return;
+            }
+            if (counters.compareAndSet(wordIndex, word, word + (1L << offset))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 计数减1, 计数为0或者已饱和则不变
+     */
+    private void decrement(long index) {
+        int wordIndex = (int) (index >>> 4);
+        int offset = offset(index);
+        for (; ; ) {
+            long word = counters.get(wordIndex);
+            long count = (word >>> offset) & 0xfL;
+            if (count == 0 || count == MAX_COUNT) {
+                return;
+            }
+            if (counters.compareAndSet(wordIndex, word, word - (1L << offset))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 是否可以与{@code that}合并, 即计数数量和hash函数数量相同
+     */
+    public boolean isCompatible(CountingBloomFilter that) {
+        return this != that && counterSize == that.counterSize && numHashFunctions == that.numHashFunctions;
+    }
+
+    /**
+     * 合并{@code that}的所有元素, 即对应计数相加, 超过{@link #MAX_COUNT}则饱和
+     */
+    public void merge(CountingBloomFilter that) {
+        Preconditions.checkNotNull(that, "that counting bloom filter must be not null");
+        Preconditions.checkArgument(isCompatible(that), "counting bloom filters are not compatible");
+        for (int i = 0; i < counters.length(); i++) {
+            long thatWord = that.counters.get(i);
+            if (thatWord == 0) {
+                continue;
+            }
+            for (; ; ) {
+                long word = counters.get(i);
+                long update = saturatedAdd(word, thatWord);
+                if (word == update || counters.compareAndSet(i, word, update)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 16个计数分别饱和相加
+     */
+    private static long saturatedAdd(long a, long b) {
+        long result = 0;
+        for (int offset = 0; offset < Long.SIZE; offset += 4) {
+            long sum = Math.min(MAX_COUNT, ((a >>> offset) & 0xfL) + ((b >>> offset) & 0xfL));
+            result |= sum << offset;
+        }
+        return result;
+    }
+
+    /**
+     * 写入类型标识, 版本, hash函数数量和计数数组
+     * 并发修改时, 写入的内容并非某一时刻的快照
+     */
+    public void writeTo(Output output) {
+        BloomFilter.writeHeader(output, BloomFilter.TYPE_COUNTING_BLOOM_FILTER);
+        output.writeVarInt32(numHashFunctions);
+        counters.writeTo(output);
+    }
+
+    @Override
+    public void close() {
+        counters.close();
+    }
+
+    //getter
+    public long getCounterSize() {
+        return counterSize;
+    }
+
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    @Override
+    public String toString() {
+        return "CountingBloomFilter{" +
+                "counterSize=" + counterSize +
+                ", numHashFunctions=" + numHashFunctions +
+                '}';
+    }
+}
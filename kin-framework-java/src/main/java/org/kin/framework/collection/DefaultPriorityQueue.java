@@ -18,6 +18,9 @@ package org.kin.framework.collection;
 import com.google.common.base.Preconditions;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 
 import static org.kin.framework.collection.PriorityQueueNode.INDEX_NOT_IN_QUEUE;
 
@@ -27,6 +30,9 @@ import static org.kin.framework.collection.PriorityQueueNode.INDEX_NOT_IN_QUEUE;
  * 区别:
  * 额外支持item重排序, 并且可以通过index直接访问到对应的item
  * <p>
+ * d叉堆, 默认4叉, 相比二叉堆层数更少, 且同一节点的子节点在数组中连续, cache更友好
+ * 支持批量入队(O(n)建堆), 批量移除到期节点, 以及延迟移除(比如已取消的定时任务), 满足{@code removedPredicate}的节点在到达堆顶或者扩容时才真正移除
+ * <p>
  * A priority queue which uses natural ordering of elements. Elements are also required to be of type
  * {@link PriorityQueueNode} for the purpose of maintaining the index in the priority queue.
  *
@@ -35,14 +41,37 @@ import static org.kin.framework.collection.PriorityQueueNode.INDEX_NOT_IN_QUEUE;
 public final class DefaultPriorityQueue<T extends PriorityQueueNode> extends AbstractQueue<T>
         implements PriorityQueue<T> {
     private static final PriorityQueueNode[] EMPTY_ARRAY = new PriorityQueueNode[0];
+    /** 默认堆叉数 */
+    public static final int DEFAULT_ARITY = 4;
+
     private final Comparator<T> comparator;
+    /** 堆叉数 */
+    private final int arity;
+    /** 判断节点是否已被延迟移除, null则不支持延迟移除 */
+    private final Predicate<? super T> removedPredicate;
     private T[] queue;
+    /** 节点数, 包括已被延迟移除但仍在堆中的节点 */
     private int size;
 
-    @SuppressWarnings("unchecked")
     public DefaultPriorityQueue(Comparator<T> comparator, int initialSize) {
+        this(comparator, initialSize, DEFAULT_ARITY);
+    }
+
+    public DefaultPriorityQueue(Comparator<T> comparator, int initialSize, int arity) {
+        this(comparator, initialSize, arity, null);
+    }
+
+    /**
+     * @param arity            堆叉数
+     * @param removedPredicate 判断节点是否已被延迟移除, 比如已取消的定时任务, 需保证节点一旦满足条件, 之后一直满足
+     */
+    @SuppressWarnings("unchecked")
+    public DefaultPriorityQueue(Comparator<T> comparator, int initialSize, int arity, Predicate<? super T> removedPredicate) {
         Preconditions.checkNotNull(comparator, "comparator must be not null");
+        Preconditions.checkArgument(arity >= 2, "arity must be greater than or equal to 2");
         this.comparator = comparator;
+        this.arity = arity;
+        this.removedPredicate = removedPredicate;
         queue = (T[]) (initialSize != 0 ? new PriorityQueueNode[initialSize] : EMPTY_ARRAY);
     }
 
@@ -96,19 +125,70 @@ public final class DefaultPriorityQueue<T extends PriorityQueueNode> extends Abs
 
         // Check that the array capacity is enough to hold values by doubling capacity.
         if (size >= queue.length) {
-            // Use a policy which allows for a 0 initial capacity. Same policy as JDK's priority queue, double when
-            // "small", then grow by 50% when "large".
-            queue = Arrays.copyOf(queue, queue.length + ((queue.length < 64) ?
-                    (queue.length + 2) :
-                    (queue.length >>> 1)));
+            //扩容前先清理已被延迟移除的节点, 清理出的空间较少则仍扩容, 避免频繁清理
+            int purged = purge();
+            if (size >= queue.length || purged < (queue.length >>> 2)) {
+                ensureCapacity(queue.length + 1);
+            }
         }
-
         bubbleUp(size++, e);
         return true;
     }
 
+    /**
+     * 确保数组容量不少于{@code minCapacity}
+     */
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= queue.length) {
+            return;
+        }
+        // Use a policy which allows for a 0 initial capacity. Same policy as JDK's priority queue, double when
+        // "small", then grow by 50% when "large".
+        int newCapacity = queue.length + ((queue.length < 64) ?
+                (queue.length + 2) :
+                (queue.length >>> 1));
+        queue = Arrays.copyOf(queue, Math.max(newCapacity, minCapacity));
+    }
+
+    /**
+     * 批量入队, 入队数量不少于当前节点数时, 直接追加到数组尾部再整体建堆, O(n), 否则逐个入队
+     */
+    public boolean offerAll(Collection<? extends T> c) {
+        if (c.isEmpty()) {
+            return false;
+        }
+        if (c.size() < size) {
+            for (T e : c) {
+                offer(e);
+            }
+            return true;
+        }
+
+        for (T e : c) {
+            if (e.priorityQueueIndex(this) != INDEX_NOT_IN_QUEUE) {
+                throw new IllegalArgumentException("e.priorityQueueIndex(): " + e.priorityQueueIndex(this) +
+                        " (expected: " + INDEX_NOT_IN_QUEUE + ") + e: " + e);
+            }
+        }
+        ensureCapacity(size + c.size());
+        for (T e : c) {
+            queue[size] = e;
+            e.priorityQueueIndex(this, size++);
+        }
+        heapify();
+        return true;
+    }
+
     @Override
     public T poll() {
+        discardRemovedHead();
+        return removeFirst();
+    }
+
+    /**
+     * 移除堆顶节点, 不检查是否已被延迟移除
+     */
+    private T removeFirst() {
         if (size == 0) {
             return null;
         }
@@ -126,9 +206,129 @@ public final class DefaultPriorityQueue<T extends PriorityQueueNode> extends Abs
 
     @Override
     public T peek() {
+        discardRemovedHead();
         return (size == 0) ? null : queue[0];
     }
 
+    /**
+     * 移除堆顶已被延迟移除的节点
+     */
+    private void discardRemovedHead() {
+        if (removedPredicate == null) {
+            return;
+        }
+        while (size > 0 && removedPredicate.test(queue[0])) {
+            removeFirst();
+        }
+    }
+
+    /**
+     * 移除所有{@code priority(node) <= deadline}的节点, 并按优先级顺序传给{@code consumer}, 已被延迟移除的节点直接丢弃
+     * {@code priority}需与{@code comparator}顺序一致, 比较方式与{@link System#nanoTime()}一致, 即{@code priority(node) - deadline <= 0}
+     * 到期节点数较多时, 一次遍历移除全部到期节点再重新建堆, 否则逐个移除
+     *
+     * @return 传给{@code consumer}的节点数
+     */
+    public int pollAllBefore(ToLongFunction<? super T> priority, long deadline, Consumer<? super T> consumer) {
+        //到期节点的父节点必然到期, 即到期节点构成以堆顶为根的子树
+        int due = countDue(0, priority, deadline);
+        if (due == 0) {
+            return 0;
+        }
+
+        int polled = 0;
+        if ((long) due * (32 - Integer.numberOfLeadingZeros(size)) <= size) {
+            //到期节点较少, 逐个移除, O(k * log(n))
+            for (int i = 0; i < due; i++) {
+                T node = removeFirst();
+                if (removedPredicate == null || !removedPredicate.test(node)) {
+                    consumer.accept(node);
+                    polled++;
+                }
+            }
+            return polled;
+        }
+
+        //到期节点较多, 一次遍历分离到期节点, 再重新建堆, O(n + k * log(k))
+        List<T> dueNodes = new ArrayList<>(due);
+        int remain = 0;
+        for (int i = 0; i < size; i++) {
+            T node = queue[i];
+            if (priority.applyAsLong(node) - deadline <= 0) {
+                node.priorityQueueIndex(this, INDEX_NOT_IN_QUEUE);
+                if (removedPredicate == null || !removedPredicate.test(node)) {
+                    dueNodes.add(node);
+                }
+            } else {
+                queue[remain] = node;
+                node.priorityQueueIndex(this, remain++);
+            }
+        }
+        Arrays.fill(queue, remain, size, null);
+        size = remain;
+        heapify();
+
+        dueNodes.sort(comparator);
+        for (T node : dueNodes) {
+            consumer.accept(node);
+            polled++;
+        }
+        return polled;
+    }
+
+    /**
+     * 统计以{@code k}为根的子树中到期节点数
+     */
+    private int countDue(int k, ToLongFunction<? super T> priority, long deadline) {
+        if (k >= size || priority.applyAsLong(queue[k]) - deadline > 0) {
+            return 0;
+        }
+        int count = 1;
+        long firstChild = (long) k * arity + 1;
+        long end = Math.min(firstChild + arity, size);
+        for (long i = firstChild; i < end; i++) {
+            count += countDue((int) i, priority, deadline);
+        }
+        return count;
+    }
+
+    /**
+     * 立即移除所有已被延迟移除的节点, 并重新建堆
+     *
+     * @return 移除的节点数
+     */
+    public int purge() {
+        if (removedPredicate == null) {
+            return 0;
+        }
+        int remain = 0;
+        for (int i = 0; i < size; i++) {
+            T node = queue[i];
+            if (removedPredicate.test(node)) {
+                node.priorityQueueIndex(this, INDEX_NOT_IN_QUEUE);
+            } else {
+                queue[remain] = node;
+                node.priorityQueueIndex(this, remain++);
+            }
+        }
+        int removed = size - remain;
+        if (removed > 0) {
+            Arrays.fill(queue, remain, size, null);
+            size = remain;
+            heapify();
+        }
+        return removed;
+    }
+
+    /**
+     * 自底向上建堆, O(n)
+     */
+    private void heapify() {
+        for (int i = lastParent(); i >= 0; i--) {
+            bubbleDown(i, queue[i]);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public boolean remove(Object o) {
@@ -181,7 +381,7 @@ public final class DefaultPriorityQueue<T extends PriorityQueueNode> extends Abs
             bubbleDown(i, node);
         } else {
             // Get the parent to see if min-heap properties are violated.
-            int iParent = (i - 1) >>> 1;
+            int iParent = (i - 1) / arity;
             T parent = queue[iParent];
             if (comparator.compare(node, parent) < 0) {
                 bubbleUp(i, node);
@@ -244,17 +444,26 @@ public final class DefaultPriorityQueue<T extends PriorityQueueNode> extends Abs
         return i >= 0 && i < size && node.equals(queue[i]);
     }
 
+    /**
+     * Index of the last node which has children, -1 if none.
+     */
+    private int lastParent() {
+        return size < 2 ? -1 : (size - 2) / arity;
+    }
+
     private void bubbleDown(int k, T node) {
-        final int half = size >>> 1;
-        while (k < half) {
+        final int lastParent = lastParent();
+        while (k <= lastParent) {
             // Compare node to the children of index k.
-            int iChild = (k << 1) + 1;
+            int iChild = k * arity + 1;
             T child = queue[iChild];
 
             // Make sure we get the smallest child to compare against.
-            int rightChild = iChild + 1;
-            if (rightChild < size && comparator.compare(child, queue[rightChild]) > 0) {
-                child = queue[iChild = rightChild];
+            int end = Math.min(iChild + arity, size);
+            for (int i = iChild + 1; i < end; i++) {
+                if (comparator.compare(child, queue[i]) > 0) {
+                    child = queue[iChild = i];
+                }
             }
             // If the bubbleDown node is less than or equal to the smallest child then we will preserve the min-heap
             // property by inserting the bubbleDown node here.
@@ -277,7 +486,7 @@ public final class DefaultPriorityQueue<T extends PriorityQueueNode> extends Abs
 
     private void bubbleUp(int k, T node) {
         while (k > 0) {
-            int iParent = (k - 1) >>> 1;
+            int iParent = (k - 1) / arity;
             T parent = queue[iParent];
 
             // If the bubbleUp node is less than the parent, then we have found a spot to insert and still maintain
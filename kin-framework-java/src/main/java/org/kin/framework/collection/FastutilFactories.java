@@ -0,0 +1,146 @@
+package org.kin.framework.collection;
+
+import it.unimi.dsi.fastutil.doubles.*;
+import it.unimi.dsi.fastutil.ints.*;
+import it.unimi.dsi.fastutil.longs.*;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import org.kin.framework.utils.ClassUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于fastutil的原始类型集合和map工厂
+ * 元素直接以原始类型存储, 无需装箱, 内存占用和gc压力远小于jdk集合
+ * fastutil为optional依赖, 使用前需判断{@link #PRESENT}, 否则会抛{@link NoClassDefFoundError}
+ * 注意: fastutil原始类型集合不支持null元素(原始类型key或value), 写入null会抛{@link NullPointerException}
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+final class FastutilFactories {
+    /** classpath是否存在fastutil */
+    static final boolean PRESENT = ClassUtils.isClassPresent("it.unimi.dsi.fastutil.ints.IntArrayList");
+
+    private FastutilFactories() {
+    }
+
+    /**
+     * 注册内置的原始类型集合工厂
+     */
+    static void registerCollectionFactories(Map<Class<?>, CollectionFactory<?>> factories) {
+        factories.put(IntList.class, IntArrayList::new);
+        factories.put(IntArrayList.class, IntArrayList::new);
+        factories.put(IntSet.class, IntOpenHashSet::new);
+        factories.put(IntOpenHashSet.class, IntOpenHashSet::new);
+        factories.put(LongList.class, LongArrayList::new);
+        factories.put(LongArrayList.class, LongArrayList::new);
+        factories.put(LongSet.class, LongOpenHashSet::new);
+        factories.put(LongOpenHashSet.class, LongOpenHashSet::new);
+        factories.put(DoubleList.class, DoubleArrayList::new);
+        factories.put(DoubleArrayList.class, DoubleArrayList::new);
+        factories.put(DoubleSet.class, DoubleOpenHashSet::new);
+        factories.put(DoubleOpenHashSet.class, DoubleOpenHashSet::new);
+    }
+
+    /**
+     * 注册内置的原始类型map工厂
+     */
+    static void registerMapFactories(Map<Class<?>, MapFactory<?>> factories) {
+        factories.put(Int2ObjectMap.class, Int2ObjectOpenHashMap::new);
+        factories.put(Int2ObjectOpenHashMap.class, Int2ObjectOpenHashMap::new);
+        factories.put(Int2IntMap.class, Int2IntOpenHashMap::new);
+        factories.put(Int2IntOpenHashMap.class, Int2IntOpenHashMap::new);
+        factories.put(Int2LongMap.class, Int2LongOpenHashMap::new);
+        factories.put(Int2LongOpenHashMap.class, Int2LongOpenHashMap::new);
+        factories.put(Long2ObjectMap.class, Long2ObjectOpenHashMap::new);
+        factories.put(Long2ObjectOpenHashMap.class, Long2ObjectOpenHashMap::new);
+        factories.put(Long2IntMap.class, Long2IntOpenHashMap::new);
+        factories.put(Long2IntOpenHashMap.class, Long2IntOpenHashMap::new);
+        factories.put(Long2LongMap.class, Long2LongOpenHashMap::new);
+        factories.put(Long2LongOpenHashMap.class, Long2LongOpenHashMap::new);
+        factories.put(Object2IntMap.class, Object2IntOpenHashMap::new);
+        factories.put(Object2IntOpenHashMap.class, Object2IntOpenHashMap::new);
+        factories.put(Object2LongMap.class, Object2LongOpenHashMap::new);
+        factories.put(Object2LongOpenHashMap.class, Object2LongOpenHashMap::new);
+    }
+
+    /**
+     * 集合类型为{@link Collection}, {@link List}或{@link Set}接口, 且元素类型为原始类型int, long或double时, 返回对应原始类型集合工厂
+     * 具体实现类(比如{@link java.util.ArrayList})不替换, 防止类型转换异常
+     * 元素类型为包装类型(比如{@link Integer})时, 可能需要存储null, 故不替换
+     *
+     * @return 不适用则返回null
+     */
+    static CollectionFactory<?> collectionFactory(Class<?> type, Class<?> elementType) {
+        boolean list = Collection.class.equals(type) || List.class.equals(type);
+        boolean set = Set.class.equals(type);
+        if (!list && !set) {
+            return null;
+        }
+        if (isInt(elementType)) {
+            return list ? (CollectionFactory<IntList>) IntArrayList::new : (CollectionFactory<IntSet>) IntOpenHashSet::new;
+        }
+        if (isLong(elementType)) {
+            return list ? (CollectionFactory<LongList>) LongArrayList::new : (CollectionFactory<LongSet>) LongOpenHashSet::new;
+        }
+        if (isDouble(elementType)) {
+            return list ? (CollectionFactory<DoubleList>) DoubleArrayList::new : (CollectionFactory<DoubleSet>) DoubleOpenHashSet::new;
+        }
+        return null;
+    }
+
+    /**
+     * map类型为{@link Map}接口, 且key或者value类型为原始类型int或long时, 返回对应原始类型map工厂
+     * key和value类型为包装类型(比如{@link Integer})时, 可能需要存储null, 故不替换
+     *
+     * @return 不适用则返回null
+     */
+    static MapFactory<?> mapFactory(Class<?> type, Class<?> keyType, Class<?> valueType) {
+        if (!Map.class.equals(type)) {
+            return null;
+        }
+        if (isInt(keyType)) {
+            if (isInt(valueType)) {
+                return (MapFactory<Int2IntMap>) Int2IntOpenHashMap::new;
+            }
+            if (isLong(valueType)) {
+                return (MapFactory<Int2LongMap>) Int2LongOpenHashMap::new;
+            }
+            return (MapFactory<Int2ObjectMap<?>>) Int2ObjectOpenHashMap::new;
+        }
+        if (isLong(keyType)) {
+            if (isInt(valueType)) {
+                return (MapFactory<Long2IntMap>) Long2IntOpenHashMap::new;
+            }
+            if (isLong(valueType)) {
+                return (MapFactory<Long2LongMap>) Long2LongOpenHashMap::new;
+            }
+            return (MapFactory<Long2ObjectMap<?>>) Long2ObjectOpenHashMap::new;
+        }
+        if (isInt(valueType)) {
+            return (MapFactory<Object2IntMap<?>>) Object2IntOpenHashMap::new;
+        }
+        if (isLong(valueType)) {
+            return (MapFactory<Object2LongMap<?>>) Object2LongOpenHashMap::new;
+        }
+        return null;
+    }
+
+    private static boolean isInt(Class<?> type) {
+        return Integer.TYPE.equals(type);
+    }
+
+    private static boolean isLong(Class<?> type) {
+        return Long.TYPE.equals(type);
+    }
+
+    private static boolean isDouble(Class<?> type) {
+        return Double.TYPE.equals(type);
+    }
+}
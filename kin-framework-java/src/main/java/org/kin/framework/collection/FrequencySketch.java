@@ -0,0 +1,147 @@
+package org.kin.framework.collection;
+
+import org.kin.framework.utils.Maths;
+
+/**
+ * TinyLFU访问频率统计, 即每个计数4bit的count-min sketch, 用于{@link TinyLfuCache}淘汰时比较新旧entry的访问频率
+ * 每个long存储16个计数, 每个元素通过4个hash函数分别定位4个long, 在第i个long中取第{@code start + i}个计数, 取4个计数的最小值作为频率
+ * 累计次数达到采样数后, 所有计数减半, 从而淘汰历史热点
+ * <p>
+ * 非线程安全, 仅在{@link TinyLfuCache}持有淘汰锁时访问
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+final class FrequencySketch {
+    /** 每个计数的最大值 */
+    private static final int MAX_FREQUENCY = 15;
+    /** 减半时, 清除每个计数的最高位 */
+    private static final long RESET_MASK = 0x7777777777777777L;
+    /** 每个计数的最低位 */
+    private static final long ONE_MASK = 0x1111111111111111L;
+    /** 4个hash函数的种子 */
+    private static final long[] SEED = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    /** table最大长度 */
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    /** 计数table */
+    private long[] table = new long[0];
+    private int tableMask;
+    /** 采样数, 累计次数达到该值后减半 */
+    private int sampleSize;
+    /** 累计次数 */
+    private int size;
+
+    /**
+     * 保证table长度不小于{@code maximumSize}
+     * 扩容时table长度翻倍, 新下标与旧下标仅相差最高位, 故将旧table复制到新table的每一段, 即可保留已有计数
+     */
+    void ensureCapacity(long maximumSize) {
+        int maximum = (int) Math.min(Math.max(maximumSize, 8), MAX_TABLE_SIZE);
+        if (table.length >= maximum) {
+            return;
+        }
+        long[] oldTable = table;
+        table = new long[Maths.round2Power2(maximum)];
+        tableMask = table.length - 1;
+        if (oldTable.length > 0) {
+            for (int i = 0; i < table.length; i += oldTable.length) {
+                System.arraycopy(oldTable, 0, table, i, oldTable.length);
+            }
+        }
+        sampleSize = 10 * table.length;
+        if (sampleSize <= 0) {
+            sampleSize = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * table长度
+     */
+    int capacity() {
+        return table.length;
+    }
+
+    /**
+     * 访问频率, 最大值为{@link #MAX_FREQUENCY}
+     */
+    int frequency(Object e) {
+        if (table.length == 0) {
+            return 0;
+        }
+        int hash = spread(e.hashCode());
+        //4个计数在long中的起始位置
+        int start = (hash & 3) << 2;
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xFL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 访问频率+1
+     */
+    void increment(Object e) {
+        if (table.length == 0) {
+            return;
+        }
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 第{@code i}个long的第{@code j}个计数+1
+     *
+     * @return 是否未达到最大值
+     */
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = 0xFL << offset;
+        if ((table[i] & mask) != mask) {
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 所有计数减半
+     */
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            //减半后被舍弃的奇数部分
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    /**
+     * 第{@code i}个hash函数对应的table下标
+     */
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int) hash) & tableMask;
+    }
+
+    /**
+     * 再hash, 防止低质量的hashCode
+     */
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -42,6 +42,9 @@ public class MapFactories extends AbstractFactories<MapFactory<?>> {
         factories.put(ConcurrentNavigableMap.class, ConcurrentSkipListMap::new);
         factories.put(ConcurrentSkipListMap.class, ConcurrentSkipListMap::new);
         factories.put(Properties.class, Properties::new);
+        if (FastutilFactories.PRESENT) {
+            FastutilFactories.registerMapFactories(factories);
+        }
 
         //通过spi加载
         for (MapFactory<?> factory : ExtensionLoader.getExtensions(MapFactory.class)) {
@@ -52,6 +55,26 @@ public class MapFactories extends AbstractFactories<MapFactory<?>> {
         register(factories);
     }
 
+    /**
+     * 根据map类型, key和value类型获取工厂
+     * map类型为{@link Map}接口, 且key或者value类型为原始类型int或long时, 优先使用fastutil原始类型map, 以减少装箱开销
+     * 注意: fastutil原始类型map的原始类型key或value不支持null, put(null, ...)会抛{@link NullPointerException}
+     * 需要存储null时, {@code keyType}和{@code valueType}传入包装类型(比如{@link Integer}), 则使用jdk map
+     *
+     * @param type      map类型
+     * @param keyType   key类型
+     * @param valueType value类型
+     */
+    public MapFactory<?> getFactory(Class<?> type, Class<?> keyType, Class<?> valueType) {
+        if (FastutilFactories.PRESENT) {
+            MapFactory<?> factory = FastutilFactories.mapFactory(type, keyType, valueType);
+            if (Objects.nonNull(factory)) {
+                return factory;
+            }
+        }
+        return getFactory(type);
+    }
+
     @Override
     public synchronized void register(Class<?> type, MapFactory<?> factory) {
         if (!Map.class.isAssignableFrom(type)) {
@@ -0,0 +1,835 @@
+package org.kin.framework.collection;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.Closeable;
+import org.kin.framework.utils.SysUtils;
+import org.kin.framework.utils.UnsafeDirectBufferUtil;
+import org.kin.framework.utils.UnsafeUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于堆外内存的long -> long open addressing hash map, 适用于千万级别的索引, 数据不占用堆内存, 不增加gc压力
+ * <p>
+ * 1. 每个slot占用1字节控制位和16字节key-value, 控制位存储7位hash, 查找时先比较控制位, 减少key的读取
+ * 2. 扩容时, 新旧table并存, 每次写操作迁移部分slot, 不会因一次性rehash导致写操作长时间停顿
+ * 3. 写操作加锁串行执行; 读操作基于按key hash分段的seqlock乐观读, 无锁, 竞争激烈时才加锁
+ * 4. 被替换的table基于epoch延迟释放, 保证没有读线程仍在访问
+ * 5. 支持将table快照到文件, 重启时直接通过内存映射复制回堆外内存, 无需重新插入
+ * <p>
+ * 使用{@link UnsafeUtil#allocateMemory(long)}申请内存, 不受-XX:MaxDirectMemorySize限制, 不再使用时必须调用{@link #close()}释放
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class OffHeapLong2LongMap implements Closeable {
+    /** 默认初始容量 */
+    private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+    /** 默认负载因子, 线性探测负载过高时探测链过长 */
+    private static final float DEFAULT_LOAD_FACTOR = 0.7F;
+    /** 最小table容量 */
+    private static final int MIN_CAPACITY = 16;
+    /** 最大table容量 */
+    private static final int MAX_CAPACITY = 1 << 30;
+    /** 每个slot key-value占用字节数 */
+    private static final int SLOT_SHIFT = 4;
+    /** 控制位, 空slot */
+    private static final byte EMPTY = 0;
+    /** 控制位, 已删除或者已迁移的slot, 查找时需跳过继续探测 */
+    private static final byte DELETED = 1;
+    /** 控制位, 有效slot最高位为1, 低7位为hash高7位 */
+    private static final int FULL = 0x80;
+    /** 每次写操作迁移的slot数 */
+    private static final int REHASH_STEP = 64;
+    /** 乐观读最大重试次数, 超过则加锁读 */
+    private static final int MAX_OPTIMISTIC_READ_RETRIES = 8;
+    /** seqlock分段数 */
+    private static final int STRIPES = tableSizeFor(SysUtils.CPU_NUM * 4);
+    /** 每个seqlock占用的long数, 避免false sharing */
+    private static final int STRIPE_PADDING = 8;
+
+    /** 快照文件magic */
+    private static final int SNAPSHOT_MAGIC = 0x4B4F484D;
+    /** 快照文件版本 */
+    private static final int SNAPSHOT_VERSION = 1;
+    /** 快照文件头字节数 */
+    private static final int SNAPSHOT_HEADER_BYTES = 64;
+    /** 快照文件每次内存映射的最大字节数 */
+    private static final long SNAPSHOT_MAP_CHUNK = 1L << 30;
+
+    /** key不存在时的返回值 */
+    private final long noEntryValue;
+    /** 负载因子 */
+    private final float loadFactor;
+    /** 按key hash分段的seqlock, 写操作修改某个key前后各+1, 奇数即正在修改 */
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPES * STRIPE_PADDING);
+    /** 写锁 */
+    private final ReentrantLock writeLock = new ReentrantLock();
+    /** 当前table, 新数据只会写入该table, close后为null */
+    private volatile Table current;
+    /** 正在迁移到{@link #current}的旧table, 不在扩容则为null */
+    private volatile Table rehashing;
+    /** {@link #rehashing}下一个待迁移的slot, 写线程独占 */
+    private int rehashIndex;
+    /** key-value数量 */
+    private volatile long size;
+
+    /** 当前epoch, 仅写线程修改 */
+    private volatile long epoch;
+    /** 按epoch奇偶统计的正在读的线程数 */
+    private final AtomicLong[] readers = {new AtomicLong(), new AtomicLong()};
+    /** 当前epoch被替换的table, 写线程独占 */
+    private List<Table> retired = new ArrayList<>();
+    /** 上一epoch被替换的table, 该epoch的读线程全部退出后即可释放, 写线程独占 */
+    private List<Table> retiring = new ArrayList<>();
+    /** {@link #retiring}对应的epoch奇偶 */
+    private int retiringParity;
+
+    public OffHeapLong2LongMap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public OffHeapLong2LongMap(long initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, -1);
+    }
+
+    /**
+     * @param initialCapacity 预期key-value数量
+     * @param loadFactor      负载因子
+     * @param noEntryValue    key不存在时的返回值
+     */
+    public OffHeapLong2LongMap(long initialCapacity, float loadFactor, long noEntryValue) {
+        this(capacityFor(initialCapacity, loadFactor), loadFactor, noEntryValue);
+    }
+
+    private OffHeapLong2LongMap(int capacity, float loadFactor, long noEntryValue) {
+        if (!UnsafeUtil.hasUnsafe()) {
+            throw new UnsupportedOperationException("sun.misc.Unsafe is unavailable");
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        this.current = new Table(capacity, loadFactor);
+    }
+
+    /**
+     * 计算能容纳{@code expected}个key-value的table容量
+     */
+    private static int capacityFor(long expected, float loadFactor) {
+        Preconditions.checkArgument(expected >= 0, "initialCapacity must be greater than or equal to 0");
+        Preconditions.checkArgument(loadFactor > 0 && loadFactor < 1, "loadFactor must be in (0, 1)");
+        long capacity = (long) Math.ceil(expected / loadFactor) + 1;
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("initialCapacity is too large: " + expected);
+        }
+        return tableSizeFor((int) capacity);
+    }
+
+    /**
+     * 返回大于等于{@code capacity}的2的n次方
+     */
+    private static int tableSizeFor(int capacity) {
+        if (capacity <= MIN_CAPACITY) {
+            return MIN_CAPACITY;
+        }
+        return Math.min(Integer.highestOneBit(capacity - 1) << 1, MAX_CAPACITY);
+    }
+
+    /**
+     * murmur3 fmix64, 低位用于定位slot, 高7位存储在控制位, 中间位用于定位seqlock
+     */
+    private static long hash(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 有效slot的控制位
+     */
+    private static byte tag(long hash) {
+        return (byte) (FULL | (hash >>> 57));
+    }
+
+    /**
+     * key对应的seqlock在{@link #stripes}的位置
+     */
+    private static int stripe(long hash) {
+        return ((int) (hash >>> 32) & (STRIPES - 1)) * STRIPE_PADDING;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------------读
+
+    /**
+     * 取{@code key}对应的value, 线程安全
+     *
+     * @return value, 不存在则返回{@code noEntryValue}
+     */
+    public long get(long key) {
+        return read(key, false);
+    }
+
+    /**
+     * 是否包含{@code key}, 线程安全
+     */
+    public boolean containsKey(long key) {
+        return read(key, true) != 0;
+    }
+
+    /**
+     * 乐观读, 读取前后seqlock未变化则结果有效, 否则重试, 重试次数过多则加锁读
+     *
+     * @param containsOnly true则仅判断key是否存在, 存在返回1, 否则返回0
+     */
+    private long read(long key, boolean containsOnly) {
+        long hash = hash(key);
+        int stripe = stripe(hash);
+        int parity = enter();
+        try {
+            for (int i = 0; i < MAX_OPTIMISTIC_READ_RETRIES; i++) {
+                long seq = stripes.get(stripe);
+                if ((seq & 1) != 0) {
+                    //正在修改
+                    continue;
+                }
+                long ret = lookup(key, hash, containsOnly);
+                UnsafeUtil.loadFence();
+                if (stripes.get(stripe) == seq) {
+                    return ret;
+                }
+            }
+        } finally {
+            exit(parity);
+        }
+
+        writeLock.lock();
+        try {
+            return lookup(key, hash, containsOnly);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 先查找{@link #current}, 再查找{@link #rehashing}
+     */
+    private long lookup(long key, long hash, boolean containsOnly) {
+        Table current = this.current;
+        if (Objects.isNull(current)) {
+            throw new IllegalStateException("map is closed");
+        }
+        int index = current.find(key, hash);
+        if (index >= 0) {
+            return containsOnly ? 1 : current.value(index);
+        }
+        Table rehashing = this.rehashing;
+        if (Objects.nonNull(rehashing) && rehashing != current) {
+            index = rehashing.find(key, hash);
+            if (index >= 0) {
+                return containsOnly ? 1 : rehashing.value(index);
+            }
+        }
+        return containsOnly ? 0 : noEntryValue;
+    }
+
+    /**
+     * 读线程进入当前epoch
+     * 计数+1后需再次校验epoch, 否则epoch在两者之间切换, 读线程会登记到上一epoch, 写线程可能释放其正在访问的table
+     *
+     * @return epoch奇偶
+     */
+    private int enter() {
+        for (; ; ) {
+            int parity = (int) (epoch & 1);
+            readers[parity].incrementAndGet();
+            if ((int) (epoch & 1) == parity) {
+                return parity;
+            }
+            readers[parity].decrementAndGet();
+        }
+    }
+
+    /**
+     * 读线程退出epoch
+     */
+    private void exit(int parity) {
+        readers[parity].decrementAndGet();
+    }
+
+    /**
+     * key-value数量
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * map是否empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 当前table占用的堆外内存字节数, 包括正在迁移的旧table
+     */
+    public long memoryUsage() {
+        long ret = 0;
+        Table current = this.current;
+        if (Objects.nonNull(current)) {
+            ret += current.bytes;
+        }
+        Table rehashing = this.rehashing;
+        if (Objects.nonNull(rehashing)) {
+            ret += rehashing.bytes;
+        }
+        return ret;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------------写
+
+    /**
+     * 写操作开始修改{@code stripe}对应的key
+     */
+    private void beginWrite(int stripe) {
+        stripes.incrementAndGet(stripe);
+        //保证之后的修改不会重排序到seqlock+1之前
+        UnsafeUtil.storeFence();
+    }
+
+    /**
+     * 写操作结束修改{@code stripe}对应的key
+     */
+    private void endWrite(int stripe) {
+        stripes.incrementAndGet(stripe);
+    }
+
+    /**
+     * put key-value, 线程安全
+     *
+     * @return 旧value, 不存在则返回{@code noEntryValue}
+     */
+    public long put(long key, long value) {
+        long hash = hash(key);
+        int stripe = stripe(hash);
+        writeLock.lock();
+        try {
+            checkNotClosed();
+            rehashStep();
+
+            Table current = this.current;
+            long old = noEntryValue;
+            beginWrite(stripe);
+            try {
+                int index = current.find(key, hash);
+                if (index >= 0) {
+                    old = current.value(index);
+                    current.value(index, value);
+                    return old;
+                }
+
+                boolean exists = false;
+                Table rehashing = this.rehashing;
+                if (Objects.nonNull(rehashing)) {
+                    //未迁移, 直接移到新table
+                    index = rehashing.find(key, hash);
+                    if (index >= 0) {
+                        old = rehashing.value(index);
+                        rehashing.delete(index);
+                        exists = true;
+                    }
+                }
+                current.insert(current.findFree(hash), key, value, tag(hash));
+                if (!exists) {
+                    size++;
+                }
+            } finally {
+                endWrite(stripe);
+            }
+
+            if (current.used >= current.threshold) {
+                startRehash();
+            }
+            return old;
+        } finally {
+            tryReclaim();
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 移除{@code key}, 线程安全
+     *
+     * @return 旧value, 不存在则返回{@code noEntryValue}
+     */
+    public long remove(long key) {
+        long hash = hash(key);
+        int stripe = stripe(hash);
+        writeLock.lock();
+        try {
+            checkNotClosed();
+            rehashStep();
+
+            Table table = this.current;
+            int index = table.find(key, hash);
+            if (index < 0 && Objects.nonNull(rehashing)) {
+                table = rehashing;
+                index = table.find(key, hash);
+            }
+            if (index < 0) {
+                return noEntryValue;
+            }
+
+            beginWrite(stripe);
+            try {
+                long old = table.value(index);
+                table.delete(index);
+                size--;
+                return old;
+            } finally {
+                endWrite(stripe);
+            }
+        } finally {
+            tryReclaim();
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 清空map, 线程安全
+     */
+    public void clear() {
+        writeLock.lock();
+        try {
+            checkNotClosed();
+            Table old = this.current;
+            Table rehashing = this.rehashing;
+            this.rehashing = null;
+            this.current = new Table(capacityFor(DEFAULT_INITIAL_CAPACITY, loadFactor), loadFactor);
+            size = 0;
+            retire(old);
+            if (Objects.nonNull(rehashing)) {
+                retire(rehashing);
+            }
+        } finally {
+            tryReclaim();
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 开始扩容, 若有效slot数少于阈值一半, 则仅清理已删除slot, 容量不变
+     */
+    private void startRehash() {
+        if (Objects.nonNull(rehashing)) {
+            //上一次扩容还未完成
+            migrate(Integer.MAX_VALUE);
+        }
+        Table old = this.current;
+        int capacity = old.capacity;
+        if (size >= old.threshold >> 1) {
+            if (capacity >= MAX_CAPACITY) {
+                throw new IllegalStateException("map is too large");
+            }
+            capacity <<= 1;
+        }
+        //先发布rehashing, 读线程先读current再读rehashing, 读到新的current时, 必然能读到旧table
+        this.rehashing = old;
+        this.current = new Table(capacity, loadFactor);
+        rehashIndex = 0;
+    }
+
+    /**
+     * 扩容中, 则迁移部分slot
+     */
+    private void rehashStep() {
+        if (Objects.nonNull(rehashing)) {
+            migrate(REHASH_STEP);
+        }
+    }
+
+    /**
+     * 迁移{@link #rehashing}最多{@code slots}个slot到{@link #current}, 全部迁移完成后, 释放旧table
+     */
+    private void migrate(int slots) {
+        Table old = this.rehashing;
+        Table current = this.current;
+        int end = (int) Math.min(old.capacity, (long) rehashIndex + slots);
+        for (int i = rehashIndex; i < end; i++) {
+            byte ctrl = old.ctrl(i);
+            if (ctrl == EMPTY || ctrl == DELETED) {
+                continue;
+            }
+            long key = old.key(i);
+            long hash = hash(key);
+            int stripe = stripe(hash);
+            beginWrite(stripe);
+            try {
+                current.insert(current.findFree(hash), key, old.value(i), ctrl);
+                //标识已迁移, 读线程跳过该slot继续探测
+                old.ctrl(i, DELETED);
+            } finally {
+                endWrite(stripe);
+            }
+        }
+        rehashIndex = end;
+        if (end == old.capacity) {
+            this.rehashing = null;
+            retire(old);
+        }
+    }
+
+    private void checkNotClosed() {
+        if (Objects.isNull(current)) {
+            throw new IllegalStateException("map is closed");
+        }
+    }
+
+    /**
+     * 标记{@code table}已替换, 待没有读线程访问时再释放
+     */
+    private void retire(Table table) {
+        retired.add(table);
+    }
+
+    /**
+     * 尝试释放已替换的table
+     * 写线程每次替换table后, 切换epoch, 之后进入的读线程只能看到新的table,
+     * 故上一epoch的读线程全部退出后, 上一epoch被替换的table即可释放
+     */
+    private void tryReclaim() {
+        if (!retiring.isEmpty()) {
+            if (readers[retiringParity].get() != 0) {
+                return;
+            }
+            free(retiring);
+        }
+        if (retired.isEmpty()) {
+            return;
+        }
+
+        //切换epoch
+        long epoch = this.epoch;
+        this.epoch = epoch + 1;
+        retiringParity = (int) (epoch & 1);
+        List<Table> tmp = retiring;
+        retiring = retired;
+        retired = tmp;
+        if (readers[retiringParity].get() == 0) {
+            free(retiring);
+        }
+    }
+
+    /**
+     * 释放{@code tables}并清空
+     */
+    private static void free(List<Table> tables) {
+        for (Table table : tables) {
+            table.free();
+        }
+        tables.clear();
+    }
+
+    /**
+     * 释放全部堆外内存, 等待正在读的线程退出, 之后再访问则抛{@link IllegalStateException}
+     */
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            Table current = this.current;
+            if (Objects.isNull(current)) {
+                return;
+            }
+            Table rehashing = this.rehashing;
+            this.current = null;
+            this.rehashing = null;
+            retire(current);
+            if (Objects.nonNull(rehashing)) {
+                retire(rehashing);
+            }
+            retiring.addAll(retired);
+            retired.clear();
+            //切换epoch后, 新进入的读线程只能看到已close
+            epoch++;
+            while (readers[0].get() != 0 || readers[1].get() != 0) {
+                Thread.yield();
+            }
+            free(retiring);
+            size = 0;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------------快照
+
+    /**
+     * 将map快照到{@code file}, 快照期间阻塞写操作, 不阻塞读操作
+     * 快照为table原始内存, 仅能在字节序相同的机器上通过{@link #load(Path)}加载
+     */
+    public void snapshot(Path file) throws IOException {
+        writeLock.lock();
+        try {
+            checkNotClosed();
+            if (Objects.nonNull(rehashing)) {
+                migrate(Integer.MAX_VALUE);
+            }
+            Table table = this.current;
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES);
+                header.putInt(SNAPSHOT_MAGIC)
+                        .putInt(SNAPSHOT_VERSION)
+                        .put((byte) (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? 1 : 0))
+                        .putInt(table.capacity)
+                        .putInt(table.used)
+                        .putLong(size)
+                        .putLong(noEntryValue)
+                        .putFloat(loadFactor);
+                header.clear();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+
+                for (long pos = 0; pos < table.bytes; pos += SNAPSHOT_MAP_CHUNK) {
+                    long len = Math.min(SNAPSHOT_MAP_CHUNK, table.bytes - pos);
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, SNAPSHOT_HEADER_BYTES + pos, len);
+                    try {
+                        UnsafeDirectBufferUtil.copyMemory(table.address + pos, UnsafeUtil.addressOffset(mapped), len);
+                        mapped.force();
+                    } finally {
+                        UnsafeUtil.freeDirectBuffer(mapped);
+                    }
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 加载{@link #snapshot(Path)}生成的快照
+     *
+     * @throws IOException 快照文件不合法
+     */
+    public static OffHeapLong2LongMap load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("snapshot header is truncated");
+                }
+            }
+            header.flip();
+            if (header.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("not a snapshot file: " + file);
+            }
+            int version = header.getInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("unsupported snapshot version: " + version);
+            }
+            boolean bigEndian = header.get() == 1;
+            if (bigEndian != (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN)) {
+                throw new IOException("snapshot byte order mismatch");
+            }
+            int capacity = header.getInt();
+            int used = header.getInt();
+            long size = header.getLong();
+            long noEntryValue = header.getLong();
+            float loadFactor = header.getFloat();
+            if (capacity < MIN_CAPACITY || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1
+                    || !(loadFactor > 0 && loadFactor < 1) || size < 0 || size > used || used > capacity) {
+                throw new IOException("snapshot header is corrupted");
+            }
+            if (channel.size() != SNAPSHOT_HEADER_BYTES + Table.bytes(capacity)) {
+                throw new IOException("snapshot size mismatch");
+            }
+
+            OffHeapLong2LongMap map = new OffHeapLong2LongMap(capacity, loadFactor, noEntryValue);
+            Table table = map.current;
+            for (long pos = 0; pos < table.bytes; pos += SNAPSHOT_MAP_CHUNK) {
+                long len = Math.min(SNAPSHOT_MAP_CHUNK, table.bytes - pos);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, SNAPSHOT_HEADER_BYTES + pos, len);
+                try {
+                    UnsafeDirectBufferUtil.copyMemory(UnsafeUtil.addressOffset(mapped), table.address + pos, len);
+                } finally {
+                    UnsafeUtil.freeDirectBuffer(mapped);
+                }
+            }
+            table.used = used;
+            map.size = size;
+            return map;
+        }
+    }
+
+    //getter
+    public long getNoEntryValue() {
+        return noEntryValue;
+    }
+
+    public float getLoadFactor() {
+        return loadFactor;
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapLong2LongMap{" +
+                "size=" + size +
+                ", loadFactor=" + loadFactor +
+                ", noEntryValue=" + noEntryValue +
+                ", memoryUsage=" + memoryUsage() +
+                '}';
+    }
+
+    //------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 堆外table, 内存布局: 控制位[capacity] | key-value[capacity]
+     * 线性探测, 查找遇到{@link #EMPTY}即结束, 遇到{@link #DELETED}则继续探测
+     */
+    private static final class Table {
+        /** 内存地址, 即控制位起始地址 */
+        final long address;
+        /** key-value起始地址 */
+        final long slotsAddress;
+        /** 占用字节数 */
+        final long bytes;
+        /** slot数, 2的n次方 */
+        final int capacity;
+        final int mask;
+        /** 非空slot数达到该值则扩容 */
+        final int threshold;
+        /** 非空slot数, 包括已删除的slot, 写线程独占 */
+        int used;
+
+        Table(int capacity, float loadFactor) {
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.threshold = Math.min((int) (capacity * loadFactor), capacity - 1);
+            this.bytes = bytes(capacity);
+            this.address = UnsafeUtil.allocateMemory(bytes);
+            this.slotsAddress = address + ctrlBytes(capacity);
+            UnsafeUtil.setMemory(address, ctrlBytes(capacity), EMPTY);
+        }
+
+        /**
+         * 控制位占用字节数, 8字节对齐, 保证key-value对齐
+         */
+        static long ctrlBytes(int capacity) {
+            return (capacity + 7L) & ~7L;
+        }
+
+        /**
+         * 容量为{@code capacity}的table占用的字节数
+         */
+        static long bytes(int capacity) {
+            return ctrlBytes(capacity) + ((long) capacity << SLOT_SHIFT);
+        }
+
+        byte ctrl(int index) {
+            return UnsafeUtil.getByte(address + index);
+        }
+
+        void ctrl(int index, byte ctrl) {
+            UnsafeUtil.putByte(address + index, ctrl);
+        }
+
+        long key(int index) {
+            return UnsafeUtil.getLong(slotsAddress + ((long) index << SLOT_SHIFT));
+        }
+
+        long value(int index) {
+            return UnsafeUtil.getLong(slotsAddress + ((long) index << SLOT_SHIFT) + 8);
+        }
+
+        void value(int index, long value) {
+            UnsafeUtil.putLong(slotsAddress + ((long) index << SLOT_SHIFT) + 8, value);
+        }
+
+        /**
+         * 查找{@code key}所在slot
+         *
+         * @return slot index, 不存在则返回-1
+         */
+        int find(long key, long hash) {
+            byte tag = tag(hash);
+            int index = (int) hash & mask;
+            //读线程可能读到并发修改的中间状态, 限制最大探测次数, 保证结束
+            for (int i = 0; i < capacity; i++) {
+                byte ctrl = ctrl(index);
+                if (ctrl == EMPTY) {
+                    return -1;
+                }
+                if (ctrl == tag && key(index) == key) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * 查找第一个空的或者已删除的slot, 需确保key不存在
+         */
+        int findFree(long hash) {
+            int index = (int) hash & mask;
+            while (true) {
+                byte ctrl = ctrl(index);
+                if (ctrl == EMPTY || ctrl == DELETED) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        /**
+         * 写入key-value, 最后写入控制位, 读线程读到控制位时, key-value必然已写入
+         */
+        void insert(int index, long key, long value, byte tag) {
+            if (ctrl(index) == EMPTY) {
+                used++;
+            }
+            long slotAddress = slotsAddress + ((long) index << SLOT_SHIFT);
+            UnsafeUtil.putLong(slotAddress, key);
+            UnsafeUtil.putLong(slotAddress + 8, value);
+            UnsafeUtil.storeFence();
+            ctrl(index, tag);
+        }
+
+        /**
+         * 删除slot, 下一个slot为空, 则没有探测链经过该slot, 可直接置为空
+         */
+        void delete(int index) {
+            if (ctrl((index + 1) & mask) == EMPTY) {
+                ctrl(index, EMPTY);
+                used--;
+            } else {
+                ctrl(index, DELETED);
+            }
+        }
+
+        /**
+         * 释放堆外内存
+         */
+        void free() {
+            UnsafeUtil.freeMemory(address);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package org.kin.framework.collection;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 按时间分桶的滑动窗口, 统计最近{@code bucketCount * bucketWidth}时间内的样本, 可用于限流, 计数速率统计
+ * 环形数组存储bucket, 样本按当前时间写入对应bucket, O(1)
+ * bucket过期后不立即清理, 下次写入时以CAS替换为新bucket, 读取时跳过过期bucket, 故无需后台线程
+ * <p>
+ * 每个bucket统计样本数, 总和, 最小值和最大值, 可选统计分位数
+ * 分位数基于对数分段直方图估算, 每个2的n次方区间再均分为{@link #SUB_BUCKET_NUM}段, 相对误差不超过1/8
+ * <p>
+ * bucket替换瞬间, 仍持有旧bucket的线程写入的样本会丢失, 仅发生于线程在写入前停顿超过整个窗口时长的情况
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class SlidingWindow {
+    /** 每个2的n次方区间均分的段数 */
+    private static final int SUB_BUCKET_NUM = 8;
+    /** {@link #SUB_BUCKET_NUM}的位数 */
+    private static final int SUB_BUCKET_BITS = 3;
+    /** 直方图长度, 覆盖[0, Long.MAX_VALUE] */
+    private static final int HISTOGRAM_LENGTH = histogramIndex(Long.MAX_VALUE) + 1;
+
+    /** bucket数量 */
+    private final int bucketCount;
+    /** bucket时间跨度, 纳秒 */
+    private final long bucketWidthNanos;
+    /** 窗口时间跨度, 纳秒 */
+    private final long windowNanos;
+    /** 是否统计分位数 */
+    private final boolean percentileEnabled;
+    /** 时间源, 纳秒 */
+    private final LongSupplier nanoTime;
+    /** 起始时间, 纳秒 */
+    private final long origin;
+    /** 环形bucket数组 */
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    public SlidingWindow(int bucketCount, long bucketWidth, TimeUnit unit) {
+        this(bucketCount, bucketWidth, unit, false);
+    }
+
+    public SlidingWindow(int bucketCount, long bucketWidth, TimeUnit unit, boolean percentileEnabled) {
+        this(bucketCount, bucketWidth, unit, percentileEnabled, System::nanoTime);
+    }
+
+    SlidingWindow(int bucketCount, long bucketWidth, TimeUnit unit, boolean percentileEnabled, LongSupplier nanoTime) {
+        Preconditions.checkArgument(bucketCount > 0, "bucketCount must be greater than 0");
+        Preconditions.checkArgument(bucketWidth > 0, "bucketWidth must be greater than 0");
+        Preconditions.checkNotNull(unit, "unit must be not null");
+        Preconditions.checkNotNull(nanoTime, "nanoTime must be not null");
+        this.bucketCount = bucketCount;
+        this.bucketWidthNanos = unit.toNanos(bucketWidth);
+        Preconditions.checkArgument(bucketWidthNanos > 0, "bucketWidth must be at least 1ns");
+        this.windowNanos = bucketWidthNanos * bucketCount;
+        Preconditions.checkArgument(windowNanos / bucketCount == bucketWidthNanos, "window too long");
+        this.percentileEnabled = percentileEnabled;
+        this.nanoTime = nanoTime;
+        this.origin = nanoTime.getAsLong();
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+    }
+
+    /**
+     * 计算{@code value}所在直方图位置, 负数视为0
+     */
+    private static int histogramIndex(long value) {
+        if (value < SUB_BUCKET_NUM) {
+            return (int) Math.max(value, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_NUM - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_NUM + subBucket;
+    }
+
+    /**
+     * 直方图位置对应区间的上界
+     */
+    private static long histogramUpperBound(int index) {
+        if (index < SUB_BUCKET_NUM) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_NUM - 1;
+        long lowerBound = (long) (SUB_BUCKET_NUM + index % SUB_BUCKET_NUM) << shift;
+        return lowerBound + ((1L << shift) - 1);
+    }
+
+    /**
+     * 相对{@link #origin}的当前时间
+     */
+    private long now() {
+        return nanoTime.getAsLong() - origin;
+    }
+
+    /**
+     * 取当前时间对应的bucket, 若已过期则替换为新bucket
+     */
+    private Bucket currentBucket(long now) {
+        int index = (int) ((now / bucketWidthNanos) % bucketCount);
+        long start = now - now % bucketWidthNanos;
+        for (; ; ) {
+            Bucket old = buckets.get(index);
+            if (old != null && old.start >= start) {
+                //old.start > start则是当前线程停顿过久, 直接写入更新的bucket
+                return old;
+            }
+            Bucket bucket = new Bucket(start, percentileEnabled);
+            if (buckets.compareAndSet(index, old, bucket)) {
+                return bucket;
+            }
+        }
+    }
+
+    /**
+     * bucket是否在窗口内
+     */
+    private boolean isValid(Bucket bucket, long now) {
+        return bucket != null && now - bucket.start < windowNanos;
+    }
+
+    /**
+     * 写入样本
+     */
+    public void add(long value) {
+        currentBucket(now()).add(value);
+    }
+
+    /**
+     * 样本数加1, 同时总和加1, 用于计数
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * @return 窗口内样本数
+     */
+    public long count() {
+        long now = now();
+        long count = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = buckets.get(i);
+            if (isValid(bucket, now)) {
+                count += bucket.count.sum();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return 窗口内样本总和
+     */
+    public long sum() {
+        long now = now();
+        long sum = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = buckets.get(i);
+            if (isValid(bucket, now)) {
+                sum += bucket.sum.sum();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return 窗口内样本最小值, 无样本则返回0
+     */
+    public long min() {
+        long now = now();
+        long min = Long.MAX_VALUE;
+        boolean found = false;
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = buckets.get(i);
+            if (isValid(bucket, now) && bucket.count.sum() > 0) {
+                min = Math.min(min, bucket.min.get());
+                found = true;
+            }
+        }
+        return found ? min : 0;
+    }
+
+    /**
+     * @return 窗口内样本最大值, 无样本则返回0
+     */
+    public long max() {
+        long now = now();
+        long max = Long.MIN_VALUE;
+        boolean found = false;
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = buckets.get(i);
+            if (isValid(bucket, now) && bucket.count.sum() > 0) {
+                max = Math.max(max, bucket.max.get());
+                found = true;
+            }
+        }
+        return found ? max : 0;
+    }
+
+    /**
+     * @return 窗口内样本平均值, 无样本则返回0
+     */
+    public double average() {
+        long now = now();
+        long count = 0;
+        long sum = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = buckets.get(i);
+            if (isValid(bucket, now)) {
+                count += bucket.count.sum();
+                sum += bucket.sum.sum();
+            }
+        }
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * 每{@code unit}的样本总和
+     * 窗口内有效bucket实际覆盖的时间为{@code (bucketCount - 1) * bucketWidth}加上当前bucket已经过的时间, 而不是整个窗口时长,
+     * 启动未满一个窗口时则按已经过时间计算
+     */
+    public double rate(TimeUnit unit) {
+        long now = now();
+        long interval = Math.min(now, (bucketCount - 1) * bucketWidthNanos + now % bucketWidthNanos);
+        return (double) sum() * unit.toNanos(1) / Math.max(interval, 1);
+    }
+
+    /**
+     * 窗口内样本的分位数估算值, 返回所在直方图区间的上界, 且不超过{@link #max()}
+     * 仅统计非负样本, 负数视为0
+     *
+     * @param percentile 百分位, (0, 100]
+     * @return 分位数估算值, 无样本则返回0
+     */
+    public long percentile(double percentile) {
+        Preconditions.checkState(percentileEnabled, "percentile is not enabled");
+        Preconditions.checkArgument(percentile > 0 && percentile <= 100, "percentile must be in (0, 100]");
+        long now = now();
+        long[] histogram = new long[HISTOGRAM_LENGTH];
+        long total = 0;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = buckets.get(i);
+            if (!isValid(bucket, now) || bucket.count.sum() == 0) {
+                continue;
+            }
+            for (int j = 0; j < HISTOGRAM_LENGTH; j++) {
+                long count = bucket.histogram.get(j);
+                histogram[j] += count;
+                total += count;
+            }
+            max = Math.max(max, bucket.max.get());
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long cumulative = 0;
+        for (int i = 0; i < HISTOGRAM_LENGTH; i++) {
+            cumulative += histogram[i];
+            if (cumulative >= rank) {
+                return Math.min(histogramUpperBound(i), Math.max(max, 0));
+            }
+        }
+        return Math.max(max, 0);
+    }
+
+    /**
+     * 清空所有bucket
+     */
+    public void reset() {
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.set(i, null);
+        }
+    }
+
+    //getter
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public long getBucketWidthNanos() {
+        return bucketWidthNanos;
+    }
+
+    public long getWindowNanos() {
+        return windowNanos;
+    }
+
+    public boolean isPercentileEnabled() {
+        return percentileEnabled;
+    }
+
+    @Override
+    public String toString() {
+        return "SlidingWindow{" +
+                "bucketCount=" + bucketCount +
+                ", bucketWidthNanos=" + bucketWidthNanos +
+                ", count=" + count() +
+                ", sum=" + sum() +
+                ", min=" + min() +
+                ", max=" + max() +
+                '}';
+    }
+
+    //------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 时间bucket, 统计[start, start + bucketWidth)内的样本
+     */
+    private static final class Bucket {
+        /** 起始时间, 相对{@link #origin} */
+        private final long start;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+        /** 直方图, 不统计分位数时为null */
+        private final AtomicLongArray histogram;
+
+        Bucket(long start, boolean percentileEnabled) {
+            this.start = start;
+            this.histogram = percentileEnabled ? new AtomicLongArray(HISTOGRAM_LENGTH) : null;
+        }
+
+        void add(long value) {
+            sum.add(value);
+            long cur;
+            while (value < (cur = min.get()) && !min.compareAndSet(cur, value)) {
+                //retry
+            }
+            while (value > (cur = max.get()) && !max.compareAndSet(cur, value)) {
+                //retry
+            }
+            if (histogram != null) {
+                histogram.incrementAndGet(histogramIndex(value));
+            }
+            //最后才增加样本数, 读取时样本数大于0即可认为min和max已有效
+            count.increment();
+        }
+    }
+}
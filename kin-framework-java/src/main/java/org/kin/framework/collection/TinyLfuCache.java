@@ -0,0 +1,954 @@
+package org.kin.framework.collection;
+
+import com.google.common.base.Preconditions;
+import org.jctools.queues.MpscUnboundedArrayQueue;
+import org.jctools.queues.atomic.MpscUnboundedAtomicArrayQueue;
+import org.kin.framework.concurrent.HashedWheelTimer;
+import org.kin.framework.concurrent.SimpleThreadFactory;
+import org.kin.framework.concurrent.Timeout;
+import org.kin.framework.concurrent.Timer;
+import org.kin.framework.utils.Maths;
+import org.kin.framework.utils.SysUtils;
+import org.kin.framework.utils.UnsafeUtil;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * 线程安全的有界缓存, 基于W-TinyLFU淘汰策略, 命中率比LRU({@link LRUMap})高, 且读操作无需加锁
+ * <p>
+ * 1. 数据存储于{@link ConcurrentHashMap}, 读写entry本身是无锁的
+ * 2. 淘汰策略: 新entry先进入window LRU(1%容量), 被挤出window后, 与main区域(SLRU, probation+protected)待淘汰的entry比较
+ * {@link FrequencySketch}统计的访问频率, 频率高者保留. 故偶发访问的entry不会挤掉热点entry
+ * 3. 读操作仅记录到分段的有损ring buffer, 写操作记录到write buffer, 由获取到淘汰锁的线程批量重放到淘汰策略, 避免每次读都要加锁调整链表
+ * 4. entry过期基于{@link Timer}(时间轮)调度移除, 读时也会检查是否已过期
+ * <p>
+ * 淘汰是异步批量处理的, 故{@link #size()}可能短暂超过上限
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class TinyLfuCache<K, V> {
+    /** read buffer分段数 */
+    private static final int READ_BUFFER_STRIPES = Maths.round2Power2(Math.min(SysUtils.CPU_NUM * 4, 64));
+    /** write buffer待处理task数超过该值, 写线程阻塞等待淘汰锁, 防止write buffer无限增长 */
+    private static final int WRITE_BUFFER_MAX = 1024;
+    /** window区域占总容量的百分比 */
+    private static final double WINDOW_PERCENT = 0.01;
+    /** protected区域占main区域的百分比 */
+    private static final double PROTECTED_PERCENT = 0.8;
+    /** 候选entry频率不低于该值时, 有小概率直接淘汰victim, 防止hash flooding攻击使热点entry永远无法进入main区域 */
+    private static final int ADMIT_HASHDOS_THRESHOLD = 6;
+
+    /** 淘汰处理状态, 无需处理 */
+    private static final int IDLE = 0;
+    /** 淘汰处理状态, 需要处理 */
+    private static final int REQUIRED = 1;
+    /** 淘汰处理状态, 处理中 */
+    private static final int PROCESSING = 2;
+
+    /** entry所在区域, 未加入淘汰策略 */
+    private static final int NONE = 0;
+    private static final int WINDOW = 1;
+    private static final int PROBATION = 2;
+    private static final int PROTECTED = 3;
+
+    /** 数据 */
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    /** 最大容量(权重) */
+    private final long maximum;
+    /** entry权重计算, 为null则每个entry权重为1 */
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    /** 写入后过期时间(纳秒), 小于等于0则不过期 */
+    private final long expireAfterWriteNanos;
+    /** entry过期调度 */
+    private final Timer timer;
+
+    /** 淘汰锁, 保护淘汰策略的数据结构 */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    /** 淘汰处理状态 */
+    private final AtomicInteger drainStatus = new AtomicInteger(IDLE);
+    /** 分段的read buffer */
+    @SuppressWarnings("rawtypes")
+    private final ReadBuffer[] readBuffers;
+    /** write buffer, 按写入顺序重放到淘汰策略 */
+    private final Queue<Runnable> writeBuffer;
+    /** 访问频率统计 */
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    //淘汰策略数据结构, 仅在持有淘汰锁时访问
+    private final NodeDeque<K, V> window = new NodeDeque<>();
+    private final NodeDeque<K, V> probation = new NodeDeque<>();
+    private final NodeDeque<K, V> protectedDeque = new NodeDeque<>();
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private long windowWeightedSize;
+    private long protectedWeightedSize;
+    /** 当前总权重, 仅持有淘汰锁时修改 */
+    private volatile long weightedSize;
+
+    //统计
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private TinyLfuCache(Builder<K, V> builder) {
+        this.maximum = builder.maximum;
+        this.weigher = builder.weigher;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.timer = builder.timer;
+        this.data = new ConcurrentHashMap<>((int) Math.min(builder.initialCapacity, maximum));
+
+        this.windowMaximum = Math.max(1, (long) (maximum * WINDOW_PERCENT));
+        this.protectedMaximum = (long) ((maximum - windowMaximum) * PROTECTED_PERCENT);
+        this.sketch.ensureCapacity(Math.min(maximum, Math.max(builder.initialCapacity, 64)));
+
+        this.readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<Node<K, V>>();
+        }
+        this.writeBuffer = UnsafeUtil.hasUnsafe() ? new MpscUnboundedArrayQueue<>(64) : new MpscUnboundedAtomicArrayQueue<>(64);
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    //-------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 获取缓存值, 不存在或者已过期则返回null
+     */
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (Objects.isNull(node)) {
+            missCount.increment();
+            return null;
+        }
+        if (node.isExpired(System.nanoTime())) {
+            expire(node, null);
+            missCount.increment();
+            return null;
+        }
+        V value = node.value;
+        hitCount.increment();
+        afterRead(node);
+        return value;
+    }
+
+    /**
+     * 获取缓存值, 不存在或者已过期则使用{@code loader}加载并缓存, 同一key并发加载时, 仅加载一次
+     *
+     * @param loader 返回null则不缓存
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (Objects.nonNull(value)) {
+            return value;
+        }
+
+        //第一次get已统计miss
+        Object[] holder = new Object[2];
+        data.compute(key, (k, existing) -> {
+            long now = System.nanoTime();
+            if (Objects.nonNull(existing)) {
+                if (!existing.isExpired(now)) {
+                    //并发加载
+                    holder[0] = existing.value;
+                    return existing;
+                }
+                retire(existing);
+                holder[1] = existing;
+            }
+            V loaded = loader.apply(k);
+            if (Objects.isNull(loaded)) {
+                return null;
+            }
+            holder[0] = loaded;
+            return newNode(k, loaded, expireAfterWriteNanos, now);
+        });
+        afterCompute(holder);
+        @SuppressWarnings("unchecked")
+        V ret = (V) holder[0];
+        return ret;
+    }
+
+    /**
+     * 缓存, 使用默认的过期时间
+     *
+     * @return 旧值
+     */
+    public V put(K key, V value) {
+        return doPut(key, value, expireAfterWriteNanos);
+    }
+
+    /**
+     * 缓存, 并指定该entry的过期时间
+     *
+     * @return 旧值
+     */
+    public V put(K key, V value, long ttl, TimeUnit unit) {
+        Preconditions.checkArgument(ttl > 0, "ttl must be greater than 0");
+        return doPut(key, value, unit.toNanos(ttl));
+    }
+
+    @SuppressWarnings("unchecked")
+    private V doPut(K key, V value, long ttlNanos) {
+        Preconditions.checkNotNull(key, "key must be not null");
+        Preconditions.checkNotNull(value, "value must be not null");
+        //[0]旧值, [1]被替换的过期node, [2]原地更新的node
+        Object[] holder = new Object[3];
+        data.compute(key, (k, existing) -> {
+            long now = System.nanoTime();
+            if (Objects.nonNull(existing)) {
+                if (!existing.isExpired(now)) {
+                    holder[0] = existing.value;
+                    //原地更新
+                    existing.value = value;
+                    existing.weight = weigh(k, value);
+                    existing.scheduleExpiration(this, ttlNanos, now);
+                    holder[2] = existing;
+                    return existing;
+                }
+                retire(existing);
+                holder[1] = existing;
+            }
+            return newNode(k, value, ttlNanos, now);
+        });
+
+        Node<K, V> updated = (Node<K, V>) holder[2];
+        if (Objects.nonNull(updated)) {
+            afterWrite(new UpdateTask(updated));
+        } else {
+            afterCompute(holder);
+        }
+        return (V) holder[0];
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @return 旧值, 已过期则返回null
+     */
+    public V remove(K key) {
+        Object[] holder = new Object[1];
+        data.computeIfPresent(key, (k, existing) -> {
+            retire(existing);
+            holder[0] = existing;
+            return null;
+        });
+        @SuppressWarnings("unchecked")
+        Node<K, V> removed = (Node<K, V>) holder[0];
+        if (Objects.isNull(removed)) {
+            return null;
+        }
+        afterWrite(new RemovalTask(removed));
+        return removed.isExpired(System.nanoTime()) ? null : removed.value;
+    }
+
+    /**
+     * 是否存在未过期的缓存
+     */
+    public boolean containsKey(K key) {
+        Node<K, V> node = data.get(key);
+        return Objects.nonNull(node) && !node.isExpired(System.nanoTime());
+    }
+
+    /**
+     * 移除所有缓存
+     */
+    public void clear() {
+        for (K key : data.keySet()) {
+            remove(key);
+        }
+        cleanUp();
+    }
+
+    /**
+     * 立即处理read buffer和write buffer, 并淘汰超出容量的entry
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            drainStatus.set(PROCESSING);
+            maintenance();
+        } finally {
+            drainStatus.compareAndSet(PROCESSING, IDLE);
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 缓存entry数量, 包括已过期但还未移除的entry
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * 当前总权重, 仅统计已重放到淘汰策略的entry
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    //-------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 在{@link ConcurrentHashMap#compute}内调用, 创建node并加入write buffer
+     */
+    private Node<K, V> newNode(K key, V value, long ttlNanos, long now) {
+        Node<K, V> node = new Node<>(key, value, weigh(key, value));
+        node.scheduleExpiration(this, ttlNanos, now);
+        //compute内不能修改map, 故仅入队, 返回后再尝试处理
+        writeBuffer.offer(new AddTask(node));
+        drainStatus.set(REQUIRED);
+        return node;
+    }
+
+    /**
+     * 新增entry的compute完成后处理, {@code holder[1]}为被替换的过期node
+     */
+    @SuppressWarnings("unchecked")
+    private void afterCompute(Object[] holder) {
+        Node<K, V> replaced = (Node<K, V>) holder[1];
+        if (Objects.nonNull(replaced)) {
+            expirationCount.increment();
+            afterWrite(new RemovalTask(replaced));
+        } else {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * 在{@link ConcurrentHashMap#compute}内调用, 标识node已从map移除
+     */
+    private void retire(Node<K, V> node) {
+        node.retired = true;
+        node.cancelExpiration();
+    }
+
+    /**
+     * 过期移除
+     *
+     * @param timeout 时间轮调度触发时, 对应的{@link Timeout}, 用于判断node的过期时间是否已更新
+     */
+    private void expire(Node<K, V> node, Timeout timeout) {
+        boolean[] expired = new boolean[1];
+        data.computeIfPresent(node.key, (k, existing) -> {
+            if (existing != node || (Objects.nonNull(timeout) ? existing.timeout != timeout : !existing.isExpired(System.nanoTime()))) {
+                return existing;
+            }
+            retire(existing);
+            expired[0] = true;
+            return null;
+        });
+        if (expired[0]) {
+            expirationCount.increment();
+            afterWrite(new RemovalTask(node));
+        }
+    }
+
+    private int weigh(K key, V value) {
+        if (Objects.isNull(weigher)) {
+            return 1;
+        }
+        int weight = weigher.applyAsInt(key, value);
+        Preconditions.checkArgument(weight >= 0, "weight must be greater than or equal to 0");
+        return weight;
+    }
+
+    /**
+     * 记录读操作, read buffer满了则尝试处理
+     */
+    @SuppressWarnings("unchecked")
+    private void afterRead(Node<K, V> node) {
+        int stripe = (int) (mix(Thread.currentThread().getId()) & (readBuffers.length - 1));
+        boolean full = !readBuffers[stripe].offer(node);
+        if (full) {
+            drainStatus.set(REQUIRED);
+        }
+        if (drainStatus.get() == REQUIRED) {
+            tryDrain();
+        }
+    }
+
+    /**
+     * 记录写操作, 并尝试处理
+     */
+    private void afterWrite(Runnable task) {
+        writeBuffer.offer(task);
+        scheduleDrain();
+    }
+
+    /**
+     * 尝试处理
+     */
+    private void scheduleDrain() {
+        drainStatus.set(REQUIRED);
+        if (writeBuffer.size() > WRITE_BUFFER_MAX) {
+            //写太快, 背压
+            cleanUp();
+            return;
+        }
+        tryDrain();
+    }
+
+    /**
+     * 获取淘汰锁成功, 则处理read buffer和write buffer, 否则交由持有淘汰锁的线程处理
+     */
+    private void tryDrain() {
+        //释放锁前状态变为REQUIRED, 则需再次处理
+        while (drainStatus.get() == REQUIRED && evictionLock.tryLock()) {
+            try {
+                drainStatus.set(PROCESSING);
+                maintenance();
+            } finally {
+                drainStatus.compareAndSet(PROCESSING, IDLE);
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 持有淘汰锁时调用
+     */
+    @SuppressWarnings("unchecked")
+    private void maintenance() {
+        for (ReadBuffer<Node<K, V>> readBuffer : readBuffers) {
+            readBuffer.drain(this::onAccess);
+        }
+        Runnable task;
+        while (Objects.nonNull(task = writeBuffer.poll())) {
+            task.run();
+        }
+        evict();
+    }
+
+    //-------------------------------------------------------------------------------------------------------------------
+    //淘汰策略, 以下方法仅在持有淘汰锁时调用
+
+    /**
+     * 读访问, 提升访问频率和调整LRU位置
+     */
+    private void onAccess(Node<K, V> node) {
+        sketch.increment(node.key);
+        switch (node.queueType) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                //晋升到protected
+                probation.unlink(node);
+                protectedDeque.linkLast(node);
+                node.queueType = PROTECTED;
+                protectedWeightedSize += node.policyWeight;
+                demoteFromProtected();
+                break;
+            case PROTECTED:
+                protectedDeque.moveToBack(node);
+                break;
+            default:
+                //已移除或者还未加入淘汰策略
+        }
+    }
+
+    /**
+     * protected超过容量, 则降级到probation
+     */
+    private void demoteFromProtected() {
+        while (protectedWeightedSize > protectedMaximum) {
+            Node<K, V> node = protectedDeque.peekFirst();
+            if (Objects.isNull(node)) {
+                break;
+            }
+            protectedDeque.unlink(node);
+            protectedWeightedSize -= node.policyWeight;
+            probation.linkLast(node);
+            node.queueType = PROBATION;
+        }
+    }
+
+    /**
+     * 淘汰超出容量的entry
+     */
+    private void evict() {
+        //被挤出window的entry作为候选者, 与main区域的victim比较访问频率
+        while (windowWeightedSize > windowMaximum) {
+            Node<K, V> candidate = window.peekFirst();
+            if (Objects.isNull(candidate)) {
+                break;
+            }
+            window.unlink(candidate);
+            windowWeightedSize -= candidate.policyWeight;
+            probation.linkLast(candidate);
+            candidate.queueType = PROBATION;
+
+            while (weightedSize > maximum) {
+                Node<K, V> victim = probation.peekFirst();
+                if (victim == candidate) {
+                    //probation仅有候选者
+                    victim = protectedDeque.peekFirst();
+                }
+                if (Objects.isNull(victim)) {
+                    evictEntry(candidate);
+                    break;
+                }
+                if (admit(candidate.key, victim.key)) {
+                    evictEntry(victim);
+                } else {
+                    evictEntry(candidate);
+                    break;
+                }
+            }
+        }
+
+        //window中存在权重较大的entry
+        while (weightedSize > maximum) {
+            Node<K, V> victim = probation.peekFirst();
+            if (Objects.isNull(victim)) {
+                victim = protectedDeque.peekFirst();
+            }
+            if (Objects.isNull(victim)) {
+                victim = window.peekFirst();
+            }
+            if (Objects.isNull(victim)) {
+                break;
+            }
+            evictEntry(victim);
+        }
+
+        if (data.size() > sketch.capacity()) {
+            //按entry数扩容, 适用于按权重限制容量的场景
+            sketch.ensureCapacity(Math.min((long) data.size() * 2, maximum));
+        }
+    }
+
+    /**
+     * 候选者访问频率更高, 则淘汰victim
+     */
+    private boolean admit(K candidateKey, K victimKey) {
+        int candidateFreq = sketch.frequency(candidateKey);
+        int victimFreq = sketch.frequency(victimKey);
+        if (candidateFreq > victimFreq) {
+            return true;
+        }
+        if (candidateFreq >= ADMIT_HASHDOS_THRESHOLD) {
+            return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+        }
+        return false;
+    }
+
+    /**
+     * 淘汰entry
+     */
+    private void evictEntry(Node<K, V> node) {
+        boolean[] evicted = new boolean[1];
+        data.computeIfPresent(node.key, (k, existing) -> {
+            if (existing != node) {
+                return existing;
+            }
+            retire(existing);
+            evicted[0] = true;
+            return null;
+        });
+        if (evicted[0]) {
+            evictionCount.increment();
+        }
+        //已被并发移除的node, 其RemovalTask重放时忽略即可
+        removeFromPolicy(node);
+    }
+
+    /**
+     * 从淘汰策略移除
+     */
+    private void removeFromPolicy(Node<K, V> node) {
+        switch (node.queueType) {
+            case WINDOW:
+                window.unlink(node);
+                windowWeightedSize -= node.policyWeight;
+                break;
+            case PROBATION:
+                probation.unlink(node);
+                break;
+            case PROTECTED:
+                protectedDeque.unlink(node);
+                protectedWeightedSize -= node.policyWeight;
+                break;
+            default:
+                return;
+        }
+        node.queueType = NONE;
+        weightedSize -= node.policyWeight;
+    }
+
+    //-------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 新增entry
+     */
+    private final class AddTask implements Runnable {
+        private final Node<K, V> node;
+
+        AddTask(Node<K, V> node) {
+            this.node = node;
+        }
+
+        @Override
+        public void run() {
+            sketch.increment(node.key);
+            if (node.retired || node.queueType != NONE) {
+                //已被移除
+                return;
+            }
+            node.policyWeight = node.weight;
+            window.linkLast(node);
+            node.queueType = WINDOW;
+            windowWeightedSize += node.policyWeight;
+            weightedSize += node.policyWeight;
+        }
+    }
+
+    /**
+     * 更新entry, 权重可能发生变化
+     */
+    private final class UpdateTask implements Runnable {
+        private final Node<K, V> node;
+
+        UpdateTask(Node<K, V> node) {
+            this.node = node;
+        }
+
+        @Override
+        public void run() {
+            if (node.queueType == NONE) {
+                //已被移除或者AddTask还未重放, AddTask会读取最新权重
+                return;
+            }
+            int weightDiff = node.weight - node.policyWeight;
+            node.policyWeight = node.weight;
+            weightedSize += weightDiff;
+            if (node.queueType == WINDOW) {
+                windowWeightedSize += weightDiff;
+            } else if (node.queueType == PROTECTED) {
+                protectedWeightedSize += weightDiff;
+            }
+            onAccess(node);
+        }
+    }
+
+    /**
+     * 移除entry
+     */
+    private final class RemovalTask implements Runnable {
+        private final Node<K, V> node;
+
+        RemovalTask(Node<K, V> node) {
+            this.node = node;
+        }
+
+        @Override
+        public void run() {
+            removeFromPolicy(node);
+        }
+    }
+
+    /**
+     * 缓存entry
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private volatile V value;
+        /** 最新权重 */
+        private volatile int weight;
+        /** 过期时间(纳秒), 0表示不过期 */
+        private volatile long expireAt;
+        /** 过期调度 */
+        private volatile Timeout timeout;
+        /** 是否已从map中移除 */
+        private volatile boolean retired;
+
+        //以下字段仅在持有淘汰锁时访问
+        /** 淘汰策略记录的权重 */
+        private int policyWeight;
+        /** 所在区域 */
+        private int queueType = NONE;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+
+        /**
+         * 在{@link ConcurrentHashMap#compute}内调用, 重新调度过期
+         */
+        void scheduleExpiration(TinyLfuCache<K, V> cache, long ttlNanos, long now) {
+            cancelExpiration();
+            if (ttlNanos <= 0) {
+                expireAt = 0;
+                return;
+            }
+            //防止0值
+            expireAt = (now + ttlNanos) | 1L;
+            timeout = cache.timer().newTimeout(t -> cache.expire(this, t), ttlNanos, TimeUnit.NANOSECONDS);
+        }
+
+        void cancelExpiration() {
+            Timeout timeout = this.timeout;
+            if (Objects.nonNull(timeout)) {
+                timeout.cancel();
+                this.timeout = null;
+            }
+        }
+
+        boolean isExpired(long now) {
+            long expireAt = this.expireAt;
+            return expireAt != 0 && now - expireAt >= 0;
+        }
+    }
+
+    /**
+     * 基于{@link Node#prev}和{@link Node#next}的双向链表, 头部为最久未访问
+     */
+    private static final class NodeDeque<K, V> {
+        private Node<K, V> first;
+        private Node<K, V> last;
+
+        Node<K, V> peekFirst() {
+            return first;
+        }
+
+        void linkLast(Node<K, V> node) {
+            Node<K, V> l = last;
+            node.prev = l;
+            node.next = null;
+            last = node;
+            if (Objects.isNull(l)) {
+                first = node;
+            } else {
+                l.next = node;
+            }
+        }
+
+        void unlink(Node<K, V> node) {
+            Node<K, V> prev = node.prev;
+            Node<K, V> next = node.next;
+            if (Objects.isNull(prev)) {
+                first = next;
+            } else {
+                prev.next = next;
+            }
+            if (Objects.isNull(next)) {
+                last = prev;
+            } else {
+                next.prev = prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                unlink(node);
+                linkLast(node);
+            }
+        }
+    }
+
+    /**
+     * 有损的ring buffer, 多线程写, 持有淘汰锁的线程读, 满了则直接丢弃读记录
+     */
+    private static final class ReadBuffer<E> {
+        private static final int SIZE = 16;
+        private static final int MASK = SIZE - 1;
+
+        private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(SIZE);
+        /** 下一个读位置, 仅持有淘汰锁时修改 */
+        private volatile long head;
+        /** 下一个写位置 */
+        private final AtomicLong tail = new AtomicLong();
+
+        /**
+         * @return false表示buffer已满
+         */
+        boolean offer(E e) {
+            long t = tail.get();
+            if (t - head >= SIZE) {
+                return false;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                buffer.lazySet((int) (t & MASK), e);
+            }
+            //竞争失败, 丢弃即可
+            return true;
+        }
+
+        void drain(Consumer<E> consumer) {
+            long h = head;
+            long t = tail.get();
+            for (; h < t; h++) {
+                int index = (int) (h & MASK);
+                E e = buffer.get(index);
+                if (Objects.isNull(e)) {
+                    //写线程还未写入
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(e);
+            }
+            head = h;
+        }
+    }
+
+    /**
+     * 打散线程id
+     */
+    private static long mix(long id) {
+        id = (id ^ (id >>> 33)) * 0xff51afd7ed558ccdL;
+        return id ^ (id >>> 33);
+    }
+
+    //-------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 过期调度使用的时间轮, 未指定则使用全局共享的时间轮
+     */
+    private Timer timer() {
+        return Objects.nonNull(timer) ? timer : SharedTimerHolder.TIMER;
+    }
+
+    /**
+     * 延迟初始化全局共享的时间轮
+     */
+    private static final class SharedTimerHolder {
+        private static final Timer TIMER = new HashedWheelTimer(new SimpleThreadFactory("tinyLfuCache-expiration", true), 100, TimeUnit.MILLISECONDS);
+    }
+
+    //getter
+    public long getMaximum() {
+        return maximum;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 因容量超过上限被淘汰的entry数
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 过期被移除的entry数
+     */
+    public long getExpirationCount() {
+        return expirationCount.sum();
+    }
+
+    /**
+     * 命中率
+     */
+    public double hitRate() {
+        long hitCount = getHitCount();
+        long requestCount = hitCount + getMissCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TinyLfuCache{" +
+                "maximum=" + maximum +
+                ", size=" + size() +
+                ", weightedSize=" + weightedSize +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", expirationCount=" + expirationCount +
+                '}';
+    }
+
+    //-------------------------------------------------------------------------------------------------------------------
+    public static final class Builder<K, V> {
+        private long maximum = -1;
+        private ToIntBiFunction<? super K, ? super V> weigher;
+        private long expireAfterWriteNanos;
+        private Timer timer;
+        private int initialCapacity = 16;
+
+        private Builder() {
+        }
+
+        /**
+         * 最大entry数
+         */
+        public Builder<K, V> maximumSize(long maximumSize) {
+            Preconditions.checkArgument(maximumSize > 0, "maximumSize must be greater than 0");
+            this.maximum = maximumSize;
+            return this;
+        }
+
+        /**
+         * 最大总权重, 需配合{@link #weigher(ToIntBiFunction)}使用
+         */
+        public Builder<K, V> maximumWeight(long maximumWeight) {
+            Preconditions.checkArgument(maximumWeight > 0, "maximumWeight must be greater than 0");
+            this.maximum = maximumWeight;
+            return this;
+        }
+
+        public Builder<K, V> weigher(ToIntBiFunction<? super K, ? super V> weigher) {
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * 写入后过期时间, 可通过{@link TinyLfuCache#put(Object, Object, long, TimeUnit)}单独指定
+         */
+        public Builder<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+            Preconditions.checkArgument(duration > 0, "duration must be greater than 0");
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * 过期调度使用的时间轮, 默认使用全局共享的{@link HashedWheelTimer}
+         */
+        public Builder<K, V> timer(Timer timer) {
+            this.timer = timer;
+            return this;
+        }
+
+        public Builder<K, V> initialCapacity(int initialCapacity) {
+            Preconditions.checkArgument(initialCapacity >= 0, "initialCapacity must be greater than or equal to 0");
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        public TinyLfuCache<K, V> build() {
+            Preconditions.checkState(maximum > 0, "maximumSize or maximumWeight must be set");
+            return new TinyLfuCache<>(this);
+        }
+    }
+}
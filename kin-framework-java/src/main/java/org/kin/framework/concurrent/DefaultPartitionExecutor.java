@@ -50,9 +50,15 @@ public final class DefaultPartitionExecutor<KEY> implements ScheduledPartitionEx
 
     /**
      * 获取分区key
+     *
+     * @throws IllegalArgumentException {@link Partitioner}返回的分区不在[0, partitionNum)范围内
      */
     private int getPartitionId(KEY key) {
-        return partitioner.toPartition(key, partitionNum);
+        int partitionId = partitioner.toPartition(key, partitionNum);
+        if (partitionId < 0 || partitionId >= partitionNum) {
+            throw new IllegalArgumentException(String.format("partition %d of key '%s' is out of range [0, %d)", partitionId, key, partitionNum));
+        }
+        return partitionId;
     }
 
     @Override
@@ -67,11 +73,31 @@ public final class DefaultPartitionExecutor<KEY> implements ScheduledPartitionEx
 
     @Override
     public <T> Future<T> submit(KEY key, Callable<T> task) {
+        return submit(key, task, false);
+    }
+
+    /**
+     * 根据分区key指定分区executor执行command
+     *
+     * @param priority 是否高优先级, 高优先级任务会在该分区普通任务之前执行
+     * @see OrderedEventLoop#receive(Message, boolean)
+     */
+    public void execute(KEY key, Runnable task, boolean priority) {
+        submit(key, Executors.callable(task, null), priority);
+    }
+
+    /**
+     * 根据分区key指定分区executor执行command
+     *
+     * @param priority 是否高优先级, 高优先级任务会在该分区普通任务之前执行
+     * @see OrderedEventLoop#receive(Message, boolean)
+     */
+    public <T> Future<T> submit(KEY key, Callable<T> task, boolean priority) {
         if (isTerminated()) {
             throw new IllegalStateException("executor is stopped");
         }
         FutureTask<T> futureTask = new FutureTask<>(task);
-        eventLoopGroup.next(getPartitionId(key)).receive((e) -> futureTask.run());
+        eventLoopGroup.next(getPartitionId(key)).receive((e) -> futureTask.run(), priority);
         return futureTask;
     }
 
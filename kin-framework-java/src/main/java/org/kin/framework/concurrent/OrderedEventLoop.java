@@ -31,7 +31,9 @@ public class OrderedEventLoop<P extends OrderedEventLoop<P>> implements EventLoo
     private final ExecutionContext executionContext;
     /** 消息队列 */
     private final Queue<Message<P>> inBox = new LinkedBlockingQueue<>();
-    /** 消息数量 */
+    /** 高优先级消息队列, 优先于{@link #inBox}处理 */
+    private final Queue<Message<P>> priorityInBox = new LinkedBlockingQueue<>();
+    /** 消息数量(包括高优先级消息) */
     private final AtomicInteger boxSize = new AtomicInteger();
     /** 是否已关闭 */
     private volatile boolean stopped = false;
@@ -53,8 +55,21 @@ public class OrderedEventLoop<P extends OrderedEventLoop<P>> implements EventLoo
      */
     @Override
     public final void receive(Message<P> message) {
+        receive(message, false);
+    }
+
+    /**
+     * 接收消息
+     *
+     * @param priority 是否高优先级消息, 高优先级消息会在普通消息之前处理
+     */
+    public final void receive(Message<P> message, boolean priority) {
         if (!isShutdown()) {
-            inBox.add(message);
+            if (priority) {
+                priorityInBox.add(message);
+            } else {
+                inBox.add(message);
+            }
             tryRun();
         }
     }
@@ -108,6 +123,15 @@ public class OrderedEventLoop<P extends OrderedEventLoop<P>> implements EventLoo
         return 200;
     }
 
+    /**
+     * 两个队列都有消息时, 每连续处理该数量的高优先级消息, 就处理一条普通消息, 避免普通消息饿死
+     *
+     * @return 连续处理高优先级消息数量上限
+     */
+    protected int getPriorityWeight() {
+        return 8;
+    }
+
     @Override
     public boolean isInEventLoop(Thread thread) {
         if (isShutdown() && Objects.nonNull(loop.currentThread)) {
@@ -218,13 +242,41 @@ public class OrderedEventLoop<P extends OrderedEventLoop<P>> implements EventLoo
     private class Loop implements Runnable {
         /** 当前占用线程, 因为存在线程问题, 不能set null */
         private volatile Thread currentThread;
+        /** 连续处理的高优先级消息数量 */
+        private int priorityProcessed;
+
+        /**
+         * 加权公平地获取下一条消息
+         * 优先取高优先级消息, 但连续处理{@link #getPriorityWeight()}条后, 如果有普通消息则让出一次
+         */
+        private Message<P> nextMessage() {
+            Message<P> message;
+            if (priorityProcessed < getPriorityWeight()) {
+                message = priorityInBox.poll();
+                if (message != null) {
+                    priorityProcessed++;
+                    return message;
+                }
+            }
+
+            priorityProcessed = 0;
+            message = inBox.poll();
+            if (message == null) {
+                //没有普通消息, 则继续处理高优先级消息
+                message = priorityInBox.poll();
+                if (message != null) {
+                    priorityProcessed = 1;
+                }
+            }
+            return message;
+        }
 
         @SuppressWarnings("unchecked")
         @Override
         public final void run() {
             currentThread = Thread.currentThread();
             while (!isShutdown() && !currentThread.isInterrupted()) {
-                Message<P> message = inBox.poll();
+                Message<P> message = nextMessage();
                 if (message == null) {
                     break;
                 }
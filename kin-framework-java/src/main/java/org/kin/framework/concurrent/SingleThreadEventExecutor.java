@@ -2,7 +2,6 @@ package org.kin.framework.concurrent;
 
 import com.google.common.base.Preconditions;
 import org.kin.framework.collection.DefaultPriorityQueue;
-import org.kin.framework.collection.PriorityQueue;
 import org.kin.framework.collection.PriorityQueueNode;
 import org.kin.framework.log.LoggerOprs;
 import org.kin.framework.utils.CollectionUtils;
@@ -56,8 +55,9 @@ public class SingleThreadEventExecutor implements EventExecutor, LoggerOprs {
     private volatile int state = ST_NOT_STARTED;
     /** 任务队列 */
     private final BlockingQueue<Runnable> taskQueue = new LinkedBlockingQueue<>();
-    /** 调度任务队列 */
-    private final PriorityQueue<ScheduledFutureTask<?>> scheduledTaskQueue = new DefaultPriorityQueue<>(SCHEDULED_FUTURE_TASK_COMPARATOR, 11);
+    /** 调度任务队列, 已取消的调度task延迟移除 */
+    private final DefaultPriorityQueue<ScheduledFutureTask<?>> scheduledTaskQueue =
+            new DefaultPriorityQueue<>(SCHEDULED_FUTURE_TASK_COMPARATOR, 11, DefaultPriorityQueue.DEFAULT_ARITY, ScheduledFutureTask::isCancelled);
     /** 所属线程池 */
     private final Executor executor;
     /** 绑定线程是否已interrupted */
@@ -476,7 +476,8 @@ public class SingleThreadEventExecutor implements EventExecutor, LoggerOprs {
     }
 
     /**
-     * 从调度队列fetch并把task push到taskqueue
+     * 从调度队列一次性取出所有到期的调度task并push到taskqueue, 已取消的调度task直接丢弃
+     * taskqueue无界, 故不会push失败
      */
     private void fetchFromScheduledTaskQueue() {
         if (scheduledTaskQueue.isEmpty()) {
@@ -484,28 +485,7 @@ public class SingleThreadEventExecutor implements EventExecutor, LoggerOprs {
         }
 
         long deadlineTime = now() - createTime;
-        for (; ; ) {
-            Runnable scheduledTask = pollScheduledTask(deadlineTime);
-            if (scheduledTask == null) {
-                return;
-            }
-            if (!taskQueue.offer(scheduledTask)) {
-                // No space left in the task queue add it back to the scheduledTaskQueue so we pick it up again.
-                scheduledTaskQueue.add((ScheduledFutureTask<?>) scheduledTask);
-                return;
-            }
-        }
-    }
-
-    /**
-     * 从队列头开始移除过期的调度task
-     */
-    private Runnable pollScheduledTask(long deadlineTime) {
-        ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-        if (scheduledTask == null || scheduledTask.triggerTime - deadlineTime > 0) {
-            return null;
-        }
-        return scheduledTaskQueue.remove();
+        scheduledTaskQueue.pollAllBefore(task -> task.triggerTime, deadlineTime, taskQueue::add);
     }
 
     /**
@@ -1,5 +1,8 @@
 package org.kin.framework.counter;
 
+import org.kin.framework.collection.SlidingWindow;
+
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAdder;
 
 /**
@@ -10,14 +13,20 @@ import java.util.concurrent.atomic.LongAdder;
  * @date 2020/9/2
  */
 public class Counter implements Reporter {
+    /** 统计速率的窗口时长, 秒 */
+    private static final int RATE_WINDOW_SECONDS = 10;
+
     /** uuid */
     private final String uuid;
     /** count */
     private final LongAdder count;
+    /** 统计最近{@link #RATE_WINDOW_SECONDS}秒的计数, 不受{@link #reset()}影响 */
+    private final SlidingWindow window;
 
     Counter(String uuid) {
         this.uuid = uuid;
         this.count = new LongAdder();
+        this.window = new SlidingWindow(RATE_WINDOW_SECONDS, 1, TimeUnit.SECONDS);
     }
 
     /**
@@ -36,6 +45,7 @@ public class Counter implements Reporter {
      */
     public long increment(long value) {
         count.add(value);
+        window.add(value);
         return count();
     }
 
@@ -55,6 +65,13 @@ public class Counter implements Reporter {
         return count.sum();
     }
 
+    /**
+     * @return 最近{@link #RATE_WINDOW_SECONDS}秒内每秒的平均计数
+     */
+    public double rate() {
+        return window.rate(TimeUnit.SECONDS);
+    }
+
     @Override
     public String report() {
         //上报后会重置
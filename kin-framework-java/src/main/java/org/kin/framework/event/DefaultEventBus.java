@@ -23,6 +23,9 @@ import java.util.concurrent.ConcurrentHashMap;
  * 不保证事件注册的实时性
  * <p>
  * 事件类, 目前事件类最好比较native, 也就是不带泛型的, 也最好不是集合类, 数组等等
+ * <p>
+ * 支持按类继承关系订阅, 即注册父类或接口的事件处理器, 也会处理其子类事件, 注册{@link Object}的事件处理器则会处理所有事件
+ * 每个事件类对应的事件处理器集合只会解析一次并缓存, 注册事件处理器时清空缓存
  *
  * @author 健勤
  * @date 2017/8/8
@@ -30,17 +33,33 @@ import java.util.concurrent.ConcurrentHashMap;
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class DefaultEventBus implements EventBus, DirectEventBus {
     private static final Logger log = LoggerFactory.getLogger(DefaultEventBus.class);
+    /** 没有对应事件处理器的占位, 避免重复解析 */
+    private static final EventHandler<?> NO_HANDLER = (bus, event) -> {
+    };
+
     /** key -> event class, vaklue -> event handler */
     protected final Map<Class<?>, EventHandler<?>> event2Handler = new ConcurrentHashMap<>();
+    /**
+     * key -> event class, value -> 根据类继承关系解析出的event handler
+     * 注册事件处理器时整个替换, 所以基于旧数据解析的结果只会写入旧缓存
+     */
+    private volatile Map<Class<?>, EventHandler<?>> resolvedEvent2Handler = new ConcurrentHashMap<>();
     /** 是否使用字节码增强技术 */
     private final boolean isEnhance;
+    /** 是否优先使用编译期生成的{@link EventFunctionIndex} */
+    private final boolean useIndex;
 
     public DefaultEventBus() {
         this(true);
     }
 
     public DefaultEventBus(boolean isEnhance) {
+        this(isEnhance, true);
+    }
+
+    public DefaultEventBus(boolean isEnhance, boolean useIndex) {
         this.isEnhance = isEnhance;
+        this.useIndex = useIndex;
     }
 
     /**
@@ -109,14 +128,94 @@ public class DefaultEventBus implements EventBus, DirectEventBus {
         } else {
             ((MultiEventHandlers) registered).addHandler(eventHandler);
         }
+        //注册变化, 重新解析
+        resolvedEvent2Handler = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return 处理{@code eventClass}事件的event handler, 包括其父类以及接口注册的
+     */
+    private EventHandler<?> getEventHandler(Class<?> eventClass) {
+        Map<Class<?>, EventHandler<?>> resolvedEvent2Handler = this.resolvedEvent2Handler;
+        EventHandler<?> handler = resolvedEvent2Handler.get(eventClass);
+        if (handler == null) {
+            handler = resolveEventHandler(eventClass);
+            resolvedEvent2Handler.putIfAbsent(eventClass, handler);
+        }
+        return handler;
+    }
+
+    /**
+     * 根据类继承关系解析出事件处理器, 子类注册的事件处理器优先, 再按order排序
+     */
+    private EventHandler<?> resolveEventHandler(Class<?> eventClass) {
+        List<EventHandler> handlers = new ArrayList<>();
+        //仅一个类型有注册事件处理器时, 直接使用
+        EventHandler<?> single = null;
+        for (Class<?> type : getTypeHierarchy(eventClass)) {
+            EventHandler<?> registered = event2Handler.get(type);
+            if (registered == null) {
+                continue;
+            }
+
+            single = handlers.isEmpty() ? registered : null;
+            if (registered instanceof MultiEventHandlers) {
+                handlers.addAll(((MultiEventHandlers) registered).getHandlers());
+            } else {
+                handlers.add(registered);
+            }
+        }
+
+        if (handlers.isEmpty()) {
+            return NO_HANDLER;
+        }
+        if (single != null) {
+            return single;
+        }
+
+        MultiEventHandlers multiHandler = new MultiEventHandlers();
+        multiHandler.addHandlers(handlers);
+        return multiHandler;
+    }
+
+    /**
+     * @return 事件类本身, 所有父类, 所有接口, 最后是{@link Object}
+     */
+    private Set<Class<?>> getTypeHierarchy(Class<?> eventClass) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (Class<?> type = eventClass; type != null && !Object.class.equals(type); type = type.getSuperclass()) {
+            types.add(type);
+        }
+
+        //广度遍历接口
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        for (Class<?> type : new ArrayList<>(types)) {
+            Collections.addAll(queue, type.getInterfaces());
+        }
+        while (!queue.isEmpty()) {
+            Class<?> interfaceClass = queue.poll();
+            if (types.add(interfaceClass)) {
+                Collections.addAll(queue, interfaceClass.getInterfaces());
+            }
+        }
+
+        types.add(Object.class);
+        return types;
     }
 
     /**
      * 解析出带{@link EventFunction}方法并进行注册
+     * 优先使用编译期生成的{@link EventFunctionIndex}, 没有则反射解析
      */
     private void parseRegisterEventFunc(Object obj) {
         Class<?> claxx = obj.getClass();
 
+        EventFunctionIndex index = useIndex ? EventFunctionIndexes.get(claxx) : null;
+        if (Objects.nonNull(index)) {
+            registerIndexedEventFunc(obj, index);
+            return;
+        }
+
         //注解在方法
         //在所有  public & 有注解的  方法中寻找一个匹配的方法作为事件处理方法
         for (Method method : claxx.getMethods()) {
@@ -156,6 +255,15 @@ public class DefaultEventBus implements EventBus, DirectEventBus {
         }
     }
 
+    /**
+     * 注册编译期生成的{@link EventFunctionIndex}中的事件处理方法
+     */
+    private void registerIndexedEventFunc(Object obj, EventFunctionIndex index) {
+        for (IndexedEventFunction function : index.eventFunctions()) {
+            registerEventHandler(function.getEventClass(), new IndexedEventHandler<>(obj, function));
+        }
+    }
+
     /**
      * 注册基于{@link EventFunction}注入的事件处理方法
      *
@@ -198,8 +306,8 @@ public class DefaultEventBus implements EventBus, DirectEventBus {
      * @param event      事件实例
      */
     protected final void doPost(Class<?> eventClass, Object event) {
-        EventHandler handler = event2Handler.get(eventClass);
-        if (handler != null) {
+        EventHandler handler = getEventHandler(eventClass);
+        if (handler != NO_HANDLER) {
             try {
                 handler.handle(this, event);
             } catch (Exception e) {
@@ -243,5 +351,6 @@ public class DefaultEventBus implements EventBus, DirectEventBus {
         }
 
         event2Handler.clear();
+        resolvedEvent2Handler = new ConcurrentHashMap<>();
     }
 }
@@ -4,6 +4,7 @@ import org.kin.framework.concurrent.DefaultPartitionExecutor;
 import org.kin.framework.concurrent.EfficientHashPartitioner;
 import org.kin.framework.concurrent.ExecutionContext;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +18,8 @@ import java.util.stream.Collectors;
  * 事件分发器
  * 支持多线程事件处理
  * 同一事件类型, 有序处理
+ * 带{@link EventPriority}注解的事件, 会在同一分区的普通事件之前处理
+ * 可选开启{@link EventJournal}, 进程崩溃重启后, 通过{@link #replayJournal()}重放未处理的事件
  *
  * @author huangjianqin
  * @date 2020/12/9
@@ -28,16 +31,34 @@ public class DefaultOrderedEventBus extends DefaultEventBus implements Scheduled
     protected final DefaultPartitionExecutor<Integer> executor;
     /** 事件合并上下文 */
     protected final ConcurrentHashMap<Class<?>, EventMergeContext> mergeContexts = new ConcurrentHashMap<>();
+    /** 事件预写日志, null则不开启 */
+    @Nullable
+    private final EventJournal journal;
 
     public DefaultOrderedEventBus(int parallelism) {
         this(parallelism, true);
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
     public DefaultOrderedEventBus(int parallelism, boolean isEnhance) {
+        this(parallelism, isEnhance, null);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DefaultOrderedEventBus(int parallelism, boolean isEnhance, @Nullable EventJournal journal) {
         super(isEnhance);
         ec = ExecutionContext.fix(parallelism, "orderedEventBus", 3);
         executor = new DefaultPartitionExecutor<>(parallelism, EfficientHashPartitioner.INSTANCE, ec);
+        this.journal = journal;
+    }
+
+    /**
+     * 重放上次进程退出前未处理的事件, 未开启{@link EventJournal}则do nothing
+     * 需在注册完事件处理器后, 分发新事件前调用
+     */
+    public final void replayJournal() {
+        if (Objects.nonNull(journal)) {
+            journal.replay(this::post);
+        }
     }
 
     /**
@@ -51,12 +72,16 @@ public class DefaultOrderedEventBus extends DefaultEventBus implements Scheduled
             EventMergeContext eventMergeContext = mergeContexts.computeIfAbsent(eventClass, k -> new EventMergeContext(eventClass, eventMerge));
             eventMergeContext.mergeEvent(eventContext);
         } else {
-            doPost(eventContext);
+            try {
+                doPost(eventContext);
+            } finally {
+                eventContext.ack();
+            }
         }
     }
 
-    private void post0(int partitionId, Object event) {
-        post0(new EventContext(partitionId, event));
+    private void post0(int partitionId, Object event, @Nullable JournalEntry journalEntry) {
+        post0(new EventContext(partitionId, event, journalEntry));
     }
 
     /**
@@ -66,6 +91,13 @@ public class DefaultOrderedEventBus extends DefaultEventBus implements Scheduled
         return obj.getClass().hashCode();
     }
 
+    /**
+     * @return 是否高优先级事件
+     */
+    private boolean isPriority(Class<?> eventClass) {
+        return eventClass.isAnnotationPresent(EventPriority.class);
+    }
+
     @Override
     public final void post(Object event) {
         post(getPartitionId(event), event);
@@ -88,22 +120,48 @@ public class DefaultOrderedEventBus extends DefaultEventBus implements Scheduled
 
     @Override
     public final void post(int partitionId, Object event) {
-        executor.execute(partitionId, () -> post0(partitionId, event));
+        post(partitionId, event, isPriority(event.getClass()));
+    }
+
+    @Override
+    public final void post(int partitionId, Object event, boolean priority) {
+        if (Objects.isNull(journal)) {
+            executor.execute(partitionId, () -> post0(partitionId, event, null), priority);
+            return;
+        }
+        //先写journal, 再分发, 两者在同一把锁内完成, 保证journal记录顺序与分发顺序一致
+        journal.append(partitionId, event,
+                journalEntry -> executor.execute(partitionId, () -> post0(partitionId, event, journalEntry), priority));
+    }
+
+    /**
+     * 调度触发时分发事件, bus已shutdown则丢弃
+     * <p>
+     * 由{@link #ec}的scheduler(与{@link #executor}调度所使用的是同一个)直接触发{@link #post(int, Object)},
+     * 而不是经{@link #executor}调度后在分区线程再执行一次分发, 从而
+     * 1. 调度的高优先级事件(比如心跳)同样进入高优先级队列
+     * 2. 开启{@link EventJournal}时, 调度的事件与普通事件使用同一写入路径, 同样写入journal
+     */
+    private void postScheduled(int partitionId, Object event) {
+        if (executor.isTerminated()) {
+            return;
+        }
+        post(partitionId, event);
     }
 
     @Override
     public final Future<?> schedule(int partitionId, Object event, long delay, TimeUnit unit) {
-        return executor.schedule(partitionId, () -> post0(partitionId, event), delay, unit);
+        return ec.schedule(() -> postScheduled(partitionId, event), delay, unit);
     }
 
     @Override
     public final Future<?> scheduleAtFixRate(int partitionId, Object event, long initialDelay, long period, TimeUnit unit) {
-        return executor.scheduleAtFixedRate(partitionId, () -> post0(partitionId, event), initialDelay, period, unit);
+        return ec.scheduleAtFixedRate(() -> postScheduled(partitionId, event), initialDelay, period, unit);
     }
 
     @Override
     public final Future<?> scheduleWithFixedDelay(int partitionId, Object event, long initialDelay, long delay, TimeUnit unit) {
-        return executor.scheduleWithFixedDelay(partitionId, () -> post0(partitionId, event), initialDelay, delay, unit);
+        return ec.scheduleWithFixedDelay(() -> postScheduled(partitionId, event), initialDelay, delay, unit);
     }
 
     @Override
@@ -111,6 +169,10 @@ public class DefaultOrderedEventBus extends DefaultEventBus implements Scheduled
         executor.shutdown();
         ec.shutdown();
         mergeContexts.clear();
+        if (Objects.nonNull(journal)) {
+            //未处理的事件下次启动重放
+            journal.close();
+        }
 
         super.shutdown();
     }
@@ -158,12 +220,21 @@ public class DefaultOrderedEventBus extends DefaultEventBus implements Scheduled
             //根据partitionId区分不同的事件集合
             Map<Integer, List<EventContext>> partitionId2MergedEvents =
                     eventContexts.stream().collect(Collectors.groupingBy(EventContext::getPartitionId));
+            boolean priority = isPriority(eventClass);
             for (Map.Entry<Integer, List<EventContext>> entry : partitionId2MergedEvents.entrySet()) {
+                List<EventContext> mergedEventContexts = entry.getValue();
                 executor.execute(entry.getKey(),
-                        () -> DefaultOrderedEventBus.super.doPost(
-                                eventClass,
-                                entry.getValue().stream().map(EventContext::getEvent).collect(Collectors.toList())
-                        )
+                        () -> {
+                            try {
+                                DefaultOrderedEventBus.super.doPost(
+                                        eventClass,
+                                        mergedEventContexts.stream().map(EventContext::getEvent).collect(Collectors.toList())
+                                );
+                            } finally {
+                                mergedEventContexts.forEach(EventContext::ack);
+                            }
+                        },
+                        priority
                 );
             }
         }
@@ -0,0 +1,25 @@
+package org.kin.framework.event;
+
+/**
+ * {@link EventJournal}事件序列化
+ *
+ * @author huangjianqin
+ * @date 2022/4/16
+ */
+public interface EventCodec {
+    /**
+     * 序列化事件
+     *
+     * @param event 事件实例
+     * @return 事件bytes
+     */
+    byte[] encode(Object event);
+
+    /**
+     * 反序列化事件
+     *
+     * @param bytes 事件bytes
+     * @return 事件实例
+     */
+    Object decode(byte[] bytes);
+}
@@ -1,5 +1,8 @@
 package org.kin.framework.event;
 
+import javax.annotation.Nullable;
+import java.util.Objects;
+
 /**
  * 事件上下文
  *
@@ -11,14 +14,31 @@ class EventContext {
     private final int partitionId;
     /** 事件 */
     private final Object event;
+    /** 事件在{@link EventJournal}中的记录位置, 未开启journal则为null */
+    @Nullable
+    private final JournalEntry journalEntry;
 
     EventContext(Object event) {
         this(event.getClass().hashCode(), event);
     }
 
     EventContext(int partitionId, Object event) {
+        this(partitionId, event, null);
+    }
+
+    EventContext(int partitionId, Object event, @Nullable JournalEntry journalEntry) {
         this.partitionId = partitionId;
         this.event = event;
+        this.journalEntry = journalEntry;
+    }
+
+    /**
+     * 事件处理完成, ack {@link EventJournal}记录
+     */
+    void ack() {
+        if (Objects.nonNull(journalEntry)) {
+            journalEntry.ack();
+        }
     }
 
     //getter
@@ -0,0 +1,22 @@
+package org.kin.framework.event;
+
+import java.util.List;
+
+/**
+ * 某一类的{@link EventFunction}方法索引, 由{@link EventFunctionProcessor}在编译期生成
+ * 注册事件处理器时, 优先使用索引, 省去运行时反射解析以及字节码增强
+ *
+ * @author huangjianqin
+ * @date 2022/4/4
+ */
+public interface EventFunctionIndex {
+    /**
+     * @return 带{@link EventFunction}方法的类
+     */
+    Class<?> handlerClass();
+
+    /**
+     * @return 该类所有{@link EventFunction}方法
+     */
+    List<IndexedEventFunction> eventFunctions();
+}
@@ -0,0 +1,90 @@
+package org.kin.framework.event;
+
+import org.kin.framework.utils.SysUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 加载classpath下所有{@link EventFunctionIndex}, 仅加载一次
+ * 索引文件由{@link EventFunctionProcessor}生成, 每行一个{@link EventFunctionIndex}实现类
+ *
+ * @author huangjianqin
+ * @date 2022/4/4
+ */
+final class EventFunctionIndexes {
+    private static final Logger log = LoggerFactory.getLogger(EventFunctionIndexes.class);
+    /** key -> 带{@link EventFunction}方法的类, value -> 对应的索引 */
+    private static volatile Map<Class<?>, EventFunctionIndex> indexes;
+
+    private EventFunctionIndexes() {
+    }
+
+    /**
+     * @return {@code handlerClass}对应的索引, 没有则返回null
+     */
+    static EventFunctionIndex get(Class<?> handlerClass) {
+        Map<Class<?>, EventFunctionIndex> indexes = EventFunctionIndexes.indexes;
+        if (indexes == null) {
+            synchronized (EventFunctionIndexes.class) {
+                indexes = EventFunctionIndexes.indexes;
+                if (indexes == null) {
+                    indexes = load();
+                    EventFunctionIndexes.indexes = indexes;
+                }
+            }
+        }
+        return indexes.get(handlerClass);
+    }
+
+    /**
+     * 加载所有索引文件, 加载失败的索引会被忽略, 对应的类回退到反射解析
+     */
+    private static Map<Class<?>, EventFunctionIndex> load() {
+        ClassLoader classLoader = SysUtils.getClassLoader(EventFunctionIndexes.class);
+        Map<Class<?>, EventFunctionIndex> indexes = new HashMap<>();
+        try {
+            Enumeration<URL> urls = classLoader.getResources(EventFunctionProcessor.INDEX_FILE);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                try (InputStream inputStream = url.openStream();
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (line.isEmpty() || line.startsWith("#")) {
+                            continue;
+                        }
+                        loadIndex(classLoader, line, indexes);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("load event function index error, fallback to reflection", e);
+        }
+        return Collections.unmodifiableMap(indexes);
+    }
+
+    /**
+     * 实例化{@link EventFunctionIndex}实现类
+     */
+    private static void loadIndex(ClassLoader classLoader, String indexClassName, Map<Class<?>, EventFunctionIndex> indexes) {
+        try {
+            Class<?> indexClass = Class.forName(indexClassName, true, classLoader);
+            EventFunctionIndex index = (EventFunctionIndex) indexClass.getDeclaredConstructor().newInstance();
+            indexes.put(index.handlerClass(), index);
+        } catch (Throwable e) {
+            //索引可能过时(比如类已删除), 忽略
+            log.warn("load event function index '{}' error, fallback to reflection", indexClassName, e);
+        }
+    }
+}
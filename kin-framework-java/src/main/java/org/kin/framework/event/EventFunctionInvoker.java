@@ -0,0 +1,20 @@
+package org.kin.framework.event;
+
+/**
+ * 编译期生成的{@link EventFunction}方法直接调用逻辑
+ *
+ * @author huangjianqin
+ * @date 2022/4/4
+ * @see EventFunctionProcessor
+ */
+@FunctionalInterface
+public interface EventFunctionInvoker {
+    /**
+     * 调用事件处理方法
+     *
+     * @param handler 带{@link EventFunction}方法的实例
+     * @param bus     {@link EventBus}实现类
+     * @param event   事件实例
+     */
+    void invoke(Object handler, EventBus bus, Object event) throws Exception;
+}
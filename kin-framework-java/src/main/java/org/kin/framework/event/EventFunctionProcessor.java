@@ -0,0 +1,326 @@
+package org.kin.framework.event;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 编译期解析带{@link EventFunction}注解的方法, 为每个类生成{@link EventFunctionIndex}实现类, 并写入索引文件
+ * 生成的实现类直接调用事件处理方法, 运行时不再需要反射解析以及byte buddy生成代理类
+ * <p>
+ * 以下情况不会生成索引, 运行时回退到反射解析:
+ * 1. 类是private, abstract, 匿名类或局部类
+ * 2. 存在运行时反射解析也无法正确处理的{@link EventFunction}方法, 比如事件参数类型为泛型变量或基础类型
+ * <p>
+ * 如果不需要, 可以通过javac -proc:none或者指定-processor关闭
+ *
+ * @author huangjianqin
+ * @date 2022/4/4
+ */
+@SupportedAnnotationTypes(EventFunctionProcessor.EVENT_FUNCTION)
+public class EventFunctionProcessor extends AbstractProcessor {
+    static final String EVENT_FUNCTION = "org.kin.framework.event.EventFunction";
+    private static final String EVENT_BUS = "org.kin.framework.event.EventBus";
+    private static final String SPRING_ORDER = "org.springframework.core.annotation.Order";
+    /** 索引文件路径, 每行一个{@link EventFunctionIndex}实现类 */
+    static final String INDEX_FILE = "META-INF/kin/org.kin.framework.event.EventFunctionIndex";
+    /** 生成类名后缀 */
+    private static final String INDEX_CLASS_SUFFIX = "$$EventFunctionIndex";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+    /** 本次编译生成的{@link EventFunctionIndex}实现类 */
+    private final Set<String> indexClassNames = new TreeSet<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndexFile();
+            return false;
+        }
+
+        TypeElement eventFunction = elements.getTypeElement(EVENT_FUNCTION);
+        if (Objects.isNull(eventFunction)) {
+            return false;
+        }
+
+        //保持顺序, 使生成结果稳定
+        Set<TypeElement> handlerTypes = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(eventFunction)) {
+            Element enclosing = element.getEnclosingElement();
+            if (element.getKind() == ElementKind.METHOD && enclosing.getKind() == ElementKind.CLASS) {
+                handlerTypes.add((TypeElement) enclosing);
+            }
+        }
+
+        for (TypeElement handlerType : handlerTypes) {
+            try {
+                generateIndex(handlerType);
+            } catch (Exception e) {
+                //生成索引失败不影响编译, 运行时回退到反射
+                messager.printMessage(Diagnostic.Kind.WARNING,
+                        "fail to generate event function index, fallback to reflection, " + e, handlerType);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 生成{@code handlerType}的{@link EventFunctionIndex}实现类
+     */
+    private void generateIndex(TypeElement handlerType) throws IOException {
+        if (!isAccessible(handlerType) || handlerType.getModifiers().contains(Modifier.ABSTRACT)) {
+            return;
+        }
+
+        List<String> functions = new ArrayList<>();
+        for (Element member : elements.getAllMembers(handlerType)) {
+            if (member.getKind() != ElementKind.METHOD ||
+                    !member.getModifiers().contains(Modifier.PUBLIC) ||
+                    !hasAnnotation(member, EVENT_FUNCTION)) {
+                continue;
+            }
+
+            ExecutableElement method = (ExecutableElement) member;
+            int paramLen = method.getParameters().size();
+            if (paramLen <= 0 || paramLen > 2) {
+                //与运行时一致, 只处理一个或两个参数的public方法
+                continue;
+            }
+
+            String function = parseEventFunction(handlerType, method);
+            if (Objects.isNull(function)) {
+                messager.printMessage(Diagnostic.Kind.NOTE,
+                        "unsupported event function, fallback to reflection", method);
+                return;
+            }
+            functions.add(function);
+        }
+
+        if (functions.isEmpty()) {
+            return;
+        }
+
+        String packageName = elements.getPackageOf(handlerType).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(handlerType).toString();
+        String indexSimpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).concat(INDEX_CLASS_SUFFIX);
+        String indexClassName = packageName.isEmpty() ? indexSimpleName : packageName.concat(".").concat(indexSimpleName);
+
+        JavaFileObject sourceFile = filer.createSourceFile(indexClassName, handlerType);
+        try (Writer writer = sourceFile.openWriter()) {
+            writer.write(generateSource(packageName, indexSimpleName, handlerType, functions));
+        }
+        indexClassNames.add(indexClassName);
+    }
+
+    /**
+     * 解析{@link EventFunction}方法, 与{@link DefaultEventBus}运行时解析逻辑一致
+     *
+     * @return 构建{@link IndexedEventFunction}的代码, 如果无法解析, 则返回null
+     */
+    private String parseEventFunction(TypeElement handlerType, ExecutableElement method) {
+        TypeMirror eventBusType = types.erasure(elements.getTypeElement(EVENT_BUS).asType());
+        TypeMirror collectionType = types.erasure(elements.getTypeElement(Collection.class.getName()).asType());
+
+        List<? extends VariableElement> parameters = method.getParameters();
+        String eventClass = null;
+        String[] args = new String[parameters.size()];
+        for (int i = 0; i < parameters.size(); i++) {
+            TypeMirror paramType = parameters.get(i).asType();
+            TypeMirror erasure = types.erasure(paramType);
+            if (paramType.getKind() != TypeKind.DECLARED && paramType.getKind() != TypeKind.ARRAY) {
+                //基础类型或泛型变量
+                return null;
+            }
+
+            if (types.isAssignable(erasure, eventBusType)) {
+                args[i] = "(" + erasure + ") bus";
+                continue;
+            }
+
+            if (Objects.nonNull(eventClass)) {
+                //多个事件参数
+                return null;
+            }
+
+            TypeMirror eventType = erasure;
+            if (paramType.getKind() == TypeKind.DECLARED && types.isAssignable(erasure, collectionType)) {
+                List<? extends TypeMirror> typeArguments = ((DeclaredType) paramType).getTypeArguments();
+                if (!typeArguments.isEmpty()) {
+                    //事件合并, 以真实事件类型来注册事件处理器
+                    TypeMirror itemType = typeArguments.get(0);
+                    if (itemType.getKind() != TypeKind.DECLARED) {
+                        return null;
+                    }
+                    eventType = types.erasure(itemType);
+                }
+            }
+            eventClass = eventType + ".class";
+            args[i] = "(" + erasure + ") event";
+        }
+
+        if (Objects.isNull(eventClass)) {
+            return null;
+        }
+
+        String target = method.getModifiers().contains(Modifier.STATIC) ?
+                handlerType.getQualifiedName().toString() :
+                "((" + types.erasure(handlerType.asType()) + ") handler)";
+        return "new org.kin.framework.event.IndexedEventFunction(" + eventClass + ", " + getOrder(method) + ",\n" +
+                "                (handler, bus, event) -> " + target + "." + method.getSimpleName() + "(" + String.join(", ", args) + "))";
+    }
+
+    /**
+     * 生成{@link EventFunctionIndex}实现类代码
+     */
+    private String generateSource(String packageName, String indexSimpleName, TypeElement handlerType, List<String> functions) {
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("/**\n")
+                .append(" * generated by ").append(EventFunctionProcessor.class.getName()).append(", do not edit\n")
+                .append(" */\n")
+                .append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n")
+                .append("public final class ").append(indexSimpleName).append(" implements org.kin.framework.event.EventFunctionIndex {\n")
+                .append("    @Override\n")
+                .append("    public Class<?> handlerClass() {\n")
+                .append("        return ").append(types.erasure(handlerType.asType())).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public java.util.List<org.kin.framework.event.IndexedEventFunction> eventFunctions() {\n")
+                .append("        java.util.List<org.kin.framework.event.IndexedEventFunction> functions = new java.util.ArrayList<>(")
+                .append(functions.size()).append(");\n");
+        for (String function : functions) {
+            sb.append("        functions.add(").append(function).append(");\n");
+        }
+        sb.append("        return functions;\n")
+                .append("    }\n")
+                .append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * 写入索引文件, 保留增量编译时已存在的索引
+     */
+    private void writeIndexFile() {
+        if (indexClassNames.isEmpty()) {
+            return;
+        }
+
+        Set<String> allIndexClassNames = new TreeSet<>(indexClassNames);
+        try {
+            FileObject existed = filer.getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_FILE);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existed.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        allIndexClassNames.add(line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            //索引文件不存在
+        }
+
+        try {
+            FileObject indexFile = filer.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_FILE);
+            try (Writer writer = new OutputStreamWriter(indexFile.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String indexClassName : allIndexClassNames) {
+                    writer.write(indexClassName);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.WARNING, "fail to write event function index file, " + e);
+        }
+    }
+
+    /**
+     * @return 生成类(同包)是否可以访问该类
+     */
+    private boolean isAccessible(TypeElement type) {
+        Element element = type;
+        while (element instanceof TypeElement) {
+            TypeElement typeElement = (TypeElement) element;
+            NestingKind nestingKind = typeElement.getNestingKind();
+            if (typeElement.getModifiers().contains(Modifier.PRIVATE) ||
+                    nestingKind == NestingKind.ANONYMOUS || nestingKind == NestingKind.LOCAL) {
+                return false;
+            }
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    /**
+     * @return 是否带有指定注解
+     */
+    private boolean hasAnnotation(Element element, String annotationName) {
+        return Objects.nonNull(getAnnotationMirror(element, annotationName));
+    }
+
+    private AnnotationMirror getAnnotationMirror(Element element, String annotationName) {
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return annotationMirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 与运行时一致, 仅解析方法上的spring {@code @Order}
+     *
+     * @return 事件处理方法优先级
+     */
+    private String getOrder(ExecutableElement method) {
+        int order = Integer.MAX_VALUE;
+        AnnotationMirror orderMirror = getAnnotationMirror(method, SPRING_ORDER);
+        if (Objects.nonNull(orderMirror)) {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                    elements.getElementValuesWithDefaults(orderMirror).entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value")) {
+                    order = (Integer) entry.getValue().getValue();
+                }
+            }
+        }
+
+        if (order == Integer.MIN_VALUE) {
+            return "Integer.MIN_VALUE";
+        } else if (order == Integer.MAX_VALUE) {
+            return "Integer.MAX_VALUE";
+        }
+        return Integer.toString(order);
+    }
+}
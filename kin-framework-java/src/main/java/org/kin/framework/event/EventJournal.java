@@ -0,0 +1,324 @@
+package org.kin.framework.event;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.Closeable;
+import org.kin.framework.concurrent.SimpleThreadFactory;
+import org.kin.framework.utils.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * {@link DefaultOrderedEventBus}事件预写日志(write-ahead journal)
+ * 事件分发前先序列化写入journal, 事件处理完成后ack, 进程崩溃重启后, 通过{@link #replay(BiConsumer)}重放未ack的事件
+ * <p>
+ * 1. 按分区id分片, 每个分片由多个固定大小的memory-mapped segment文件组成, 目录结构: {dir}/{分片}/{segment id}.log
+ * 2. 写入仅是内存拷贝, 进程崩溃不会丢失已写入的记录; 后台线程定期批量刷盘(group commit), 降低机器宕机时的丢失窗口
+ * 3. segment写满且所有记录都ack后, 自动删除并释放mapping
+ * 4. 同一分片内, 写入与分发在同一把锁内完成, 故同一分区的事件写入journal的顺序与分发顺序一致, 重放时保持原有顺序
+ * <p>
+ * 语义是at-least-once, 重放过程中再次崩溃, 事件可能会被重复处理
+ *
+ * @author huangjianqin
+ * @date 2022/4/16
+ */
+public final class EventJournal implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(EventJournal.class);
+    /** 默认segment文件大小, 64m */
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    /** 默认刷盘间隔 */
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 10;
+
+    /** journal根目录 */
+    private final File dir;
+    /** 事件序列化 */
+    private final EventCodec codec;
+    /** segment文件大小 */
+    private final int segmentSize;
+    /** 分片 */
+    private final Shard[] shards;
+    /** 启动时发现的segment, 等待重放 */
+    private List<JournalSegment> recovered;
+    /** 刷盘线程 */
+    private final ScheduledExecutorService flusher;
+    private volatile boolean closed;
+
+    public EventJournal(File dir, int shardNum) {
+        this(dir, shardNum, JdkEventCodec.INSTANCE);
+    }
+
+    public EventJournal(File dir, int shardNum, EventCodec codec) {
+        this(dir, shardNum, codec, DEFAULT_SEGMENT_SIZE, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * @param dir             journal根目录
+     * @param shardNum        分片数, 一般与{@link DefaultOrderedEventBus}并行数一致
+     * @param codec           事件序列化
+     * @param segmentSize     segment文件大小
+     * @param flushIntervalMs 刷盘间隔, 小于等于0则不定期刷盘, 仅依赖操作系统回写
+     */
+    public EventJournal(File dir, int shardNum, EventCodec codec, int segmentSize, long flushIntervalMs) {
+        Preconditions.checkNotNull(dir, "journal dir must be not null");
+        Preconditions.checkNotNull(codec, "event codec must be not null");
+        Preconditions.checkArgument(shardNum > 0, "shardNum must be greater than 0");
+        Preconditions.checkArgument(segmentSize > JournalSegment.HEADER_SIZE, "segmentSize is too small");
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IllegalStateException("can not create event journal dir " + dir);
+        }
+
+        this.dir = dir;
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+
+        //先找出所有已存在的segment, 新segment id需在此之后
+        this.recovered = recover();
+        long nextSegmentId = 0;
+        for (JournalSegment segment : recovered) {
+            nextSegmentId = Math.max(nextSegmentId, segment.getId() + 1);
+        }
+
+        this.shards = new Shard[shardNum];
+        for (int i = 0; i < shardNum; i++) {
+            shards[i] = new Shard(new File(dir, Integer.toString(i)), nextSegmentId);
+        }
+
+        if (flushIntervalMs > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(new SimpleThreadFactory("event-journal-flusher", true));
+            flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * 加载journal根目录下所有已存在的segment
+     */
+    private List<JournalSegment> recover() {
+        List<JournalSegment> segments = new ArrayList<>();
+        File[] shardDirs = dir.listFiles(File::isDirectory);
+        if (Objects.isNull(shardDirs)) {
+            return segments;
+        }
+
+        for (File shardDir : shardDirs) {
+            File[] files = shardDir.listFiles((d, name) -> name.endsWith(JournalSegment.SUFFIX));
+            if (Objects.isNull(files)) {
+                continue;
+            }
+            for (File file : files) {
+                try {
+                    segments.add(JournalSegment.open(file));
+                } catch (Exception e) {
+                    log.error("open event journal segment '{}' error", file, e);
+                }
+            }
+        }
+        segments.sort(Comparator.comparingLong(JournalSegment::getId));
+        return segments;
+    }
+
+    /**
+     * 写入事件, 并在写入同一把锁内分发事件, 保证同一分区的写入顺序与分发顺序一致
+     * 分发失败则ack该记录, 不再重放
+     *
+     * @param partitionId 事件分区id
+     * @param event       事件
+     * @param dispatcher  事件分发逻辑, 参数为事件记录位置, 用于处理完成后ack
+     */
+    void append(int partitionId, Object event, Consumer<JournalEntry> dispatcher) {
+        if (closed) {
+            throw new IllegalStateException("event journal is closed");
+        }
+        byte[] bytes = codec.encode(event);
+        shards[Math.abs(partitionId % shards.length)].append(partitionId, bytes, dispatcher);
+    }
+
+    /**
+     * 重放上次进程退出前未处理的事件, 仅第一次调用有效
+     * 需在注册完事件处理器后, 分发新事件前调用
+     *
+     * @param consumer 事件分区id以及事件实例
+     */
+    public synchronized void replay(BiConsumer<Integer, Object> consumer) {
+        List<JournalSegment> recovered = this.recovered;
+        if (Objects.isNull(recovered)) {
+            return;
+        }
+        this.recovered = null;
+
+        int count = 0;
+        for (JournalSegment segment : recovered) {
+            int[] replayed = {0};
+            segment.forEachPending((partitionId, bytes) -> {
+                Object event;
+                try {
+                    event = codec.decode(bytes);
+                } catch (Exception e) {
+                    log.error("decode event from journal segment '{}' error, skip it", segment.getFile(), e);
+                    return;
+                }
+                consumer.accept(partitionId, event);
+                replayed[0]++;
+            });
+            count += replayed[0];
+            //事件重新分发时已重新写入journal
+            segment.delete();
+        }
+
+        if (count > 0) {
+            log.info("replay {} events from event journal '{}'", count, dir);
+        }
+    }
+
+    /**
+     * 批量刷盘
+     */
+    private void flush() {
+        for (Shard shard : shards) {
+            try {
+                shard.flush();
+            } catch (Exception e) {
+                log.error("flush event journal error", e);
+            }
+        }
+    }
+
+    /**
+     * 刷盘并释放所有segment的mapping, 未处理的事件下次启动时重放
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (Objects.nonNull(flusher)) {
+            flusher.shutdown();
+        }
+        for (Shard shard : shards) {
+            shard.close();
+        }
+        //未重放的segment
+        if (Objects.nonNull(recovered)) {
+            for (JournalSegment segment : recovered) {
+                segment.close();
+            }
+            recovered = null;
+        }
+    }
+
+    //-------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * journal分片
+     */
+    private final class Shard {
+        /** 分片目录 */
+        private final File shardDir;
+        /** 下一个segment id */
+        private long nextSegmentId;
+        /** 当前写入的segment */
+        private volatile JournalSegment current;
+        /** 所有未释放的segment, 包括已写满但仍有未ack记录的segment */
+        private final Queue<JournalSegment> segments = new ConcurrentLinkedQueue<>();
+        /** 写入时crc计算 */
+        private final CRC32 crc32 = new CRC32();
+
+        Shard(File shardDir, long nextSegmentId) {
+            if (!shardDir.exists() && !shardDir.mkdirs()) {
+                throw new IllegalStateException("can not create event journal dir " + shardDir);
+            }
+            this.shardDir = shardDir;
+            this.nextSegmentId = nextSegmentId;
+        }
+
+        /**
+         * 写入记录并分发, 同一分片串行执行
+         */
+        synchronized void append(int partitionId, byte[] bytes, Consumer<JournalEntry> dispatcher) {
+            if (closed) {
+                throw new IllegalStateException("event journal is closed");
+            }
+
+            JournalSegment segment = current;
+            if (Objects.isNull(segment)) {
+                segment = roll();
+            }
+
+            int offset = segment.append(partitionId, bytes, crc32);
+            if (offset < 0) {
+                //空间不足, 切换新segment
+                segment.seal();
+                segment = roll();
+                offset = segment.append(partitionId, bytes, crc32);
+                if (offset < 0) {
+                    throw new IllegalArgumentException(String.format("event is too large(%d bytes), segment size is %d bytes", bytes.length, segmentSize));
+                }
+            }
+
+            JournalEntry entry = new JournalEntry(segment, offset);
+            try {
+                dispatcher.accept(entry);
+            } catch (Exception e) {
+                //分发失败, 调用方已感知, 不再重放
+                entry.ack();
+                throw e;
+            }
+        }
+
+        /**
+         * 创建新segment
+         */
+        private JournalSegment roll() {
+            try {
+                JournalSegment segment = JournalSegment.create(shardDir, nextSegmentId++, segmentSize);
+                segments.add(segment);
+                current = segment;
+                return segment;
+            } catch (IOException e) {
+                ExceptionUtils.throwExt(e);
+            }
+
+            //never reach
+            throw new IllegalStateException("encounter unknown error");
+        }
+
+        /**
+         * 所有有修改的segment刷盘, 顺便移除已释放的segment
+         */
+        void flush() {
+            Iterator<JournalSegment> iterator = segments.iterator();
+            while (iterator.hasNext()) {
+                JournalSegment segment = iterator.next();
+                if (segment.isReleased()) {
+                    iterator.remove();
+                    continue;
+                }
+                segment.flush();
+            }
+        }
+
+        /**
+         * 释放所有segment
+         */
+        synchronized void close() {
+            JournalSegment segment;
+            while (Objects.nonNull(segment = segments.poll())) {
+                segment.close();
+            }
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.kin.framework.event;
+
+import java.lang.annotation.*;
+
+/**
+ * 标识高优先级事件, 比如心跳, 关闭信号等控制类事件
+ * {@link DefaultOrderedEventBus}会将其放入分区的高优先级队列, 在同一分区的普通事件之前处理
+ * 为了避免普通事件饿死, 高优先级事件与普通事件之间会按权重公平调度
+ *
+ * @author huangjianqin
+ * @date 2022/4/9
+ * @see org.kin.framework.concurrent.OrderedEventLoop#getPriorityWeight()
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Documented
+public @interface EventPriority {
+}
@@ -0,0 +1,36 @@
+package org.kin.framework.event;
+
+/**
+ * 编译期解析出的{@link EventFunction}方法元数据
+ *
+ * @author huangjianqin
+ * @date 2022/4/4
+ * @see EventFunctionProcessor
+ */
+public final class IndexedEventFunction {
+    /** 事件类型 */
+    private final Class<?> eventClass;
+    /** 优先级 */
+    private final int order;
+    /** 事件处理方法调用逻辑 */
+    private final EventFunctionInvoker invoker;
+
+    public IndexedEventFunction(Class<?> eventClass, int order, EventFunctionInvoker invoker) {
+        this.eventClass = eventClass;
+        this.order = order;
+        this.invoker = invoker;
+    }
+
+    //getter
+    public Class<?> getEventClass() {
+        return eventClass;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    public EventFunctionInvoker getInvoker() {
+        return invoker;
+    }
+}
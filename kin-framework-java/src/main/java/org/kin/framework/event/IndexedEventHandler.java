@@ -0,0 +1,31 @@
+package org.kin.framework.event;
+
+import org.kin.framework.common.Ordered;
+
+/**
+ * 基于{@link IndexedEventFunction}的{@link EventHandler}, 直接调用事件处理方法
+ *
+ * @author huangjianqin
+ * @date 2022/4/4
+ */
+class IndexedEventHandler<T> implements EventHandler<T>, Ordered {
+    /** 带{@link EventFunction}方法的实例 */
+    private final Object handler;
+    /** 编译期生成的事件处理方法元数据 */
+    private final IndexedEventFunction function;
+
+    IndexedEventHandler(Object handler, IndexedEventFunction function) {
+        this.handler = handler;
+        this.function = function;
+    }
+
+    @Override
+    public void handle(EventBus bus, T event) throws Exception {
+        function.getInvoker().invoke(handler, bus, event);
+    }
+
+    @Override
+    public int getOrder() {
+        return function.getOrder();
+    }
+}
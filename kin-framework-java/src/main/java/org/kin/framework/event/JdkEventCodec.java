@@ -0,0 +1,42 @@
+package org.kin.framework.event;
+
+import org.kin.framework.utils.ExceptionUtils;
+
+import java.io.*;
+
+/**
+ * 基于jdk序列化的{@link EventCodec}, 要求事件实现{@link Serializable}
+ *
+ * @author huangjianqin
+ * @date 2022/4/16
+ */
+public final class JdkEventCodec implements EventCodec {
+    /** 单例 */
+    public static final JdkEventCodec INSTANCE = new JdkEventCodec();
+
+    private JdkEventCodec() {
+    }
+
+    @Override
+    public byte[] encode(Object event) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(event);
+        } catch (IOException e) {
+            ExceptionUtils.throwExt(e);
+        }
+        return baos.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            ExceptionUtils.throwExt(e);
+        }
+
+        //never reach
+        throw new IllegalStateException("encounter unknown error");
+    }
+}
@@ -0,0 +1,26 @@
+package org.kin.framework.event;
+
+/**
+ * {@link EventJournal}中一条事件记录的位置, 事件处理完成后需{@link #ack()}
+ *
+ * @author huangjianqin
+ * @date 2022/4/16
+ */
+final class JournalEntry {
+    /** 所属segment */
+    private final JournalSegment segment;
+    /** 记录在segment中的偏移量 */
+    private final int offset;
+
+    JournalEntry(JournalSegment segment, int offset) {
+        this.segment = segment;
+        this.offset = offset;
+    }
+
+    /**
+     * 标识事件已处理, 重启后不再重放
+     */
+    void ack() {
+        segment.ack(offset);
+    }
+}
@@ -0,0 +1,280 @@
+package org.kin.framework.event;
+
+import org.kin.framework.utils.UnsafeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * {@link EventJournal}分段日志文件, 整个文件memory-mapped
+ * <p>
+ * 记录格式: record length(4) | crc32(4) | status(1) | partition id(4) | event bytes
+ * 先写入记录内容, 最后写入record length, record length为0即表示后面没有记录
+ * <p>
+ * append由{@link EventJournal}加锁保证串行, ack可能由不同线程触发, 仅仅修改status字节
+ * <p>
+ * append, ack和flush持有读锁, 释放mapping({@link #close()}, {@link #delete()})持有写锁, 避免访问已unmap的内存
+ * 释放后的ack会被忽略, 该事件下次启动时重放
+ *
+ * @author huangjianqin
+ * @date 2022/4/16
+ */
+final class JournalSegment {
+    private static final Logger log = LoggerFactory.getLogger(JournalSegment.class);
+    /** 文件后缀 */
+    static final String SUFFIX = ".log";
+    /** 记录头长度 */
+    static final int HEADER_SIZE = 13;
+    /** status相对记录开始的偏移量 */
+    private static final int STATUS_OFFSET = 8;
+    /** 未处理 */
+    private static final byte PENDING = 0;
+    /** 已处理 */
+    private static final byte ACKED = 1;
+
+    /** segment id, 递增 */
+    private final long id;
+    /** segment文件 */
+    private final File file;
+    /** 用于append, position即写入位置 */
+    private final MappedByteBuffer buffer;
+    /** 用于ack, 仅使用绝对位置写入, 不影响{@link #buffer}的position */
+    private final ByteBuffer ackView;
+    /** 未ack的记录数 */
+    private final AtomicInteger pending = new AtomicInteger();
+    /** 是否已写满, 不再append */
+    private volatile boolean sealed;
+    /** 上次刷盘后是否有修改 */
+    private volatile boolean dirty;
+    /** mapping是否已释放 */
+    private volatile boolean released;
+    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock.ReadLock readLock = readWriteLock.readLock();
+    private final ReentrantReadWriteLock.WriteLock writeLock = readWriteLock.writeLock();
+
+    private JournalSegment(long id, File file, MappedByteBuffer buffer) {
+        this.id = id;
+        this.file = file;
+        this.buffer = buffer;
+        this.ackView = buffer.duplicate();
+    }
+
+    /**
+     * 创建新的segment文件
+     */
+    static JournalSegment create(File dir, long id, int size) throws IOException {
+        File file = new File(dir, String.format("%020d", id).concat(SUFFIX));
+        return new JournalSegment(id, file, map(file, size));
+    }
+
+    /**
+     * 打开已存在的segment文件, 用于重放
+     * 统计未处理的记录数, 未重放就{@link #close()}时, 保留segment文件
+     */
+    static JournalSegment open(File file) throws IOException {
+        String name = file.getName();
+        long id = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        JournalSegment segment = new JournalSegment(id, file, map(file, (int) file.length()));
+        segment.sealed = true;
+        segment.forEachPending((partitionId, bytes) -> segment.pending.incrementAndGet());
+        return segment;
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            //mapping建立后, 关闭channel不影响mapping
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * 追加记录, 调用者需保证串行
+     *
+     * @return 记录偏移量, 如果剩余空间不足, 则返回-1
+     */
+    int append(int partitionId, byte[] bytes, CRC32 crc32) {
+        int recordLength = HEADER_SIZE + bytes.length;
+        readLock.lock();
+        try {
+            if (released) {
+                throw new IllegalStateException(String.format("event journal segment '%s' is released", file));
+            }
+
+            int offset = buffer.position();
+            //预留4 bytes用于写入结束标识(record length=0)
+            if (buffer.remaining() < recordLength + 4) {
+                return -1;
+            }
+
+            crc32.reset();
+            crc32.update(bytes, 0, bytes.length);
+
+            pending.incrementAndGet();
+            buffer.position(offset + 4);
+            buffer.putInt((int) crc32.getValue());
+            buffer.put(PENDING);
+            buffer.putInt(partitionId);
+            buffer.put(bytes);
+            //最后写入record length, 标识记录完整
+            buffer.putInt(offset, recordLength);
+            dirty = true;
+            return offset;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * 标识记录已处理, segment已释放则忽略
+     */
+    void ack(int offset) {
+        readLock.lock();
+        try {
+            if (released) {
+                return;
+            }
+            ackView.put(offset + STATUS_OFFSET, ACKED);
+            dirty = true;
+        } finally {
+            readLock.unlock();
+        }
+
+        if (pending.decrementAndGet() == 0 && sealed) {
+            delete();
+        }
+    }
+
+    /**
+     * segment已写满, 如果所有记录都已处理, 则删除
+     */
+    void seal() {
+        flush();
+        sealed = true;
+        if (pending.get() == 0) {
+            delete();
+        }
+    }
+
+    /**
+     * 有修改则刷盘
+     */
+    void flush() {
+        if (!dirty) {
+            return;
+        }
+        readLock.lock();
+        try {
+            if (released) {
+                return;
+            }
+            //先清除标识, 刷盘过程中的修改由下次刷盘处理
+            dirty = false;
+            buffer.force();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * 遍历所有未处理的记录, 遇到不完整或者crc校验失败的记录则停止, 调用者需保证mapping未释放
+     *
+     * @param consumer 事件分区id以及事件bytes
+     */
+    void forEachPending(BiConsumer<Integer, byte[]> consumer) {
+        ByteBuffer view = buffer.duplicate();
+        CRC32 crc32 = new CRC32();
+        int offset = 0;
+        while (offset + HEADER_SIZE <= view.limit()) {
+            int recordLength = view.getInt(offset);
+            if (recordLength < HEADER_SIZE || recordLength > view.limit() - offset) {
+                //结束或者不完整记录
+                break;
+            }
+
+            int crc = view.getInt(offset + 4);
+            byte status = view.get(offset + STATUS_OFFSET);
+            int partitionId = view.getInt(offset + STATUS_OFFSET + 1);
+            byte[] bytes = new byte[recordLength - HEADER_SIZE];
+            view.position(offset + HEADER_SIZE);
+            view.get(bytes);
+
+            crc32.reset();
+            crc32.update(bytes, 0, bytes.length);
+            if ((int) crc32.getValue() != crc) {
+                log.warn("event journal segment '{}' is corrupted at offset {}, ignore remaining records", file, offset);
+                break;
+            }
+
+            if (status == PENDING) {
+                consumer.accept(partitionId, bytes);
+            }
+            offset += recordLength;
+        }
+    }
+
+    /**
+     * 释放mapping, 如果存在未处理的记录, 则刷盘并保留segment文件, 下次启动时重放, 否则删除segment文件
+     */
+    void close() {
+        release(pending.get() == 0);
+    }
+
+    /**
+     * 释放mapping并删除segment文件
+     */
+    void delete() {
+        release(true);
+    }
+
+    /**
+     * 释放mapping, 不依赖gc回收{@link MappedByteBuffer}
+     *
+     * @param deleteFile 是否删除segment文件
+     */
+    private void release(boolean deleteFile) {
+        writeLock.lock();
+        try {
+            if (released) {
+                return;
+            }
+            released = true;
+            if (!deleteFile && dirty) {
+                buffer.force();
+            }
+            UnsafeUtil.freeDirectBuffer(buffer);
+        } finally {
+            writeLock.unlock();
+        }
+
+        if (deleteFile && !file.delete()) {
+            log.warn("delete event journal segment '{}' fail", file);
+        }
+    }
+
+    /**
+     * @return mapping是否已释放
+     */
+    boolean isReleased() {
+        return released;
+    }
+
+    //getter
+    long getId() {
+        return id;
+    }
+
+    File getFile() {
+        return file;
+    }
+}
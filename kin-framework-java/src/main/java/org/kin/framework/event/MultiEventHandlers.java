@@ -4,6 +4,7 @@ import org.kin.framework.utils.OrderUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -35,6 +36,14 @@ class MultiEventHandlers<T> implements EventHandler<T> {
         OrderUtils.sort(handlers);
     }
 
+    /**
+     * 批量添加, 仅排序一次
+     */
+    void addHandlers(Collection<EventHandler<T>> handlers) {
+        this.handlers.addAll(handlers);
+        OrderUtils.sort(this.handlers);
+    }
+
     //getter
     List<EventHandler<T>> getHandlers() {
         return handlers;
@@ -17,4 +17,16 @@ public interface OrderedEventBus extends EventBus {
      * @param event       事件实例
      */
     void post(int partitionId, Object event);
+
+    /**
+     * 分发事件
+     *
+     * @param partitionId 分区
+     * @param event       事件实例
+     * @param priority    是否高优先级事件, 高优先级事件会在同一分区的普通事件之前处理
+     *                    默认实现不支持优先级, 忽略该参数
+     */
+    default void post(int partitionId, Object event, boolean priority) {
+        post(partitionId, event);
+    }
 }
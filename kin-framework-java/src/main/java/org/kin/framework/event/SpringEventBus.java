@@ -27,6 +27,10 @@ public class SpringEventBus extends DefaultOrderedEventBus implements Applicatio
         super(parallelism);
     }
 
+    public SpringEventBus(int parallelism, boolean isEnhance, EventJournal journal) {
+        super(parallelism, isEnhance, journal);
+    }
+
     /**
      * 识别带{@link EventFunction}注解的public 方法, 并自动注册
      */
@@ -49,5 +53,7 @@ public class SpringEventBus extends DefaultOrderedEventBus implements Applicatio
     @Override
     public void onApplicationEvent(@NonNull ContextRefreshedEvent event) {
         registerAnnoBaseEventHandler(event.getApplicationContext());
+        //事件处理器注册完成后, 重放未处理的事件
+        replayJournal();
     }
 }
@@ -0,0 +1,370 @@
+package org.kin.framework.io;
+
+import com.google.common.base.Preconditions;
+import org.jctools.queues.MpmcArrayQueue;
+import org.jctools.queues.atomic.MpmcAtomicArrayQueue;
+import org.kin.framework.concurrent.FastThreadLocal;
+import org.kin.framework.utils.Maths;
+import org.kin.framework.utils.UnsafeUtil;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于size class的buffer池化分配器, 支持heap和direct buffer
+ * <p>
+ * 1. 申请容量向上取2的n次方, 每个2的n次方即一个size class, 超过{@link #maxPooledSize}的buffer不池化
+ * 2. 每个线程拥有本地缓存, 分配和释放优先访问本地缓存, 无需同步; 本地缓存不足或者已满, 则访问全局共享的pool
+ * 线程退出后, 其本地缓存的direct buffer在缓存被gc后归还全局pool, 而不依赖{@link FastThreadLocal#remove()}
+ * 3. 全局pool已满, 则直接丢弃, 等待gc回收
+ * <p>
+ * 分配出去的buffer通过{@link PooledBuffer#release()}归还
+ * direct buffer的分配和释放由{@link DirectMemoryAccountant}统计
+ *
+ * @author huangjianqin
+ * @date 2022/4/17
+ */
+public final class BufferAllocator {
+    /** 默认allocator */
+    public static final BufferAllocator DEFAULT = new BufferAllocator();
+    /** 默认最大池化buffer容量, 1m */
+    private static final int DEFAULT_MAX_POOLED_SIZE = 1024 * 1024;
+    /** 每个size class线程本地缓存最大字节数, 即size class越大, 缓存buffer数量越少 */
+    private static final int THREAD_CACHE_BYTES = 64 * 1024;
+    /** 每个size class线程本地缓存最大buffer数量 */
+    private static final int MAX_THREAD_CACHE_NUM = 64;
+    /** 每个size class全局pool最大字节数 */
+    private static final int SHARED_POOL_BYTES = 2 * 1024 * 1024;
+    /** 每个size class全局pool最大buffer数量 */
+    private static final int MAX_SHARED_POOL_NUM = 1024;
+    /** 默认分配点 */
+    private static final String DEFAULT_SITE = "default";
+
+    /** 最大池化buffer容量 */
+    private final int maxPooledSize;
+    /** direct memory统计 */
+    private final DirectMemoryAccountant accountant;
+    /** heap buffer全局pool, 下标即size class */
+    private final Queue<PooledBuffer>[] heapPools;
+    /** direct buffer全局pool, 下标即size class */
+    private final Queue<PooledBuffer>[] directPools;
+    /** 被gc的线程本地缓存 */
+    private final ReferenceQueue<ThreadCache> deadCacheQueue = new ReferenceQueue<>();
+    /** 仍存活的线程本地缓存引用, 防止{@link PhantomReference}本身被gc */
+    private final Set<ThreadCacheRef> threadCacheRefs = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    /** 线程本地缓存 */
+    private final FastThreadLocal<ThreadCache> threadCache = new FastThreadLocal<ThreadCache>() {
+        @Override
+        protected ThreadCache initialValue() {
+            ThreadCache cache = new ThreadCache();
+            //普通线程退出时不会触发onRemoval, 故缓存被gc后再归还其direct buffer
+            threadCacheRefs.add(new ThreadCacheRef(cache, deadCacheQueue));
+            return cache;
+        }
+
+        @Override
+        protected void onRemoval(ThreadCache cache) {
+            //线程本地缓存归还全局pool
+            cache.drain();
+        }
+    };
+
+    public BufferAllocator() {
+        this(DEFAULT_MAX_POOLED_SIZE);
+    }
+
+    public BufferAllocator(int maxPooledSize) {
+        this(maxPooledSize, DirectMemoryAccountant.DEFAULT);
+    }
+
+    /**
+     * @param maxPooledSize 最大池化buffer容量, 会向上取2的n次方
+     * @param accountant    direct memory统计
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BufferAllocator(int maxPooledSize, DirectMemoryAccountant accountant) {
+        Preconditions.checkArgument(maxPooledSize > 0, "maxPooledSize must be greater than 0");
+        Preconditions.checkNotNull(accountant, "accountant must be not null");
+        maxPooledSize = Maths.round2Power2(maxPooledSize);
+        this.maxPooledSize = maxPooledSize;
+        this.accountant = accountant;
+
+        int sizeClassNum = sizeClass(maxPooledSize) + 1;
+        heapPools = new Queue[sizeClassNum];
+        directPools = new Queue[sizeClassNum];
+        for (int i = 0; i < sizeClassNum; i++) {
+            int capacity = Math.max(2, Math.min(MAX_SHARED_POOL_NUM, SHARED_POOL_BYTES >>> i));
+            heapPools[i] = newQueue(capacity);
+            directPools[i] = newQueue(capacity);
+        }
+    }
+
+    private static Queue<PooledBuffer> newQueue(int capacity) {
+        return UnsafeUtil.hasUnsafe() ? new MpmcArrayQueue<>(capacity) : new MpmcAtomicArrayQueue<>(capacity);
+    }
+
+    /**
+     * 2的n次方容量对应的size class
+     */
+    private static int sizeClass(int size) {
+        return Integer.numberOfTrailingZeros(size);
+    }
+
+    /**
+     * 分配heap buffer
+     */
+    public PooledBuffer allocate(int capacity) {
+        return allocate(capacity, false);
+    }
+
+    /**
+     * 分配direct buffer
+     */
+    public PooledBuffer allocateDirect(int capacity) {
+        return allocate(capacity, true);
+    }
+
+    /**
+     * 分配direct buffer
+     *
+     * @param site 分配点, 用于统计direct buffer分配和释放
+     */
+    public PooledBuffer allocateDirect(int capacity, String site) {
+        return allocate(capacity, true, site);
+    }
+
+    /**
+     * 分配buffer, 返回的buffer容量为{@code capacity}向上取2的n次方, 超过{@link #maxPooledSize}则容量即{@code capacity}
+     *
+     * @param capacity 申请容量
+     * @param direct   是否分配direct buffer
+     */
+    public PooledBuffer allocate(int capacity, boolean direct) {
+        return allocate(capacity, direct, DEFAULT_SITE);
+    }
+
+    /**
+     * 分配buffer, 返回的buffer容量为{@code capacity}向上取2的n次方, 超过{@link #maxPooledSize}则容量即{@code capacity}
+     *
+     * @param capacity 申请容量
+     * @param direct   是否分配direct buffer
+     * @param site     分配点, 用于统计direct buffer分配和释放
+     */
+    public PooledBuffer allocate(int capacity, boolean direct, String site) {
+        Preconditions.checkArgument(capacity >= 0, "capacity must be greater than or equal to 0");
+        PooledBuffer buffer;
+        if (capacity > maxPooledSize) {
+            //不池化
+            buffer = new PooledBuffer(this, newByteBuffer(capacity, direct), -1);
+        } else {
+            int size = Maths.round2Power2(capacity);
+            int sizeClass = sizeClass(size);
+            buffer = threadCache.get().poll(sizeClass, direct);
+            if (Objects.isNull(buffer)) {
+                if (direct) {
+                    reclaimDeadThreadCaches();
+                }
+                buffer = pools(direct)[sizeClass].poll();
+            }
+            if (Objects.isNull(buffer)) {
+                buffer = new PooledBuffer(this, newByteBuffer(size, direct), sizeClass);
+            }
+        }
+        buffer.reuse();
+        if (direct) {
+            buffer.track(site, accountant.onAllocate(buffer, site, buffer.capacity()));
+        }
+        return buffer;
+    }
+
+    /**
+     * 引用计数为0, 归还buffer
+     */
+    void free(PooledBuffer buffer) {
+        if (buffer.isDirect()) {
+            accountant.onRelease(buffer.getLeakTracker(), buffer.getSite(), buffer.capacity());
+            buffer.track(null, null);
+        }
+        if (buffer.isPooled() && !(buffer.isDirect() && buffer.isFreeOnRelease())) {
+            if (threadCache.get().offer(buffer)) {
+                return;
+            }
+            if (pools(buffer.isDirect())[buffer.getSizeClass()].offer(buffer)) {
+                return;
+            }
+        }
+        //非池化buffer, 标识立即释放或者全局pool已满, 则丢弃
+        discard(buffer);
+    }
+
+    /**
+     * 丢弃buffer, 等待gc
+     * 标识立即释放的direct buffer, 则立即释放底层内存, 其余buffer可能仍被视图引用, 不能立即释放
+     */
+    private void discard(PooledBuffer buffer) {
+        if (buffer.isDirect()) {
+            if (buffer.isFreeOnRelease()) {
+                //立即释放底层内存, 当前jvm不支持时返回false, 仍由gc回收
+                UnsafeUtil.freeDirectBuffer(buffer.buffer());
+            }
+            //否则buffer可能仍被视图引用, 由gc回收
+            accountant.unreserve(buffer.capacity());
+        }
+    }
+
+    /**
+     * 已退出线程的本地缓存被gc后, 其direct buffer归还全局pool, 全局pool已满则丢弃并扣减direct memory占用
+     */
+    private void reclaimDeadThreadCaches() {
+        ThreadCacheRef ref;
+        while (Objects.nonNull(ref = (ThreadCacheRef) deadCacheQueue.poll())) {
+            if (threadCacheRefs.remove(ref)) {
+                //所属线程已不再访问, 可安全访问
+                drain(ref.directCaches, directPools);
+            }
+        }
+    }
+
+    /**
+     * 线程本地缓存的buffer归还全局pool
+     */
+    private void drain(Stack[] caches, Queue<PooledBuffer>[] pools) {
+        for (int i = 0; i < caches.length; i++) {
+            Stack stack = caches[i];
+            if (Objects.isNull(stack)) {
+                continue;
+            }
+            PooledBuffer buffer;
+            while (Objects.nonNull(buffer = stack.pop())) {
+                if (!pools[i].offer(buffer)) {
+                    discard(buffer);
+                }
+            }
+        }
+    }
+
+    private Queue<PooledBuffer>[] pools(boolean direct) {
+        return direct ? directPools : heapPools;
+    }
+
+    private ByteBuffer newByteBuffer(int capacity, boolean direct) {
+        if (!direct) {
+            return ByteBuffer.allocate(capacity);
+        }
+        //超过上限, fail fast
+        accountant.reserve(capacity);
+        try {
+            return ByteBuffer.allocateDirect(capacity);
+        } catch (Throwable t) {
+            accountant.unreserve(capacity);
+            throw t;
+        }
+    }
+
+    //getter
+    public int getMaxPooledSize() {
+        return maxPooledSize;
+    }
+
+    public DirectMemoryAccountant getAccountant() {
+        return accountant;
+    }
+
+    //-------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 线程本地缓存, 仅本线程访问
+     */
+    private final class ThreadCache {
+        /** heap buffer缓存, 下标即size class, lazy init */
+        private final Stack[] heapCaches = new Stack[heapPools.length];
+        /** direct buffer缓存, 下标即size class, lazy init */
+        private final Stack[] directCaches = new Stack[directPools.length];
+
+        /**
+         * 取缓存buffer
+         */
+        PooledBuffer poll(int sizeClass, boolean direct) {
+            Stack stack = (direct ? directCaches : heapCaches)[sizeClass];
+            return Objects.isNull(stack) ? null : stack.pop();
+        }
+
+        /**
+         * 缓存buffer
+         *
+         * @return 是否缓存成功
+         */
+        boolean offer(PooledBuffer buffer) {
+            int sizeClass = buffer.getSizeClass();
+            Stack[] caches = buffer.isDirect() ? directCaches : heapCaches;
+            Stack stack = caches[sizeClass];
+            if (Objects.isNull(stack)) {
+                int capacity = Math.min(MAX_THREAD_CACHE_NUM, THREAD_CACHE_BYTES >>> sizeClass);
+                if (capacity <= 0) {
+                    //size class太大, 不缓存在线程本地
+                    return false;
+                }
+                stack = new Stack(capacity);
+                caches[sizeClass] = stack;
+            }
+            return stack.push(buffer);
+        }
+
+        /**
+         * 所有缓存buffer归还全局pool
+         */
+        void drain() {
+            BufferAllocator.this.drain(heapCaches, heapPools);
+            BufferAllocator.this.drain(directCaches, directPools);
+        }
+    }
+
+    /**
+     * 线程本地缓存的引用, 仅持有其direct buffer缓存, 缓存被gc后用于归还direct buffer
+     * heap buffer直接交由gc回收
+     */
+    private static final class ThreadCacheRef extends PhantomReference<ThreadCache> {
+        /** direct buffer缓存 */
+        private final Stack[] directCaches;
+
+        ThreadCacheRef(ThreadCache cache, ReferenceQueue<ThreadCache> queue) {
+            super(cache, queue);
+            this.directCaches = cache.directCaches;
+        }
+    }
+
+    /**
+     * 定长数组栈, 后进先出, 以便复用最近使用过的buffer
+     */
+    private static final class Stack {
+        private final PooledBuffer[] elements;
+        private int size;
+
+        Stack(int capacity) {
+            this.elements = new PooledBuffer[capacity];
+        }
+
+        boolean push(PooledBuffer buffer) {
+            if (size >= elements.length) {
+                return false;
+            }
+            elements[size++] = buffer;
+            return true;
+        }
+
+        PooledBuffer pop() {
+            if (size <= 0) {
+                return null;
+            }
+            PooledBuffer buffer = elements[--size];
+            elements[size] = null;
+            return buffer;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.kin.framework.io;
 
+import org.kin.framework.utils.VarIntUtils;
+
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Objects;
 
 /**
@@ -36,6 +39,17 @@ public class ByteBufferInput implements Input {
         return this;
     }
 
+    @Override
+    public CompositeBuffer readSlice(int length) {
+        if (readableBytes() < length) {
+            throw new IndexOutOfBoundsException("length is greater than readableBytes");
+        }
+        ByteBuffer duplicate = byteBuffer.duplicate();
+        duplicate.limit(duplicate.position() + length);
+        byteBuffer.position(byteBuffer.position() + length);
+        return new CompositeBuffer(duplicate);
+    }
+
     @Override
     public int readerIndex() {
         return byteBuffer.position();
@@ -59,4 +73,45 @@ public class ByteBufferInput implements Input {
     public int readableBytes() {
         return ByteBufferUtils.getReadableBytes(byteBuffer);
     }
+
+    /**
+     * {@link ByteBuffer}是否big-endian
+     */
+    private boolean bigEndian() {
+        return byteBuffer.order() == ByteOrder.BIG_ENDIAN;
+    }
+
+    @Override
+    public int readInt() {
+        int v = byteBuffer.getInt();
+        return bigEndian() ? v : Integer.reverseBytes(v);
+    }
+
+    @Override
+    public int readIntLE() {
+        int v = byteBuffer.getInt();
+        return bigEndian() ? Integer.reverseBytes(v) : v;
+    }
+
+    @Override
+    public long readLong() {
+        long v = byteBuffer.getLong();
+        return bigEndian() ? v : Long.reverseBytes(v);
+    }
+
+    @Override
+    public long readLongLE() {
+        long v = byteBuffer.getLong();
+        return bigEndian() ? Long.reverseBytes(v) : v;
+    }
+
+    @Override
+    public int readVarInt32(boolean zigzag) {
+        return VarIntUtils.readRawVarInt32(byteBuffer, zigzag);
+    }
+
+    @Override
+    public long readVarInt64(boolean zigzag) {
+        return VarIntUtils.readRawVarInt64(byteBuffer, zigzag);
+    }
 }
@@ -1,6 +1,7 @@
 package org.kin.framework.io;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * 基于{@link ByteBuffer}的{@link Output}实现
@@ -35,6 +36,37 @@ public class ByteBufferOutput implements Output {
         return ByteBufferUtils.getWritableBytes(byteBuffer);
     }
 
+    /**
+     * {@link ByteBuffer}是否big-endian
+     */
+    private boolean bigEndian() {
+        return byteBuffer.order() == ByteOrder.BIG_ENDIAN;
+    }
+
+    @Override
+    public void writeInt(int value) {
+        byteBuffer = ByteBufferUtils.ensureWritableBytes(byteBuffer, 4);
+        byteBuffer.putInt(bigEndian() ? value : Integer.reverseBytes(value));
+    }
+
+    @Override
+    public void writeIntLE(int value) {
+        byteBuffer = ByteBufferUtils.ensureWritableBytes(byteBuffer, 4);
+        byteBuffer.putInt(bigEndian() ? Integer.reverseBytes(value) : value);
+    }
+
+    @Override
+    public void writeLong(long value) {
+        byteBuffer = ByteBufferUtils.ensureWritableBytes(byteBuffer, 8);
+        byteBuffer.putLong(bigEndian() ? value : Long.reverseBytes(value));
+    }
+
+    @Override
+    public void writeLongLE(long value) {
+        byteBuffer = ByteBufferUtils.ensureWritableBytes(byteBuffer, 8);
+        byteBuffer.putLong(bigEndian() ? Long.reverseBytes(value) : value);
+    }
+
     public ByteBuffer getByteBuffer() {
         return byteBuffer;
     }
@@ -0,0 +1,316 @@
+package org.kin.framework.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 由多个{@link ByteBuffer}组成的只读组合视图, 不复制底层数据
+ * 1. {@link #nioBuffers()}返回可读区域对应的{@link ByteBuffer}数组, 可用于{@link GatheringByteChannel#write(ByteBuffer[])}聚合写
+ * 2. {@link #slice(int, int)}返回子视图, 同样不复制底层数据
+ * <p>
+ * 视图与源buffer共享底层内存, 视图使用期间, 源buffer不能修改或者释放对应区域的数据
+ * 由{@link ScalableByteBuffer}创建的视图, 会记录每个component所属{@link PooledBuffer}创建视图时的generation,
+ * 其引用计数为0后generation改变, 此后通过视图访问该component均抛出{@link IllegalStateException}, 即使该{@link PooledBuffer}已被复用.
+ * 该检查仅针对释放后的访问, 不能防止与释放并发的访问; {@link #nioBuffers()}返回的{@link ByteBuffer}不受检查, 需在释放前使用
+ *
+ * @author huangjianqin
+ * @date 2022/4/18
+ */
+public final class CompositeBuffer implements Input {
+    /** 组成视图的buffer, 每个buffer的[0, limit)即有效数据 */
+    private final ByteBuffer[] components;
+    /** 每个component所属的buffer, 用于检查是否已释放, 为null则不检查 */
+    private final PooledBuffer[] owners;
+    /** 创建视图时, 每个component所属buffer的generation */
+    private final int[] generations;
+    /** 每个component在视图中的起始index, 最后一个元素即视图总长度 */
+    private final int[] indexes;
+    /** read index */
+    private int readerIndex;
+    /** read index所在的component下标 */
+    private int componentIdx;
+
+    /**
+     * @param buffers 每个buffer的可读区域[position, limit)按顺序组成视图, 不会修改buffer的position和limit
+     */
+    public CompositeBuffer(ByteBuffer... buffers) {
+        this(buffers, null);
+    }
+
+    /**
+     * @param owners 与{@code buffers}一一对应, 即buffer所属的{@link PooledBuffer}, 其引用计数为0后不能再通过视图访问该buffer
+     */
+    CompositeBuffer(ByteBuffer[] buffers, PooledBuffer[] owners) {
+        this(buffers, owners, generations(owners));
+    }
+
+    private CompositeBuffer(ByteBuffer[] buffers, PooledBuffer[] owners, int[] generations) {
+        List<ByteBuffer> components = new ArrayList<>(buffers.length);
+        PooledBuffer[] componentOwners = Objects.nonNull(owners) ? new PooledBuffer[buffers.length] : null;
+        int[] componentGenerations = Objects.nonNull(owners) ? new int[buffers.length] : null;
+        //截取每个buffer的可读区域, 忽略空buffer
+        for (int i = 0; i < buffers.length; i++) {
+            ByteBuffer buffer = buffers[i];
+            if (buffer.hasRemaining()) {
+                if (Objects.nonNull(owners)) {
+                    componentOwners[components.size()] = owners[i];
+                    componentGenerations[components.size()] = generations[i];
+                }
+                components.add(buffer.slice());
+            }
+        }
+        this.components = components.toArray(new ByteBuffer[0]);
+        this.owners = Objects.nonNull(owners) ? Arrays.copyOf(componentOwners, this.components.length) : null;
+        this.generations = Objects.nonNull(owners) ? Arrays.copyOf(componentGenerations, this.components.length) : null;
+        this.indexes = new int[this.components.length + 1];
+        for (int i = 0; i < this.components.length; i++) {
+            indexes[i + 1] = indexes[i] + this.components[i].limit();
+        }
+    }
+
+    /**
+     * 获取{@code owners}当前的generation
+     */
+    private static int[] generations(PooledBuffer[] owners) {
+        if (Objects.isNull(owners)) {
+            return null;
+        }
+        int[] generations = new int[owners.length];
+        for (int i = 0; i < owners.length; i++) {
+            generations[i] = owners[i].generation();
+        }
+        return generations;
+    }
+
+    /**
+     * 截取component[start, end)区域, 不修改component
+     */
+    private static ByteBuffer slice(ByteBuffer component, int start, int end) {
+        ByteBuffer duplicate = component.duplicate();
+        duplicate.limit(end);
+        duplicate.position(start);
+        return duplicate.slice();
+    }
+
+    /**
+     * 二分查找{@code index}所在的component下标
+     */
+    private int componentIndex(int index) {
+        //component都非空, 故indexes严格递增
+        int idx = Arrays.binarySearch(indexes, index);
+        //index落在component中间, 则返回插入点-1
+        return idx >= 0 ? idx : -idx - 2;
+    }
+
+    /**
+     * 校验component所属的buffer是否已释放
+     */
+    private ByteBuffer component(int idx) {
+        if (Objects.nonNull(owners) && owners[idx].generation() != generations[idx]) {
+            throw new IllegalStateException("buffer has been released");
+        }
+        return components[idx];
+    }
+
+    /**
+     * 校验[index, index + length)是否在视图范围内
+     */
+    private void checkIndex(int index, int length) {
+        if (index < 0 || length < 0 || index + length > capacity()) {
+            throw new IndexOutOfBoundsException(String.format("index: %d, length: %d, capacity: %d", index, length, capacity()));
+        }
+    }
+
+    /**
+     * 获取指定index的字节, 不修改read index
+     */
+    public byte getByte(int index) {
+        checkIndex(index, 1);
+        int idx = componentIndex(index);
+        return component(idx).get(index - indexes[idx]);
+    }
+
+    /**
+     * 从{@code index}开始读取{@code length}个字节至{@code dst}, 不修改read index
+     */
+    public CompositeBuffer getBytes(int index, byte[] dst, int dstIndex, int length) {
+        checkIndex(index, length);
+        int idx = componentIndex(index);
+        while (length > 0) {
+            ByteBuffer component = component(idx);
+            int start = index - indexes[idx];
+            int len = Math.min(component.limit() - start, length);
+            ByteBuffer duplicate = component.duplicate();
+            duplicate.position(start);
+            duplicate.get(dst, dstIndex, len);
+            index += len;
+            dstIndex += len;
+            length -= len;
+            idx++;
+        }
+        return this;
+    }
+
+    @Override
+    public byte readByte() {
+        if (readerIndex >= capacity()) {
+            throw new IndexOutOfBoundsException(String.format("readerIndex: %d, capacity: %d", readerIndex, capacity()));
+        }
+        ByteBuffer component = component(componentIdx);
+        byte ret = component.get(readerIndex - indexes[componentIdx]);
+        readerIndex++;
+        if (readerIndex >= indexes[componentIdx + 1]) {
+            componentIdx++;
+        }
+        return ret;
+    }
+
+    @Override
+    public Input readBytes(byte[] dst, int dstIndex, int length) {
+        if (Objects.isNull(dst)) {
+            throw new IllegalArgumentException("dst is null");
+        }
+        if (dstIndex < 0) {
+            throw new IndexOutOfBoundsException("dstIndex < 0");
+        }
+        if (readableBytes() < length) {
+            throw new IndexOutOfBoundsException("length is greater than readableBytes");
+        }
+        getBytes(readerIndex, dst, dstIndex, length);
+        readerIndex(readerIndex + length);
+        return this;
+    }
+
+    @Override
+    public CompositeBuffer readSlice(int length) {
+        if (readableBytes() < length) {
+            throw new IndexOutOfBoundsException("length is greater than readableBytes");
+        }
+        CompositeBuffer ret = slice(readerIndex, length);
+        readerIndex(readerIndex + length);
+        return ret;
+    }
+
+    @Override
+    public int readerIndex() {
+        return readerIndex;
+    }
+
+    @Override
+    public Input readerIndex(int readerIndex) {
+        if (readerIndex < 0 || readerIndex > capacity()) {
+            throw new IndexOutOfBoundsException(String.format("readerIndex: %d, capacity: %d", readerIndex, capacity()));
+        }
+        this.readerIndex = readerIndex;
+        this.componentIdx = componentIndex(readerIndex);
+        return this;
+    }
+
+    @Override
+    public boolean readerIndexSupported() {
+        return true;
+    }
+
+    @Override
+    public int readableBytes() {
+        return capacity() - readerIndex;
+    }
+
+    /**
+     * 视图总长度
+     */
+    public int capacity() {
+        return indexes[components.length];
+    }
+
+    /**
+     * 截取视图[index, index + length)区域作为新的视图, 不复制底层数据, 也不修改当前视图read index
+     */
+    public CompositeBuffer slice(int index, int length) {
+        checkIndex(index, length);
+        List<ByteBuffer> sliced = new ArrayList<>();
+        int firstIdx = length > 0 ? componentIndex(index) : 0;
+        int idx = firstIdx;
+        int end = index + length;
+        while (index < end) {
+            ByteBuffer component = component(idx);
+            int start = index - indexes[idx];
+            int len = Math.min(component.limit() - start, end - index);
+            sliced.add(slice(component, start, start + len));
+            index += len;
+            idx++;
+        }
+        if (Objects.isNull(owners)) {
+            return new CompositeBuffer(sliced.toArray(new ByteBuffer[0]), null, null);
+        }
+        //沿用当前视图记录的generation, 而不是重新获取
+        return new CompositeBuffer(sliced.toArray(new ByteBuffer[0]),
+                Arrays.copyOfRange(owners, firstIdx, idx), Arrays.copyOfRange(generations, firstIdx, idx));
+    }
+
+    /**
+     * 返回可读区域对应的{@link ByteBuffer}数组, 不复制底层数据, 也不修改当前视图read index
+     */
+    public ByteBuffer[] nioBuffers() {
+        int readableBytes = readableBytes();
+        if (readableBytes <= 0) {
+            return new ByteBuffer[0];
+        }
+        ByteBuffer[] ret = new ByteBuffer[components.length - componentIdx];
+        for (int i = componentIdx; i < components.length; i++) {
+            ByteBuffer duplicate = component(i).duplicate();
+            if (i == componentIdx) {
+                duplicate.position(readerIndex - indexes[i]);
+            }
+            ret[i - componentIdx] = duplicate;
+        }
+        return ret;
+    }
+
+    /**
+     * 将可读区域聚合写入{@code channel}, 并增加已写入字节数的read index
+     * 非阻塞channel可能仅写入部分字节
+     *
+     * @return 写入字节数
+     */
+    public long writeTo(GatheringByteChannel channel) throws IOException {
+        long written = 0;
+        ByteBuffer[] buffers = nioBuffers();
+        int offset = 0;
+        while (offset < buffers.length) {
+            long bytes = channel.write(buffers, offset, buffers.length - offset);
+            if (bytes <= 0) {
+                break;
+            }
+            written += bytes;
+            while (offset < buffers.length && !buffers[offset].hasRemaining()) {
+                offset++;
+            }
+        }
+        readerIndex((int) (readerIndex + written));
+        return written;
+    }
+
+    /**
+     * 将可读区域复制成byte[], 不修改read index
+     */
+    public byte[] toByteArray() {
+        byte[] ret = new byte[readableBytes()];
+        getBytes(readerIndex, ret, 0, ret.length);
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "CompositeBuffer{" +
+                "components=" + components.length +
+                ", readerIndex=" + readerIndex +
+                ", capacity=" + capacity() +
+                '}';
+    }
+}
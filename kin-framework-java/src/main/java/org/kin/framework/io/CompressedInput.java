@@ -0,0 +1,207 @@
+package org.kin.framework.io;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.Closeable;
+
+import java.util.Objects;
+
+/**
+ * 读取{@link CompressedOutput}写入的分块压缩数据的{@link Input}装饰器
+ * 读取整块数据时, 直接解压到调用者的数组, 否则解压到pooled buffer再复制
+ * <p>
+ * {@link #readableBytes()}仅返回当前块剩余的字节数, 当前块读完后才会读取下一块
+ * {@link #close()}不会关闭底层{@link Input}
+ * 非线程安全
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class CompressedInput implements Input, Closeable {
+    /** 底层input */
+    private final Input input;
+    /** 压缩算法 */
+    private final CompressionCodec codec;
+    /** buffer分配器 */
+    private final BufferAllocator allocator;
+    /** 解压后的块数据, 按需分配 */
+    private PooledBuffer block;
+    /** 压缩数据, 按需分配 */
+    private PooledBuffer compressed;
+    /** {@link #block}读位置 */
+    private int position;
+    /** {@link #block}有效字节数 */
+    private int limit;
+    private boolean closed;
+
+    public CompressedInput(Input input, CompressionCodec codec) {
+        this(input, codec, BufferAllocator.DEFAULT);
+    }
+
+    /**
+     * @param input     底层input
+     * @param codec     压缩算法, 需与写入时一致, 当前{@link CompressedInput}独占
+     * @param allocator 块buffer分配器
+     */
+    public CompressedInput(Input input, CompressionCodec codec, BufferAllocator allocator) {
+        Preconditions.checkNotNull(input, "input must be not null");
+        Preconditions.checkNotNull(codec, "codec must be not null");
+        Preconditions.checkNotNull(allocator, "allocator must be not null");
+        this.input = input;
+        this.codec = codec;
+        this.allocator = allocator;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("compressed input is closed");
+        }
+    }
+
+    @Override
+    public byte readByte() {
+        ensureOpen();
+        if (position == limit && !nextBlock()) {
+            throw new IndexOutOfBoundsException("no more compressed block");
+        }
+        return block.array()[position++];
+    }
+
+    @Override
+    public Input readBytes(byte[] dst, int dstIndex, int length) {
+        ensureOpen();
+        if (Objects.isNull(dst)) {
+            throw new IllegalArgumentException("dst is null");
+        }
+        if ((dstIndex | length | dst.length - dstIndex - length) < 0) {
+            throw new IndexOutOfBoundsException(String.format("dst length: %d, dstIndex: %d, length: %d", dst.length, dstIndex, length));
+        }
+        while (length > 0) {
+            if (position < limit) {
+                int copyBytes = Math.min(limit - position, length);
+                System.arraycopy(block.array(), position, dst, dstIndex, copyBytes);
+                position += copyBytes;
+                dstIndex += copyBytes;
+                length -= copyBytes;
+                continue;
+            }
+
+            if (input.readableBytes() <= 0) {
+                throw new IndexOutOfBoundsException("no more compressed block");
+            }
+            int header = input.readVarInt32();
+            int rawLen = header >>> 1;
+            if (rawLen <= length) {
+                //整块, 直接解压到dst
+                readBlock(header, dst, dstIndex);
+                dstIndex += rawLen;
+                length -= rawLen;
+            } else {
+                loadBlock(header);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public int readableBytes() {
+        if (position == limit && !closed) {
+            nextBlock();
+        }
+        return limit - position;
+    }
+
+    /**
+     * 读取下一块到{@link #block}
+     *
+     * @return 是否还有数据
+     */
+    private boolean nextBlock() {
+        if (input.readableBytes() <= 0) {
+            return false;
+        }
+        loadBlock(input.readVarInt32());
+        return true;
+    }
+
+    /**
+     * 读取并解压一块到{@link #block}
+     */
+    private void loadBlock(int header) {
+        int rawLen = header >>> 1;
+        if (Objects.isNull(block) || block.capacity() < rawLen) {
+            if (Objects.nonNull(block)) {
+                block.release();
+            }
+            block = allocator.allocate(Math.max(rawLen, CompressedOutput.DEFAULT_BLOCK_SIZE));
+        }
+        readBlock(header, block.array(), 0);
+        position = 0;
+        limit = rawLen;
+    }
+
+    /**
+     * 读取一块, 并解压到{@code dst}
+     *
+     * @param header 块头, 即原始长度 << 1 | 是否压缩
+     */
+    private void readBlock(int header, byte[] dst, int dstIndex) {
+        int rawLen = header >>> 1;
+        if (rawLen > CompressedOutput.MAX_BLOCK_SIZE) {
+            throw new IllegalStateException(String.format("block length %d is out of range [0, %d]", rawLen, CompressedOutput.MAX_BLOCK_SIZE));
+        }
+        if ((header & 1) == 0) {
+            //未压缩
+            input.readBytes(dst, dstIndex, rawLen);
+            return;
+        }
+
+        int compressedLen = input.readVarInt32();
+        if (compressedLen < 0 || compressedLen > codec.maxCompressedLength(rawLen)) {
+            throw new IllegalStateException(String.format("compressed block length %d is out of range [0, %d]", compressedLen, codec.maxCompressedLength(rawLen)));
+        }
+        if (Objects.isNull(compressed) || compressed.capacity() < compressedLen) {
+            if (Objects.nonNull(compressed)) {
+                compressed.release();
+            }
+            compressed = allocator.allocate(Math.max(compressedLen, CompressedOutput.DEFAULT_BLOCK_SIZE));
+        }
+        byte[] src = compressed.array();
+        input.readBytes(src, 0, compressedLen);
+        codec.decompress(src, 0, compressedLen, dst, dstIndex, rawLen);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (Objects.nonNull(block)) {
+            block.release();
+            block = null;
+        }
+        if (Objects.nonNull(compressed)) {
+            compressed.release();
+            compressed = null;
+        }
+        position = 0;
+        limit = 0;
+        codec.close();
+    }
+
+    //getter
+    public CompressionCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedInput{" +
+                "codec=" + codec +
+                ", position=" + position +
+                ", limit=" + limit +
+                ", closed=" + closed +
+                '}';
+    }
+}
@@ -0,0 +1,206 @@
+package org.kin.framework.io;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.Closeable;
+
+import java.util.Objects;
+
+/**
+ * 分块压缩的{@link Output}装饰器, 写入的数据先缓存到pooled buffer, 满一块后压缩并写入底层{@link Output}
+ * 块格式: var int32 (原始长度 << 1 | 是否压缩) | [var int32 压缩后长度] | 数据
+ * 可压缩性差的块(压缩后节省不足1/8或者抽样判断为高熵数据)直接原样写入, 读取时无需解压
+ * <p>
+ * 需调用{@link #flush()}或者{@link #close()}才会写入最后不满一块的数据, {@link #close()}不会关闭底层{@link Output}
+ * 非线程安全
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class CompressedOutput implements Output, Closeable {
+    /** 默认块大小, 64k */
+    static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    /** 最大块大小, 16m */
+    static final int MAX_BLOCK_SIZE = 16 * 1024 * 1024;
+    /** 抽样判断是否可压缩的字节数 */
+    private static final int SAMPLE_SIZE = 4096;
+    /** 抽样数据的熵(bits/byte)超过该值则认为不可压缩 */
+    private static final double INCOMPRESSIBLE_ENTROPY = 7.9;
+
+    /** 底层output */
+    private final Output output;
+    /** 压缩算法 */
+    private final CompressionCodec codec;
+    /** 块大小 */
+    private final int blockSize;
+    /** 未压缩数据 */
+    private PooledBuffer block;
+    /** 压缩数据 */
+    private PooledBuffer compressed;
+    /** {@link #block}已写入字节数 */
+    private int position;
+    private boolean closed;
+
+    public CompressedOutput(Output output, CompressionCodec codec) {
+        this(output, codec, DEFAULT_BLOCK_SIZE);
+    }
+
+    public CompressedOutput(Output output, CompressionCodec codec, int blockSize) {
+        this(output, codec, blockSize, BufferAllocator.DEFAULT);
+    }
+
+    /**
+     * @param output    底层output
+     * @param codec     压缩算法, 当前{@link CompressedOutput}独占
+     * @param blockSize 块大小
+     * @param allocator 块buffer分配器
+     */
+    public CompressedOutput(Output output, CompressionCodec codec, int blockSize, BufferAllocator allocator) {
+        Preconditions.checkNotNull(output, "output must be not null");
+        Preconditions.checkNotNull(codec, "codec must be not null");
+        Preconditions.checkArgument(blockSize > 0 && blockSize <= MAX_BLOCK_SIZE, "blockSize must be in range (0, %s]", MAX_BLOCK_SIZE);
+        this.output = output;
+        this.codec = codec;
+        this.blockSize = blockSize;
+        this.block = allocator.allocate(blockSize);
+        this.compressed = allocator.allocate(codec.maxCompressedLength(blockSize));
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("compressed output is closed");
+        }
+    }
+
+    @Override
+    public void writeByte(int value) {
+        ensureOpen();
+        if (position == blockSize) {
+            flush();
+        }
+        block.array()[position++] = (byte) value;
+    }
+
+    @Override
+    public void writeBytes(byte[] value, int startIdx, int len) {
+        ensureOpen();
+        if (Objects.isNull(value)) {
+            throw new IllegalArgumentException("value is null");
+        }
+        if ((startIdx | len | value.length - startIdx - len) < 0) {
+            throw new IndexOutOfBoundsException(String.format("value length: %d, startIdx: %d, len: %d", value.length, startIdx, len));
+        }
+        byte[] array = block.array();
+        while (len > 0) {
+            if (position == 0 && len >= blockSize) {
+                //整块, 直接压缩, 无需复制
+                writeBlock(value, startIdx, blockSize);
+                startIdx += blockSize;
+                len -= blockSize;
+                continue;
+            }
+            int copyBytes = Math.min(blockSize - position, len);
+            System.arraycopy(value, startIdx, array, position, copyBytes);
+            position += copyBytes;
+            startIdx += copyBytes;
+            len -= copyBytes;
+            if (position == blockSize) {
+                flush();
+            }
+        }
+    }
+
+    @Override
+    public int writableBytes() {
+        //认为是可无限写入
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * 压缩并写入当前不满一块的数据
+     */
+    public void flush() {
+        ensureOpen();
+        if (position > 0) {
+            writeBlock(block.array(), 0, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * 压缩并写入一块数据
+     */
+    private void writeBlock(byte[] src, int off, int len) {
+        if (!isIncompressible(src, off, len)) {
+            byte[] dst = compressed.array();
+            int compressedLen = codec.compress(src, off, len, dst, 0);
+            if (compressedLen < len - (len >>> 3)) {
+                output.writeVarInt32(len << 1 | 1);
+                output.writeVarInt32(compressedLen);
+                output.writeBytes(dst, 0, compressedLen);
+                return;
+            }
+        }
+        //不压缩
+        output.writeVarInt32(len << 1);
+        output.writeBytes(src, off, len);
+    }
+
+    /**
+     * 抽样计算数据的熵, 快速判断是否为压缩或者加密过的数据, 从而跳过压缩
+     * 仅统计单字节分布, 重复出现的高熵数据会被误判, 但这类数据较少见
+     */
+    static boolean isIncompressible(byte[] src, int off, int len) {
+        if (len < SAMPLE_SIZE) {
+            //数据少, 直接尝试压缩
+            return false;
+        }
+        int[] counts = new int[256];
+        //从块中间抽样, 避开头部的元数据
+        int start = off + ((len - SAMPLE_SIZE) >>> 1);
+        for (int i = start, end = start + SAMPLE_SIZE; i < end; i++) {
+            counts[src[i] & 0xFF]++;
+        }
+        double entropy = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                double p = (double) count / SAMPLE_SIZE;
+                entropy -= p * Math.log(p);
+            }
+        }
+        return entropy / Math.log(2) > INCOMPRESSIBLE_ENTROPY;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+
+        block.release();
+        compressed.release();
+        block = null;
+        compressed = null;
+        codec.close();
+    }
+
+    //getter
+    public CompressionCodec getCodec() {
+        return codec;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedOutput{" +
+                "codec=" + codec +
+                ", blockSize=" + blockSize +
+                ", position=" + position +
+                ", closed=" + closed +
+                '}';
+    }
+}
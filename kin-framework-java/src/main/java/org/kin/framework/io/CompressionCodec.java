@@ -0,0 +1,47 @@
+package org.kin.framework.io;
+
+import org.kin.framework.Closeable;
+
+/**
+ * 块压缩算法, 用于{@link CompressedOutput}和{@link CompressedInput}
+ * 实现类一般会复用内部状态, 故非线程安全, 每个{@link CompressedOutput}或者{@link CompressedInput}需独占一个实例
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public interface CompressionCodec extends Closeable {
+    /**
+     * 压缩{@code srcLen}字节后, 最大可能的字节数, 用于分配压缩buffer
+     */
+    int maxCompressedLength(int srcLen);
+
+    /**
+     * 压缩
+     *
+     * @param src    源数据
+     * @param srcOff 源数据起始位置
+     * @param srcLen 源数据长度
+     * @param dst    压缩数据写入的数组, 从{@code dstOff}开始至少有{@link #maxCompressedLength(int)}字节可写
+     * @param dstOff 压缩数据写入起始位置
+     * @return 压缩后字节数
+     */
+    int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+
+    /**
+     * 解压
+     *
+     * @param src    压缩数据
+     * @param srcOff 压缩数据起始位置
+     * @param srcLen 压缩数据长度
+     * @param dst    解压数据写入的数组
+     * @param dstOff 解压数据写入起始位置
+     * @param dstLen 解压后字节数, 即原始数据长度
+     * @throws IllegalStateException 压缩数据非法
+     */
+    void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen);
+
+    @Override
+    default void close() {
+        //默认无需释放资源
+    }
+}
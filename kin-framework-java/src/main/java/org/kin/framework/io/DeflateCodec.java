@@ -0,0 +1,102 @@
+package org.kin.framework.io;
+
+import com.google.common.base.Preconditions;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 基于jdk {@link Deflater}和{@link Inflater}的块压缩
+ * 压缩率比{@link Lz4Codec}高, 但速度慢, 适合存储或者带宽受限的场景
+ * 非线程安全, 不再使用时需{@link #close()}释放native资源
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class DeflateCodec implements CompressionCodec {
+    /** 压缩级别 */
+    private final int level;
+    /** 复用的compressor */
+    private final Deflater deflater;
+    /** 复用的decompressor */
+    private final Inflater inflater = new Inflater();
+
+    public DeflateCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param level 压缩级别, 0-9, 或者{@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public DeflateCodec(int level) {
+        Preconditions.checkArgument(level == Deflater.DEFAULT_COMPRESSION || (level >= Deflater.NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION),
+                "level must be in range [0, 9] or -1");
+        this.level = level;
+        this.deflater = new Deflater(level);
+    }
+
+    @Override
+    public int maxCompressedLength(int srcLen) {
+        //参考zlib compressBound
+        return srcLen + (srcLen >>> 12) + (srcLen >>> 14) + (srcLen >>> 25) + 13;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        Deflater deflater = this.deflater;
+        deflater.reset();
+        deflater.setInput(src, srcOff, srcLen);
+        deflater.finish();
+        int dOff = dstOff;
+        int dstEnd = dstOff + maxCompressedLength(srcLen);
+        while (!deflater.finished()) {
+            if (dOff >= dstEnd) {
+                throw new IllegalStateException("compressed length exceeds max compressed length");
+            }
+            dOff += deflater.deflate(dst, dOff, dstEnd - dOff);
+        }
+        return dOff - dstOff;
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) {
+        Inflater inflater = this.inflater;
+        inflater.reset();
+        inflater.setInput(src, srcOff, srcLen);
+        int dOff = dstOff;
+        int dstEnd = dstOff + dstLen;
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(dst, dOff, dstEnd - dOff);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary() || dOff == dstEnd)) {
+                    break;
+                }
+                dOff += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("malformed deflate block", e);
+        }
+        if (!inflater.finished() || dOff != dstEnd) {
+            throw new IllegalStateException(String.format("malformed deflate block, expect %d decompressed bytes, actual: %d", dstLen, dOff - dstOff));
+        }
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+        inflater.end();
+    }
+
+    //getter
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public String toString() {
+        return "DeflateCodec{" +
+                "level=" + level +
+                '}';
+    }
+}
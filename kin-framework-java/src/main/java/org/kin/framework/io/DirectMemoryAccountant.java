@@ -0,0 +1,271 @@
+package org.kin.framework.io;
+
+import org.kin.framework.utils.ExceptionUtils;
+import org.kin.framework.utils.SysUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * direct memory统计, 用于{@link BufferAllocator}分配的direct buffer
+ * <p>
+ * 1. 统计底层direct memory占用字节数, 可设置上限, 超过上限则申请时直接抛{@link OutOfMemoryError}, 而不是等到jvm direct memory耗尽
+ * 2. 按分配点(site)统计分配和释放的字节数
+ * 3. 采样泄漏检测, 采样的buffer被gc时仍未释放, 则打印其分配时的堆栈
+ * <p>
+ * 未采样的buffer泄漏时, 其占用的字节数无法扣减, 故设置上限时, 需开启泄漏检测并及时修复泄漏
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class DirectMemoryAccountant {
+    private static final Logger log = LoggerFactory.getLogger(DirectMemoryAccountant.class);
+    /** 默认实例, 上限和采样间隔可通过系统变量配置 */
+    public static final DirectMemoryAccountant DEFAULT = new DirectMemoryAccountant(
+            SysUtils.getLongSysProperty("kin.io.maxDirectMemory", -1),
+            SysUtils.getIntSysProperty("kin.io.leakDetection.samplingInterval", 128));
+
+    /** direct memory上限, 小于等于0则不限制 */
+    private final long maxDirectMemory;
+    /** 泄漏检测采样间隔, 即平均每{@code samplingInterval}次分配采样一次, 小于等于0则不检测 */
+    private final int samplingInterval;
+    /** 已占用的direct memory字节数 */
+    private final AtomicLong usedDirectMemory = new AtomicLong();
+    /** key -> 分配点, value -> 分配点统计 */
+    private final Map<String, SiteStats> sites = new ConcurrentHashMap<>();
+    /** 仍存活的泄漏检测, 防止{@link PhantomReference}本身被gc */
+    private final Set<LeakTracker> trackers = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    /** 被gc的buffer对应的泄漏检测 */
+    private final ReferenceQueue<Object> refQueue = new ReferenceQueue<>();
+    /** 检测到的泄漏数 */
+    private final LongAdder leakCount = new LongAdder();
+
+    public DirectMemoryAccountant() {
+        this(-1, 0);
+    }
+
+    /**
+     * @param maxDirectMemory  direct memory上限, 小于等于0则不限制
+     * @param samplingInterval 泄漏检测采样间隔, 小于等于0则不检测
+     */
+    public DirectMemoryAccountant(long maxDirectMemory, int samplingInterval) {
+        this.maxDirectMemory = maxDirectMemory;
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * 申请direct memory前调用, 超过上限则直接抛{@link OutOfMemoryError}
+     */
+    void reserve(int bytes) {
+        if (maxDirectMemory <= 0) {
+            usedDirectMemory.addAndGet(bytes);
+            return;
+        }
+        for (; ; ) {
+            long used = usedDirectMemory.get();
+            long next = used + bytes;
+            if (next > maxDirectMemory) {
+                throw new OutOfMemoryError(String.format("failed to allocate %d byte(s) of direct memory (used: %d, max: %d)", bytes, used, maxDirectMemory));
+            }
+            if (usedDirectMemory.compareAndSet(used, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * direct memory释放或者交由gc回收时调用
+     */
+    void unreserve(int bytes) {
+        usedDirectMemory.addAndGet(-bytes);
+    }
+
+    /**
+     * direct buffer分配出去时调用
+     *
+     * @param buffer   分配出去的buffer
+     * @param site     分配点
+     * @param capacity buffer容量
+     * @return 泄漏检测, 未采样则返回null
+     */
+    LeakTracker onAllocate(Object buffer, String site, int capacity) {
+        reportLeaks();
+        SiteStats stats = sites.computeIfAbsent(site, SiteStats::new);
+        stats.allocatedBytes.add(capacity);
+        stats.allocatedCount.increment();
+
+        if (samplingInterval <= 0 || ThreadLocalRandom.current().nextInt(samplingInterval) != 0) {
+            return null;
+        }
+        LeakTracker tracker = new LeakTracker(buffer, refQueue, site, capacity);
+        trackers.add(tracker);
+        return tracker;
+    }
+
+    /**
+     * direct buffer释放时调用
+     *
+     * @param tracker 分配时返回的泄漏检测
+     */
+    void onRelease(LeakTracker tracker, String site, int capacity) {
+        if (Objects.nonNull(tracker)) {
+            tracker.close();
+        }
+        SiteStats stats = sites.computeIfAbsent(site, SiteStats::new);
+        stats.releasedBytes.add(capacity);
+        stats.releasedCount.increment();
+    }
+
+    /**
+     * 检查并打印已泄漏的buffer
+     */
+    private void reportLeaks() {
+        LeakTracker tracker;
+        while (Objects.nonNull(tracker = (LeakTracker) refQueue.poll())) {
+            if (!trackers.remove(tracker)) {
+                //已释放
+                continue;
+            }
+            leakCount.increment();
+            //buffer已被gc, 底层direct memory随之回收
+            onRelease(null, tracker.site, tracker.capacity);
+            unreserve(tracker.capacity);
+            log.error("LEAK: direct buffer(site={}, capacity={}) was garbage collected before being released, allocation stack:\r\n{}",
+                    tracker.site, tracker.capacity, ExceptionUtils.getExceptionDesc(tracker.allocation));
+        }
+    }
+
+    /**
+     * 各分配点统计快照
+     */
+    public Map<String, SiteStats> getSiteStats() {
+        return new HashMap<>(sites);
+    }
+
+    //getter
+    public long getMaxDirectMemory() {
+        return maxDirectMemory;
+    }
+
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    public long getUsedDirectMemory() {
+        return usedDirectMemory.get();
+    }
+
+    public long getLeakCount() {
+        return leakCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "DirectMemoryAccountant{" +
+                "maxDirectMemory=" + maxDirectMemory +
+                ", samplingInterval=" + samplingInterval +
+                ", usedDirectMemory=" + usedDirectMemory +
+                ", leakCount=" + leakCount +
+                ", sites=" + sites.values() +
+                '}';
+    }
+
+    //-------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 分配点统计
+     */
+    public static final class SiteStats {
+        /** 分配点 */
+        private final String site;
+        /** 累计分配字节数 */
+        private final LongAdder allocatedBytes = new LongAdder();
+        /** 累计释放字节数 */
+        private final LongAdder releasedBytes = new LongAdder();
+        /** 累计分配次数 */
+        private final LongAdder allocatedCount = new LongAdder();
+        /** 累计释放次数 */
+        private final LongAdder releasedCount = new LongAdder();
+
+        private SiteStats(String site) {
+            this.site = site;
+        }
+
+        /**
+         * 未释放的字节数
+         */
+        public long outstandingBytes() {
+            return allocatedBytes.sum() - releasedBytes.sum();
+        }
+
+        //getter
+        public String getSite() {
+            return site;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes.sum();
+        }
+
+        public long getReleasedBytes() {
+            return releasedBytes.sum();
+        }
+
+        public long getAllocatedCount() {
+            return allocatedCount.sum();
+        }
+
+        public long getReleasedCount() {
+            return releasedCount.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "SiteStats{" +
+                    "site='" + site + '\'' +
+                    ", allocatedBytes=" + allocatedBytes +
+                    ", releasedBytes=" + releasedBytes +
+                    ", allocatedCount=" + allocatedCount +
+                    ", releasedCount=" + releasedCount +
+                    '}';
+        }
+    }
+
+    /**
+     * 泄漏检测, buffer被gc时仍未{@link #close()}, 即泄漏
+     */
+    final class LeakTracker extends PhantomReference<Object> {
+        /** 分配点 */
+        private final String site;
+        /** buffer容量 */
+        private final int capacity;
+        /** 分配时的堆栈 */
+        private final Throwable allocation;
+
+        private LeakTracker(Object referent, ReferenceQueue<Object> queue, String site, int capacity) {
+            super(referent, queue);
+            this.site = site;
+            this.capacity = capacity;
+            this.allocation = new Throwable("allocation");
+        }
+
+        /**
+         * buffer已释放, 取消检测
+         */
+        void close() {
+            trackers.remove(this);
+            clear();
+        }
+    }
+}
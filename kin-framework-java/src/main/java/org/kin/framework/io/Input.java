@@ -1,5 +1,9 @@
 package org.kin.framework.io;
 
+import org.kin.framework.utils.VarIntUtils;
+
+import java.nio.ByteBuffer;
+
 /**
  * bytes reader
  *
@@ -23,6 +27,16 @@ public interface Input {
      */
     Input readBytes(byte[] dst, int dstIndex, int length);
 
+    /**
+     * 读取{@code length}字节, 并以{@link CompositeBuffer}视图返回, 同时会改变{@link Input}的read index
+     * 默认复制至新的byte[], 实现类可基于底层存储返回零拷贝视图, 此时视图与底层存储共享内存
+     */
+    default CompositeBuffer readSlice(int length) {
+        byte[] bytes = new byte[length];
+        readBytes(bytes);
+        return new CompositeBuffer(ByteBuffer.wrap(bytes));
+    }
+
     /**
      * 获取当前read index
      *
@@ -51,4 +65,81 @@ public interface Input {
 
     /** 返回可读取字节数 */
     int readableBytes();
+
+    //------------------------------------------------------primitive------------------------------------------------------
+    //默认逐字节读取, 实现类可基于底层存储一次性读取多字节
+
+    /** 读取big-endian 32位int */
+    default int readInt() {
+        return (readByte() & 0xff) << 24 |
+                (readByte() & 0xff) << 16 |
+                (readByte() & 0xff) << 8 |
+                readByte() & 0xff;
+    }
+
+    /** 读取little-endian 32位int */
+    default int readIntLE() {
+        return readByte() & 0xff |
+                (readByte() & 0xff) << 8 |
+                (readByte() & 0xff) << 16 |
+                (readByte() & 0xff) << 24;
+    }
+
+    /** 读取big-endian 64位long */
+    default long readLong() {
+        return (long) readInt() << 32 | readInt() & 0xffffffffL;
+    }
+
+    /** 读取little-endian 64位long */
+    default long readLongLE() {
+        return readIntLE() & 0xffffffffL | (long) readIntLE() << 32;
+    }
+
+    /** 读取big-endian float */
+    default float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    /** 读取little-endian float */
+    default float readFloatLE() {
+        return Float.intBitsToFloat(readIntLE());
+    }
+
+    /** 读取big-endian double */
+    default double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /** 读取little-endian double */
+    default double readDoubleLE() {
+        return Double.longBitsToDouble(readLongLE());
+    }
+
+    /** 读取变长32位int */
+    default int readVarInt32() {
+        return readVarInt32(false);
+    }
+
+    /**
+     * 读取变长32位int
+     *
+     * @param zigzag 是否zigzag编码
+     */
+    default int readVarInt32(boolean zigzag) {
+        return VarIntUtils.readRawVarInt32(this, zigzag);
+    }
+
+    /** 读取变长64位long */
+    default long readVarInt64() {
+        return readVarInt64(false);
+    }
+
+    /**
+     * 读取变长64位long
+     *
+     * @param zigzag 是否zigzag编码
+     */
+    default long readVarInt64(boolean zigzag) {
+        return VarIntUtils.readRawVarInt64(this, zigzag);
+    }
 }
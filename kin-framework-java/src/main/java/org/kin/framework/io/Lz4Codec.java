@@ -0,0 +1,253 @@
+package org.kin.framework.io;
+
+import java.util.Arrays;
+
+/**
+ * 纯java实现的LZ4 block格式压缩, 压缩结果与官方LZ4 block格式兼容
+ * 压缩速度快, 压缩率一般, 适合在线序列化数据
+ * <p>
+ * 查找匹配时, 连续未命中次数越多, 步长越大, 故不可压缩数据也能快速跳过
+ * 非线程安全
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class Lz4Codec implements CompressionCodec {
+    /** 最小匹配长度 */
+    private static final int MIN_MATCH = 4;
+    /** 最后至少5字节为literal */
+    private static final int LAST_LITERALS = 5;
+    /** 距离末尾12字节内不再查找匹配 */
+    private static final int MF_LIMIT = 12;
+    /** 小于该长度则直接作为literal */
+    private static final int MIN_LENGTH = MF_LIMIT + 1;
+    /** 最大匹配距离 */
+    private static final int MAX_DISTANCE = 65535;
+    /** token低4位, match length */
+    private static final int ML_MASK = 0x0F;
+    /** token高4位, literal length */
+    private static final int RUN_MASK = 0x0F;
+    private static final int HASH_LOG = 12;
+    /** 连续未命中次数影响步长的程度 */
+    private static final int SKIP_STRENGTH = 6;
+
+    /** 复用的hash表, value为相对于srcOff的位置 */
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    @Override
+    public int maxCompressedLength(int srcLen) {
+        return srcLen + srcLen / 255 + 16;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        int srcEnd = srcOff + srcLen;
+        int mfLimit = srcEnd - MF_LIMIT;
+        int matchLimit = srcEnd - LAST_LITERALS;
+        int sOff = srcOff;
+        int dOff = dstOff;
+        int anchor = sOff;
+
+        if (srcLen >= MIN_LENGTH) {
+            int[] hashTable = this.hashTable;
+            Arrays.fill(hashTable, 0);
+            sOff++;
+            main:
+            while (true) {
+                //查找匹配
+                int forwardOff = sOff;
+                int ref;
+                int step = 1;
+                int searchMatchNum = 1 << SKIP_STRENGTH;
+                do {
+                    sOff = forwardOff;
+                    forwardOff += step;
+                    step = searchMatchNum++ >>> SKIP_STRENGTH;
+                    if (forwardOff > mfLimit) {
+                        break main;
+                    }
+                    int h = hash(readInt(src, sOff));
+                    ref = srcOff + hashTable[h];
+                    hashTable[h] = sOff - srcOff;
+                } while (sOff - ref > MAX_DISTANCE || readInt(src, ref) != readInt(src, sOff));
+
+                //向前扩展匹配
+                while (sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1]) {
+                    sOff--;
+                    ref--;
+                }
+
+                //literal length
+                int runLen = sOff - anchor;
+                int tokenOff = dOff++;
+                if (runLen >= RUN_MASK) {
+                    dst[tokenOff] = (byte) (RUN_MASK << 4);
+                    dOff = writeLen(runLen - RUN_MASK, dst, dOff);
+                } else {
+                    dst[tokenOff] = (byte) (runLen << 4);
+                }
+                //literals
+                System.arraycopy(src, anchor, dst, dOff, runLen);
+                dOff += runLen;
+
+                while (true) {
+                    //offset, little-endian
+                    int distance = sOff - ref;
+                    dst[dOff++] = (byte) distance;
+                    dst[dOff++] = (byte) (distance >>> 8);
+
+                    //match length
+                    sOff += MIN_MATCH;
+                    ref += MIN_MATCH;
+                    int matchLen = commonBytes(src, ref, sOff, matchLimit);
+                    sOff += matchLen;
+                    if (matchLen >= ML_MASK) {
+                        dst[tokenOff] |= ML_MASK;
+                        dOff = writeLen(matchLen - ML_MASK, dst, dOff);
+                    } else {
+                        dst[tokenOff] |= matchLen;
+                    }
+
+                    if (sOff > mfLimit) {
+                        anchor = sOff;
+                        break main;
+                    }
+
+                    hashTable[hash(readInt(src, sOff - 2))] = sOff - 2 - srcOff;
+
+                    //紧接着是否还有匹配
+                    int h = hash(readInt(src, sOff));
+                    ref = srcOff + hashTable[h];
+                    hashTable[h] = sOff - srcOff;
+                    if (sOff - ref > MAX_DISTANCE || readInt(src, sOff) != readInt(src, ref)) {
+                        break;
+                    }
+                    //没有literal
+                    tokenOff = dOff++;
+                    dst[tokenOff] = 0;
+                }
+                anchor = sOff++;
+            }
+        }
+
+        //last literals
+        int runLen = srcEnd - anchor;
+        if (runLen >= RUN_MASK) {
+            dst[dOff++] = (byte) (RUN_MASK << 4);
+            dOff = writeLen(runLen - RUN_MASK, dst, dOff);
+        } else {
+            dst[dOff++] = (byte) (runLen << 4);
+        }
+        System.arraycopy(src, anchor, dst, dOff, runLen);
+        dOff += runLen;
+        return dOff - dstOff;
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) {
+        int srcEnd = srcOff + srcLen;
+        int dstEnd = dstOff + dstLen;
+        int sOff = srcOff;
+        int dOff = dstOff;
+        try {
+            while (true) {
+                if (sOff >= srcEnd) {
+                    throw new IllegalStateException("malformed lz4 block, missing last literals");
+                }
+                int token = src[sOff++] & 0xFF;
+
+                //literals
+                int literalLen = token >>> 4;
+                if (literalLen == RUN_MASK) {
+                    int len;
+                    while ((len = src[sOff++] & 0xFF) == 0xFF) {
+                        literalLen += 0xFF;
+                    }
+                    literalLen += len;
+                }
+                if (literalLen > srcEnd - sOff || literalLen > dstEnd - dOff) {
+                    throw new IllegalStateException("malformed lz4 block, literal length is out of range");
+                }
+                System.arraycopy(src, sOff, dst, dOff, literalLen);
+                sOff += literalLen;
+                dOff += literalLen;
+                if (sOff == srcEnd) {
+                    //last literals
+                    break;
+                }
+
+                //match
+                int distance = (src[sOff++] & 0xFF) | ((src[sOff++] & 0xFF) << 8);
+                int ref = dOff - distance;
+                if (distance == 0 || ref < dstOff) {
+                    throw new IllegalStateException("malformed lz4 block, match offset is out of range");
+                }
+                int matchLen = token & ML_MASK;
+                if (matchLen == ML_MASK) {
+                    int len;
+                    while ((len = src[sOff++] & 0xFF) == 0xFF) {
+                        matchLen += 0xFF;
+                    }
+                    matchLen += len;
+                }
+                matchLen += MIN_MATCH;
+                if (matchLen > dstEnd - dOff) {
+                    throw new IllegalStateException("malformed lz4 block, match length is out of range");
+                }
+                if (distance >= matchLen) {
+                    System.arraycopy(dst, ref, dst, dOff, matchLen);
+                    dOff += matchLen;
+                } else {
+                    //重叠, 逐字节复制
+                    for (int end = dOff + matchLen; dOff < end; ) {
+                        dst[dOff++] = dst[ref++];
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalStateException("malformed lz4 block, unexpected end of block", e);
+        }
+        if (dOff != dstEnd) {
+            throw new IllegalStateException(String.format("malformed lz4 block, expect %d decompressed bytes, actual: %d", dstLen, dOff - dstOff));
+        }
+    }
+
+    private static int hash(int i) {
+        return (i * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int readInt(byte[] bytes, int i) {
+        return (bytes[i] & 0xFF)
+                | (bytes[i + 1] & 0xFF) << 8
+                | (bytes[i + 2] & 0xFF) << 16
+                | bytes[i + 3] << 24;
+    }
+
+    /**
+     * 从{@code o1}和{@code o2}开始, 相同的字节数
+     */
+    private static int commonBytes(byte[] bytes, int o1, int o2, int limit) {
+        int count = 0;
+        while (o2 < limit && bytes[o1++] == bytes[o2++]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 写入超过4bit部分的长度
+     */
+    private static int writeLen(int len, byte[] dst, int dOff) {
+        while (len >= 0xFF) {
+            dst[dOff++] = (byte) 0xFF;
+            len -= 0xFF;
+        }
+        dst[dOff++] = (byte) len;
+        return dOff;
+    }
+
+    @Override
+    public String toString() {
+        return "Lz4Codec{}";
+    }
+}
@@ -0,0 +1,258 @@
+package org.kin.framework.io;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.Closeable;
+import org.kin.framework.utils.ExceptionUtils;
+import org.kin.framework.utils.UnsafeUtf8Util;
+import org.kin.framework.utils.UnsafeUtil;
+import org.kin.framework.utils.VarIntUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * 基于memory-mapped file的{@link Input}实现
+ * 每次仅映射文件的一个窗口, 读完后解除映射并从当前读位置重新映射下一个窗口
+ * 读取的文件长度为打开时的文件长度
+ * <p>
+ * {@link #readerIndex()}仅支持2g以内的文件, 更大的文件需使用{@link #position()}
+ * 非线程安全
+ *
+ * @author huangjianqin
+ * @date 2022/4/18
+ */
+public final class MappedFileInput implements Input, Closeable {
+    /** var long最大字节数 */
+    private static final int MAX_VAR_INT_BYTES = 10;
+
+    /** 源文件 */
+    private final File file;
+    private final FileChannel channel;
+    /** 映射窗口大小 */
+    private final int windowSize;
+    /** 文件长度 */
+    private final long fileSize;
+    /** 当前映射窗口在文件中的起始位置 */
+    private long windowStart;
+    /** 当前映射窗口, position即下一次读位置 */
+    private MappedByteBuffer window;
+    private boolean closed;
+
+    public MappedFileInput(File file) {
+        this(file, MappedFileOutput.DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param file       源文件
+     * @param windowSize 映射窗口大小
+     */
+    public MappedFileInput(File file, int windowSize) {
+        Preconditions.checkNotNull(file, "file must be not null");
+        Preconditions.checkArgument(windowSize > 0, "windowSize must be greater than 0");
+        this.file = file;
+        this.windowSize = windowSize;
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            this.fileSize = channel.size();
+        } catch (IOException e) {
+            ExceptionUtils.throwExt(e);
+            //never reach
+            throw new IllegalStateException("encounter unknown error");
+        }
+    }
+
+    /**
+     * 保证当前映射窗口至少有{@code bytes}连续可读字节, 不足则重新映射
+     */
+    private MappedByteBuffer ensureReadableBytes(int bytes) {
+        if (closed) {
+            throw new IllegalStateException(String.format("mapped file '%s' input is closed", file));
+        }
+        MappedByteBuffer window = this.window;
+        if (Objects.nonNull(window) && window.remaining() >= bytes) {
+            return window;
+        }
+
+        long position = position();
+        if (fileSize - position < bytes) {
+            throw new IndexOutOfBoundsException(String.format("position: %d, bytes: %d, file size: %d", position, bytes, fileSize));
+        }
+        unmap();
+        try {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Math.max(windowSize, bytes), fileSize - position));
+        } catch (IOException e) {
+            ExceptionUtils.throwExt(e);
+        }
+        this.windowStart = position;
+        this.window = window;
+        return window;
+    }
+
+    /**
+     * 解除当前窗口映射
+     */
+    private void unmap() {
+        MappedByteBuffer window = this.window;
+        if (Objects.isNull(window)) {
+            return;
+        }
+        this.windowStart += window.position();
+        this.window = null;
+        UnsafeUtil.freeDirectBuffer(window);
+    }
+
+    @Override
+    public byte readByte() {
+        return ensureReadableBytes(1).get();
+    }
+
+    @Override
+    public Input readBytes(byte[] dst, int dstIndex, int length) {
+        if (Objects.isNull(dst)) {
+            throw new IllegalArgumentException("dst is null");
+        }
+        if (dstIndex < 0) {
+            throw new IndexOutOfBoundsException("dstIndex < 0");
+        }
+        if (fileSize - position() < length) {
+            throw new IndexOutOfBoundsException("length is greater than readableBytes");
+        }
+        while (length > 0) {
+            MappedByteBuffer window = ensureReadableBytes(1);
+            int readBytes = Math.min(window.remaining(), length);
+            window.get(dst, dstIndex, readBytes);
+            dstIndex += readBytes;
+            length -= readBytes;
+        }
+        return this;
+    }
+
+    /**
+     * 读取{@code size}字节, 并以utf8解码成字符串, 字符串bytes不会跨映射窗口, 故可直接使用{@link UnsafeUtf8Util}解码
+     */
+    public String readUtf8(int size) {
+        MappedByteBuffer window = ensureReadableBytes(size);
+        int position = window.position();
+        String ret;
+        if (UnsafeUtil.hasUnsafe()) {
+            ret = UnsafeUtf8Util.decodeUtf8Direct(window, position, size);
+            window.position(position + size);
+        } else {
+            byte[] bytes = new byte[size];
+            window.get(bytes);
+            ret = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return ret;
+    }
+
+    @Override
+    public int readVarInt32(boolean zigzag) {
+        MappedByteBuffer window = this.window;
+        if (Objects.nonNull(window) && window.remaining() >= MAX_VAR_INT_BYTES) {
+            //var int不会跨映射窗口, 直接在窗口上解析
+            return VarIntUtils.readRawVarInt32(window, zigzag);
+        }
+        return Input.super.readVarInt32(zigzag);
+    }
+
+    @Override
+    public long readVarInt64(boolean zigzag) {
+        MappedByteBuffer window = this.window;
+        if (Objects.nonNull(window) && window.remaining() >= MAX_VAR_INT_BYTES) {
+            return VarIntUtils.readRawVarInt64(window, zigzag);
+        }
+        return Input.super.readVarInt64(zigzag);
+    }
+
+    @Override
+    public int readerIndex() {
+        return Math.toIntExact(position());
+    }
+
+    @Override
+    public Input readerIndex(int readerIndex) {
+        position(readerIndex);
+        return this;
+    }
+
+    @Override
+    public boolean readerIndexSupported() {
+        return fileSize <= Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int readableBytes() {
+        return (int) Math.min(Integer.MAX_VALUE, fileSize - position());
+    }
+
+    /**
+     * 当前读位置
+     */
+    public long position() {
+        MappedByteBuffer window = this.window;
+        return Objects.isNull(window) ? windowStart : windowStart + window.position();
+    }
+
+    /**
+     * 设置读位置, 如果在当前映射窗口内, 则仅移动窗口position, 否则解除映射, 下次读时再重新映射
+     */
+    public MappedFileInput position(long position) {
+        if (position < 0 || position > fileSize) {
+            throw new IndexOutOfBoundsException(String.format("position: %d, file size: %d", position, fileSize));
+        }
+        MappedByteBuffer window = this.window;
+        if (Objects.nonNull(window) && position >= windowStart && position <= windowStart + window.limit()) {
+            window.position((int) (position - windowStart));
+        } else {
+            unmap();
+            windowStart = position;
+        }
+        return this;
+    }
+
+    /**
+     * 剩余可读字节数
+     */
+    public long remaining() {
+        return fileSize - position();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        unmap();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            ExceptionUtils.throwExt(e);
+        }
+    }
+
+    //getter
+    public File getFile() {
+        return file;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedFileInput{" +
+                "file=" + file +
+                ", windowSize=" + windowSize +
+                ", fileSize=" + fileSize +
+                ", position=" + position() +
+                '}';
+    }
+}
@@ -0,0 +1,204 @@
+package org.kin.framework.io;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.Closeable;
+import org.kin.framework.utils.ExceptionUtils;
+import org.kin.framework.utils.UnsafeUtf8Util;
+import org.kin.framework.utils.UnsafeUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * 基于memory-mapped file的{@link Output}实现
+ * 每次仅映射文件的一个窗口, 写满后解除映射并从当前写位置重新映射下一个窗口, 文件随之自动增长
+ * {@link #close()}时, 文件截断至实际写入的长度
+ * <p>
+ * 非线程安全
+ *
+ * @author huangjianqin
+ * @date 2022/4/18
+ */
+public final class MappedFileOutput implements Output, Closeable {
+    /** 默认映射窗口大小, 64m */
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /** 目标文件 */
+    private final File file;
+    private final FileChannel channel;
+    /** 映射窗口大小 */
+    private final int windowSize;
+    /** 当前映射窗口在文件中的起始位置 */
+    private long windowStart;
+    /** 当前映射窗口, position即下一次写位置 */
+    private MappedByteBuffer window;
+    private boolean closed;
+
+    public MappedFileOutput(File file) {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedFileOutput(File file, int windowSize) {
+        this(file, windowSize, false);
+    }
+
+    /**
+     * @param file       目标文件, 不存在则创建
+     * @param windowSize 映射窗口大小
+     * @param append     true则从文件末尾开始写, 否则覆盖原文件内容
+     */
+    public MappedFileOutput(File file, int windowSize, boolean append) {
+        Preconditions.checkNotNull(file, "file must be not null");
+        Preconditions.checkArgument(windowSize > 0, "windowSize must be greater than 0");
+        this.file = file;
+        this.windowSize = windowSize;
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (!append) {
+                channel.truncate(0);
+            }
+            this.windowStart = channel.size();
+        } catch (IOException e) {
+            ExceptionUtils.throwExt(e);
+            //never reach
+            throw new IllegalStateException("encounter unknown error");
+        }
+    }
+
+    /**
+     * 保证当前映射窗口至少有{@code bytes}连续可写字节, 不足则重新映射
+     */
+    private MappedByteBuffer ensureWritableBytes(int bytes) {
+        if (closed) {
+            throw new IllegalStateException(String.format("mapped file '%s' output is closed", file));
+        }
+        MappedByteBuffer window = this.window;
+        if (Objects.nonNull(window) && window.remaining() >= bytes) {
+            return window;
+        }
+
+        long position = position();
+        unmap();
+        try {
+            //映射区域超过文件大小, 文件会自动增长
+            window = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(windowSize, bytes));
+        } catch (IOException e) {
+            ExceptionUtils.throwExt(e);
+        }
+        this.windowStart = position;
+        this.window = window;
+        return window;
+    }
+
+    /**
+     * 解除当前窗口映射
+     */
+    private void unmap() {
+        MappedByteBuffer window = this.window;
+        if (Objects.isNull(window)) {
+            return;
+        }
+        this.windowStart += window.position();
+        this.window = null;
+        UnsafeUtil.freeDirectBuffer(window);
+    }
+
+    @Override
+    public void writeByte(int value) {
+        ensureWritableBytes(1).put((byte) value);
+    }
+
+    @Override
+    public void writeBytes(byte[] value, int startIdx, int len) {
+        if (Objects.isNull(value)) {
+            throw new IllegalArgumentException("value is null");
+        }
+        if (startIdx < 0) {
+            throw new IllegalArgumentException("startIdx is less than 0");
+        }
+        while (len > 0) {
+            MappedByteBuffer window = ensureWritableBytes(1);
+            int writeBytes = Math.min(window.remaining(), len);
+            window.put(value, startIdx, writeBytes);
+            startIdx += writeBytes;
+            len -= writeBytes;
+        }
+    }
+
+    /**
+     * 以utf8编码写入字符串, 不包含长度, 字符串编码后的bytes不会跨映射窗口, 故可直接使用{@link UnsafeUtf8Util}写入
+     *
+     * @return 写入字节数
+     */
+    public int writeUtf8(CharSequence chars) {
+        int len = UnsafeUtf8Util.encodedLength(chars);
+        MappedByteBuffer window = ensureWritableBytes(len);
+        if (UnsafeUtil.hasUnsafe()) {
+            UnsafeUtf8Util.encodeUtf8Direct(chars, window);
+        } else {
+            window.put(chars.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return len;
+    }
+
+    @Override
+    public int writableBytes() {
+        //自动增长
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * 当前写位置, 即已写入的文件长度
+     */
+    public long position() {
+        MappedByteBuffer window = this.window;
+        return Objects.isNull(window) ? windowStart : windowStart + window.position();
+    }
+
+    /**
+     * 刷盘
+     */
+    public void flush() {
+        MappedByteBuffer window = this.window;
+        if (Objects.nonNull(window)) {
+            window.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        flush();
+        unmap();
+        try {
+            //映射时文件可能增长了一个窗口, 截断至实际写入长度
+            channel.truncate(windowStart);
+            channel.close();
+        } catch (IOException e) {
+            ExceptionUtils.throwExt(e);
+        }
+    }
+
+    //getter
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedFileOutput{" +
+                "file=" + file +
+                ", windowSize=" + windowSize +
+                ", position=" + position() +
+                '}';
+    }
+}
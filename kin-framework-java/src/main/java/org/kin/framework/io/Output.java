@@ -1,5 +1,7 @@
 package org.kin.framework.io;
 
+import org.kin.framework.utils.VarIntUtils;
+
 /**
  * bytes writer
  *
@@ -20,4 +22,83 @@ public interface Output {
 
     /** 返回可写字节数 */
     int writableBytes();
+
+    //------------------------------------------------------primitive------------------------------------------------------
+    //默认逐字节写入, 实现类可基于底层存储一次性写入多字节
+
+    /** 写入big-endian 32位int */
+    default void writeInt(int value) {
+        writeByte(value >>> 24);
+        writeByte(value >>> 16);
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    /** 写入little-endian 32位int */
+    default void writeIntLE(int value) {
+        writeByte(value);
+        writeByte(value >>> 8);
+        writeByte(value >>> 16);
+        writeByte(value >>> 24);
+    }
+
+    /** 写入big-endian 64位long */
+    default void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    /** 写入little-endian 64位long */
+    default void writeLongLE(long value) {
+        writeIntLE((int) value);
+        writeIntLE((int) (value >>> 32));
+    }
+
+    /** 写入big-endian float */
+    default void writeFloat(float value) {
+        writeInt(Float.floatToRawIntBits(value));
+    }
+
+    /** 写入little-endian float */
+    default void writeFloatLE(float value) {
+        writeIntLE(Float.floatToRawIntBits(value));
+    }
+
+    /** 写入big-endian double */
+    default void writeDouble(double value) {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /** 写入little-endian double */
+    default void writeDoubleLE(double value) {
+        writeLongLE(Double.doubleToRawLongBits(value));
+    }
+
+    /** 写入变长32位int */
+    default void writeVarInt32(int value) {
+        writeVarInt32(value, false);
+    }
+
+    /**
+     * 写入变长32位int
+     *
+     * @param zigzag 是否zigzag编码
+     */
+    default void writeVarInt32(int value, boolean zigzag) {
+        VarIntUtils.writeRawVarInt32(this, value, zigzag);
+    }
+
+    /** 写入变长64位long */
+    default void writeVarInt64(long value) {
+        writeVarInt64(value, false);
+    }
+
+    /**
+     * 写入变长64位long
+     *
+     * @param zigzag 是否zigzag编码
+     */
+    default void writeVarInt64(long value, boolean zigzag) {
+        VarIntUtils.writeRawVarInt64(this, value, zigzag);
+    }
 }
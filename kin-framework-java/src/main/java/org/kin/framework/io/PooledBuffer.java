@@ -0,0 +1,183 @@
+package org.kin.framework.io;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 由{@link BufferAllocator}分配的buffer, 引用计数为0时, 底层{@link ByteBuffer}归还给{@link BufferAllocator}复用
+ * 释放后不能再访问{@link #buffer()}或者{@link #array()}, 因为底层{@link ByteBuffer}可能已经被其他使用者持有
+ *
+ * @author huangjianqin
+ * @date 2022/4/17
+ */
+public final class PooledBuffer implements ReferenceCounted {
+    private static final AtomicIntegerFieldUpdater<PooledBuffer> REF_CNT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(PooledBuffer.class, "refCnt");
+
+    /** 所属allocator */
+    private final BufferAllocator allocator;
+    /** 底层buffer */
+    private final ByteBuffer buffer;
+    /** size class, 小于0表示非池化buffer */
+    private final int sizeClass;
+    /** 引用计数 */
+    private volatile int refCnt;
+    /** 每次引用计数变为0时+1, 用于{@link CompositeBuffer}视图检查其引用的buffer是否已释放或者复用 */
+    private volatile int generation;
+    /** 分配点, 仅direct buffer统计 */
+    private String site;
+    /** 泄漏检测, 未采样则为null */
+    private DirectMemoryAccountant.LeakTracker leakTracker;
+    /** 引用计数为0时, 是否不归还pool而立即释放底层direct memory */
+    private boolean freeOnRelease;
+
+    PooledBuffer(BufferAllocator allocator, ByteBuffer buffer, int sizeClass) {
+        this.allocator = allocator;
+        this.buffer = buffer;
+        this.sizeClass = sizeClass;
+    }
+
+    /**
+     * 从pool分配出去时调用, 重置状态
+     */
+    PooledBuffer reuse() {
+        buffer.clear();
+        //使用者可能修改了字节序, 恢复默认
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        REF_CNT_UPDATER.set(this, 1);
+        freeOnRelease = false;
+        return this;
+    }
+
+    /**
+     * 底层heap buffer数组, 数组有效区域为[0, capacity)
+     */
+    public byte[] array() {
+        if (buffer.isDirect()) {
+            throw new UnsupportedOperationException("direct buffer does not have backing array");
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public int refCnt() {
+        return refCnt;
+    }
+
+    @Override
+    public PooledBuffer retain() {
+        return retain(1);
+    }
+
+    @Override
+    public PooledBuffer retain(int increment) {
+        Preconditions.checkArgument(increment > 0, "increment must be greater than 0");
+        for (; ; ) {
+            int refCnt = this.refCnt;
+            if (refCnt <= 0) {
+                throw new IllegalStateException(String.format("refCnt: %d, increment: %d", refCnt, increment));
+            }
+            int nextCnt = refCnt + increment;
+            if (nextCnt <= 0) {
+                //溢出
+                throw new IllegalStateException(String.format("refCnt: %d, increment: %d", refCnt, increment));
+            }
+            if (REF_CNT_UPDATER.compareAndSet(this, refCnt, nextCnt)) {
+                return this;
+            }
+        }
+    }
+
+    @Override
+    public boolean release() {
+        return release(1);
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        Preconditions.checkArgument(decrement > 0, "decrement must be greater than 0");
+        for (; ; ) {
+            int refCnt = this.refCnt;
+            if (refCnt < decrement) {
+                throw new IllegalStateException(String.format("refCnt: %d, decrement: %d", refCnt, decrement));
+            }
+            if (REF_CNT_UPDATER.compareAndSet(this, refCnt, refCnt - decrement)) {
+                if (refCnt == decrement) {
+                    //先修改generation, 再归还或者释放底层内存
+                    generation++;
+                    allocator.free(this);
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 是否池化buffer
+     */
+    public boolean isPooled() {
+        return sizeClass >= 0;
+    }
+
+    public boolean isDirect() {
+        return buffer.isDirect();
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    //getter
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    int getSizeClass() {
+        return sizeClass;
+    }
+
+    /**
+     * 标识引用计数为0时, 不归还pool, 而是立即释放底层direct memory, 不等待gc
+     * 仅对direct buffer有效
+     */
+    void freeOnRelease() {
+        this.freeOnRelease = true;
+    }
+
+    boolean isFreeOnRelease() {
+        return freeOnRelease;
+    }
+
+    String getSite() {
+        return site;
+    }
+
+    DirectMemoryAccountant.LeakTracker getLeakTracker() {
+        return leakTracker;
+    }
+
+    /**
+     * 分配出去时, 记录分配点和泄漏检测
+     */
+    void track(String site, DirectMemoryAccountant.LeakTracker leakTracker) {
+        this.site = site;
+        this.leakTracker = leakTracker;
+    }
+
+    @Override
+    public String toString() {
+        return "PooledBuffer{" +
+                "buffer=" + buffer +
+                ", sizeClass=" + sizeClass +
+                ", refCnt=" + refCnt +
+                '}';
+    }
+}
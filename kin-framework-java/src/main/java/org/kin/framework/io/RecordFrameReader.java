@@ -0,0 +1,188 @@
+package org.kin.framework.io;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.utils.Crc32c;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.Checksum;
+
+/**
+ * 长度前缀的record帧读取, 帧格式见{@link RecordFrameWriter}
+ * 支持两种使用方式:
+ * 1. {@link #read(Input)}, 直接从{@link Input}读取一条完整record, 帧不完整则返回null且不修改read index
+ * 2. {@link #feed(ByteBuffer)}+{@link #next()}, 增量接收数据(比如socket), 帧可以跨多个{@link ByteBuffer}
+ * <p>
+ * 返回的record为{@link CompositeBuffer}视图, 尽可能与源数据共享内存, 使用期间不能修改或者释放源数据
+ * 非线程安全
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class RecordFrameReader {
+    /** 默认单条record最大长度, 16m */
+    private static final int DEFAULT_MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    /** var int32最大字节数 */
+    private static final int MAX_VAR_INT32_BYTES = 5;
+
+    /** 是否校验CRC32C校验和 */
+    private final boolean checksum;
+    /** 单条record最大长度, 防止异常长度导致无限等待或者分配过大内存 */
+    private final int maxRecordSize;
+    /** 复用的checksum */
+    private final Checksum crc32c;
+    /** {@link #feed(ByteBuffer)}累积的未读数据 */
+    private final List<ByteBuffer> cumulation = new ArrayList<>();
+    /** 基于{@link #cumulation}的视图, 有新数据时重建 */
+    private CompositeBuffer view;
+
+    public RecordFrameReader() {
+        this(false);
+    }
+
+    public RecordFrameReader(boolean checksum) {
+        this(checksum, DEFAULT_MAX_RECORD_SIZE);
+    }
+
+    public RecordFrameReader(boolean checksum, int maxRecordSize) {
+        Preconditions.checkArgument(maxRecordSize > 0, "maxRecordSize must be greater than 0");
+        this.checksum = checksum;
+        this.maxRecordSize = maxRecordSize;
+        this.crc32c = checksum ? Crc32c.newChecksum() : null;
+    }
+
+    /**
+     * 从{@code input}读取一条完整record
+     * {@code input}需支持read index
+     *
+     * @return record视图, 帧不完整则返回null, 且不修改read index
+     * @throws IllegalStateException record长度非法或者校验和不一致
+     */
+    public CompositeBuffer read(Input input) {
+        Preconditions.checkArgument(input.readerIndexSupported(), "input must support reader index");
+        int readerIndex = input.readerIndex();
+        int readableBytes = input.readableBytes();
+
+        //解析record长度, 长度可能不完整
+        int length = 0;
+        int lengthBytes = 0;
+        while (true) {
+            if (lengthBytes >= readableBytes) {
+                input.readerIndex(readerIndex);
+                return null;
+            }
+            byte b = input.readByte();
+            length |= (b & 0x7F) << (7 * lengthBytes++);
+            if (b >= 0) {
+                break;
+            }
+            if (lengthBytes >= MAX_VAR_INT32_BYTES) {
+                throw new IllegalStateException("encountered a malformed record length");
+            }
+        }
+        if (length < 0 || length > maxRecordSize) {
+            throw new IllegalStateException(String.format("record length %d is out of range [0, %d]", length, maxRecordSize));
+        }
+
+        int headerBytes = lengthBytes + (checksum ? 4 : 0);
+        if (readableBytes - headerBytes < length) {
+            //帧不完整
+            input.readerIndex(readerIndex);
+            return null;
+        }
+
+        int expectedCrc = checksum ? input.readIntLE() : 0;
+        CompositeBuffer record = input.readSlice(length);
+        if (checksum) {
+            crc32c.reset();
+            for (ByteBuffer byteBuffer : record.nioBuffers()) {
+                Crc32c.update(crc32c, byteBuffer);
+            }
+            int crc = (int) crc32c.getValue();
+            if (crc != expectedCrc) {
+                throw new IllegalStateException(String.format("record checksum mismatch, expect: %d, actual: %d", expectedCrc, crc));
+            }
+        }
+        return record;
+    }
+
+    /**
+     * 接收新数据, 即{@code byteBuffer}的可读区域, 不复制底层数据
+     * 调用后, 不能再修改{@code byteBuffer}可读区域的数据
+     */
+    public RecordFrameReader feed(ByteBuffer byteBuffer) {
+        if (byteBuffer.hasRemaining()) {
+            compact();
+            cumulation.add(byteBuffer.slice());
+            view = null;
+        }
+        return this;
+    }
+
+    /**
+     * 从已接收的数据中读取下一条完整record
+     *
+     * @return record视图, 帧不完整则返回null, 需继续{@link #feed(ByteBuffer)}
+     * @throws IllegalStateException record长度非法或者校验和不一致
+     */
+    public CompositeBuffer next() {
+        if (cumulation.isEmpty()) {
+            return null;
+        }
+        if (Objects.isNull(view)) {
+            view = new CompositeBuffer(cumulation.toArray(new ByteBuffer[0]));
+        }
+        return read(view);
+    }
+
+    /**
+     * 移除{@link #cumulation}中已读的数据
+     */
+    private void compact() {
+        CompositeBuffer view = this.view;
+        if (Objects.isNull(view)) {
+            return;
+        }
+        cumulation.clear();
+        if (view.readableBytes() > 0) {
+            //未读的数据, 仍共享底层内存
+            cumulation.addAll(Arrays.asList(view.nioBuffers()));
+        }
+        this.view = null;
+    }
+
+    /**
+     * 已接收但未读取的字节数
+     */
+    public int pendingBytes() {
+        if (Objects.nonNull(view)) {
+            return view.readableBytes();
+        }
+        int ret = 0;
+        for (ByteBuffer byteBuffer : cumulation) {
+            ret += byteBuffer.remaining();
+        }
+        return ret;
+    }
+
+    //getter
+    public boolean isChecksum() {
+        return checksum;
+    }
+
+    public int getMaxRecordSize() {
+        return maxRecordSize;
+    }
+
+    @Override
+    public String toString() {
+        return "RecordFrameReader{" +
+                "checksum=" + checksum +
+                ", maxRecordSize=" + maxRecordSize +
+                ", pendingBytes=" + pendingBytes() +
+                '}';
+    }
+}
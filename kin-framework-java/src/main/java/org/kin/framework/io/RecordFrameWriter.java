@@ -0,0 +1,96 @@
+package org.kin.framework.io;
+
+import com.google.common.base.Preconditions;
+import org.kin.framework.utils.Crc32c;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * 长度前缀的record帧写入
+ * 帧格式: var int32 record长度 | [4字节little-endian CRC32C] | record
+ * 需与{@link RecordFrameReader}的checksum配置一致
+ * <p>
+ * 非线程安全
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class RecordFrameWriter {
+    /** 是否写入CRC32C校验和 */
+    private final boolean checksum;
+    /** 复用的checksum */
+    private final Checksum crc32c;
+
+    public RecordFrameWriter() {
+        this(false);
+    }
+
+    public RecordFrameWriter(boolean checksum) {
+        this.checksum = checksum;
+        this.crc32c = checksum ? Crc32c.newChecksum() : null;
+    }
+
+    /**
+     * 写入一条record帧
+     */
+    public void write(Output output, byte[] record) {
+        write(output, record, 0, record.length);
+    }
+
+    /**
+     * 写入一条record帧
+     */
+    public void write(Output output, byte[] record, int offset, int length) {
+        Preconditions.checkNotNull(record, "record must be not null");
+        if ((offset | length | record.length - offset - length) < 0) {
+            throw new IndexOutOfBoundsException(String.format("record length: %d, offset: %d, length: %d", record.length, offset, length));
+        }
+        output.writeVarInt32(length);
+        if (checksum) {
+            crc32c.reset();
+            crc32c.update(record, offset, length);
+            output.writeIntLE((int) crc32c.getValue());
+        }
+        if (length > 0) {
+            output.writeBytes(record, offset, length);
+        }
+    }
+
+    /**
+     * 写入一条record帧, record为{@link CompositeBuffer}的可读区域, 不修改其read index
+     * 常用于转发{@link RecordFrameReader}读取的record
+     */
+    public void write(Output output, CompositeBuffer record) {
+        ByteBuffer[] byteBuffers = record.nioBuffers();
+        output.writeVarInt32(record.readableBytes());
+        if (checksum) {
+            crc32c.reset();
+            for (ByteBuffer byteBuffer : byteBuffers) {
+                Crc32c.update(crc32c, byteBuffer.duplicate());
+            }
+            output.writeIntLE((int) crc32c.getValue());
+        }
+        for (ByteBuffer byteBuffer : byteBuffers) {
+            if (byteBuffer.hasArray()) {
+                output.writeBytes(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+            } else {
+                byte[] bytes = new byte[byteBuffer.remaining()];
+                byteBuffer.get(bytes);
+                output.writeBytes(bytes);
+            }
+        }
+    }
+
+    //getter
+    public boolean isChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public String toString() {
+        return "RecordFrameWriter{" +
+                "checksum=" + checksum +
+                '}';
+    }
+}
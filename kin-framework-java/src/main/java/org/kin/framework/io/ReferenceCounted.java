@@ -0,0 +1,39 @@
+package org.kin.framework.io;
+
+/**
+ * 引用计数对象, 引用计数为0时, 对象占用的资源会被回收或者释放
+ * 创建时引用计数为1, 调用{@link #release()}后, 不应该再访问该对象
+ *
+ * @author huangjianqin
+ * @date 2022/4/17
+ */
+public interface ReferenceCounted {
+    /**
+     * 当前引用计数
+     */
+    int refCnt();
+
+    /**
+     * 引用计数+1
+     */
+    ReferenceCounted retain();
+
+    /**
+     * 引用计数+{@code increment}
+     */
+    ReferenceCounted retain(int increment);
+
+    /**
+     * 引用计数-1
+     *
+     * @return 引用计数是否为0, 即资源是否被回收
+     */
+    boolean release();
+
+    /**
+     * 引用计数-{@code decrement}
+     *
+     * @return 引用计数是否为0, 即资源是否被回收
+     */
+    boolean release(int decrement);
+}
@@ -2,6 +2,8 @@ package org.kin.framework.io;
 
 import org.kin.framework.utils.FixEwma;
 import org.kin.framework.utils.Maths;
+import org.kin.framework.utils.UnsafeDirectBufferUtil;
+import org.kin.framework.utils.VarIntUtils;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -19,8 +21,10 @@ import java.util.stream.Collectors;
 public final class ScalableByteArray implements Input, Output {
     /** 每次分配数组的容量 */
     private final int allocSize;
+    /** buffer分配器 */
+    private final BufferAllocator allocator;
     /** 底层byte[] list */
-    private List<byte[]> byteArrays = new ArrayList<>();
+    private List<PooledBuffer> byteArrays = new ArrayList<>();
     /** 当前读的array offset */
     private int readArrOffset;
     /** 下一次读的offset */
@@ -41,13 +45,29 @@ public final class ScalableByteArray implements Input, Output {
     }
 
     public ScalableByteArray(int allocSize) {
+        this(allocSize, BufferAllocator.DEFAULT);
+    }
+
+    public ScalableByteArray(int allocSize, BufferAllocator allocator) {
         if (!Maths.isPower2(allocSize)) {
             //取最接近的2的n次方作为分配的初始容量
             allocSize = Maths.round2Power2(allocSize);
         }
         this.allocSize = allocSize;
+        this.allocator = allocator;
         //init one byte[]
-        byteArrays.add(new byte[allocSize]);
+        byteArrays.add(newByteArray());
+    }
+
+    private PooledBuffer newByteArray() {
+        return allocator.allocate(allocSize);
+    }
+
+    /**
+     * 获取指定下标的byte[]
+     */
+    private byte[] byteArray(int idx) {
+        return byteArrays.get(idx).array();
     }
 
     /**
@@ -63,7 +83,7 @@ public final class ScalableByteArray implements Input, Output {
     @Override
     public byte readByte() {
         validReadIndex(readArrOffset, readOffset);
-        byte[] bytes = byteArrays.get(readArrOffset);
+        byte[] bytes = byteArray(readArrOffset);
         byte ret = bytes[readOffset++];
         if (readOffset >= allocSize) {
             readArrOffset++;
@@ -72,6 +92,95 @@ public final class ScalableByteArray implements Input, Output {
         return ret;
     }
 
+    /**
+     * 当前读的byte[]是否有{@code bytes}连续可读字节
+     */
+    private boolean hasContiguousReadableBytes(int bytes) {
+        return readOffset + bytes <= allocSize && readableBytes() >= bytes;
+    }
+
+    /**
+     * 读指针增加{@code bytes}
+     */
+    private void skipReadBytes(int bytes) {
+        readOffset += bytes;
+        if (readOffset >= allocSize) {
+            readArrOffset++;
+            readOffset = 0;
+        }
+    }
+
+    @Override
+    public int readInt() {
+        if (!hasContiguousReadableBytes(4)) {
+            //跨byte[], 逐字节读
+            return Input.super.readInt();
+        }
+        int ret = UnsafeDirectBufferUtil.getInt(byteArray(readArrOffset), readOffset);
+        skipReadBytes(4);
+        return ret;
+    }
+
+    @Override
+    public int readIntLE() {
+        if (!hasContiguousReadableBytes(4)) {
+            return Input.super.readIntLE();
+        }
+        int ret = UnsafeDirectBufferUtil.getIntLE(byteArray(readArrOffset), readOffset);
+        skipReadBytes(4);
+        return ret;
+    }
+
+    @Override
+    public long readLong() {
+        if (!hasContiguousReadableBytes(8)) {
+            return Input.super.readLong();
+        }
+        long ret = UnsafeDirectBufferUtil.getLong(byteArray(readArrOffset), readOffset);
+        skipReadBytes(8);
+        return ret;
+    }
+
+    @Override
+    public long readLongLE() {
+        if (!hasContiguousReadableBytes(8)) {
+            return Input.super.readLongLE();
+        }
+        long ret = UnsafeDirectBufferUtil.getLongLE(byteArray(readArrOffset), readOffset);
+        skipReadBytes(8);
+        return ret;
+    }
+
+    @Override
+    public int readVarInt32(boolean zigzag) {
+        if (hasContiguousReadableBytes(8)) {
+            long swar = VarIntUtils.decodeSwar(UnsafeDirectBufferUtil.getLongLE(byteArray(readArrOffset), readOffset));
+            int len = VarIntUtils.swarLength(swar);
+            if (len <= 5) {
+                skipReadBytes(len);
+                int rawVarInt32 = (int) swar;
+                return zigzag ? VarIntUtils.decodeZigZag32(rawVarInt32) : rawVarInt32;
+            }
+        }
+        //跨byte[]或者10字节的负数, 逐字节读
+        return Input.super.readVarInt32(zigzag);
+    }
+
+    @Override
+    public long readVarInt64(boolean zigzag) {
+        if (hasContiguousReadableBytes(8)) {
+            long swar = VarIntUtils.decodeSwar(UnsafeDirectBufferUtil.getLongLE(byteArray(readArrOffset), readOffset));
+            int len = VarIntUtils.swarLength(swar);
+            if (len <= 8) {
+                skipReadBytes(len);
+                long rawVarInt64 = VarIntUtils.swarValue(swar);
+                return zigzag ? VarIntUtils.decodeZigZag64(rawVarInt64) : rawVarInt64;
+            }
+        }
+        //跨byte[]或者超过8字节, 逐字节读
+        return Input.super.readVarInt64(zigzag);
+    }
+
     @Override
     public Input readBytes(byte[] dst, int dstIndex, int length) {
         if (Objects.isNull(dst)) {
@@ -83,12 +192,34 @@ public final class ScalableByteArray implements Input, Output {
         if (readableBytes() < length) {
             throw new IndexOutOfBoundsException("length is greater than readableBytes");
         }
-        while (readableBytes() > 0) {
-            dst[dstIndex] = readByte();
+        while (length > 0) {
+            int len = Math.min(allocSize - readOffset, length);
+            System.arraycopy(byteArray(readArrOffset), readOffset, dst, dstIndex, len);
+            skipReadBytes(len);
+            dstIndex += len;
+            length -= len;
         }
         return this;
     }
 
+    /**
+     * 返回零拷贝的{@link CompositeBuffer}视图, 视图使用期间, 不能再写入或者释放当前{@link ScalableByteArray}
+     */
+    @Override
+    public CompositeBuffer readSlice(int length) {
+        if (readableBytes() < length) {
+            throw new IndexOutOfBoundsException("length is greater than readableBytes");
+        }
+        List<ByteBuffer> byteBuffers = new ArrayList<>();
+        while (length > 0) {
+            int len = Math.min(allocSize - readOffset, length);
+            byteBuffers.add(ByteBuffer.wrap(byteArray(readArrOffset), readOffset, len));
+            skipReadBytes(len);
+            length -= len;
+        }
+        return new CompositeBuffer(byteBuffers.toArray(new ByteBuffer[0]));
+    }
+
     @Override
     public int readableBytes() {
         //思路: 中间-最后可写+第一剩余未读
@@ -123,7 +254,7 @@ public final class ScalableByteArray implements Input, Output {
 
     @Override
     public void writeByte(int value) {
-        byte[] bytes = byteArrays.get(writeArrOffset);
+        byte[] bytes = byteArray(writeArrOffset);
         bytes[writeOffset++] = (byte) value;
         if (writeOffset >= allocSize) {
             //超过单个byte[]容量
@@ -136,8 +267,66 @@ public final class ScalableByteArray implements Input, Output {
         writeOffset = 0;
         if (writeArrOffset >= byteArrays.size()) {
             //列表byteArrays没有多余的byte[]可用, 则动态create
-            byteArrays.add(new byte[allocSize]);
+            byteArrays.add(newByteArray());
+        }
+    }
+
+    /**
+     * 当前写的byte[]是否有{@code bytes}连续可写字节
+     */
+    private boolean hasContiguousWritableBytes(int bytes) {
+        return writeOffset + bytes <= allocSize;
+    }
+
+    /**
+     * 写指针增加{@code bytes}
+     */
+    private void skipWriteBytes(int bytes) {
+        writeOffset += bytes;
+        if (writeOffset >= allocSize) {
+            expand();
+        }
+    }
+
+    @Override
+    public void writeInt(int value) {
+        if (!hasContiguousWritableBytes(4)) {
+            //跨byte[], 逐字节写
+            Output.super.writeInt(value);
+            return;
+        }
+        UnsafeDirectBufferUtil.setInt(byteArray(writeArrOffset), writeOffset, value);
+        skipWriteBytes(4);
+    }
+
+    @Override
+    public void writeIntLE(int value) {
+        if (!hasContiguousWritableBytes(4)) {
+            Output.super.writeIntLE(value);
+            return;
         }
+        UnsafeDirectBufferUtil.setIntLE(byteArray(writeArrOffset), writeOffset, value);
+        skipWriteBytes(4);
+    }
+
+    @Override
+    public void writeLong(long value) {
+        if (!hasContiguousWritableBytes(8)) {
+            Output.super.writeLong(value);
+            return;
+        }
+        UnsafeDirectBufferUtil.setLong(byteArray(writeArrOffset), writeOffset, value);
+        skipWriteBytes(8);
+    }
+
+    @Override
+    public void writeLongLE(long value) {
+        if (!hasContiguousWritableBytes(8)) {
+            Output.super.writeLongLE(value);
+            return;
+        }
+        UnsafeDirectBufferUtil.setLongLE(byteArray(writeArrOffset), writeOffset, value);
+        skipWriteBytes(8);
     }
 
     @Override
@@ -152,7 +341,7 @@ public final class ScalableByteArray implements Input, Output {
             throw new IllegalArgumentException("len is less than or equal to 0");
         }
         do {
-            byte[] bytes = byteArrays.get(writeArrOffset);
+            byte[] bytes = byteArray(writeArrOffset);
             int writableBytes = allocSize - writeOffset;
             int writeBytes = Math.min(writableBytes, len);
             System.arraycopy(value, startIdx, bytes, writeOffset, writeBytes);
@@ -202,14 +391,33 @@ public final class ScalableByteArray implements Input, Output {
             return;
         }
 
-        //释放当前byteArrays中多余的byte[]
-        List<byte[]> newByteArrays = new ArrayList<>(byteArrayNum);
-        for (int i = 0; i < byteArrayNum; i++) {
-            newByteArrays.add(byteArrays.get(i));
+        //释放当前byteArrays中多余的byte[], 归还给allocator
+        List<PooledBuffer> newByteArrays = new ArrayList<>(byteArrayNum);
+        for (int i = 0; i < byteArrays.size(); i++) {
+            PooledBuffer pooledBuffer = byteArrays.get(i);
+            if (i < byteArrayNum) {
+                newByteArrays.add(pooledBuffer);
+            } else {
+                pooledBuffer.release();
+            }
         }
         byteArrays = newByteArrays;
     }
 
+    /**
+     * 释放所有底层byte[], 归还给allocator, 释放后不能再使用
+     */
+    public void release() {
+        for (PooledBuffer pooledBuffer : byteArrays) {
+            pooledBuffer.release();
+        }
+        byteArrays = new ArrayList<>();
+        readArrOffset = 0;
+        readOffset = 0;
+        writeArrOffset = 0;
+        writeOffset = 0;
+    }
+
     /**
      * 将readable bytes转换成单个byte[]
      */
@@ -235,7 +443,7 @@ public final class ScalableByteArray implements Input, Output {
                 //前面的byte[]复制以allocSize为limit即可
                 limit = allocSize;
             }
-            byte[] bytes = byteArrays.get(readArrOffset);
+            byte[] bytes = byteArray(readArrOffset);
             //copy bytes len
             int len = limit - readOffset;
             //copy byte[]
@@ -271,7 +479,7 @@ public final class ScalableByteArray implements Input, Output {
     public String toString() {
         return "DynamicExpandByteArray{" +
                 "allocSize=" + allocSize +
-                ", byteArrays=" + byteArrays.stream().map(Arrays::toString).collect(Collectors.toList()) +
+                ", byteArrays=" + byteArrays.stream().map(b -> Arrays.toString(b.array())).collect(Collectors.toList()) +
                 ", readArrOffset=" + readArrOffset +
                 ", readOffset=" + readOffset +
                 ", writeArrOffset=" + writeArrOffset +
@@ -2,25 +2,39 @@ package org.kin.framework.io;
 
 import org.kin.framework.utils.FixEwma;
 import org.kin.framework.utils.Maths;
+import org.kin.framework.utils.VarIntUtils;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 /**
  * 支持动态伸缩的{@link ByteBuffer}
+ * 开启{@code freeOnRelease}后, direct模式下收缩或者{@link #release()}时立即释放多余的底层direct memory, 而不是归还pool或者等待gc
+ * 无论是否开启, 底层{@link ByteBuffer}释放后, 再通过其{@link CompositeBuffer}视图访问均会抛出{@link IllegalStateException}
  *
  * @author huangjianqin
  * @date 2021/12/17
  */
 public final class ScalableByteBuffer implements Input, Output {
+    /** var long最大字节数 */
+    private static final int MAX_VAR_INT_BYTES = 10;
+    /** 分配点, 用于统计direct memory */
+    private static final String ALLOC_SITE = ScalableByteBuffer.class.getSimpleName();
+
     /** 每次分配数组的容量 */
     private final int allocSize;
     /** 是否开启mmap */
     private final boolean direct;
+    /** direct模式下, 收缩或者释放时是否立即释放底层direct memory, 默认归还pool */
+    private final boolean freeOnRelease;
+    /** buffer分配器 */
+    private final BufferAllocator allocator;
     /** 底层{@link ByteBuffer} list */
-    private List<ByteBuffer> byteBufferList = new ArrayList<>();
+    private List<PooledBuffer> byteBufferList = new ArrayList<>();
     /** byte buffer offset */
     private int offset;
     /** byte buffer limit */
@@ -45,36 +59,45 @@ public final class ScalableByteBuffer implements Input, Output {
     }
 
     public ScalableByteBuffer(int allocSize, boolean direct) {
+        this(allocSize, direct, BufferAllocator.DEFAULT);
+    }
+
+    public ScalableByteBuffer(int allocSize, boolean direct, BufferAllocator allocator) {
+        this(allocSize, direct, false, allocator);
+    }
+
+    public ScalableByteBuffer(int allocSize, boolean direct, boolean freeOnRelease, BufferAllocator allocator) {
         if (!Maths.isPower2(allocSize)) {
             //取最接近的2的n次方作为分配的初始容量
             allocSize = Maths.round2Power2(allocSize);
         }
         this.allocSize = allocSize;
         this.direct = direct;
+        this.freeOnRelease = freeOnRelease;
+        this.allocator = allocator;
         //init one ByteBuffer
         byteBufferList.add(newByteBuffer());
     }
 
-    private ByteBuffer newByteBuffer(int size) {
-        if (direct) {
-            return ByteBuffer.allocateDirect(size);
-        } else {
-            return ByteBuffer.allocate(size);
-        }
+    private PooledBuffer newByteBuffer() {
+        return allocator.allocate(allocSize, direct, ALLOC_SITE);
     }
 
-    private ByteBuffer newByteBuffer() {
-        return newByteBuffer(allocSize);
+    /**
+     * 获取指定下标的{@link ByteBuffer}
+     */
+    private ByteBuffer byteBuffer(int idx) {
+        return byteBufferList.get(idx).buffer();
     }
 
     @Override
     public byte readByte() {
-        if (offset > limit || ByteBufferUtils.getReadableBytes(byteBufferList.get(offset)) <= 0) {
+        if (offset > limit || ByteBufferUtils.getReadableBytes(byteBuffer(offset)) <= 0) {
             throw new IndexOutOfBoundsException(String.format("offset: %d, offset bytebuffer position: %d, limit: %d, limit bytebuffer limit: %d",
-                    offset, byteBufferList.get(offset).position(),
-                    limit, byteBufferList.get(limit).limit()));
+                    offset, byteBuffer(offset).position(),
+                    limit, byteBuffer(limit).limit()));
         }
-        ByteBuffer byteBuffer = byteBufferList.get(offset);
+        ByteBuffer byteBuffer = byteBuffer(offset);
         byte ret = byteBuffer.get();
         if (ByteBufferUtils.getReadableBytes(byteBuffer) <= 0) {
             offset++;
@@ -82,6 +105,95 @@ public final class ScalableByteBuffer implements Input, Output {
         return ret;
     }
 
+    /**
+     * 返回有{@code bytes}连续可读字节的当前读{@link ByteBuffer}, 没有则返回null
+     */
+    private ByteBuffer contiguousReadableBuffer(int bytes) {
+        if (offset > limit) {
+            return null;
+        }
+        ByteBuffer byteBuffer = byteBuffer(offset);
+        return ByteBufferUtils.getReadableBytes(byteBuffer) >= bytes ? byteBuffer : null;
+    }
+
+    /**
+     * 读完后, 若当前{@link ByteBuffer}已无可读字节, 则移至下一个
+     */
+    private void afterRead(ByteBuffer byteBuffer) {
+        if (ByteBufferUtils.getReadableBytes(byteBuffer) <= 0) {
+            offset++;
+        }
+    }
+
+    @Override
+    public int readInt() {
+        ByteBuffer byteBuffer = contiguousReadableBuffer(4);
+        if (Objects.isNull(byteBuffer)) {
+            //跨ByteBuffer, 逐字节读
+            return Input.super.readInt();
+        }
+        //底层ByteBuffer都是big-endian
+        int ret = byteBuffer.getInt();
+        afterRead(byteBuffer);
+        return ret;
+    }
+
+    @Override
+    public int readIntLE() {
+        ByteBuffer byteBuffer = contiguousReadableBuffer(4);
+        if (Objects.isNull(byteBuffer)) {
+            return Input.super.readIntLE();
+        }
+        int ret = Integer.reverseBytes(byteBuffer.getInt());
+        afterRead(byteBuffer);
+        return ret;
+    }
+
+    @Override
+    public long readLong() {
+        ByteBuffer byteBuffer = contiguousReadableBuffer(8);
+        if (Objects.isNull(byteBuffer)) {
+            return Input.super.readLong();
+        }
+        long ret = byteBuffer.getLong();
+        afterRead(byteBuffer);
+        return ret;
+    }
+
+    @Override
+    public long readLongLE() {
+        ByteBuffer byteBuffer = contiguousReadableBuffer(8);
+        if (Objects.isNull(byteBuffer)) {
+            return Input.super.readLongLE();
+        }
+        long ret = Long.reverseBytes(byteBuffer.getLong());
+        afterRead(byteBuffer);
+        return ret;
+    }
+
+    @Override
+    public int readVarInt32(boolean zigzag) {
+        ByteBuffer byteBuffer = contiguousReadableBuffer(MAX_VAR_INT_BYTES);
+        if (Objects.isNull(byteBuffer)) {
+            //可能跨ByteBuffer, 逐字节读
+            return Input.super.readVarInt32(zigzag);
+        }
+        int ret = VarIntUtils.readRawVarInt32(byteBuffer, zigzag);
+        afterRead(byteBuffer);
+        return ret;
+    }
+
+    @Override
+    public long readVarInt64(boolean zigzag) {
+        ByteBuffer byteBuffer = contiguousReadableBuffer(MAX_VAR_INT_BYTES);
+        if (Objects.isNull(byteBuffer)) {
+            return Input.super.readVarInt64(zigzag);
+        }
+        long ret = VarIntUtils.readRawVarInt64(byteBuffer, zigzag);
+        afterRead(byteBuffer);
+        return ret;
+    }
+
     @Override
     public Input readBytes(byte[] dst, int dstIndex, int length) {
         if (Objects.isNull(dst)) {
@@ -93,29 +205,57 @@ public final class ScalableByteBuffer implements Input, Output {
         if (readableBytes() < length) {
             throw new IndexOutOfBoundsException("length is greater than readableBytes");
         }
-        while (readableBytes() > 0) {
-            dst[dstIndex] = readByte();
+        while (length > 0) {
+            ByteBuffer byteBuffer = byteBuffer(offset);
+            int len = Math.min(ByteBufferUtils.getReadableBytes(byteBuffer), length);
+            byteBuffer.get(dst, dstIndex, len);
+            afterRead(byteBuffer);
+            dstIndex += len;
+            length -= len;
         }
         return this;
     }
 
+    /**
+     * 返回零拷贝的{@link CompositeBuffer}视图, 视图使用期间, 不能再写入或者释放当前{@link ScalableByteBuffer}
+     */
+    @Override
+    public CompositeBuffer readSlice(int length) {
+        if (readableBytes() < length) {
+            throw new IndexOutOfBoundsException("length is greater than readableBytes");
+        }
+        List<ByteBuffer> byteBuffers = new ArrayList<>();
+        List<PooledBuffer> owners = new ArrayList<>();
+        while (length > 0) {
+            owners.add(byteBufferList.get(offset));
+            ByteBuffer byteBuffer = byteBuffer(offset);
+            int len = Math.min(ByteBufferUtils.getReadableBytes(byteBuffer), length);
+            ByteBuffer duplicate = byteBuffer.duplicate();
+            duplicate.limit(duplicate.position() + len);
+            byteBuffers.add(duplicate);
+            byteBuffer.position(byteBuffer.position() + len);
+            afterRead(byteBuffer);
+            length -= len;
+        }
+        return new CompositeBuffer(byteBuffers.toArray(new ByteBuffer[0]), owners.toArray(new PooledBuffer[0]));
+    }
+
     @Override
     public int readableBytes() {
         int ret = 0;
         for (int i = offset; i <= limit; i++) {
-            ret += ByteBufferUtils.getReadableBytes(byteBufferList.get(i));
+            ret += ByteBufferUtils.getReadableBytes(byteBuffer(i));
         }
         return ret;
     }
 
     @Override
     public int readerIndex() {
-        ByteBuffer byteBuffer = byteBufferList.get(offset);
-        if (Objects.isNull(byteBuffer)) {
-            return offset * allocSize;
-        } else {
-            return offset * allocSize + byteBuffer.position();
+        if (offset > limit) {
+            //已读完所有数据, offset已越过最后一个ByteBuffer
+            return limit * allocSize + byteBuffer(limit).position();
         }
+        return offset * allocSize + byteBuffer(offset).position();
     }
 
     @Override
@@ -127,14 +267,21 @@ public final class ScalableByteBuffer implements Input, Output {
         int offset = readerIndex / allocSize;
         int position = readerIndex % allocSize;
         //计算完后, 校验一下
-        if (offset > limit || position > byteBufferList.get(offset).limit()) {
+        if (offset > limit || position > byteBuffer(offset).limit()) {
             throw new IndexOutOfBoundsException(String.format("new offset: %d, new offset bytebuffer position: %d, limit: %d, limit bytebuffer limit: %d",
                     offset, position,
-                    limit, byteBufferList.get(limit).limit()));
+                    limit, byteBuffer(limit).limit()));
         }
-        //校验成功, 则set
+        //校验成功, 则set, 之前的ByteBuffer视为已读完, 之后的ByteBuffer从头开始读
         this.offset = offset;
-        byteBufferList.get(offset).position(position);
+        for (int i = 0; i < offset; i++) {
+            ByteBuffer byteBuffer = byteBuffer(i);
+            byteBuffer.position(byteBuffer.limit());
+        }
+        byteBuffer(offset).position(position);
+        for (int i = offset + 1; i <= limit; i++) {
+            byteBuffer(i).position(0);
+        }
         return this;
     }
 
@@ -145,7 +292,7 @@ public final class ScalableByteBuffer implements Input, Output {
 
     @Override
     public void writeByte(int value) {
-        ByteBuffer byteBuffer = byteBufferList.get(limit);
+        ByteBuffer byteBuffer = byteBuffer(limit);
         byteBuffer.put((byte) value);
         if (ByteBufferUtils.getWritableBytes(byteBuffer) <= 0) {
             //超过单个ByteBuffer容量
@@ -164,6 +311,68 @@ public final class ScalableByteBuffer implements Input, Output {
         }
     }
 
+    /**
+     * 返回有{@code bytes}连续可写字节的当前写{@link ByteBuffer}, 没有则返回null
+     */
+    private ByteBuffer contiguousWritableBuffer(int bytes) {
+        ByteBuffer byteBuffer = byteBuffer(limit);
+        return ByteBufferUtils.getWritableBytes(byteBuffer) >= bytes ? byteBuffer : null;
+    }
+
+    /**
+     * 写完后, 若当前{@link ByteBuffer}已写满, 则扩容
+     */
+    private void afterWrite(ByteBuffer byteBuffer) {
+        if (ByteBufferUtils.getWritableBytes(byteBuffer) <= 0) {
+            expand();
+        }
+    }
+
+    @Override
+    public void writeInt(int value) {
+        ByteBuffer byteBuffer = contiguousWritableBuffer(4);
+        if (Objects.isNull(byteBuffer)) {
+            //跨ByteBuffer, 逐字节写
+            Output.super.writeInt(value);
+            return;
+        }
+        byteBuffer.putInt(value);
+        afterWrite(byteBuffer);
+    }
+
+    @Override
+    public void writeIntLE(int value) {
+        ByteBuffer byteBuffer = contiguousWritableBuffer(4);
+        if (Objects.isNull(byteBuffer)) {
+            Output.super.writeIntLE(value);
+            return;
+        }
+        byteBuffer.putInt(Integer.reverseBytes(value));
+        afterWrite(byteBuffer);
+    }
+
+    @Override
+    public void writeLong(long value) {
+        ByteBuffer byteBuffer = contiguousWritableBuffer(8);
+        if (Objects.isNull(byteBuffer)) {
+            Output.super.writeLong(value);
+            return;
+        }
+        byteBuffer.putLong(value);
+        afterWrite(byteBuffer);
+    }
+
+    @Override
+    public void writeLongLE(long value) {
+        ByteBuffer byteBuffer = contiguousWritableBuffer(8);
+        if (Objects.isNull(byteBuffer)) {
+            Output.super.writeLongLE(value);
+            return;
+        }
+        byteBuffer.putLong(Long.reverseBytes(value));
+        afterWrite(byteBuffer);
+    }
+
     @Override
     public void writeBytes(byte[] value, int startIdx, int len) {
         if (Objects.isNull(value)) {
@@ -176,7 +385,7 @@ public final class ScalableByteBuffer implements Input, Output {
             throw new IllegalArgumentException("len is less than or equal to 0");
         }
         do {
-            ByteBuffer byteBuffer = byteBufferList.get(limit);
+            ByteBuffer byteBuffer = byteBuffer(limit);
             int writableBytes = ByteBufferUtils.getWritableBytes(byteBuffer);
             int writeBytes = Math.min(writableBytes, len);
             byteBuffer.put(value, startIdx, writeBytes);
@@ -205,7 +414,7 @@ public final class ScalableByteBuffer implements Input, Output {
         //重置read index
         offset = 0;
         for (int i = offset; i <= limit; i++) {
-            ByteBufferUtils.toReadMode(byteBufferList.get(i));
+            ByteBufferUtils.toReadMode(byteBuffer(i));
         }
         //记录本次写入的字节数
         ewma.insert(readableBytes());
@@ -218,8 +427,8 @@ public final class ScalableByteBuffer implements Input, Output {
         //重置read index和write index
         offset = 0;
         limit = 0;
-        for (ByteBuffer byteBuffer : byteBufferList) {
-            byteBuffer.clear();
+        for (PooledBuffer pooledBuffer : byteBufferList) {
+            pooledBuffer.buffer().clear();
         }
 
         //预测下次write size, 并尝试释放当前byteBufferList中多余的ByteBuffer
@@ -231,13 +440,98 @@ public final class ScalableByteBuffer implements Input, Output {
         }
 
         //释放当前byteBufferList中多余的ByteBuffer
-        List<ByteBuffer> newByteBufferList = new ArrayList<>(byteBufferNum);
-        for (int i = 0; i < byteBufferNum; i++) {
-            newByteBufferList.add(byteBufferList.get(i));
+        List<PooledBuffer> newByteBufferList = new ArrayList<>(byteBufferNum);
+        for (int i = 0; i < byteBufferList.size(); i++) {
+            PooledBuffer pooledBuffer = byteBufferList.get(i);
+            if (i < byteBufferNum) {
+                newByteBufferList.add(pooledBuffer);
+            } else {
+                releaseByteBuffer(pooledBuffer);
+            }
         }
         byteBufferList = newByteBufferList;
     }
 
+    /**
+     * 释放所有底层{@link ByteBuffer}, 释放后不能再使用
+     * 开启{@code freeOnRelease}时, direct buffer立即释放底层内存, 否则归还给allocator
+     */
+    public void release() {
+        for (PooledBuffer pooledBuffer : byteBufferList) {
+            releaseByteBuffer(pooledBuffer);
+        }
+        byteBufferList = new ArrayList<>();
+        offset = 0;
+        limit = 0;
+    }
+
+    /**
+     * 释放底层{@link ByteBuffer}
+     */
+    private void releaseByteBuffer(PooledBuffer pooledBuffer) {
+        if (direct && freeOnRelease) {
+            //不等待gc, 保证direct memory占用与实际使用量一致
+            pooledBuffer.freeOnRelease();
+        }
+        pooledBuffer.release();
+    }
+
+    /**
+     * 将readable bytes转换成{@link CompositeBuffer}视图, 不复制底层数据, 也不修改read index
+     * 视图使用期间, 不能再写入或者释放当前{@link ScalableByteBuffer}
+     */
+    public CompositeBuffer toCompositeBuffer() {
+        ByteBuffer[] byteBuffers = new ByteBuffer[limit - offset + 1];
+        for (int i = offset; i <= limit; i++) {
+            byteBuffers[i - offset] = byteBuffer(i);
+        }
+        return new CompositeBuffer(byteBuffers, byteBufferList.subList(offset, limit + 1).toArray(new PooledBuffer[0]));
+    }
+
+    /**
+     * 截取[index, index + length)区域的{@link CompositeBuffer}视图, 不复制底层数据, 也不修改read index
+     * 需在{@link #toRead()}之后调用, index从第一个写入的字节开始计算, 与{@link #readerIndex()}一致
+     */
+    public CompositeBuffer slice(int index, int length) {
+        ByteBuffer[] byteBuffers = new ByteBuffer[limit + 1];
+        for (int i = 0; i <= limit; i++) {
+            ByteBuffer duplicate = byteBuffer(i).duplicate();
+            duplicate.position(0);
+            byteBuffers[i] = duplicate;
+        }
+        return new CompositeBuffer(byteBuffers, byteBufferList.subList(0, limit + 1).toArray(new PooledBuffer[0])).slice(index, length);
+    }
+
+    /**
+     * 将readable bytes聚合写入{@code channel}, 不复制底层数据, read index增加已写入字节数
+     * 非阻塞channel可能仅写入部分字节
+     *
+     * @return 写入字节数
+     */
+    public long writeTo(GatheringByteChannel channel) throws IOException {
+        ByteBuffer[] byteBuffers = new ByteBuffer[limit - offset + 1];
+        for (int i = offset; i <= limit; i++) {
+            byteBuffers[i - offset] = byteBuffer(i);
+        }
+
+        long written = 0;
+        while (offset <= limit) {
+            //直接写入底层ByteBuffer, 写入后, position即增加, 等同于read index增加
+            long bytes = channel.write(byteBuffers, 0, byteBuffers.length);
+            if (bytes <= 0) {
+                break;
+            }
+            written += bytes;
+            while (offset < limit && ByteBufferUtils.getReadableBytes(byteBuffer(offset)) <= 0) {
+                offset++;
+            }
+            if (readableBytes() <= 0) {
+                break;
+            }
+        }
+        return written;
+    }
+
     /**
      * 将readable bytes转换成单个{@link ByteBuffer}
      */
@@ -250,7 +544,7 @@ public final class ScalableByteBuffer implements Input, Output {
         int offset = this.offset;
         int arrOffset = 0;
         while (offset <= limit) {
-            ByteBuffer byteBuffer = byteBufferList.get(offset);
+            ByteBuffer byteBuffer = byteBuffer(offset);
             //记录当前position
             byteBuffer.mark();
             int singleReadableBytes = ByteBufferUtils.getReadableBytes(byteBuffer);
@@ -271,13 +565,14 @@ public final class ScalableByteBuffer implements Input, Output {
      */
     public ByteBuffer toByteBuffer(boolean direct) {
         int readableBytes = readableBytes();
+        //返回的ByteBuffer由调用者持有, 故不从allocator分配
+        ByteBuffer ret = direct ? ByteBuffer.allocateDirect(readableBytes) : ByteBuffer.allocate(readableBytes);
         if (readableBytes <= 0) {
-            return newByteBuffer(0);
+            return ret;
         }
-        ByteBuffer ret = newByteBuffer(readableBytes);
         int offset = this.offset;
         while (offset <= limit) {
-            ByteBuffer byteBuffer = byteBufferList.get(offset);
+            ByteBuffer byteBuffer = byteBuffer(offset);
             //记录当前position
             byteBuffer.mark();
             //写入所有可读bytes
@@ -61,4 +61,49 @@ public final class UnsafeByteBufferInput extends ByteBufferInput {
         byteBuffer.position(position + length);
         return this;
     }
+
+    /**
+     * unsafe读取不会校验边界, 故需先校验可读字节数
+     *
+     * @return 当前position
+     */
+    private int checkReadableBytes(int bytes) {
+        int position = byteBuffer.position();
+        if (byteBuffer.limit() - position < bytes) {
+            throw new IndexOutOfBoundsException(String.format("position: %d, bytes: %d, limit: %d", position, bytes, byteBuffer.limit()));
+        }
+        return position;
+    }
+
+    @Override
+    public int readInt() {
+        int position = checkReadableBytes(4);
+        int ret = UnsafeDirectBufferUtil.getInt(address(position));
+        byteBuffer.position(position + 4);
+        return ret;
+    }
+
+    @Override
+    public int readIntLE() {
+        int position = checkReadableBytes(4);
+        int ret = UnsafeDirectBufferUtil.getIntLE(address(position));
+        byteBuffer.position(position + 4);
+        return ret;
+    }
+
+    @Override
+    public long readLong() {
+        int position = checkReadableBytes(8);
+        long ret = UnsafeDirectBufferUtil.getLong(address(position));
+        byteBuffer.position(position + 8);
+        return ret;
+    }
+
+    @Override
+    public long readLongLE() {
+        int position = checkReadableBytes(8);
+        long ret = UnsafeDirectBufferUtil.getLongLE(address(position));
+        byteBuffer.position(position + 8);
+        return ret;
+    }
 }
@@ -69,5 +69,36 @@ public final class UnsafeByteBufferOutput extends ByteBufferOutput {
         byteBuffer.position(position + len);
     }
 
+    @Override
+    public void writeInt(int value) {
+        ensureWritableBytes(4);
+        int position = byteBuffer.position();
+        UnsafeDirectBufferUtil.setInt(address(position), value);
+        byteBuffer.position(position + 4);
+    }
+
+    @Override
+    public void writeIntLE(int value) {
+        ensureWritableBytes(4);
+        int position = byteBuffer.position();
+        UnsafeDirectBufferUtil.setIntLE(address(position), value);
+        byteBuffer.position(position + 4);
+    }
+
+    @Override
+    public void writeLong(long value) {
+        ensureWritableBytes(8);
+        int position = byteBuffer.position();
+        UnsafeDirectBufferUtil.setLong(address(position), value);
+        byteBuffer.position(position + 8);
+    }
+
+    @Override
+    public void writeLongLE(long value) {
+        ensureWritableBytes(8);
+        int position = byteBuffer.position();
+        UnsafeDirectBufferUtil.setLongLE(address(position), value);
+        byteBuffer.position(position + 8);
+    }
 
 }
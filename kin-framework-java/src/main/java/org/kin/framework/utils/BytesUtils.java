@@ -175,8 +175,7 @@ public final class BytesUtils {
      * Read a 32-bit little-endian integer from input.
      */
     public static int readInt32LE(Input input) {
-        return readInt32LE(input.readByte(), input.readByte(),
-                input.readByte(), input.readByte());
+        return input.readIntLE();
     }
 
     /**
@@ -236,10 +235,7 @@ public final class BytesUtils {
      * write a 32-bit little-endian integer to output.
      */
     public static void writeInt32LE(Output output, int value) {
-        output.writeByte((byte) value);
-        output.writeByte((byte) (value >>> 8));
-        output.writeByte((byte) (value >>> 16));
-        output.writeByte((byte) (value >>> 24));
+        output.writeIntLE(value);
     }
 
     /**
@@ -294,10 +290,7 @@ public final class BytesUtils {
      * Read a 64-bit little-endian integer from input.
      */
     public static long readInt64LE(Input input) {
-        return readInt64LE(input.readByte(), input.readByte(),
-                input.readByte(), input.readByte(),
-                input.readByte(), input.readByte(),
-                input.readByte(), input.readByte());
+        return input.readLongLE();
     }
 
     /**
@@ -368,14 +361,7 @@ public final class BytesUtils {
      * write a 64-bit little-endian integer to output.
      */
     public static void writeInt64LE(Output output, long value) {
-        output.writeByte((byte) value);
-        output.writeByte((byte) (value >>> 8));
-        output.writeByte((byte) (value >>> 16));
-        output.writeByte((byte) (value >>> 24));
-        output.writeByte((byte) (value >>> 32));
-        output.writeByte((byte) (value >>> 40));
-        output.writeByte((byte) (value >>> 48));
-        output.writeByte((byte) (value >>> 56));
+        output.writeLongLE(value);
     }
 
     /**
@@ -0,0 +1,125 @@
+package org.kin.framework.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.zip.Checksum;
+
+/**
+ * CRC32C(Castagnoli)校验和, 查表实现
+ * jdk9+自带{@code java.util.zip.CRC32C}, 有硬件指令加速, 故优先使用{@link #newChecksum()}创建
+ * 两者计算结果一致, 可互相校验
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public final class Crc32c implements Checksum {
+    /** reversed Castagnoli多项式 */
+    private static final int POLY = 0x82F63B78;
+    private static final int[] TABLE = new int[256];
+    /** jdk9+, {@code java.util.zip.CRC32C}构造器 */
+    private static final MethodHandle JDK_CRC32C_CONSTRUCTOR;
+    /** jdk9+, {@code Checksum#update(ByteBuffer)} */
+    private static final MethodHandle UPDATE_BYTE_BUFFER;
+
+    static {
+        for (int i = 0; i < TABLE.length; i++) {
+            int crc = i;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLY : crc >>> 1;
+            }
+            TABLE[i] = crc;
+        }
+
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodHandle constructor = null;
+        try {
+            constructor = lookup.findConstructor(Class.forName("java.util.zip.CRC32C"), MethodType.methodType(void.class));
+        } catch (Throwable t) {
+            //jdk8
+        }
+        JDK_CRC32C_CONSTRUCTOR = constructor;
+
+        MethodHandle updateByteBuffer = null;
+        try {
+            updateByteBuffer = lookup.findVirtual(Checksum.class, "update", MethodType.methodType(void.class, ByteBuffer.class));
+        } catch (Throwable t) {
+            //jdk8
+        }
+        UPDATE_BYTE_BUFFER = updateByteBuffer;
+    }
+
+    private int crc = 0xFFFFFFFF;
+
+    /**
+     * 创建CRC32C {@link Checksum}, jdk9+使用{@code java.util.zip.CRC32C}, 否则使用{@link Crc32c}
+     */
+    public static Checksum newChecksum() {
+        if (Objects.nonNull(JDK_CRC32C_CONSTRUCTOR)) {
+            try {
+                return (Checksum) JDK_CRC32C_CONSTRUCTOR.invoke();
+            } catch (Throwable t) {
+                //fallback
+            }
+        }
+        return new Crc32c();
+    }
+
+    /**
+     * 使用{@code buffer}的可读区域更新{@code checksum}, 更新后, position=limit
+     */
+    public static void update(Checksum checksum, ByteBuffer buffer) {
+        if (Objects.nonNull(UPDATE_BYTE_BUFFER)) {
+            try {
+                UPDATE_BYTE_BUFFER.invoke(checksum, buffer);
+                return;
+            } catch (Throwable t) {
+                ExceptionUtils.throwExt(t);
+            }
+        }
+
+        if (buffer.hasArray()) {
+            int position = buffer.position();
+            checksum.update(buffer.array(), buffer.arrayOffset() + position, buffer.remaining());
+            buffer.position(buffer.limit());
+        } else {
+            //jdk8 direct buffer, 分段复制
+            byte[] bytes = new byte[Math.min(buffer.remaining(), 4096)];
+            while (buffer.hasRemaining()) {
+                int len = Math.min(buffer.remaining(), bytes.length);
+                buffer.get(bytes, 0, len);
+                checksum.update(bytes, 0, len);
+            }
+        }
+    }
+
+    @Override
+    public void update(int b) {
+        crc = (crc >>> 8) ^ TABLE[(crc ^ b) & 0xFF];
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        if ((off | len | b.length - off - len) < 0) {
+            throw new ArrayIndexOutOfBoundsException(String.format("array length: %d, off: %d, len: %d", b.length, off, len));
+        }
+        int crc = this.crc;
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            crc = (crc >>> 8) ^ TABLE[(crc ^ b[i]) & 0xFF];
+        }
+        this.crc = crc;
+    }
+
+    @Override
+    public long getValue() {
+        return (~crc) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        crc = 0xFFFFFFFF;
+    }
+}
@@ -47,6 +47,8 @@ public final class UnsafeDirectBufferUtil {
     private static final boolean BIG_ENDIAN_NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
     // Unaligned-access capability
     private static final boolean UNALIGNED;
+    // 是否支持基于unsafe unaligned access heap byte[]
+    private static final boolean HEAP_UNALIGNED;
 
     static {
         boolean _unaligned;
@@ -56,13 +58,29 @@ public final class UnsafeDirectBufferUtil {
             unalignedMethod.setAccessible(true);
             _unaligned = (boolean) unalignedMethod.invoke(null);
         } catch (Throwable t) {
-            if (log.isWarnEnabled()) {
-                log.warn("java.nio.Bits: unavailable, {}.", ExceptionUtils.getExceptionDesc(t));
+            //jdk9+未add-opens java.nio时无法反射访问, 则根据cpu架构判断, 与java.nio.Bits.unaligned()逻辑一致
+            String arch = SysUtils.getSysProperty("os.arch", "");
+            _unaligned = arch.matches("^(i[3-6]86|x86(_64)?|x64|amd64|aarch64|ppc64le|s390x)$");
+            if (log.isDebugEnabled()) {
+                log.debug("java.nio.Bits: unavailable, {}, unaligned access of os.arch '{}': {}", ExceptionUtils.getExceptionDesc(t), arch, _unaligned);
             }
-
-            _unaligned = false;
         }
         UNALIGNED = _unaligned;
+        HEAP_UNALIGNED = UnsafeUtil.hasUnsafe() && _unaligned;
+    }
+
+    /**
+     * 是否支持unaligned access堆外内存
+     */
+    public static boolean isUnaligned() {
+        return UNALIGNED;
+    }
+
+    /**
+     * 是否支持基于unsafe unaligned access heap byte[]
+     */
+    public static boolean isHeapUnaligned() {
+        return HEAP_UNALIGNED;
     }
 
     public static byte getByte(long address) {
@@ -235,6 +253,80 @@ public final class UnsafeDirectBufferUtil {
         }
     }
 
+    //------------------------------------------------------heap byte[]------------------------------------------------------
+    //基于unsafe一次性读写byte[]多字节, 调用者需保证index合法, 不支持unaligned access则逐字节读写
+
+    public static int getInt(byte[] array, int index) {
+        if (HEAP_UNALIGNED) {
+            int v = UnsafeUtil.getInt(array, index);
+            return BIG_ENDIAN_NATIVE_ORDER ? v : Integer.reverseBytes(v);
+        }
+        return BytesUtils.getInt(array, index);
+    }
+
+    public static int getIntLE(byte[] array, int index) {
+        if (HEAP_UNALIGNED) {
+            int v = UnsafeUtil.getInt(array, index);
+            return BIG_ENDIAN_NATIVE_ORDER ? Integer.reverseBytes(v) : v;
+        }
+        return BytesUtils.getIntLE(array, index);
+    }
+
+    public static long getLong(byte[] array, int index) {
+        if (HEAP_UNALIGNED) {
+            long v = UnsafeUtil.getLong(array, index);
+            return BIG_ENDIAN_NATIVE_ORDER ? v : Long.reverseBytes(v);
+        }
+        return BytesUtils.getLong(array, index);
+    }
+
+    public static long getLongLE(byte[] array, int index) {
+        if (HEAP_UNALIGNED) {
+            long v = UnsafeUtil.getLong(array, index);
+            return BIG_ENDIAN_NATIVE_ORDER ? Long.reverseBytes(v) : v;
+        }
+        return BytesUtils.getLongLE(array, index);
+    }
+
+    public static void setInt(byte[] array, int index, int value) {
+        if (HEAP_UNALIGNED) {
+            UnsafeUtil.putInt(array, index, BIG_ENDIAN_NATIVE_ORDER ? value : Integer.reverseBytes(value));
+        } else {
+            BytesUtils.setInt(array, index, value);
+        }
+    }
+
+    public static void setIntLE(byte[] array, int index, int value) {
+        if (HEAP_UNALIGNED) {
+            UnsafeUtil.putInt(array, index, BIG_ENDIAN_NATIVE_ORDER ? Integer.reverseBytes(value) : value);
+        } else {
+            BytesUtils.setIntLE(array, index, value);
+        }
+    }
+
+    public static void setLong(byte[] array, int index, long value) {
+        if (HEAP_UNALIGNED) {
+            UnsafeUtil.putLong(array, index, BIG_ENDIAN_NATIVE_ORDER ? value : Long.reverseBytes(value));
+        } else {
+            BytesUtils.setLong(array, index, value);
+        }
+    }
+
+    public static void setLongLE(byte[] array, int index, long value) {
+        if (HEAP_UNALIGNED) {
+            UnsafeUtil.putLong(array, index, BIG_ENDIAN_NATIVE_ORDER ? Long.reverseBytes(value) : value);
+        } else {
+            BytesUtils.setLongLE(array, index, value);
+        }
+    }
+
+    /**
+     * 堆外内存复制, 分段复制, 以便大块内存复制期间可进入safepoint
+     */
+    public static void copyMemory(long srcAddress, long dstAddress, long length) {
+        copyMemory(null, srcAddress, null, dstAddress, length);
+    }
+
     private static void copyMemory(Object src, long srcOffset, Object dst, long dstOffset, long length) {
         while (length > 0) {
             long size = Math.min(length, UNSAFE_COPY_THRESHOLD);
@@ -35,6 +35,12 @@ public final class UnsafeUtf8Util {
      */
     public static final int MAX_BYTES_PER_CHAR = 3;
 
+    /** 每个字节的最高位, 非0即非ASCII字符 */
+    private static final long NON_ASCII_MASK = 0x8080808080808080L;
+    /** 是否支持unaligned access, 不支持则逐字节处理 */
+    private static final boolean UNALIGNED = UnsafeDirectBufferUtil.isUnaligned();
+    private static final boolean HEAP_UNALIGNED = UnsafeDirectBufferUtil.isHeapUnaligned();
+
     public static String decodeUtf8(byte[] bytes, int index, int size) {
         if ((index | size | bytes.length - index - size) < 0) {
             throw new ArrayIndexOutOfBoundsException(
@@ -44,20 +50,21 @@ public final class UnsafeUtf8Util {
         int offset = index;
         final int limit = offset + size;
 
+        //8字节为单位, 快速定位ASCII前缀
+        int asciiLength = asciiPrefixLength(bytes, offset, limit);
+        if (asciiLength == size && UnsafeUtil.isLatin1StringSupported()) {
+            //纯ASCII, 支持Latin-1字符串, 则直接复制bytes
+            return UnsafeUtil.moveToLatin1String(Arrays.copyOfRange(bytes, offset, limit));
+        }
+
         // The longest possible resulting String is the same as the number of input bytes, when it is
         // all ASCII. For other cases, this over-allocates and we will truncate in the end.
         char[] resultArr = new char[size];
         int resultPos = 0;
 
         // Optimize for 100% ASCII (Hotspot loves small simple top-level loops like this).
-        // This simple loop stops when we encounter a byte >= 0x80 (i.e. non-ASCII).
-        while (offset < limit) {
-            byte b = UnsafeUtil.getByte(bytes, offset);
-            if (!DecodeUtil.isOneByte(b)) {
-                break;
-            }
-            offset++;
-            DecodeUtil.handleOneByte(b, resultArr, resultPos++);
+        while (resultPos < asciiLength) {
+            DecodeUtil.handleOneByte(UnsafeUtil.getByte(bytes, offset++), resultArr, resultPos++);
         }
 
         while (offset < limit) {
@@ -121,20 +128,23 @@ public final class UnsafeUtf8Util {
         long address = UnsafeUtil.addressOffset(buffer) + index;
         final long addressLimit = address + size;
 
+        //8字节为单位, 快速定位ASCII前缀
+        int asciiLength = asciiPrefixLength(address, addressLimit);
+        if (asciiLength == size && UnsafeUtil.isLatin1StringSupported()) {
+            //纯ASCII, 支持Latin-1字符串, 则直接复制bytes
+            byte[] bytes = new byte[size];
+            UnsafeDirectBufferUtil.getBytes(address, bytes, 0, size);
+            return UnsafeUtil.moveToLatin1String(bytes);
+        }
+
         // The longest possible resulting String is the same as the number of input bytes, when it is
         // all ASCII. For other cases, this over-allocates and we will truncate in the end.
         char[] resultArr = new char[size];
         int resultPos = 0;
 
         // Optimize for 100% ASCII (Hotspot loves small simple top-level loops like this).
-        // This simple loop stops when we encounter a byte >= 0x80 (i.e. non-ASCII).
-        while (address < addressLimit) {
-            byte b = UnsafeUtil.getByte(address);
-            if (!DecodeUtil.isOneByte(b)) {
-                break;
-            }
-            address++;
-            DecodeUtil.handleOneByte(b, resultArr, resultPos++);
+        while (resultPos < asciiLength) {
+            DecodeUtil.handleOneByte(UnsafeUtil.getByte(address++), resultArr, resultPos++);
         }
 
         while (address < addressLimit) {
@@ -199,9 +209,17 @@ public final class UnsafeUtf8Util {
                     "Failed writing " + in.charAt(inLimit - 1) + " at index " + (offset + length));
         }
 
+        int inIx = 0;
+        byte[] latin1 = latin1Bytes(in);
+        if (latin1 != null) {
+            //Latin-1字符串, ASCII前缀直接复制
+            inIx = asciiPrefixLength(latin1, 0, inLimit);
+            System.arraycopy(latin1, 0, out, (int) outIx, inIx);
+            outIx += inIx;
+        }
+
         // Designed to take advantage of
         // https://wikis.oracle.com/display/HotSpotInternals/RangeCheckElimination
-        int inIx = 0;
         for (char c; inIx < inLimit && (c = in.charAt(inIx)) < 0x80; ++inIx) {
             UnsafeUtil.putByte(out, outIx++, (byte) c);
         }
@@ -260,9 +278,17 @@ public final class UnsafeUtf8Util {
                     "Failed writing " + in.charAt(inLimit - 1) + " at index " + out.limit());
         }
 
+        int inIx = 0;
+        byte[] latin1 = latin1Bytes(in);
+        if (latin1 != null) {
+            //Latin-1字符串, ASCII前缀直接复制
+            inIx = asciiPrefixLength(latin1, 0, inLimit);
+            UnsafeDirectBufferUtil.setBytes(outIx, latin1, 0, inIx);
+            outIx += inIx;
+        }
+
         // Designed to take advantage of
         // https://wikis.oracle.com/display/HotSpotInternals/RangeCheckElimination
-        int inIx = 0;
         for (char c; inIx < inLimit && (c = in.charAt(inIx)) < 0x80; ++inIx) {
             UnsafeUtil.putByte(outIx++, (byte) c);
         }
@@ -320,6 +346,11 @@ public final class UnsafeUtf8Util {
      *                                  surrogates)
      */
     public static int encodedLength(CharSequence sequence) {
+        byte[] latin1 = latin1Bytes(sequence);
+        if (latin1 != null) {
+            return latin1EncodedLength(latin1);
+        }
+
         // Warning to maintainers: this implementation is highly optimized.
         int utf16Length = sequence.length();
         int utf8Length = utf16Length;
@@ -372,6 +403,68 @@ public final class UnsafeUtf8Util {
         return utf8Length;
     }
 
+    /**
+     * 若{@code in}为Latin-1字符串, 则返回其底层byte[], 否则返回null
+     */
+    private static byte[] latin1Bytes(CharSequence in) {
+        return in instanceof String ? UnsafeUtil.getLatin1Bytes((String) in) : null;
+    }
+
+    /**
+     * Latin-1字符串utf8编码后的字节数, 非ASCII字符(0x80-0xFF)占2个字节
+     * 支持unaligned access时, 8字节为单位, 统计非ASCII字符数量
+     */
+    private static int latin1EncodedLength(byte[] latin1) {
+        int length = latin1.length;
+        int utf8Length = length;
+        int i = 0;
+        if (HEAP_UNALIGNED) {
+            for (; i <= length - 8; i += 8) {
+                utf8Length += Long.bitCount(UnsafeUtil.getLong(latin1, i) & NON_ASCII_MASK);
+            }
+        }
+        for (; i < length; i++) {
+            utf8Length += UnsafeUtil.getByte(latin1, i) >>> 31;
+        }
+        return utf8Length;
+    }
+
+    /**
+     * 支持unaligned access时, 8字节为单位, 计算bytes[offset, limit)的ASCII前缀长度
+     */
+    private static int asciiPrefixLength(byte[] bytes, int offset, int limit) {
+        int i = offset;
+        if (HEAP_UNALIGNED) {
+            for (; i <= limit - 8; i += 8) {
+                if ((UnsafeUtil.getLong(bytes, i) & NON_ASCII_MASK) != 0) {
+                    break;
+                }
+            }
+        }
+        while (i < limit && DecodeUtil.isOneByte(UnsafeUtil.getByte(bytes, i))) {
+            i++;
+        }
+        return i - offset;
+    }
+
+    /**
+     * 支持unaligned access时, 8字节为单位, 计算[address, addressLimit)的ASCII前缀长度
+     */
+    private static int asciiPrefixLength(long address, long addressLimit) {
+        long i = address;
+        if (UNALIGNED) {
+            for (; i <= addressLimit - 8; i += 8) {
+                if ((UnsafeUtil.getLong(i) & NON_ASCII_MASK) != 0) {
+                    break;
+                }
+            }
+        }
+        while (i < addressLimit && DecodeUtil.isOneByte(UnsafeUtil.getByte(i))) {
+            i++;
+        }
+        return (int) (i - address);
+    }
+
     /**
      * Utility methods for decoding bytes into {@link String}. Callers are responsible for extracting
      * bytes (possibly using Unsafe methods), and checking remaining bytes. All other UTF-8 validity
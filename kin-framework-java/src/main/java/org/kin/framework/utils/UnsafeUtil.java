@@ -21,6 +21,7 @@ import sun.misc.Unsafe;
 
 import javax.annotation.Nonnull;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.security.AccessController;
@@ -66,6 +67,22 @@ public final class UnsafeUtil {
 
     private static final long STRING_VALUE_OFFSET = objectFieldOffset(stringValueField());
 
+    /** jdk9+ compact strings, {@code String#value}(byte[])偏移量 */
+    private static final long STRING_BYTES_VALUE_OFFSET = stringFieldOffset("value", byte[].class);
+    /** jdk9+ compact strings, {@code String#coder}偏移量 */
+    private static final long STRING_CODER_OFFSET = stringFieldOffset("coder", byte.class);
+    /** {@code String#LATIN1} */
+    private static final byte LATIN1 = 0;
+    /** 是否支持直接访问Latin-1字符串底层byte[], 即jdk9+且开启compact strings */
+    private static final boolean LATIN1_STRING_SUPPORTED = latin1StringSupported();
+
+    /** jdk9+, {@code Unsafe#invokeCleaner(ByteBuffer)} */
+    private static final Method INVOKE_CLEANER_METHOD = invokeCleanerMethod();
+    /** jdk8, {@code sun.nio.ch.DirectBuffer#cleaner()} */
+    private static final Method DIRECT_BUFFER_CLEANER_METHOD = directBufferCleanerMethod();
+    /** jdk8, {@code sun.misc.Cleaner#clean()} */
+    private static final Method CLEANER_CLEAN_METHOD = cleanerCleanMethod();
+
     /**
      * Whether or not can use the unsafe api.
      */
@@ -153,6 +170,22 @@ public final class UnsafeUtil {
         UNSAFE_ACCESSOR.putObject(target, offset, value);
     }
 
+    public static long getLong(byte[] target, long index) {
+        return UNSAFE_ACCESSOR.getLong(target, BYTE_ARRAY_BASE_OFFSET + index);
+    }
+
+    public static void putLong(byte[] target, long index, long value) {
+        UNSAFE_ACCESSOR.putLong(target, BYTE_ARRAY_BASE_OFFSET + index, value);
+    }
+
+    public static int getInt(byte[] target, long index) {
+        return UNSAFE_ACCESSOR.getInt(target, BYTE_ARRAY_BASE_OFFSET + index);
+    }
+
+    public static void putInt(byte[] target, long index, int value) {
+        UNSAFE_ACCESSOR.putInt(target, BYTE_ARRAY_BASE_OFFSET + index, value);
+    }
+
     public static byte getByte(byte[] target, long index) {
         return UNSAFE_ACCESSOR.getByte(target, BYTE_ARRAY_BASE_OFFSET + index);
     }
@@ -233,6 +266,52 @@ public final class UnsafeUtil {
         UNSAFE_ACCESSOR.putLong(address, value);
     }
 
+    /**
+     * 申请堆外内存, 不受-XX:MaxDirectMemorySize限制, 需调用{@link #freeMemory(long)}释放
+     *
+     * @return 内存地址
+     */
+    public static long allocateMemory(long bytes) {
+        return UNSAFE_ACCESSOR.allocateMemory(bytes);
+    }
+
+    /**
+     * 释放{@link #allocateMemory(long)}申请的堆外内存
+     */
+    public static void freeMemory(long address) {
+        UNSAFE_ACCESSOR.freeMemory(address);
+    }
+
+    public static void setMemory(long address, long bytes, byte value) {
+        UNSAFE_ACCESSOR.setMemory(address, bytes, value);
+    }
+
+    public static long getLongVolatile(long address) {
+        return UNSAFE_ACCESSOR.getLongVolatile(null, address);
+    }
+
+    public static void putLongVolatile(long address, long value) {
+        UNSAFE_ACCESSOR.putLongVolatile(null, address, value);
+    }
+
+    public static boolean compareAndSwapLong(long address, long expect, long update) {
+        return UNSAFE_ACCESSOR.compareAndSwapLong(null, address, expect, update);
+    }
+
+    /**
+     * 之前的load不会与之后的load/store重排序
+     */
+    public static void loadFence() {
+        UNSAFE_ACCESSOR.loadFence();
+    }
+
+    /**
+     * 之前的load/store不会与之后的store重排序
+     */
+    public static void storeFence() {
+        UNSAFE_ACCESSOR.storeFence();
+    }
+
     public static byte getByteVolatile(byte[] target, long index) {
         return UNSAFE_ACCESSOR.getByteVolatile(target, BYTE_ARRAY_BASE_OFFSET + index);
     }
@@ -340,6 +419,47 @@ public final class UnsafeUtil {
         UNSAFE_ACCESSOR.throwException(t);
     }
 
+    /**
+     * 是否支持立即释放direct buffer内存
+     */
+    public static boolean isFreeDirectBufferSupported() {
+        return INVOKE_CLEANER_METHOD != null || (DIRECT_BUFFER_CLEANER_METHOD != null && CLEANER_CLEAN_METHOD != null);
+    }
+
+    /**
+     * 立即释放direct buffer(包括{@link java.nio.MappedByteBuffer})占用的内存或者解除文件映射, 而不是等待gc
+     * 释放后不能再访问该buffer以及基于该buffer slice或者duplicate出来的buffer, 否则会导致jvm crash
+     * slice或者duplicate出来的buffer并不持有内存, 会直接忽略
+     *
+     * @return 是否释放成功
+     */
+    public static boolean freeDirectBuffer(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return false;
+        }
+        try {
+            if (INVOKE_CLEANER_METHOD != null) {
+                //jdk9+, slice或者duplicate出来的buffer会抛IllegalArgumentException
+                INVOKE_CLEANER_METHOD.invoke(UNSAFE, buffer);
+                return true;
+            }
+            if (DIRECT_BUFFER_CLEANER_METHOD != null && CLEANER_CLEAN_METHOD != null) {
+                //jdk8, slice或者duplicate出来的buffer, cleaner为null
+                Object cleaner = DIRECT_BUFFER_CLEANER_METHOD.invoke(buffer);
+                if (cleaner == null) {
+                    return false;
+                }
+                CLEANER_CLEAN_METHOD.invoke(cleaner);
+                return true;
+            }
+        } catch (Throwable t) {
+            if (log.isDebugEnabled()) {
+                log.debug("free direct buffer fail, {}", ExceptionUtils.getExceptionDesc(t));
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns a new {@link String} backed by the given {@code chars}.
      * The char array should not be mutated any more after calling
@@ -361,6 +481,43 @@ public final class UnsafeUtil {
         return str;
     }
 
+    /**
+     * 是否支持直接访问Latin-1字符串底层byte[], 即jdk9+且开启compact strings
+     */
+    public static boolean isLatin1StringSupported() {
+        return LATIN1_STRING_SUPPORTED;
+    }
+
+    /**
+     * jdk9+ compact strings, 若{@code s}为Latin-1编码, 则返回其底层byte[], 否则返回null
+     * 返回的byte[]不能修改
+     */
+    public static byte[] getLatin1Bytes(String s) {
+        if (!LATIN1_STRING_SUPPORTED || UNSAFE_ACCESSOR.getByte(s, STRING_CODER_OFFSET) != LATIN1) {
+            return null;
+        }
+        return (byte[]) UNSAFE_ACCESSOR.getObject(s, STRING_BYTES_VALUE_OFFSET);
+    }
+
+    /**
+     * jdk9+ compact strings, 返回以{@code bytes}作为底层Latin-1 byte[]的{@link String}, 不支持则返回null
+     * 调用后, {@code bytes}不能再修改
+     */
+    public static String moveToLatin1String(byte[] bytes) {
+        if (!LATIN1_STRING_SUPPORTED) {
+            return null;
+        }
+        String str;
+        try {
+            str = (String) UNSAFE_ACCESSOR.allocateInstance(String.class);
+        } catch (InstantiationException e) {
+            return null;
+        }
+        UNSAFE_ACCESSOR.putObject(str, STRING_BYTES_VALUE_OFFSET, bytes);
+        UNSAFE_ACCESSOR.putByte(str, STRING_CODER_OFFSET, LATIN1);
+        return str;
+    }
+
     /**
      * Returns the system {@link ClassLoader}.
      */
@@ -372,6 +529,42 @@ public final class UnsafeUtil {
         }
     }
 
+    /**
+     * jdk9+, 获取{@code Unsafe#invokeCleaner(ByteBuffer)}
+     */
+    private static Method invokeCleanerMethod() {
+        if (UNSAFE == null) {
+            return null;
+        }
+        try {
+            return UNSAFE.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * jdk8, 获取{@code sun.nio.ch.DirectBuffer#cleaner()}
+     */
+    private static Method directBufferCleanerMethod() {
+        try {
+            return Class.forName("sun.nio.ch.DirectBuffer", false, getSystemClassLoader()).getMethod("cleaner");
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * jdk8, 获取{@code sun.misc.Cleaner#clean()}
+     */
+    private static Method cleanerCleanMethod() {
+        try {
+            return Class.forName("sun.misc.Cleaner", false, getSystemClassLoader()).getMethod("clean");
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
     /**
      * Finds the address field within a direct {@link Buffer}.
      */
@@ -386,6 +579,41 @@ public final class UnsafeUtil {
         return field(String.class, "value", char[].class);
     }
 
+    /**
+     * 获取{@link String}指定字段的偏移量, 仅用于{@link sun.misc.Unsafe}访问, 故不需要setAccessible, 不存在或者类型不匹配则返回-1
+     */
+    private static long stringFieldOffset(String fieldName, Class<?> expectedType) {
+        if (!hasUnsafe()) {
+            return -1;
+        }
+        try {
+            Field field = String.class.getDeclaredField(fieldName);
+            if (!field.getType().equals(expectedType)) {
+                return -1;
+            }
+            return UNSAFE_ACCESSOR.objectFieldOffset(field);
+        } catch (Throwable t) {
+            return -1;
+        }
+    }
+
+    /**
+     * 是否支持直接访问Latin-1字符串底层byte[]
+     */
+    private static boolean latin1StringSupported() {
+        if (STRING_BYTES_VALUE_OFFSET == -1 || STRING_CODER_OFFSET == -1) {
+            return false;
+        }
+        try {
+            //关闭compact strings时, 所有字符串都是UTF16编码
+            String latin1 = "kin";
+            return UNSAFE_ACCESSOR.getByte(latin1, STRING_CODER_OFFSET) == LATIN1
+                    && ((byte[]) UNSAFE_ACCESSOR.getObject(latin1, STRING_BYTES_VALUE_OFFSET)).length == latin1.length();
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
     /**
      * Gets the field with the given name within the class, or
      * {@code null} if not found. If found, the field is made accessible.
@@ -555,6 +783,30 @@ public final class UnsafeUtil {
             this.unsafe.copyMemory(srcAddress, dstAddress, bytes);
         }
 
+        public boolean compareAndSwapLong(Object target, long offset, long expect, long update) {
+            return this.unsafe.compareAndSwapLong(target, offset, expect, update);
+        }
+
+        public long allocateMemory(long bytes) {
+            return this.unsafe.allocateMemory(bytes);
+        }
+
+        public void freeMemory(long address) {
+            this.unsafe.freeMemory(address);
+        }
+
+        public void setMemory(long address, long bytes, byte value) {
+            this.unsafe.setMemory(address, bytes, value);
+        }
+
+        public void loadFence() {
+            this.unsafe.loadFence();
+        }
+
+        public void storeFence() {
+            this.unsafe.storeFence();
+        }
+
         public byte getByteVolatile(Object target, long offset) {
             return this.unsafe.getByteVolatile(target, offset);
         }
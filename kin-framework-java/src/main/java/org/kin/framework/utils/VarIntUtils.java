@@ -5,6 +5,7 @@ import org.kin.framework.io.*;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * 变长整形工具类
@@ -29,6 +30,17 @@ public final class VarIntUtils {
     }
 
     public static int readRawVarInt32(ByteBuffer byteBuffer, boolean zigzag) {
+        int position = byteBuffer.position();
+        if (byteBuffer.limit() - position >= 8) {
+            long swar = decodeSwar(getLongLE(byteBuffer, position));
+            int len = swarLength(swar);
+            if (len <= 5) {
+                byteBuffer.position(position + len);
+                int rawVarInt32 = (int) swar;
+                return zigzag ? decodeZigZag32(rawVarInt32) : rawVarInt32;
+            }
+        }
+        //临近buffer末尾或者10字节的负数, 逐字节读
         return readRawVarInt32(new ByteBufferInput(byteBuffer), zigzag);
     }
 
@@ -61,9 +73,28 @@ public final class VarIntUtils {
     }
 
     public static long readRawVarInt64(ByteBuffer byteBuffer, boolean zigzag) {
+        int position = byteBuffer.position();
+        if (byteBuffer.limit() - position >= 8) {
+            long swar = decodeSwar(getLongLE(byteBuffer, position));
+            int len = swarLength(swar);
+            if (len <= 8) {
+                byteBuffer.position(position + len);
+                long rawVarInt64 = swarValue(swar);
+                return zigzag ? decodeZigZag64(rawVarInt64) : rawVarInt64;
+            }
+        }
+        //临近buffer末尾或者超过8字节, 逐字节读
         return readRawVarInt64(new ByteBufferInput(byteBuffer), zigzag);
     }
 
+    /**
+     * 以little-endian读取{@code index}开始的8字节, 不修改position
+     */
+    private static long getLongLE(ByteBuffer byteBuffer, int index) {
+        long word = byteBuffer.getLong(index);
+        return byteBuffer.order() == ByteOrder.LITTLE_ENDIAN ? word : Long.reverseBytes(word);
+    }
+
     public static long readRawVarInt64(InputStream inputStream) {
         return readRawVarInt64(inputStream, false);
     }
@@ -436,13 +467,141 @@ public final class VarIntUtils {
         return n;
     }
 
-    //----------------------------------------------------------------------------------------------------------------
+    //------------------------------------------SWAR(SIMD within a register)------------------------------------------
+    /** 每个字节的最高位, 即var int的continuation bit */
+    private static final long MSB_MASK = 0x8080808080808080L;
+    /** SWAR解析结果中值占用的bits */
+    private static final long SWAR_VALUE_MASK = 0x00FFFFFFFFFFFFFFL;
 
+    /**
+     * 一次处理8字节, 以SWAR方式解析var int/long
+     * 先通过continuation bit定位结束字节, 然后将每字节的低7位压缩拼接
+     *
+     * @param word little-endian读取的接下来8字节
+     * @return 高8位为var int占用字节数, 低56位为解析出的值, 8字节内没有结束字节则返回-1, 即{@link #swarLength(long)}为255
+     */
+    public static long decodeSwar(long word) {
+        //结束字节的最高位
+        long stops = ~word & MSB_MASK;
+        if (stops == 0) {
+            return -1;
+        }
+        //保留结束字节及之前的字节, 并去掉continuation bit
+        long x = word & (stops ^ (stops - 1)) & ~MSB_MASK;
+        //7bits*2 -> 14bits*2 -> 28bits*2
+        x = (x & 0x007F007F007F007FL) | ((x & 0x7F007F007F007F00L) >>> 1);
+        x = (x & 0x00003FFF00003FFFL) | ((x & 0x3FFF00003FFF0000L) >>> 2);
+        x = (x & 0x000000000FFFFFFFL) | ((x & 0x0FFFFFFF00000000L) >>> 4);
+        return ((long) ((Long.numberOfTrailingZeros(stops) + 1) >>> 3) << 56) | x;
+    }
 
+    /**
+     * @return {@link #decodeSwar(long)}结果中var int占用字节数
+     */
+    public static int swarLength(long swar) {
+        return (int) (swar >>> 56);
+    }
 
+    /**
+     * @return {@link #decodeSwar(long)}结果中解析出的值
+     */
+    public static long swarValue(long swar) {
+        return swar & SWAR_VALUE_MASK;
+    }
 
+    /**
+     * 一次处理8字节, 以SWAR方式编码var int/long, 即{@link #decodeSwar(long)}的逆过程
+     *
+     * @param value 无符号值, 需小于2^56, 即编码后不超过8字节
+     * @return little-endian的编码结果, 有效字节数为{@link #computeRawVarInt64Size(long)}
+     */
+    private static long encodeSwar(long value, int len) {
+        //28bits*2 -> 14bits*2 -> 7bits*2
+        long x = (value & 0x000000000FFFFFFFL) | ((value & 0x00FFFFFFF0000000L) << 4);
+        x = (x & 0x00003FFF00003FFFL) | ((x & 0x0FFFC0000FFFC000L) << 2);
+        x = (x & 0x007F007F007F007FL) | ((x & 0x3F803F803F803F80L) << 1);
+        //除最后一个字节外, 都设置continuation bit
+        return x | (MSB_MASK & ((1L << ((len - 1) << 3)) - 1));
+    }
 
+    //------------------------------------------------------batch------------------------------------------------------
+    /** 批量编码时, 每批最多编码的数量 */
+    private static final int BATCH_SIZE = 256;
 
+    /**
+     * 批量读取var int, 每个var int都使用{@link Input#readVarInt32(boolean)}读取, 以便使用{@link Input}实现的快速读取
+     */
+    public static void readRawVarInt32s(Input input, int[] dst, int offset, int length, boolean zigzag) {
+        checkBatchIndex(dst.length, offset, length);
+        for (int i = offset; i < offset + length; i++) {
+            dst[i] = input.readVarInt32(zigzag);
+        }
+    }
 
+    /**
+     * 批量读取var long, 每个var long都使用{@link Input#readVarInt64(boolean)}读取, 以便使用{@link Input}实现的快速读取
+     */
+    public static void readRawVarInt64s(Input input, long[] dst, int offset, int length, boolean zigzag) {
+        checkBatchIndex(dst.length, offset, length);
+        for (int i = offset; i < offset + length; i++) {
+            dst[i] = input.readVarInt64(zigzag);
+        }
+    }
 
+    /**
+     * 批量写入var int, 先以SWAR方式编码至临时byte[], 再一次性写入{@code output}, 减少逐字节写的开销
+     */
+    public static void writeRawVarInt32s(Output output, int[] values, int offset, int length, boolean zigzag) {
+        checkBatchIndex(values.length, offset, length);
+        //每个var int最多5字节, 额外预留8字节, 保证每次都可以写入完整的long
+        byte[] bytes = new byte[Math.min(length, BATCH_SIZE) * 5 + 8];
+        int end = offset + length;
+        while (offset < end) {
+            int batchEnd = Math.min(end, offset + BATCH_SIZE);
+            int idx = 0;
+            for (; offset < batchEnd; offset++) {
+                int value = zigzag ? encodeZigZag32(values[offset]) : values[offset];
+                int len = computeRawVarInt32Size(value);
+                UnsafeDirectBufferUtil.setLongLE(bytes, idx, encodeSwar(value & 0xFFFFFFFFL, len));
+                idx += len;
+            }
+            output.writeBytes(bytes, 0, idx);
+        }
+    }
+
+    /**
+     * 批量写入var long, 先以SWAR方式编码至临时byte[], 再一次性写入{@code output}, 减少逐字节写的开销
+     */
+    public static void writeRawVarInt64s(Output output, long[] values, int offset, int length, boolean zigzag) {
+        checkBatchIndex(values.length, offset, length);
+        //每个var long最多10字节, 额外预留8字节, 保证每次都可以写入完整的long
+        byte[] bytes = new byte[Math.min(length, BATCH_SIZE) * 10 + 8];
+        int end = offset + length;
+        while (offset < end) {
+            int batchEnd = Math.min(end, offset + BATCH_SIZE);
+            int idx = 0;
+            for (; offset < batchEnd; offset++) {
+                long value = zigzag ? encodeZigZag64(values[offset]) : values[offset];
+                int len = computeRawVarInt64Size(value);
+                if (len <= 8) {
+                    UnsafeDirectBufferUtil.setLongLE(bytes, idx, encodeSwar(value, len));
+                    idx += len;
+                } else {
+                    //超过8字节, 逐字节编码
+                    while ((value & ~0x7FL) != 0) {
+                        bytes[idx++] = (byte) ((value & 0x7F) | 0x80);
+                        value >>>= 7;
+                    }
+                    bytes[idx++] = (byte) value;
+                }
+            }
+            output.writeBytes(bytes, 0, idx);
+        }
+    }
+
+    private static void checkBatchIndex(int arrLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > arrLength) {
+            throw new IndexOutOfBoundsException(String.format("offset: %d, length: %d, array length: %d", offset, length, arrLength));
+        }
+    }
 }
\ No newline at end of file
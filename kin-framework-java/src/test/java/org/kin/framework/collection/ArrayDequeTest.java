@@ -0,0 +1,79 @@
+package org.kin.framework.collection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class ArrayDequeTest {
+    public static void main(String[] args) throws Exception {
+        //head绕回数组开头
+        ArrayDeque<Integer> deque = new ArrayDeque<>();
+        for (int i = 0; i < 10; i++) {
+            deque.addLast(i);
+        }
+        for (int i = 0; i < 8; i++) {
+            deque.pollFirst();
+        }
+        for (int i = 10; i < 20; i++) {
+            deque.addLast(i);
+        }
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 8; i < 20; i++) {
+            expected.add(i);
+        }
+        check(deque.equals(expected));
+
+        //添加自身
+        deque.addAll(deque);
+        List<Integer> doubled = new ArrayList<>(expected);
+        doubled.addAll(expected);
+        check(deque.equals(doubled));
+        //添加自身的视图, 且触发扩容
+        deque.addAll(deque.subList(0, 12));
+        doubled.addAll(expected);
+        check(deque.equals(doubled) && deque.size() == 36);
+
+        //序列化仅写入有效elements, 反序列化后head重新对齐
+        deque.removeRange(0, 5);
+        deque.addFirst(-1);
+        deque.add(3, -2);
+        deque.remove(20);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(deque);
+        }
+        ArrayDeque<?> copy;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            copy = (ArrayDeque<?>) ois.readObject();
+        }
+        System.out.println(Arrays.toString(copy.toArray()));
+        check(copy.equals(deque) && copy.size() == deque.size());
+        check(copy.peekFirst().equals(-1) && copy.peekLast().equals(19));
+        ((ArrayDeque<Integer>) copy).addFirst(-3);
+        check(copy.get(0).equals(-3) && copy.size() == deque.size() + 1);
+
+        //空deque
+        bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(new ArrayDeque<>());
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            check(((ArrayDeque<?>) ois.readObject()).isEmpty());
+        }
+        System.out.println("finish");
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.kin.framework.collection;
+
+import org.kin.framework.io.ByteBufferInput;
+import org.kin.framework.io.ByteBufferOutput;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class BloomFilterTest {
+    public static void main(String[] args) throws Exception {
+        int n = 1_000_000;
+        double fpp = 0.01;
+
+        //并发put, 堆外存储
+        BloomFilter filter = BloomFilter.create(n, fpp, true);
+        Thread[] writers = new Thread[4];
+        for (int i = 0; i < writers.length; i++) {
+            int offset = i;
+            writers[i] = new Thread(() -> {
+                for (int j = offset; j < n; j += writers.length) {
+                    filter.put(j);
+                }
+            });
+            writers[i].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        for (int i = 0; i < n; i++) {
+            check(filter.mightContain(i));
+        }
+        int falsePositives = 0;
+        for (int i = n; i < 2 * n; i++) {
+            if (filter.mightContain(i)) {
+                falsePositives++;
+            }
+        }
+        double actualFpp = (double) falsePositives / n;
+        System.out.println(filter + ", fpp=" + actualFpp + ", expectedFpp=" + filter.expectedFpp() + ", approximateElementCount=" + filter.approximateElementCount());
+        check(actualFpp < fpp * 1.5);
+        check(Math.abs(filter.approximateElementCount() - n) < n * 0.05);
+
+        //序列化
+        ByteBufferOutput output = new ByteBufferOutput(ByteBuffer.allocate(1024));
+        filter.writeTo(output);
+        ByteBuffer byteBuffer = output.getByteBuffer();
+        byteBuffer.flip();
+        BloomFilter copy = BloomFilter.readFrom(new ByteBufferInput(byteBuffer));
+        check(copy.getBitSize() == filter.getBitSize() && copy.bitCount() == filter.bitCount());
+        filter.close();
+        //堆外内存释放后不能再访问
+        try {
+            filter.mightContain(0);
+            check(false);
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+
+        //合并
+        BloomFilter other = BloomFilter.create(n, fpp);
+        other.put("merged");
+        check(!copy.mightContain("merged"));
+        copy.merge(other);
+        check(copy.mightContain("merged") && copy.mightContain(0));
+
+        //counting bloom filter
+        CountingBloomFilter countingFilter = CountingBloomFilter.create(10_000, fpp);
+        for (int i = 0; i < 10_000; i++) {
+            countingFilter.put(i);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            check(countingFilter.remove(i));
+        }
+        int remain = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 2 == 1) {
+                check(countingFilter.mightContain(i));
+            } else if (countingFilter.mightContain(i)) {
+                remain++;
+            }
+        }
+        System.out.println(countingFilter + ", removed but might contain=" + remain);
+        check(remain < 10_000 * fpp);
+        for (int i = 0; i < 20; i++) {
+            countingFilter.put("saturated");
+        }
+        check(countingFilter.count("saturated") == 15);
+        output = new ByteBufferOutput(ByteBuffer.allocate(1024));
+        countingFilter.writeTo(output);
+        byteBuffer = output.getByteBuffer();
+        byteBuffer.flip();
+        CountingBloomFilter countingCopy = CountingBloomFilter.readFrom(new ByteBufferInput(byteBuffer), true);
+        countingCopy.merge(countingFilter);
+        check(countingCopy.count(1) >= 2 && countingCopy.count("saturated") == 15);
+        countingCopy.close();
+
+        //count-min sketch, 热点key
+        CountMinSketch sketch = CountMinSketch.create(0.001, 0.99);
+        Thread[] adders = new Thread[4];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new Thread(() -> {
+                for (int j = 0; j < 100_000; j++) {
+                    sketch.add("hot", 1);
+                    sketch.add(j, 1);
+                }
+            });
+            adders[i].start();
+        }
+        for (Thread adder : adders) {
+            adder.join();
+        }
+        long hot = sketch.estimateCount("hot");
+        System.out.println(sketch + ", hot=" + hot + ", cold=" + sketch.estimateCount(1));
+        check(sketch.totalCount() == 800_000);
+        check(hot >= 400_000 && hot <= 400_000 + 0.001 * sketch.totalCount());
+        check(sketch.estimateCount(1) >= 4);
+        output = new ByteBufferOutput(ByteBuffer.allocate(1024));
+        sketch.writeTo(output);
+        byteBuffer = output.getByteBuffer();
+        byteBuffer.flip();
+        CountMinSketch sketchCopy = CountMinSketch.readFrom(new ByteBufferInput(byteBuffer));
+        sketchCopy.merge(sketch);
+        check(sketchCopy.estimateCount("hot") == 2 * hot && sketchCopy.totalCount() == 1_600_000);
+
+        //类型标识不匹配
+        output = new ByteBufferOutput(ByteBuffer.allocate(1024));
+        copy.writeTo(output);
+        byteBuffer = output.getByteBuffer();
+        byteBuffer.flip();
+        try {
+            CountMinSketch.readFrom(new ByteBufferInput(byteBuffer));
+            check(false);
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+        byteBuffer.rewind();
+        try {
+            CountingBloomFilter.readFrom(new ByteBufferInput(byteBuffer));
+            check(false);
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+        byteBuffer.rewind();
+        check(BloomFilter.readFrom(new ByteBufferInput(byteBuffer)).bitCount() == copy.bitCount());
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+}
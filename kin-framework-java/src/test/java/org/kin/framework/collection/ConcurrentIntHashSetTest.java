@@ -0,0 +1,115 @@
+package org.kin.framework.collection;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class ConcurrentIntHashSetTest {
+    public static void main(String[] args) throws Exception {
+        //空slot标识值0
+        ConcurrentIntHashSet set = new ConcurrentIntHashSet(16, 1);
+        check(!set.contains(0) && !set.remove(0));
+        check(set.add(0) && !set.add(0) && set.contains(0) && set.size() == 1);
+        check(set.add(1) && set.add(-1));
+        check(Arrays.equals(sorted(set.toArray()), new int[]{-1, 0, 1}));
+        int[] sum = {0};
+        int[] count = {0};
+        set.forEach(item -> {
+            sum[0] += item;
+            count[0]++;
+        });
+        check(sum[0] == 0 && count[0] == 3);
+        check(set.remove(0) && !set.contains(0) && !set.remove(0) && set.size() == 2);
+        check(set.contains(1) && set.contains(-1));
+        set.add(0);
+        set.clear();
+        check(set.isEmpty() && !set.contains(0) && set.add(0));
+
+        //后移删除, 构造跨越table末尾的冲突链
+        Method hashMethod = ConcurrentIntHashSet.class.getDeclaredMethod("hash", int.class);
+        hashMethod.setAccessible(true);
+        int mask = 16 - 1;
+        List<Integer> cluster = new ArrayList<>();
+        int[] idealNum = new int[16];
+        int[] wanted = new int[16];
+        wanted[14] = 3;
+        wanted[15] = 2;
+        wanted[0] = 2;
+        wanted[1] = 1;
+        for (int key = 1; cluster.size() < 8; key++) {
+            int ideal = (int) (long) hashMethod.invoke(null, key) & mask;
+            if (idealNum[ideal] < wanted[ideal]) {
+                idealNum[ideal]++;
+                cluster.add(key);
+            }
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int round = 0; round < 1000; round++) {
+            ConcurrentIntHashSet clusterSet = new ConcurrentIntHashSet(8, 1);
+            check(clusterSet.capacity() == 16);
+            Collections.shuffle(cluster, random);
+            for (int key : cluster) {
+                check(clusterSet.add(key));
+            }
+            //未扩容, 仍在同一table内
+            check(clusterSet.capacity() == 16);
+            Collections.shuffle(cluster, random);
+            for (int i = 0; i < cluster.size(); i++) {
+                check(clusterSet.remove(cluster.get(i)));
+                for (int j = 0; j < cluster.size(); j++) {
+                    check(clusterSet.contains(cluster.get(j)) == (j > i));
+                }
+            }
+            check(clusterSet.isEmpty());
+        }
+
+        //扩容与缩容
+        ConcurrentIntHashSet resizable = new ConcurrentIntHashSet(8, 1);
+        long initCapacity = resizable.capacity();
+        for (int i = 1; i <= 10; i++) {
+            resizable.add(i);
+        }
+        check(resizable.capacity() == initCapacity);
+        //超过16 * 0.66, 扩容
+        resizable.add(11);
+        check(resizable.capacity() == initCapacity * 2);
+        int[] items = {Integer.MIN_VALUE, Integer.MAX_VALUE, -1, 0};
+        for (int item : items) {
+            resizable.add(item);
+        }
+        for (int i = 12; i <= 10_000; i++) {
+            resizable.add(i * 31);
+        }
+        long maxCapacity = resizable.capacity();
+        check(maxCapacity > initCapacity * 2);
+        for (int i = 12; i <= 10_000; i++) {
+            check(resizable.contains(i * 31));
+            check(resizable.remove(i * 31));
+        }
+        System.out.println("capacity init=" + initCapacity + ", max=" + maxCapacity + ", after remove=" + resizable.capacity());
+        check(resizable.capacity() < maxCapacity && resizable.capacity() >= initCapacity);
+        check(resizable.size() == 11 + items.length);
+        for (int i = 1; i <= 11; i++) {
+            check(resizable.contains(i));
+        }
+        for (int item : items) {
+            check(resizable.contains(item));
+        }
+        System.out.println("finish");
+    }
+
+    private static int[] sorted(int[] items) {
+        Arrays.sort(items);
+        return items;
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.kin.framework.collection;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class ConcurrentLongHashSetTest {
+    public static void main(String[] args) throws Exception {
+        //与HashSet对比, 包括0和负数
+        ConcurrentLongHashSet longSet = new ConcurrentLongHashSet();
+        ConcurrentIntHashSet intSet = new ConcurrentIntHashSet(16, 4);
+        Set<Long> expected = new HashSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 2_000_000; i++) {
+            long item = random.nextLong(-100_000, 100_000);
+            if (random.nextInt(3) == 0) {
+                boolean removed = expected.remove(item);
+                check(longSet.remove(item) == removed);
+                check(intSet.remove((int) item) == removed);
+            } else {
+                boolean added = expected.add(item);
+                check(longSet.add(item) == added);
+                check(intSet.add((int) item) == added);
+            }
+        }
+        check(longSet.size() == expected.size() && intSet.size() == expected.size());
+        for (long item = -100_000; item < 100_000; item++) {
+            check(longSet.contains(item) == expected.contains(item));
+            check(intSet.contains((int) item) == expected.contains(item));
+        }
+        check(longSet.toArray().length == expected.size());
+        long capacity = longSet.capacity();
+        for (Long item : expected) {
+            longSet.remove(item);
+        }
+        System.out.println("capacity before remove=" + capacity + ", after remove=" + longSet.capacity());
+        check(longSet.isEmpty() && longSet.capacity() < capacity);
+
+        //并发增删查, 每个线程仅修改自己的id
+        ConcurrentLongHashSet sessions = new ConcurrentLongHashSet();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            long base = (long) i << 40;
+            threads[i] = new Thread(() -> {
+                for (long id = base; id < base + 1_000_000; id++) {
+                    check(sessions.add(id));
+                    check(sessions.contains(id));
+                }
+                for (long id = base; id < base + 1_000_000; id += 2) {
+                    check(sessions.remove(id));
+                    check(!sessions.contains(id));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println("sessions size=" + sessions.size() + ", capacity=" + sessions.capacity());
+        check(sessions.size() == threads.length * 500_000);
+        sessions.clear();
+        check(sessions.isEmpty());
+
+        //ConcurrentHashSet并行批量操作
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            items.add(i);
+        }
+        ConcurrentHashSet<Integer> set = new ConcurrentHashSet<>(items);
+        check(set.size() == items.size());
+        check(!set.addAll(items));
+        check(set.add(-1) && !set.add(-1));
+        check(set.removeAll(items.subList(0, 50_000)));
+        check(!set.removeAll(items.subList(0, 50_000)));
+        check(set.size() == 50_001 && set.remove(-1) && !set.remove(-1));
+        System.out.println("finish");
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+}
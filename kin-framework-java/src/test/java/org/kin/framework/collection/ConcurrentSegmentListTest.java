@@ -0,0 +1,79 @@
+package org.kin.framework.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单线程append并从head或tail截断, 多线程并发读
+ * element值与index一致, 读到的值不为null且与index不一致, 即读到了已复用的segment
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class ConcurrentSegmentListTest {
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentSegmentList<Long> list = new ConcurrentSegmentList<>(10, true);
+        for (long i = 10; i < 1000; i++) {
+            list.add(i);
+        }
+        list.truncatePrefix(300);
+        list.truncateSuffix(700);
+        System.out.println(list + ", size=" + list.size());
+        check(list.get(299) == null && list.get(300) == 300 && list.get(700) == 700 && list.get(701) == null);
+        System.out.println("---------------------------");
+
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicLong reads = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread reader = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!stopped.get()) {
+                    long first = list.getFirstIndex();
+                    long last = list.getLastIndex();
+                    if (last < first) {
+                        continue;
+                    }
+                    long index = first + random.nextLong(last - first + 1);
+                    Long value = list.get(index);
+                    if (value != null && value != index) {
+                        errors.incrementAndGet();
+                    }
+                    reads.incrementAndGet();
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.currentTimeMillis();
+        while (System.currentTimeMillis() - start < 5_000) {
+            for (int i = 0; i < 1024; i++) {
+                list.add(list.getLastIndex() + 1);
+            }
+            if (random.nextInt(4) == 0) {
+                list.truncateSuffix(list.getLastIndex() - random.nextInt(512));
+            }
+            if (list.size() > 100_000) {
+                list.truncatePrefix(list.getFirstIndex() + random.nextInt(50_000));
+            }
+        }
+        stopped.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        System.out.println(list + ", size=" + list.size() + ", reads=" + reads + ", errors=" + errors);
+        check(errors.get() == 0);
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.kin.framework.collection;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 与{@link PriorityQueue}对比不同叉数下的出队顺序, 以及批量入队, 批量移除到期节点和延迟移除
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class DefaultPriorityQueueTest {
+    public static void main(String[] args) {
+        for (int arity = 2; arity <= 8; arity++) {
+            test(arity);
+        }
+        System.out.println("ok");
+    }
+
+    private static void test(int arity) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        DefaultPriorityQueue<Node> queue = new DefaultPriorityQueue<>(Comparator.comparingLong(n -> n.priority), 0, arity, n -> n.cancelled);
+        PriorityQueue<Node> expected = new PriorityQueue<>(Comparator.comparingLong(n -> n.priority));
+
+        for (int round = 0; round < 200; round++) {
+            //批量入队
+            List<Node> nodes = new ArrayList<>();
+            int num = random.nextInt(1000);
+            for (int i = 0; i < num; i++) {
+                nodes.add(new Node(random.nextLong(100_000)));
+            }
+            queue.offerAll(nodes);
+            expected.addAll(nodes);
+
+            //逐个入队
+            for (int i = 0; i < random.nextInt(100); i++) {
+                Node node = new Node(random.nextLong(100_000));
+                queue.offer(node);
+                expected.offer(node);
+            }
+
+            //延迟移除
+            for (Node node : nodes) {
+                if (random.nextInt(10) == 0) {
+                    node.cancelled = true;
+                    expected.remove(node);
+                }
+            }
+
+            //修改优先级
+            for (Node node : nodes) {
+                if (!node.cancelled && random.nextInt(20) == 0) {
+                    expected.remove(node);
+                    node.priority = random.nextLong(100_000);
+                    queue.priorityChanged(node);
+                    expected.offer(node);
+                }
+            }
+
+            //批量移除到期节点
+            long deadline = random.nextLong(100_000) / 4;
+            List<Node> polled = new ArrayList<>();
+            queue.pollAllBefore(n -> n.priority, deadline, polled::add);
+            for (Node node : polled) {
+                Node e = expected.poll();
+                check(e != null && e.priority == node.priority && node.priorityQueueIndex(queue) == PriorityQueueNode.INDEX_NOT_IN_QUEUE);
+            }
+            check(expected.isEmpty() || expected.peek().priority > deadline);
+
+            //逐个出队
+            for (int i = 0; i < random.nextInt(200); i++) {
+                Node node = queue.poll();
+                Node e = expected.poll();
+                check(node == null ? e == null : e != null && e.priority == node.priority);
+            }
+        }
+
+        queue.purge();
+        check(queue.size() == expected.size());
+        while (!expected.isEmpty()) {
+            check(queue.poll().priority == expected.poll().priority);
+        }
+        check(queue.poll() == null);
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+
+    private static class Node implements PriorityQueueNode {
+        private long priority;
+        private boolean cancelled;
+        private int index = INDEX_NOT_IN_QUEUE;
+
+        Node(long priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public int priorityQueueIndex(DefaultPriorityQueue<?> queue) {
+            return index;
+        }
+
+        @Override
+        public void priorityQueueIndex(DefaultPriorityQueue<?> queue, int i) {
+            index = i;
+        }
+    }
+}
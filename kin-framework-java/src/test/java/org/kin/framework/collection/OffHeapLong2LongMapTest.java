@@ -0,0 +1,134 @@
+package org.kin.framework.collection;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class OffHeapLong2LongMapTest {
+    public static void main(String[] args) throws Exception {
+        //与HashMap对比
+        OffHeapLong2LongMap map = new OffHeapLong2LongMap(16);
+        Map<Long, Long> expected = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 2_000_000; i++) {
+            long key = random.nextLong(500_000);
+            if (random.nextInt(3) == 0) {
+                Long old = expected.remove(key);
+                check(map.remove(key) == (old == null ? -1 : old));
+            } else {
+                long value = random.nextLong();
+                Long old = expected.put(key, value);
+                check(map.put(key, value) == (old == null ? -1 : old));
+            }
+        }
+        check(map.size() == expected.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            check(map.get(entry.getKey()) == entry.getValue());
+        }
+        System.out.println(map);
+
+        //快照
+        File file = File.createTempFile("OffHeapLong2LongMap", ".snapshot");
+        file.deleteOnExit();
+        long start = System.currentTimeMillis();
+        map.snapshot(file.toPath());
+        OffHeapLong2LongMap loaded = OffHeapLong2LongMap.load(file.toPath());
+        System.out.println("snapshot and load cost " + (System.currentTimeMillis() - start) + "ms, " + loaded);
+        check(loaded.size() == expected.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            check(loaded.get(entry.getKey()) == entry.getValue());
+        }
+        loaded.close();
+        map.close();
+        System.out.println("---------------------------");
+
+        //单线程写, 多线程读, value = key * 31
+        OffHeapLong2LongMap concurrentMap = new OffHeapLong2LongMap();
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicLong reads = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                while (!stopped.get()) {
+                    long key = r.nextLong(1_000_000);
+                    long value = concurrentMap.get(key);
+                    if (value != -1 && value != key * 31) {
+                        errors.incrementAndGet();
+                    }
+                    reads.incrementAndGet();
+                }
+            });
+            readers[i].start();
+        }
+        start = System.currentTimeMillis();
+        while (System.currentTimeMillis() - start < 5_000) {
+            long key = random.nextLong(1_000_000);
+            if (random.nextInt(4) == 0) {
+                concurrentMap.remove(key);
+            } else {
+                concurrentMap.put(key, key * 31);
+            }
+            if (random.nextInt(1_000_000) == 0) {
+                concurrentMap.clear();
+            }
+        }
+        stopped.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        System.out.println(concurrentMap + ", reads=" + reads + ", errors=" + errors);
+        check(errors.get() == 0);
+        concurrentMap.close();
+        System.out.println("---------------------------");
+
+        //不断扩容和clear, 频繁替换并释放table, 读线程不能访问已释放的table
+        OffHeapLong2LongMap resizingMap = new OffHeapLong2LongMap();
+        stopped.set(false);
+        reads.set(0);
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                while (!stopped.get()) {
+                    long key = r.nextLong(4096);
+                    long value = resizingMap.get(key);
+                    if (value != -1 && value != key * 31) {
+                        errors.incrementAndGet();
+                    }
+                    reads.incrementAndGet();
+                }
+            });
+            readers[i].start();
+        }
+        int rounds = 0;
+        start = System.currentTimeMillis();
+        while (System.currentTimeMillis() - start < 5_000) {
+            for (long key = 0; key < 4096; key++) {
+                resizingMap.put(key, key * 31);
+            }
+            resizingMap.clear();
+            rounds++;
+        }
+        stopped.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        System.out.println(resizingMap + ", rounds=" + rounds + ", reads=" + reads + ", errors=" + errors);
+        check(errors.get() == 0);
+        resizingMap.close();
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+}
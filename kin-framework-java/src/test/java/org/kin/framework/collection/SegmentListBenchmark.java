@@ -0,0 +1,70 @@
+package org.kin.framework.collection;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大list下{@link SegmentList#removeFromFirst(int)}的耗时
+ * 每次操作先在tail追加{@link #batch}个element, 再从head移除同样数量, list大小保持为{@link #size}
+ * 移除整个{@link SegmentList.Segment}时, 需从segment双向数组head批量移除
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class SegmentListBenchmark {
+    @Param({"100000", "1000000", "10000000"})
+    private int size;
+    @Param({"128", "1024"})
+    private int batch;
+
+    private SegmentList<Integer> list;
+    private List<Integer> elements;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SegmentListBenchmark.class.getSimpleName())
+                .output("SegmentListBenchmark.log")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        list = new SegmentList<>(true);
+        elements = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            elements.add(i);
+        }
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+    }
+
+    @Benchmark
+    public int removeFromFirst() {
+        list.addAll(elements);
+        list.removeFromFirst(batch);
+        return list.size();
+    }
+
+    @Benchmark
+    public int removeFromFirstWhen() {
+        list.addAll(elements);
+        int[] removed = new int[1];
+        list.removeFromFirstWhen(e -> removed[0]++ < batch);
+        return list.size();
+    }
+}
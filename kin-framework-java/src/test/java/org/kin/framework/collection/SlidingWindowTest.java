@@ -0,0 +1,90 @@
+package org.kin.framework.collection;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class SlidingWindowTest {
+    public static void main(String[] args) throws Exception {
+        //手动推进时间, 10个bucket, 每个100ms
+        AtomicLong clock = new AtomicLong(System.nanoTime());
+        SlidingWindow window = new SlidingWindow(10, 100, TimeUnit.MILLISECONDS, true, clock::get);
+        for (int i = 1; i <= 1000; i++) {
+            window.add(i);
+        }
+        check(window.count() == 1000 && window.sum() == 500500);
+        check(window.min() == 1 && window.max() == 1000);
+        long p50 = window.percentile(50);
+        long p99 = window.percentile(99);
+        System.out.println(window + ", p50=" + p50 + ", p99=" + p99);
+        check(p50 >= 500 && p50 <= 500 * 9 / 8);
+        check(p99 >= 990 && p99 <= 1000);
+        check(window.percentile(100) == 1000);
+
+        //跨bucket, 窗口内仍可见
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        window.add(-5);
+        check(window.count() == 1001 && window.min() == -5 && window.max() == 1000);
+        //第一个bucket过期
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        check(window.count() == 1 && window.sum() == -5 && window.max() == -5);
+        check(window.percentile(50) == 0);
+        //复用过期bucket位置
+        window.add(7);
+        check(window.count() == 2 && window.max() == 7);
+        //整个窗口过期
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        check(window.count() == 0 && window.min() == 0 && window.max() == 0 && window.percentile(99) == 0);
+
+        //速率, 每个bucket写入10次
+        SlidingWindow rateWindow = new SlidingWindow(10, 100, TimeUnit.MILLISECONDS, false, clock::get);
+        for (int i = 0; i < 30; i++) {
+            for (int j = 0; j < 10; j++) {
+                rateWindow.increment();
+            }
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        //当前bucket刚开始, 有效的9个bucket覆盖900ms
+        System.out.println(rateWindow + ", rate=" + rateWindow.rate(TimeUnit.SECONDS));
+        check(rateWindow.count() == 90 && rateWindow.rate(TimeUnit.SECONDS) == 100);
+        //当前bucket经过50ms, 写入5次, 覆盖950ms
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+        for (int j = 0; j < 5; j++) {
+            rateWindow.increment();
+        }
+        check(rateWindow.count() == 95 && rateWindow.rate(TimeUnit.SECONDS) == 100);
+        //启动未满一个窗口, 按已经过时间计算
+        SlidingWindow startWindow = new SlidingWindow(10, 100, TimeUnit.MILLISECONDS, false, clock::get);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        for (int j = 0; j < 25; j++) {
+            startWindow.increment();
+        }
+        check(startWindow.rate(TimeUnit.SECONDS) == 100);
+
+        //并发写入
+        SlidingWindow concurrentWindow = new SlidingWindow(60, 1, TimeUnit.SECONDS, true);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 250_000; j++) {
+                    concurrentWindow.add(j);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println(concurrentWindow + ", p99=" + concurrentWindow.percentile(99));
+        check(concurrentWindow.count() == 1_000_000 && concurrentWindow.max() == 249_999);
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+}
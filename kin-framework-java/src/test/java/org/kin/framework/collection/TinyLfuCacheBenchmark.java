@@ -0,0 +1,170 @@
+package org.kin.framework.collection;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zipfian分布负载下, 对比加锁的{@link LRUMap}, guava {@link Cache}和{@link TinyLfuCache}的吞吐量
+ * 每次操作先get, 未命中则put, 命中率可通过各cache的统计或者{@link #main(String[])}的输出对比
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TinyLfuCacheBenchmark {
+    /** 预生成的key数量 */
+    private static final int KEY_NUM = 1 << 20;
+    private static final int MASK = KEY_NUM - 1;
+    /** key取值范围 */
+    private static final int ITEM_NUM = 1 << 18;
+    /** 缓存容量 */
+    private static final int MAXIMUM_SIZE = 1 << 12;
+
+    @Param({"LRUMap", "Guava", "TinyLfu"})
+    private String type;
+
+    private CacheAdapter cache;
+    private Integer[] keys;
+
+    public static void main(String[] args) throws RunnerException {
+        //命中率
+        Integer[] keys = zipfian(KEY_NUM, ITEM_NUM, 1.0, 1);
+        for (String type : new String[]{"LRUMap", "Guava", "TinyLfu"}) {
+            CacheAdapter cache = newCache(type);
+            int hits = 0;
+            for (Integer key : keys) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                } else {
+                    hits++;
+                }
+            }
+            System.out.println(type + " hit rate: " + (double) hits / keys.length);
+        }
+
+        Options opt = new OptionsBuilder()
+                .include(TinyLfuCacheBenchmark.class.getSimpleName())
+                .output("TinyLfuCacheBenchmark.log")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        keys = zipfian(KEY_NUM, ITEM_NUM, 1.0, 1);
+        cache = newCache(type);
+        for (Integer key : keys) {
+            cache.put(key, key);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int index = new Random().nextInt(KEY_NUM);
+    }
+
+    @Benchmark
+    public Integer getOrPut(ThreadState state) {
+        Integer key = keys[state.index++ & MASK];
+        Integer value = cache.get(key);
+        if (value == null) {
+            cache.put(key, key);
+            return key;
+        }
+        return value;
+    }
+
+    /**
+     * 基于逆CDF生成服从Zipfian分布的key, 排名越靠前的key出现概率越高
+     *
+     * @param skew 偏斜程度, 越大越集中
+     */
+    private static Integer[] zipfian(int num, int itemNum, double skew, long seed) {
+        double[] cdf = new double[itemNum];
+        double sum = 0;
+        for (int i = 0; i < itemNum; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cdf[i] = sum;
+        }
+        Random random = new Random(seed);
+        Integer[] keys = new Integer[num];
+        for (int i = 0; i < num; i++) {
+            int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            rank = rank >= 0 ? rank : -rank - 1;
+            //打散, 避免排名与hash相关
+            keys[i] = Integer.reverse(Math.min(rank, itemNum - 1));
+        }
+        return keys;
+    }
+
+    private static CacheAdapter newCache(String type) {
+        switch (type) {
+            case "LRUMap": {
+                Map<Integer, Integer> map = new LRUMap<>(MAXIMUM_SIZE);
+                return new CacheAdapter() {
+                    @Override
+                    public synchronized Integer get(Integer key) {
+                        return map.get(key);
+                    }
+
+                    @Override
+                    public synchronized void put(Integer key, Integer value) {
+                        map.put(key, value);
+                    }
+                };
+            }
+            case "Guava": {
+                Cache<Integer, Integer> guava = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+                return new CacheAdapter() {
+                    @Override
+                    public Integer get(Integer key) {
+                        return guava.getIfPresent(key);
+                    }
+
+                    @Override
+                    public void put(Integer key, Integer value) {
+                        guava.put(key, value);
+                    }
+                };
+            }
+            case "TinyLfu": {
+                TinyLfuCache<Integer, Integer> tinyLfu = TinyLfuCache.<Integer, Integer>builder().maximumSize(MAXIMUM_SIZE).build();
+                return new CacheAdapter() {
+                    @Override
+                    public Integer get(Integer key) {
+                        return tinyLfu.get(key);
+                    }
+
+                    @Override
+                    public void put(Integer key, Integer value) {
+                        tinyLfu.put(key, value);
+                    }
+                };
+            }
+            default:
+                throw new IllegalArgumentException("unknown cache type: " + type);
+        }
+    }
+
+    private interface CacheAdapter {
+        Integer get(Integer key);
+
+        void put(Integer key, Integer value);
+    }
+}
@@ -0,0 +1,141 @@
+package org.kin.framework.collection;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class TinyLfuCacheTest {
+    public static void main(String[] args) throws InterruptedException {
+        TinyLfuCache<Integer, Integer> cache = TinyLfuCache.<Integer, Integer>builder().maximumSize(100).build();
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+        cache.cleanUp();
+        System.out.println(cache.size() == 100);
+        System.out.println(cache.getEvictionCount() == 900);
+
+        //热点key不会被一次性扫描挤掉
+        TinyLfuCache<Integer, Integer> scanResistant = TinyLfuCache.<Integer, Integer>builder().maximumSize(100).build();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                scanResistant.put(i, i);
+                scanResistant.get(i);
+            }
+        }
+        for (int i = 1000; i < 2000; i++) {
+            scanResistant.put(i, i);
+        }
+        scanResistant.cleanUp();
+        int hotHits = 0;
+        for (int i = 0; i < 50; i++) {
+            if (scanResistant.get(i) != null) {
+                hotHits++;
+            }
+        }
+        System.out.println("hot keys retained: " + hotHits + "/50");
+
+        //权重
+        TinyLfuCache<String, byte[]> weighted = TinyLfuCache.<String, byte[]>builder()
+                .maximumWeight(1024)
+                .weigher((k, v) -> v.length)
+                .build();
+        for (int i = 0; i < 100; i++) {
+            weighted.put("k" + i, new byte[100]);
+        }
+        weighted.cleanUp();
+        System.out.println(weighted.weightedSize() <= 1024);
+
+        //过期
+        TinyLfuCache<Integer, Integer> expiring = TinyLfuCache.<Integer, Integer>builder()
+                .maximumSize(100)
+                .expireAfterWrite(200, TimeUnit.MILLISECONDS)
+                .build();
+        expiring.put(1, 1);
+        expiring.put(2, 2, 1, TimeUnit.HOURS);
+        System.out.println(expiring.get(1) == 1);
+        Thread.sleep(500);
+        System.out.println(expiring.size() == 1);
+        System.out.println(expiring.get(1) == null);
+        System.out.println(expiring.get(2) == 2);
+        System.out.println(expiring.getExpirationCount() == 1);
+
+        //loader
+        System.out.println(expiring.get(3, k -> k * 10) == 30);
+        System.out.println(expiring.get(3, k -> -1) == 30);
+        System.out.println(expiring.remove(3) == 30);
+        System.out.println(!expiring.containsKey(3));
+
+        //扩容保留已有计数
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(8);
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("hot");
+        }
+        sketch.increment("warm");
+        sketch.ensureCapacity(1024);
+        System.out.println(sketch.capacity() == 1024 && sketch.frequency("hot") == 5 && sketch.frequency("warm") == 1);
+
+        //并发, zipf分布, 热点key集中在少数key
+        TinyLfuCache<Integer, Integer> concurrent = TinyLfuCache.<Integer, Integer>builder().maximumSize(1000).build();
+        ZipfGenerator zipf = new ZipfGenerator(100000, 0.99);
+        int threadNum = 8;
+        CountDownLatch latch = new CountDownLatch(threadNum);
+        for (int t = 0; t < threadNum; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 200000; i++) {
+                    int key = zipf.next(random);
+                    if (concurrent.get(key) == null) {
+                        concurrent.put(key, key);
+                    }
+                    if (i % 1000 == 0) {
+                        concurrent.remove(random.nextInt(100000));
+                    }
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        concurrent.cleanUp();
+        System.out.println(concurrent.size() <= 1000);
+        System.out.println(concurrent.weightedSize() == concurrent.size());
+        //最优命中率(缓存最热的1000个key)约为60%
+        double hitRate = (double) concurrent.getHitCount() / (concurrent.getHitCount() + concurrent.getMissCount());
+        System.out.println("zipf hit rate: " + hitRate + ", " + (hitRate > 0.4));
+        System.out.println(concurrent);
+    }
+
+    /**
+     * zipf分布key生成器, 第k热的key出现的概率与1/k^skew成正比
+     */
+    private static final class ZipfGenerator {
+        /** 累积分布 */
+        private final double[] cdf;
+
+        ZipfGenerator(int n, double skew) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1 / Math.pow(i + 1, skew);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cdf[i] /= sum;
+            }
+        }
+
+        int next(Random random) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return Math.min(index, cdf.length - 1);
+        }
+    }
+}
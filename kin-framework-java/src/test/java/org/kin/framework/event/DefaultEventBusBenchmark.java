@@ -0,0 +1,95 @@
+package org.kin.framework.event;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DefaultEventBus}同步分发性能
+ * 对比编译期生成的{@link EventFunctionIndex}直接调用, 反射调用与byte buddy增强的{@link MethodBaseEventHandler}调用
+ *
+ * @author huangjianqin
+ * @date 2022/4/2
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DefaultEventBusBenchmark {
+    /** 事件处理方法调用方式 */
+    @Param({"index", "byteBuddy", "reflection"})
+    private String invoker;
+
+    private DefaultEventBus bus;
+    private final BenchmarkEvent event = new BenchmarkEvent();
+    private final BusParamEvent busParamEvent = new BusParamEvent();
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(DefaultEventBusBenchmark.class.getSimpleName())
+                //统计对象分配速率
+                .addProfiler(GCProfiler.class)
+                .output("DefaultEventBusBenchmark.log")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        bus = new DefaultEventBus("byteBuddy".equals(invoker), "index".equals(invoker));
+        bus.register(new BenchmarkEventFunctions());
+    }
+
+    @TearDown
+    public void tearDown() {
+        bus.shutdown();
+    }
+
+    /**
+     * 单参数事件处理方法
+     */
+    @Benchmark
+    public void post() {
+        bus.post(event);
+    }
+
+    /**
+     * 带{@link EventBus}参数的事件处理方法
+     */
+    @Benchmark
+    public void postWithBusParam() {
+        bus.post(busParamEvent);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    public static class BenchmarkEvent {
+    }
+
+    public static class BusParamEvent {
+    }
+
+    /**
+     * 需public, 否则byte buddy生成的代理类无法访问
+     */
+    public static class BenchmarkEventFunctions {
+        private long handled;
+        private long busParamHandled;
+
+        @EventFunction
+        public void handle(BenchmarkEvent event) {
+            handled++;
+        }
+
+        @EventFunction
+        public void handle(EventBus bus, BusParamEvent event) {
+            busParamHandled++;
+        }
+    }
+}
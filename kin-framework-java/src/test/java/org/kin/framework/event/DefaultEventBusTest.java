@@ -0,0 +1,113 @@
+package org.kin.framework.event;
+
+import org.springframework.core.annotation.Order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 事件按类继承关系分派给父类以及接口注册的事件处理器
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class DefaultEventBusTest {
+    public static void main(String[] args) {
+        DefaultEventBus bus = new DefaultEventBus(false);
+        Handlers handlers = new Handlers();
+        bus.register(handlers);
+
+        //子类注册的优先, 相同order下按子类, 父类, 接口顺序, order更小的最优先
+        bus.post(new SubEvent());
+        System.out.println(handlers.handled);
+        check(handlers.handled.equals(Arrays.asList("priorityBase", "sub", "base", "marker")));
+        //命中缓存, 结果一致
+        handlers.handled.clear();
+        bus.post(new SubEvent());
+        check(handlers.handled.equals(Arrays.asList("priorityBase", "sub", "base", "marker")));
+        //父类事件不会分派给子类事件处理器
+        handlers.handled.clear();
+        bus.post(new BaseEvent());
+        check(handlers.handled.equals(Arrays.asList("priorityBase", "base", "marker")));
+        //仅接口注册了事件处理器
+        handlers.handled.clear();
+        bus.post(new MarkerOnlyEvent());
+        check(handlers.handled.equals(Arrays.asList("marker")));
+
+        //没有事件处理器, 缓存该结果
+        for (int i = 0; i < 2; i++) {
+            try {
+                bus.post(new LateEvent());
+                check(false);
+            } catch (IllegalStateException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        //之后注册接口的事件处理器, 缓存失效
+        LateHandlers lateHandlers = new LateHandlers();
+        bus.register(lateHandlers);
+        bus.post(new LateEvent());
+        check(lateHandlers.handled == 1);
+        System.out.println("finish");
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    public interface MarkerEvent {
+    }
+
+    public static class BaseEvent implements MarkerEvent {
+    }
+
+    public static class SubEvent extends BaseEvent {
+    }
+
+    public static class MarkerOnlyEvent implements MarkerEvent {
+    }
+
+    public interface LateMarkerEvent {
+    }
+
+    public static class LateEvent implements LateMarkerEvent {
+    }
+
+    public static class Handlers {
+        private final List<String> handled = new ArrayList<>();
+
+        @EventFunction
+        public void handleMarker(MarkerEvent event) {
+            handled.add("marker");
+        }
+
+        @EventFunction
+        public void handleBase(BaseEvent event) {
+            handled.add("base");
+        }
+
+        @EventFunction
+        public void handleSub(SubEvent event) {
+            handled.add("sub");
+        }
+
+        @Order(1)
+        @EventFunction
+        public void handlePriorityBase(BaseEvent event) {
+            handled.add("priorityBase");
+        }
+    }
+
+    public static class LateHandlers {
+        private int handled;
+
+        @EventFunction
+        public void handle(LateMarkerEvent event) {
+            handled++;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.kin.framework.event;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不同并行数下, {@link DefaultOrderedEventBus}吞吐量以及单事件分发延迟
+ *
+ * @author huangjianqin
+ * @date 2022/4/2
+ */
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DefaultOrderedEventBusBenchmark {
+    /** 每次调用分发的事件数 */
+    private static final int BATCH = 10_000;
+    /** 分区数 */
+    private static final int PARTITIONS = 64;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private DefaultOrderedEventBus bus;
+    private final OrderedBenchmarkEvent event = new OrderedBenchmarkEvent();
+    /** 当前批次事件处理完成信号 */
+    private volatile CountDownLatch latch;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(DefaultOrderedEventBusBenchmark.class.getSimpleName())
+                //统计对象分配速率
+                .addProfiler(GCProfiler.class)
+                .output("DefaultOrderedEventBusBenchmark.log")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        bus = new DefaultOrderedEventBus(parallelism);
+        bus.register(new OrderedBenchmarkEventFunctions(this));
+    }
+
+    @TearDown
+    public void tearDown() {
+        bus.shutdown();
+    }
+
+    /**
+     * 事件分散到多个分区, 等待所有事件处理完成
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OperationsPerInvocation(BATCH)
+    public void throughput() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH);
+        this.latch = latch;
+        for (int i = 0; i < BATCH; i++) {
+            bus.post(i % PARTITIONS, event);
+        }
+        latch.await();
+    }
+
+    /**
+     * 单事件从分发到处理完成的延迟
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void latency() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        this.latch = latch;
+        bus.post(0, event);
+        latch.await();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    public static class OrderedBenchmarkEvent {
+    }
+
+    public static class OrderedBenchmarkEventFunctions {
+        private final DefaultOrderedEventBusBenchmark benchmark;
+
+        public OrderedBenchmarkEventFunctions(DefaultOrderedEventBusBenchmark benchmark) {
+            this.benchmark = benchmark;
+        }
+
+        @EventFunction
+        public void handle(OrderedBenchmarkEvent event) {
+            benchmark.latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.kin.framework.event;
+
+import org.kin.framework.concurrent.DefaultPartitionExecutor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/9
+ */
+public class DefaultOrderedEventBusTest {
+    public static void main(String[] args) throws Exception {
+        DefaultOrderedEventBus bus = new DefaultOrderedEventBus(4);
+        Handlers handlers = new Handlers();
+        bus.register(handlers);
+
+        //同一分区有序处理
+        int num = 10_000;
+        handlers.latch = new CountDownLatch(num);
+        for (int i = 0; i < num; i++) {
+            bus.post(7, new SeqEvent(i));
+        }
+        check(handlers.latch.await(10, TimeUnit.SECONDS));
+        check(handlers.handled.size() == num);
+        for (int i = 0; i < num; i++) {
+            check(handlers.handled.get(i) == i);
+        }
+
+        //分区阻塞时, 高优先级事件先于已排队的普通事件处理
+        handlers.handled.clear();
+        handlers.latch = new CountDownLatch(1 + 100 + 2);
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        bus.post(7, new BlockEvent(blocking, blocker));
+        //确保分区已阻塞在BlockEvent
+        check(blocking.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            bus.post(7, new SeqEvent(i));
+        }
+        //显式指定以及注解标识的高优先级事件
+        bus.post(7, new SeqEvent(-1), true);
+        bus.post(7, new PrioritySeqEvent(-2));
+        blocker.countDown();
+        check(handlers.latch.await(10, TimeUnit.SECONDS));
+        //BlockEvent记为Integer.MIN_VALUE
+        check(handlers.handled.get(0) == Integer.MIN_VALUE);
+        check(handlers.handled.get(1) == -1 && handlers.handled.get(2) == -2);
+        for (int i = 0; i < 100; i++) {
+            check(handlers.handled.get(i + 3) == i);
+        }
+        bus.shutdown();
+
+        //分区超出范围
+        int partitionNum = 4;
+        DefaultPartitionExecutor<Integer> executor = new DefaultPartitionExecutor<>(partitionNum, (key, n) -> key);
+        for (int key : new int[]{-1, partitionNum}) {
+            try {
+                executor.execute(key, () -> {
+                });
+                check(false);
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        executor.execute(partitionNum - 1, () -> {
+        });
+        executor.shutdown();
+        System.out.println("finish");
+        System.exit(0);
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    public static class SeqEvent {
+        private final int seq;
+
+        public SeqEvent(int seq) {
+            this.seq = seq;
+        }
+    }
+
+    @EventPriority
+    public static class PrioritySeqEvent {
+        private final int seq;
+
+        public PrioritySeqEvent(int seq) {
+            this.seq = seq;
+        }
+    }
+
+    public static class BlockEvent {
+        private final CountDownLatch blocking;
+        private final CountDownLatch blocker;
+
+        public BlockEvent(CountDownLatch blocking, CountDownLatch blocker) {
+            this.blocking = blocking;
+            this.blocker = blocker;
+        }
+    }
+
+    public static class Handlers {
+        private final List<Integer> handled = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch latch;
+
+        @EventFunction
+        public void handleSeq(SeqEvent event) {
+            handled.add(event.seq);
+            latch.countDown();
+        }
+
+        @EventFunction
+        public void handlePrioritySeq(PrioritySeqEvent event) {
+            handled.add(event.seq);
+            latch.countDown();
+        }
+
+        @EventFunction
+        public void handleBlock(BlockEvent event) throws InterruptedException {
+            event.blocking.countDown();
+            event.blocker.await();
+            handled.add(Integer.MIN_VALUE);
+            latch.countDown();
+        }
+    }
+}
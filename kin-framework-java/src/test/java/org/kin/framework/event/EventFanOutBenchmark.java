@@ -0,0 +1,72 @@
+package org.kin.framework.event;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个事件对应多个{@link EventHandler}时, {@link DefaultEventBus}分发性能
+ *
+ * @author huangjianqin
+ * @date 2022/4/2
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventFanOutBenchmark {
+    /** 事件处理器数量 */
+    @Param({"1", "8", "64", "256"})
+    private int handlers;
+
+    private DefaultEventBus bus;
+    private final FanOutEvent event = new FanOutEvent();
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(EventFanOutBenchmark.class.getSimpleName())
+                //统计对象分配速率
+                .addProfiler(GCProfiler.class)
+                .output("EventFanOutBenchmark.log")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        bus = new DefaultEventBus();
+        for (int i = 0; i < handlers; i++) {
+            bus.register(new FanOutEventHandler());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        bus.shutdown();
+    }
+
+    @Benchmark
+    public void post() {
+        bus.post(event);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    public static class FanOutEvent {
+    }
+
+    public static class FanOutEventHandler implements EventHandler<FanOutEvent> {
+        private long handled;
+
+        @Override
+        public void handle(EventBus bus, FanOutEvent event) {
+            handled++;
+        }
+    }
+}
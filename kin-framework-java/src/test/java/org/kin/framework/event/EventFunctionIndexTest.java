@@ -0,0 +1,97 @@
+package org.kin.framework.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试类编译时由{@link EventFunctionProcessor}生成{@link EventFunctionIndex}
+ * 通过事件处理方法的调用栈是否经过生成的索引类, 判断使用的是索引还是反射解析
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class EventFunctionIndexTest {
+    public static void main(String[] args) {
+        //生成的索引
+        EventFunctionIndex index = EventFunctionIndexes.get(IndexedHandler.class);
+        check(index != null && index.handlerClass() == IndexedHandler.class);
+        check(index.eventFunctions().size() == 2);
+        //子类没有声明EventFunction方法, 匿名类不生成索引
+        check(EventFunctionIndexes.get(SubHandler.class) == null);
+        IndexedHandler anonymous = new IndexedHandler() {
+        };
+        check(EventFunctionIndexes.get(anonymous.getClass()) == null);
+
+        //通过索引调用
+        IndexedHandler handler = new IndexedHandler();
+        DefaultEventBus bus = new DefaultEventBus(false, true);
+        bus.register(handler);
+        bus.post(new IndexEvent());
+        bus.post(new BusParamIndexEvent());
+        check(handler.handled.size() == 2 && handler.bus == bus);
+        check(handler.handled.get(0) && handler.handled.get(1));
+
+        //不使用索引, 回退反射
+        handler = new IndexedHandler();
+        bus = new DefaultEventBus(false, false);
+        bus.register(handler);
+        bus.post(new IndexEvent());
+        check(handler.handled.size() == 1 && !handler.handled.get(0));
+
+        //子类以及匿名类(类似代理类)不在索引中, 回退反射解析继承的方法
+        for (IndexedHandler fallback : new IndexedHandler[]{new SubHandler(), anonymous}) {
+            bus = new DefaultEventBus(false, true);
+            bus.register(fallback);
+            bus.post(new IndexEvent());
+            bus.post(new BusParamIndexEvent());
+            check(fallback.handled.size() == 2 && fallback.bus == bus);
+            check(!fallback.handled.get(0) && !fallback.handled.get(1));
+        }
+        System.out.println("finish");
+    }
+
+    /**
+     * @return 调用栈是否经过生成的索引类
+     */
+    private static boolean invokedByIndex() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            if (element.getClassName().contains("$$EventFunctionIndex")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    public static class IndexEvent {
+    }
+
+    public static class BusParamIndexEvent {
+    }
+
+    public static class IndexedHandler {
+        /** 每次处理事件是否经过索引 */
+        private final List<Boolean> handled = new ArrayList<>();
+        private EventBus bus;
+
+        @EventFunction
+        public void handle(IndexEvent event) {
+            handled.add(invokedByIndex());
+        }
+
+        @EventFunction
+        public void handle(EventBus bus, BusParamIndexEvent event) {
+            this.bus = bus;
+            handled.add(invokedByIndex());
+        }
+    }
+
+    public static class SubHandler extends IndexedHandler {
+    }
+}
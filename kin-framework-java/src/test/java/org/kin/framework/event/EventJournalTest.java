@@ -0,0 +1,334 @@
+package org.kin.framework.event;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class EventJournalTest {
+    public static void main(String[] args) throws Exception {
+        ackAndReplay();
+        closeBeforeReplay();
+        concurrentAppend();
+        tornSegment();
+        busReplay();
+        System.out.println("finish");
+        System.exit(0);
+    }
+
+    /**
+     * 写入, 部分ack, 关闭, 重新打开并重放, 仅重放未ack的事件, 且同一分区保持原有顺序
+     */
+    private static void ackAndReplay() throws IOException {
+        File dir = Files.createTempDirectory("event-journal").toFile();
+        //小segment, 触发切换segment
+        EventJournal journal = new EventJournal(dir, 2, JdkEventCodec.INSTANCE, 4096, 10);
+        List<JournalEntry> entries = new ArrayList<>();
+        int num = 1000;
+        for (int i = 0; i < num; i++) {
+            journal.append(i % 3, new SeqEvent(i), entries::add);
+        }
+        int segmentNum = segmentNum(dir);
+        //前400个全部ack, 之后仅保留4的倍数
+        List<int[]> expected = new ArrayList<>();
+        for (int i = 0; i < num; i++) {
+            if (i >= 400 && (i % 4 == 0 || i == 401)) {
+                expected.add(new int[]{i % 3, i});
+            } else if (i != 401) {
+                entries.get(i).ack();
+            }
+        }
+        //写满且全部ack的segment已删除
+        System.out.println("segment num before ack=" + segmentNum + ", after ack=" + segmentNum(dir));
+        check(segmentNum(dir) < segmentNum);
+        journal.close();
+        //关闭后ack被忽略, 下次启动仍会重放
+        entries.get(401).ack();
+
+        //第一次重启, 重放并重新写入, ack其中一半
+        EventJournal journal2 = new EventJournal(dir, 2, JdkEventCodec.INSTANCE, 4096, 10);
+        List<int[]> replayed = new ArrayList<>();
+        List<JournalEntry> entries2 = new ArrayList<>();
+        journal2.replay((partitionId, event) -> {
+            replayed.add(new int[]{partitionId, ((SeqEvent) event).seq});
+            journal2.append(partitionId, event, entries2::add);
+        });
+        checkSameOrderPerPartition(expected, replayed);
+        List<int[]> expected2 = new ArrayList<>();
+        for (int i = 0; i < entries2.size(); i++) {
+            if (i % 2 == 0) {
+                entries2.get(i).ack();
+            } else {
+                expected2.add(replayed.get(i));
+            }
+        }
+        journal2.close();
+
+        //第二次重启, 仅重放上次未ack的事件
+        EventJournal journal3 = new EventJournal(dir, 2, JdkEventCodec.INSTANCE, 4096, 10);
+        List<int[]> replayed2 = new ArrayList<>();
+        journal3.replay((partitionId, event) -> replayed2.add(new int[]{partitionId, ((SeqEvent) event).seq}));
+        checkSameOrderPerPartition(expected2, replayed2);
+        //仅第一次调用有效
+        journal3.replay((partitionId, event) -> check(false));
+        journal3.close();
+        check(segmentNum(dir) == 0);
+    }
+
+    /**
+     * 重启后未重放就关闭, 未处理的事件仍保留至下次启动重放
+     */
+    private static void closeBeforeReplay() throws IOException {
+        File dir = Files.createTempDirectory("event-journal").toFile();
+        EventJournal journal = new EventJournal(dir, 2, JdkEventCodec.INSTANCE, 4096, 10);
+        List<JournalEntry> entries = new ArrayList<>();
+        int num = 200;
+        for (int i = 0; i < num; i++) {
+            journal.append(i % 2, new SeqEvent(i), entries::add);
+        }
+        //ack一半
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < num; i++) {
+            if (i % 2 == 0) {
+                entries.get(i).ack();
+            } else {
+                expected.add(i);
+            }
+        }
+        journal.close();
+        int segmentNum = segmentNum(dir);
+
+        //未重放就关闭
+        new EventJournal(dir, 2, JdkEventCodec.INSTANCE, 4096, 10).close();
+        check(segmentNum(dir) == segmentNum);
+
+        EventJournal journal3 = new EventJournal(dir, 2, JdkEventCodec.INSTANCE, 4096, 10);
+        List<Integer> replayed = new ArrayList<>();
+        journal3.replay((partitionId, event) -> replayed.add(((SeqEvent) event).seq));
+        journal3.close();
+        check(replayed.equals(expected));
+        check(segmentNum(dir) == 0);
+    }
+
+    /**
+     * 多线程并发写入同一分区, 重放顺序与分发顺序一致
+     */
+    private static void concurrentAppend() throws Exception {
+        File dir = Files.createTempDirectory("event-journal").toFile();
+        EventJournal journal = new EventJournal(dir, 2, JdkEventCodec.INSTANCE, 1 << 16, 10);
+        //模拟分发入队, 由journal加锁保证串行
+        List<Integer> dispatched = new ArrayList<>();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            int base = i * 10_000;
+            threads[i] = new Thread(() -> {
+                for (int seq = base; seq < base + 2_000; seq++) {
+                    int finalSeq = seq;
+                    journal.append(1, new SeqEvent(seq), entry -> dispatched.add(finalSeq));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        journal.close();
+
+        EventJournal journal2 = new EventJournal(dir, 2, JdkEventCodec.INSTANCE, 1 << 16, 10);
+        List<Integer> replayed = new ArrayList<>();
+        journal2.replay((partitionId, event) -> replayed.add(((SeqEvent) event).seq));
+        journal2.close();
+        check(dispatched.size() == threads.length * 2_000 && replayed.equals(dispatched));
+    }
+
+    /**
+     * 不完整或者损坏的segment, 仅重放之前的完整记录
+     */
+    private static void tornSegment() throws IOException {
+        int recordLength = JournalSegment.HEADER_SIZE + JdkEventCodec.INSTANCE.encode(new SeqEvent(0)).length;
+        //事件bytes损坏, crc校验失败
+        check(replayTorn(file -> {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                int pos = 7 * recordLength + JournalSegment.HEADER_SIZE + 8;
+                raf.seek(pos);
+                int b = raf.read();
+                raf.seek(pos);
+                raf.write(b ^ 0xff);
+            }
+        }) == 7);
+        //截断于记录内容中间
+        check(replayTorn(file -> truncate(file, 5 * recordLength + recordLength / 2)) == 5);
+        //截断于record length中间
+        check(replayTorn(file -> truncate(file, 3 * recordLength + 2)) == 3);
+        //record length损坏, 超出文件长度
+        check(replayTorn(file -> {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(2L * recordLength);
+                raf.writeInt(Integer.MAX_VALUE);
+            }
+        }) == 2);
+        //空文件
+        check(replayTorn(file -> truncate(file, 0)) == 0);
+    }
+
+    /**
+     * 写入10个事件, 破坏segment文件后重放
+     *
+     * @return 重放的事件数, 同时校验重放的事件是前n个
+     */
+    private static int replayTorn(SegmentCorrupter corrupter) throws IOException {
+        File dir = Files.createTempDirectory("event-journal").toFile();
+        EventJournal journal = new EventJournal(dir, 1, JdkEventCodec.INSTANCE, 1 << 16, 0);
+        for (int i = 0; i < 10; i++) {
+            journal.append(0, new SeqEvent(i), entry -> {
+            });
+        }
+        journal.close();
+
+        File[] files = Objects.requireNonNull(new File(dir, "0").listFiles());
+        check(files.length == 1);
+        corrupter.corrupt(files[0]);
+
+        EventJournal journal2 = new EventJournal(dir, 1, JdkEventCodec.INSTANCE, 1 << 16, 0);
+        List<Integer> replayed = new ArrayList<>();
+        journal2.replay((partitionId, event) -> replayed.add(((SeqEvent) event).seq));
+        journal2.close();
+        for (int i = 0; i < replayed.size(); i++) {
+            check(replayed.get(i) == i);
+        }
+        return replayed.size();
+    }
+
+    /**
+     * 处理中途shutdown, 重启后从未处理的事件开始重放
+     */
+    private static void busReplay() throws Exception {
+        File dir = Files.createTempDirectory("event-journal").toFile();
+        int num = 100;
+        int blockSeq = 50;
+        Handler handler = new Handler(blockSeq);
+        DefaultOrderedEventBus bus = new DefaultOrderedEventBus(2, false, new EventJournal(dir, 2));
+        bus.register(handler);
+        bus.replayJournal();
+        for (int i = 0; i < num; i++) {
+            bus.post(1, new SeqEvent(i));
+        }
+        check(handler.blocking.await(10, TimeUnit.SECONDS));
+        bus.shutdown();
+        //shutdown后才处理完, ack被忽略
+        handler.blocker.countDown();
+        Thread.sleep(200);
+        check(handler.handled.size() == blockSeq + 1);
+
+        Handler handler2 = new Handler(-1);
+        DefaultOrderedEventBus bus2 = new DefaultOrderedEventBus(2, false, new EventJournal(dir, 2));
+        bus2.register(handler2);
+        bus2.replayJournal();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (handler2.handled.size() < num - blockSeq && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        System.out.println("replay " + handler2.handled.size() + " events after restart");
+        check(handler2.handled.size() == num - blockSeq);
+        for (int i = 0; i < num - blockSeq; i++) {
+            check(handler2.handled.get(i) == blockSeq + i);
+        }
+        //等待最后一个事件ack
+        Thread.sleep(200);
+        bus2.shutdown();
+        check(segmentNum(dir) == 0);
+    }
+
+    /**
+     * 校验同一分区事件的顺序一致, 且事件集合相同
+     */
+    private static void checkSameOrderPerPartition(List<int[]> expected, List<int[]> actual) {
+        check(expected.size() == actual.size());
+        for (int partitionId = 0; partitionId < 3; partitionId++) {
+            List<Integer> expectedSeqs = seqs(expected, partitionId);
+            List<Integer> actualSeqs = seqs(actual, partitionId);
+            check(expectedSeqs.equals(actualSeqs));
+        }
+    }
+
+    private static List<Integer> seqs(List<int[]> records, int partitionId) {
+        List<Integer> seqs = new ArrayList<>();
+        for (int[] record : records) {
+            if (record[0] == partitionId) {
+                seqs.add(record[1]);
+            }
+        }
+        return seqs;
+    }
+
+    private static int segmentNum(File dir) {
+        int num = 0;
+        for (File shardDir : Objects.requireNonNull(dir.listFiles(File::isDirectory))) {
+            num += Objects.requireNonNull(shardDir.listFiles((d, name) -> name.endsWith(JournalSegment.SUFFIX))).length;
+        }
+        return num;
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    private interface SegmentCorrupter {
+        void corrupt(File file) throws IOException;
+    }
+
+    public static class SeqEvent implements Serializable {
+        private static final long serialVersionUID = 3517306366358049580L;
+
+        private final int seq;
+
+        public SeqEvent(int seq) {
+            this.seq = seq;
+        }
+
+        public int getSeq() {
+            return seq;
+        }
+    }
+
+    public static class Handler {
+        private final List<Integer> handled = new CopyOnWriteArrayList<>();
+        /** 处理到该事件时阻塞 */
+        private final int blockSeq;
+        private final CountDownLatch blocking = new CountDownLatch(1);
+        private final CountDownLatch blocker = new CountDownLatch(1);
+
+        public Handler(int blockSeq) {
+            this.blockSeq = blockSeq;
+        }
+
+        @EventFunction
+        public void handle(SeqEvent event) throws InterruptedException {
+            if (event.seq == blockSeq) {
+                blocking.countDown();
+                blocker.await();
+            }
+            handled.add(event.seq);
+        }
+    }
+}
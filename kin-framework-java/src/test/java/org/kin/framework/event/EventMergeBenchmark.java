@@ -0,0 +1,106 @@
+package org.kin.framework.event;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 高负载下, {@link EventMerge} WINDOW和DEBOUNCE合并事件的吞吐量
+ * 每次调用连续分发一批事件, 并等待所有事件以合并后的形式处理完成, 所以结果包含一次合并窗口时间
+ *
+ * @author huangjianqin
+ * @date 2022/4/2
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventMergeBenchmark {
+    /** 每次调用分发的事件数 */
+    private static final int BATCH = 10_000;
+
+    @Param({"WINDOW", "DEBOUNCE"})
+    private MergeType mergeType;
+
+    private DefaultOrderedEventBus bus;
+    private Object event;
+    /** 当前批次事件处理完成信号 */
+    private volatile CountDownLatch latch;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(EventMergeBenchmark.class.getSimpleName())
+                //统计对象分配速率
+                .addProfiler(GCProfiler.class)
+                .output("EventMergeBenchmark.log")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        bus = new DefaultOrderedEventBus(4);
+        bus.register(new MergedEventFunctions(this));
+        event = MergeType.WINDOW.equals(mergeType) ? new WindowEvent() : new DebounceEvent();
+    }
+
+    @TearDown
+    public void tearDown() {
+        bus.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void merge() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH);
+        this.latch = latch;
+        for (int i = 0; i < BATCH; i++) {
+            //同一事件类型默认同一分区
+            bus.post(event);
+        }
+        latch.await();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    @EventMerge(type = MergeType.WINDOW, window = 1)
+    public static class WindowEvent {
+    }
+
+    @EventMerge(type = MergeType.DEBOUNCE, window = 1)
+    public static class DebounceEvent {
+    }
+
+    public static class MergedEventFunctions {
+        private final EventMergeBenchmark benchmark;
+
+        public MergedEventFunctions(EventMergeBenchmark benchmark) {
+            this.benchmark = benchmark;
+        }
+
+        @EventFunction
+        public void handleWindowEvents(List<WindowEvent> events) {
+            countDown(events.size());
+        }
+
+        @EventFunction
+        public void handleDebounceEvents(List<DebounceEvent> events) {
+            countDown(events.size());
+        }
+
+        private void countDown(int size) {
+            CountDownLatch latch = benchmark.latch;
+            for (int i = 0; i < size; i++) {
+                latch.countDown();
+            }
+        }
+    }
+}
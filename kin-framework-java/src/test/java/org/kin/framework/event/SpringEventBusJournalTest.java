@@ -0,0 +1,69 @@
+package org.kin.framework.event;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link SpringEventBus}在spring容器refresh后重放journal中未处理的事件
+ * <p>
+ * {@link JournalHandler}没有{@code @Component}注解, 不会被{@link SpringEventBusTest}扫描到
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class SpringEventBusJournalTest {
+    public static void main(String[] args) throws Exception {
+        //模拟上次进程写入journal后未处理就退出
+        File dir = Files.createTempDirectory("event-journal").toFile();
+        EventJournal journal = new EventJournal(dir, 2);
+        int num = 10;
+        for (int i = 0; i < num; i++) {
+            journal.append(1, new EventJournalTest.SeqEvent(i), entry -> {
+            });
+        }
+        journal.close();
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(JournalHandler.class);
+        context.registerBean(SpringEventBus.class, () -> new SpringEventBus(2, false, new EventJournal(dir, 2)));
+        //refresh完成后注册事件处理器并重放
+        context.refresh();
+
+        JournalHandler handler = context.getBean(JournalHandler.class);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (handler.handled.size() < num && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        System.out.println("replay " + handler.handled);
+        check(handler.handled.size() == num);
+        for (int i = 0; i < num; i++) {
+            check(handler.handled.get(i) == i);
+        }
+
+        context.getBean(SpringEventBus.class).shutdown();
+        context.close();
+        System.out.println("finish");
+        System.exit(0);
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException("check fail");
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    @HandleEvent
+    public static class JournalHandler {
+        private final List<Integer> handled = new CopyOnWriteArrayList<>();
+
+        @EventFunction
+        public void handle(EventJournalTest.SeqEvent event) {
+            handled.add(event.getSeq());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.kin.framework.io;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/17
+ */
+public class BufferAllocatorTest {
+    public static void main(String[] args) throws InterruptedException {
+        BufferAllocator allocator = new BufferAllocator();
+        PooledBuffer buffer = allocator.allocate(100);
+        System.out.println(buffer);
+        buffer.retain();
+        System.out.println(buffer.release());
+        System.out.println(buffer.release());
+
+        //复用刚释放的buffer
+        PooledBuffer reused = allocator.allocate(120);
+        System.out.println(reused == buffer);
+        System.out.println(reused);
+        reused.release();
+
+        //超过最大池化容量
+        PooledBuffer unpooled = allocator.allocateDirect(allocator.getMaxPooledSize() + 1);
+        System.out.println(unpooled);
+        unpooled.release();
+
+        int threadNum = 4;
+        CountDownLatch latch = new CountDownLatch(threadNum);
+        for (int i = 0; i < threadNum; i++) {
+            new Thread(() -> {
+                try {
+                    for (int j = 0; j < 100000; j++) {
+                        //至少4 bytes, 足够写入int
+                        PooledBuffer pooledBuffer = allocator.allocate(4 + j % 8192, j % 2 == 0);
+                        pooledBuffer.buffer().putInt(j);
+                        pooledBuffer.release();
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        System.out.println("done");
+    }
+}
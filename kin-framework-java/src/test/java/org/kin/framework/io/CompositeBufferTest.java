@@ -0,0 +1,81 @@
+package org.kin.framework.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/18
+ */
+public class CompositeBufferTest {
+    public static void main(String[] args) throws IOException {
+        ScalableByteBuffer byteBuffer = new ScalableByteBuffer(8, true);
+        for (int i = 0; i < 50; i++) {
+            byteBuffer.writeByte(i);
+        }
+        byteBuffer.toRead();
+        byteBuffer.readByte();
+        byteBuffer.readByte();
+
+        CompositeBuffer compositeBuffer = byteBuffer.toCompositeBuffer();
+        System.out.println(compositeBuffer);
+        System.out.println(Arrays.toString(compositeBuffer.toByteArray()));
+
+        CompositeBuffer slice = byteBuffer.slice(5, 20);
+        System.out.println(Arrays.toString(slice.toByteArray()));
+        CompositeBuffer subSlice = slice.slice(3, 10);
+        subSlice.readerIndex(2);
+        byte[] bytes = new byte[4];
+        subSlice.readBytes(bytes);
+        System.out.println(Arrays.toString(bytes));
+        System.out.println(subSlice.nioBuffers().length);
+
+        File file = File.createTempFile("composite", ".bin");
+        file.deleteOnExit();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            System.out.println(byteBuffer.writeTo(channel));
+            System.out.println(byteBuffer.readableBytes());
+        }
+        System.out.println(Arrays.toString(Files.readAllBytes(file.toPath())));
+        byteBuffer.release();
+
+        //释放后访问视图
+        for (boolean freeOnRelease : new boolean[]{false, true}) {
+            BufferAllocator allocator = new BufferAllocator();
+            ScalableByteBuffer releasable = new ScalableByteBuffer(8, true, freeOnRelease, allocator);
+            for (int i = 0; i < 20; i++) {
+                releasable.writeByte(i);
+            }
+            releasable.toRead();
+            releasable.readByte();
+            CompositeBuffer readSlice = releasable.readSlice(10);
+            CompositeBuffer view = releasable.toCompositeBuffer();
+            CompositeBuffer subView = view.slice(2, 5);
+            System.out.println(Arrays.toString(readSlice.toByteArray()));
+            releasable.release();
+            //池化模式下, 释放的buffer被复用, 引用计数重新变为1
+            ScalableByteBuffer reused = new ScalableByteBuffer(8, true, freeOnRelease, allocator);
+            for (int i = 0; i < 20; i++) {
+                reused.writeByte(-i);
+            }
+            for (CompositeBuffer released : new CompositeBuffer[]{readSlice, view, subView}) {
+                try {
+                    released.readByte();
+                    System.err.println("expect IllegalStateException");
+                } catch (IllegalStateException e) {
+                    System.out.println(e.getMessage());
+                }
+            }
+            try {
+                view.nioBuffers();
+                System.err.println("expect IllegalStateException");
+            } catch (IllegalStateException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.kin.framework.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class CompressionTest {
+    public static void main(String[] args) {
+        test("lz4", Lz4Codec::new);
+        test("deflate", DeflateCodec::new);
+
+        //非法数据
+        try {
+            new Lz4Codec().decompress(new byte[]{(byte) 0x1F, 1, 5, 0}, 0, 4, new byte[100], 0, 100);
+            System.err.println("expect IllegalStateException");
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private static void test(String name, Supplier<CompressionCodec> codecSupplier) {
+        //可压缩数据
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("kin-framework record ").append(i % 100).append(", ");
+        }
+        byte[] text = sb.toString().getBytes(StandardCharsets.UTF_8);
+        //不可压缩数据
+        byte[] random = new byte[200 * 1024];
+        ThreadLocalRandom.current().nextBytes(random);
+
+        ScalableByteArray sink = new ScalableByteArray();
+        CompressedOutput output = new CompressedOutput(sink, codecSupplier.get(), 16 * 1024);
+        output.writeInt(text.length);
+        output.writeBytes(text);
+        output.writeLong(Long.MAX_VALUE);
+        output.writeBytes(random);
+        output.writeVarInt32(-1, true);
+        output.close();
+        System.out.println(name + " raw: " + (text.length + random.length + 13) + ", compressed: " + sink.readableBytes());
+
+        CompressedInput input = new CompressedInput(sink, codecSupplier.get());
+        byte[] readText = new byte[input.readInt()];
+        input.readBytes(readText);
+        System.out.println(Arrays.equals(text, readText));
+        System.out.println(input.readLong() == Long.MAX_VALUE);
+        byte[] readRandom = new byte[random.length];
+        //分多次读, 覆盖部分读和整块直接解压
+        input.readBytes(readRandom, 0, 100);
+        input.readBytes(readRandom, 100, random.length - 100);
+        System.out.println(Arrays.equals(random, readRandom));
+        System.out.println(input.readVarInt32(true) == -1);
+        System.out.println(input.readableBytes() == 0);
+        input.close();
+
+        //边界长度
+        CompressionCodec codec = codecSupplier.get();
+        for (int len = 0; len < 300; len++) {
+            byte[] src = new byte[len];
+            for (int i = 0; i < len; i++) {
+                src[i] = (byte) (i % 7);
+            }
+            byte[] dst = new byte[codec.maxCompressedLength(len)];
+            int compressedLen = codec.compress(src, 0, len, dst, 0);
+            byte[] decompressed = new byte[len];
+            codec.decompress(dst, 0, compressedLen, decompressed, 0, len);
+            if (!Arrays.equals(src, decompressed)) {
+                System.err.println(name + " error, len: " + len);
+            }
+        }
+        codec.close();
+    }
+}
@@ -0,0 +1,87 @@
+package org.kin.framework.io;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class DirectMemoryAccountantTest {
+    public static void main(String[] args) throws InterruptedException {
+        //上限1m, 每次分配都采样
+        DirectMemoryAccountant accountant = new DirectMemoryAccountant(1024 * 1024, 1);
+        BufferAllocator allocator = new BufferAllocator(64 * 1024, accountant);
+
+        PooledBuffer buffer1 = allocator.allocateDirect(512 * 1024, "site1");
+        PooledBuffer buffer2 = allocator.allocateDirect(256 * 1024, "site2");
+        System.out.println(accountant);
+
+        //超过上限
+        try {
+            allocator.allocateDirect(512 * 1024, "site1");
+            System.err.println("expect OutOfMemoryError");
+        } catch (OutOfMemoryError e) {
+            System.out.println(e.getMessage());
+        }
+
+        //非池化buffer释放后, 扣减占用
+        buffer1.release();
+        System.out.println(accountant.getUsedDirectMemory() == 256 * 1024);
+        buffer2.release();
+        System.out.println(accountant.getUsedDirectMemory() == 0);
+
+        //池化buffer释放后归还pool, 仍占用
+        PooledBuffer pooled = allocator.allocateDirect(1024, "site3");
+        pooled.release();
+        System.out.println(accountant.getUsedDirectMemory() == 1024);
+        System.out.println(accountant.getSiteStats().get("site3").outstandingBytes() == 0);
+
+        //泄漏
+        allocator.allocateDirect(128 * 1024, "leak");
+        for (int i = 0; i < 10 && accountant.getLeakCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(100);
+            //分配时检查泄漏
+            allocator.allocateDirect(16, "site3").release();
+        }
+        System.out.println(accountant.getLeakCount() == 1);
+        System.out.println(accountant.getSiteStats().get("leak").outstandingBytes() == 0);
+        System.out.println(accountant);
+
+        //开启freeOnRelease, direct ScalableByteBuffer收缩和释放时立即释放底层内存
+        long used = accountant.getUsedDirectMemory();
+        ScalableByteBuffer scalableByteBuffer = new ScalableByteBuffer(1024, true, true, allocator);
+        scalableByteBuffer.writeBytes(new byte[16 * 1024]);
+        scalableByteBuffer.toRead();
+        System.out.println(accountant.getUsedDirectMemory() - used == 16 * 1024);
+        for (int i = 0; i < 10; i++) {
+            scalableByteBuffer.toWrite();
+            scalableByteBuffer.writeByte((byte) i);
+            scalableByteBuffer.toRead();
+        }
+        System.out.println(accountant.getUsedDirectMemory() - used < 16 * 1024);
+        scalableByteBuffer.release();
+        //可能复用了pool中的buffer, 释放后占用反而比之前少
+        System.out.println(accountant.getUsedDirectMemory() <= used);
+
+        //普通线程退出后, 其本地缓存的direct buffer被回收复用, 不会一直占用
+        DirectMemoryAccountant threadAccountant = new DirectMemoryAccountant(256 * 1024, 0);
+        BufferAllocator threadAllocator = new BufferAllocator(64 * 1024, threadAccountant);
+        for (int i = 0; i < 20; i++) {
+            //每个线程本地缓存64个1k buffer, 不回收则第5个线程即超过上限
+            Thread thread = new Thread(() -> {
+                PooledBuffer[] buffers = new PooledBuffer[64];
+                for (int j = 0; j < buffers.length; j++) {
+                    buffers[j] = threadAllocator.allocateDirect(1024);
+                }
+                for (PooledBuffer pooledBuffer : buffers) {
+                    pooledBuffer.release();
+                }
+            });
+            thread.start();
+            thread.join();
+            System.gc();
+            Thread.sleep(50);
+        }
+        System.out.println(threadAccountant);
+        System.out.println(threadAccountant.getUsedDirectMemory() <= 2 * 64 * 1024);
+    }
+}
@@ -0,0 +1,135 @@
+package org.kin.framework.io;
+
+import org.kin.framework.utils.BytesUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Input}和{@link Output} int/long读写性能
+ * 对比逐字节读写与宽字节读写
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InputOutputPrimitiveBenchmark {
+    /** 每次benchmark读写的long数量 */
+    private static final int COUNT = 1024;
+
+    /** buffer类型 */
+    @Param({"byteArray", "byteBuffer", "directByteBuffer", "unsafe"})
+    private String type;
+
+    private ScalableByteArray byteArray;
+    private ScalableByteBuffer byteBuffer;
+    private ByteBuffer nioBuffer;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(InputOutputPrimitiveBenchmark.class.getSimpleName())
+                //统计对象分配速率
+                .addProfiler(GCProfiler.class)
+                .output("InputOutputPrimitiveBenchmark.log")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        byteArray = new ScalableByteArray(4096);
+        byteBuffer = new ScalableByteBuffer(4096, "directByteBuffer".equals(type));
+        nioBuffer = ByteBuffer.allocateDirect(COUNT * 8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        byteArray.release();
+        byteBuffer.release();
+    }
+
+    /**
+     * 准备写
+     */
+    private Output output() {
+        switch (type) {
+            case "byteArray":
+                byteArray.toWrite();
+                return byteArray;
+            case "unsafe":
+                nioBuffer.clear();
+                return new UnsafeByteBufferOutput(nioBuffer);
+            default:
+                byteBuffer.toWrite();
+                return byteBuffer;
+        }
+    }
+
+    /**
+     * 写完准备读
+     */
+    private Input input() {
+        switch (type) {
+            case "byteArray":
+                byteArray.toRead();
+                return byteArray;
+            case "unsafe":
+                nioBuffer.flip();
+                return new UnsafeByteBufferInput(nioBuffer);
+            default:
+                byteBuffer.toRead();
+                return byteBuffer;
+        }
+    }
+
+    /**
+     * 逐字节读写, 即原来{@link BytesUtils}的实现
+     */
+    @Benchmark
+    public void byteByByte(Blackhole blackhole) {
+        Output output = output();
+        for (int i = 0; i < COUNT; i++) {
+            long value = i;
+            for (int j = 0; j < 8; j++) {
+                output.writeByte((int) (value >> (j << 3)));
+            }
+        }
+
+        Input input = input();
+        for (int i = 0; i < COUNT; i++) {
+            long value = 0;
+            for (int j = 0; j < 8; j++) {
+                value |= (input.readByte() & 0xFFL) << (j << 3);
+            }
+            blackhole.consume(value);
+        }
+    }
+
+    /**
+     * 宽字节读写
+     */
+    @Benchmark
+    public void wide(Blackhole blackhole) {
+        Output output = output();
+        for (int i = 0; i < COUNT; i++) {
+            output.writeLongLE(i);
+        }
+
+        Input input = input();
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(input.readLongLE());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.kin.framework.io;
+
+import org.kin.framework.utils.UnsafeUtf8Util;
+import org.kin.framework.utils.VarIntUtils;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/18
+ */
+public class MappedFileTest {
+    public static void main(String[] args) throws IOException {
+        File file = File.createTempFile("mapped", ".bin");
+        file.deleteOnExit();
+
+        //小窗口, 测试跨窗口读写
+        MappedFileOutput output = new MappedFileOutput(file, 64);
+        for (int i = 0; i < 1000; i++) {
+            VarIntUtils.writeRawVarInt64(output, i * 1234567L, true);
+            String s = "record-" + i;
+            VarIntUtils.writeRawVarInt32(output, UnsafeUtf8Util.encodedLength(s));
+            output.writeUtf8(s);
+        }
+        System.out.println(output);
+        output.close();
+        System.out.println(file.length());
+
+        MappedFileInput input = new MappedFileInput(file, 64);
+        for (int i = 0; i < 1000; i++) {
+            long l = VarIntUtils.readRawVarInt64(input, true);
+            String s = input.readUtf8(VarIntUtils.readRawVarInt32(input));
+            if (l != i * 1234567L || !s.equals("record-" + i)) {
+                throw new IllegalStateException(String.format("%d, %d, %s", i, l, s));
+            }
+        }
+        System.out.println(input);
+        input.readerIndex(0);
+        System.out.println(VarIntUtils.readRawVarInt64(input, true));
+        input.close();
+    }
+}
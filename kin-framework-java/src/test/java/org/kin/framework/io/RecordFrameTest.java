@@ -0,0 +1,109 @@
+package org.kin.framework.io;
+
+import org.kin.framework.utils.Crc32c;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.Checksum;
+
+/**
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class RecordFrameTest {
+    public static void main(String[] args) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<byte[]> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            byte[] record = new byte[random.nextInt(300)];
+            random.nextBytes(record);
+            records.add(record);
+        }
+
+        //jdk实现与查表实现结果一致
+        Checksum jdkCrc32c = Crc32c.newChecksum();
+        Crc32c crc32c = new Crc32c();
+        jdkCrc32c.update(records.get(1), 0, records.get(1).length);
+        crc32c.update(records.get(1), 0, records.get(1).length);
+        System.out.println(jdkCrc32c.getClass().getName() + " " + (jdkCrc32c.getValue() == crc32c.getValue()));
+
+        //record跨ScalableByteBuffer的多个ByteBuffer
+        RecordFrameWriter writer = new RecordFrameWriter(true);
+        ScalableByteBuffer byteBuffer = new ScalableByteBuffer(64, true);
+        for (byte[] record : records) {
+            writer.write(byteBuffer, record);
+        }
+        byteBuffer.toRead();
+        byte[] bytes = byteBuffer.toByteArray();
+
+        RecordFrameReader reader = new RecordFrameReader(true);
+        boolean match = true;
+        for (byte[] record : records) {
+            match &= Arrays.equals(record, reader.read(byteBuffer).toByteArray());
+        }
+        System.out.println(match + " " + reader.read(byteBuffer));
+        byteBuffer.release();
+
+        //增量接收数据
+        int offset = 0;
+        int idx = 0;
+        match = true;
+        while (offset < bytes.length) {
+            int len = Math.min(bytes.length - offset, random.nextInt(1, 200));
+            reader.feed(ByteBuffer.wrap(Arrays.copyOfRange(bytes, offset, offset + len)));
+            offset += len;
+            CompositeBuffer record;
+            while ((record = reader.next()) != null) {
+                match &= Arrays.equals(records.get(idx++), record.toByteArray());
+            }
+        }
+        System.out.println(match + " " + idx + " " + reader);
+
+        //不完整帧的长度跨ScalableByteBuffer的ByteBuffer边界, 重置reader index后, 后续ByteBuffer的position也需重置
+        RecordFrameWriter plainWriter = new RecordFrameWriter(false);
+        ScalableByteBuffer frames = new ScalableByteBuffer(64);
+        //1 byte长度 + 62 bytes, 第二帧的2 bytes长度位于第63和64 byte
+        plainWriter.write(frames, Arrays.copyOf(records.get(0), 62));
+        byte[] large = new byte[200];
+        random.nextBytes(large);
+        plainWriter.write(frames, large);
+        frames.toRead();
+        byte[] frameBytes = frames.toByteArray();
+        frames.release();
+
+        ScalableByteBuffer partial = new ScalableByteBuffer(64);
+        int partialLength = 63 + 2 + 50;
+        partial.writeBytes(frameBytes, 0, partialLength);
+        partial.toRead();
+        RecordFrameReader plainReader = new RecordFrameReader(false);
+        match = Arrays.equals(Arrays.copyOf(records.get(0), 62), plainReader.read(partial).toByteArray());
+        match &= plainReader.read(partial) == null;
+        match &= partial.readerIndex() == 63 && partial.readableBytes() == partialLength - 63;
+        byte[] remaining = new byte[partialLength - 63];
+        partial.readBytes(remaining, 0, remaining.length);
+        match &= Arrays.equals(Arrays.copyOfRange(frameBytes, 63, partialLength), remaining);
+        //reader index回退到更早的ByteBuffer后, 可重新读取
+        partial.readerIndex(0);
+        match &= Arrays.equals(Arrays.copyOf(records.get(0), 62), plainReader.read(partial).toByteArray());
+        match &= plainReader.read(partial) == null && partial.readerIndex() == 63;
+        partial.release();
+        System.out.println("partial frame across buffers: " + match);
+        if (!match) {
+            throw new IllegalStateException("partial frame across buffers check fail");
+        }
+
+        //数据损坏
+        bytes[bytes.length - 1]++;
+        ByteBufferInput input = new ByteBufferInput(ByteBuffer.wrap(bytes));
+        try {
+            while (reader.read(input) != null) {
+                //do nothing
+            }
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.kin.framework.io;
+
+import org.kin.framework.utils.VarIntUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * var int解析性能
+ * 对比逐字节解析与SWAR解析
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VarIntBenchmark {
+    private static final int COUNT = 1024;
+
+    /** var int最大字节数 */
+    @Param({"1", "3", "5"})
+    private int maxBytes;
+
+    private ByteBuffer byteBuffer;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(VarIntBenchmark.class.getSimpleName())
+                //统计对象分配速率
+                .addProfiler(GCProfiler.class)
+                .output("VarIntBenchmark.log")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        int[] values = new int[COUNT];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int bound = maxBytes >= 5 ? Integer.MAX_VALUE : 1 << (7 * maxBytes);
+        for (int i = 0; i < COUNT; i++) {
+            values[i] = random.nextInt(bound);
+        }
+        byteBuffer = ByteBuffer.allocateDirect(COUNT * 5);
+        VarIntUtils.writeRawVarInt32s(new ByteBufferOutput(byteBuffer), values, 0, COUNT, false);
+        byteBuffer.flip();
+    }
+
+    /**
+     * 逐字节解析
+     */
+    @Benchmark
+    public void byteByByte(Blackhole blackhole) {
+        byteBuffer.rewind();
+        Input input = new ByteBufferInput(byteBuffer);
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(VarIntUtils.readRawVarInt32(input));
+        }
+    }
+
+    /**
+     * SWAR解析
+     */
+    @Benchmark
+    public void swar(Blackhole blackhole) {
+        byteBuffer.rewind();
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(VarIntUtils.readRawVarInt32(byteBuffer));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.kin.framework.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UnsafeUtf8Util} utf8编解码性能
+ * 对比jdk {@link String#getBytes(java.nio.charset.Charset)}和{@link String#String(byte[], java.nio.charset.Charset)}
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Utf8Benchmark {
+    /**
+     * 字符串内容
+     * ascii: 纯ASCII
+     * latin1: 含少量0x80-0xFF字符
+     * mixed: ASCII为主, 含少量中文
+     * cjk: 纯中文
+     */
+    @Param({"ascii", "latin1", "mixed", "cjk"})
+    private String workload;
+    /** 字符串长度 */
+    @Param({"16", "256"})
+    private int length;
+
+    private String str;
+    private byte[] bytes;
+    private byte[] out;
+    private ByteBuffer directOut;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(Utf8Benchmark.class.getSimpleName())
+                //统计对象分配速率
+                .addProfiler(GCProfiler.class)
+                .output("Utf8Benchmark.log")
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = (char) ('a' + random.nextInt(26));
+            switch (workload) {
+                case "latin1":
+                    if (i % 16 == 15) {
+                        c = (char) (0xC0 + random.nextInt(0x40));
+                    }
+                    break;
+                case "mixed":
+                    if (i % 16 == 15) {
+                        c = (char) (0x4E00 + random.nextInt(0x5000));
+                    }
+                    break;
+                case "cjk":
+                    c = (char) (0x4E00 + random.nextInt(0x5000));
+                    break;
+                default:
+                    break;
+            }
+            sb.append(c);
+        }
+        str = sb.toString();
+        bytes = str.getBytes(StandardCharsets.UTF_8);
+        out = new byte[length * UnsafeUtf8Util.MAX_BYTES_PER_CHAR];
+        directOut = ByteBuffer.allocateDirect(length * UnsafeUtf8Util.MAX_BYTES_PER_CHAR);
+    }
+
+    @Benchmark
+    public byte[] jdkEncode() {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int encode() {
+        return UnsafeUtf8Util.encodeUtf8(str, out, 0, out.length);
+    }
+
+    @Benchmark
+    public int encodeDirect() {
+        directOut.clear();
+        UnsafeUtf8Util.encodeUtf8Direct(str, directOut);
+        return directOut.position();
+    }
+
+    @Benchmark
+    public int encodedLength() {
+        return UnsafeUtf8Util.encodedLength(str);
+    }
+
+    @Benchmark
+    public String jdkDecode() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decode() {
+        return UnsafeUtf8Util.decodeUtf8(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,51 @@
+package org.kin.framework.utils;
+
+import org.kin.framework.io.ScalableByteArray;
+import org.kin.framework.io.ScalableByteBuffer;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 批量编解码var int/long, 并校验SWAR解析结果
+ *
+ * @author huangjianqin
+ * @date 2022/4/19
+ */
+public class VarIntBatchTest {
+    public static void main(String[] args) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] ints = new int[1000];
+        long[] longs = new long[1000];
+        for (int i = 0; i < ints.length; i++) {
+            //覆盖1-10字节的var int
+            ints[i] = random.nextInt() >> random.nextInt(32);
+            longs[i] = random.nextLong() >> random.nextInt(64);
+        }
+
+        ScalableByteArray byteArray = new ScalableByteArray(64);
+        VarIntUtils.writeRawVarInt32s(byteArray, ints, 0, ints.length, true);
+        VarIntUtils.writeRawVarInt64s(byteArray, longs, 0, longs.length, false);
+        byteArray.toRead();
+        int[] readInts = new int[ints.length];
+        long[] readLongs = new long[longs.length];
+        VarIntUtils.readRawVarInt32s(byteArray, readInts, 0, readInts.length, true);
+        VarIntUtils.readRawVarInt64s(byteArray, readLongs, 0, readLongs.length, false);
+        System.out.println(Arrays.equals(ints, readInts) && Arrays.equals(longs, readLongs));
+        byteArray.release();
+
+        //逐个写, 批量读
+        ScalableByteBuffer byteBuffer = new ScalableByteBuffer(64, true);
+        for (int i = 0; i < ints.length; i++) {
+            byteBuffer.writeVarInt32(ints[i]);
+            byteBuffer.writeVarInt64(longs[i], true);
+        }
+        byteBuffer.toRead();
+        for (int i = 0; i < ints.length; i++) {
+            readInts[i] = byteBuffer.readVarInt32();
+            readLongs[i] = byteBuffer.readVarInt64(true);
+        }
+        System.out.println(Arrays.equals(ints, readInts) && Arrays.equals(longs, readLongs));
+        byteBuffer.release();
+    }
+}